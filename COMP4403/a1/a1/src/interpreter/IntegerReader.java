@@ -0,0 +1,103 @@
+package interpreter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * class IntegerReader - Batched input of integers, one per line.
+ * Input is read in large blocks and each line is parsed directly from the
+ * byte buffer, without creating Strings. A line is accepted or rejected
+ * exactly as by Integer.parseInt(BufferedReader.readLine()).
+ */
+public class IntegerReader {
+
+    /**
+     * Size of the input buffer in bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    /**
+     * Position of the next byte to read and end of the valid bytes
+     */
+    private int position = 0;
+    private int limit = 0;
+
+    public IntegerReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Read the next line, which must consist of an optionally signed
+     * integer within the range of an int.
+     * @throws NumberFormatException if the line is not an integer or at
+     *         end of input
+     */
+    public int readInt() throws IOException {
+        int b = next();
+        if (b < 0) {
+            throw new NumberFormatException("end of input");
+        }
+        boolean negative = false;
+        boolean valid = true;
+        if (b == '-' || b == '+') {
+            negative = (b == '-');
+            b = next();
+        }
+        /* Accumulate negatively as the negative range is the larger */
+        int result = 0;
+        int digits = 0;
+        while (b >= 0 && b != '\n' && b != '\r') {
+            if (valid && '0' <= b && b <= '9') {
+                int digit = b - '0';
+                if (result < (Integer.MIN_VALUE + digit) / 10) {
+                    valid = false;  // overflow
+                }
+                result = result * 10 - digit;
+                digits++;
+            } else {
+                valid = false;
+            }
+            b = next();
+        }
+        if (b == '\r' && peek() == '\n') {
+            next();
+        }
+        if (!valid || digits == 0 || (!negative && result == Integer.MIN_VALUE)) {
+            throw new NumberFormatException("invalid integer");
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * @return the next byte of input, or -1 at end of input
+     */
+    private int next() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++] & 0xff;
+    }
+
+    /**
+     * @return the next byte of input without consuming it, or -1
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xff;
+    }
+
+    /**
+     * Refill the buffer, blocking until some input is available.
+     * @return false at end of input
+     */
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, BUFFER_SIZE);
+        position = 0;
+        limit = Math.max(n, 0);
+        return n > 0;
+    }
+}
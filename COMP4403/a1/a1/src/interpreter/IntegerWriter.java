@@ -0,0 +1,83 @@
+package interpreter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * class IntegerWriter - Batched output of integers, one per line.
+ * Values are formatted directly into a large byte buffer, without creating
+ * Strings, and written to the underlying stream only when the buffer fills
+ * or on an explicit flush. The bytes written are identical to those of
+ * PrintStream.println(int).
+ */
+public class IntegerWriter {
+
+    /**
+     * Size of the output buffer in bytes
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Longest formatted int: sign, 10 digits and a line separator
+     */
+    private static final int MAX_LINE = 11 + System.lineSeparator().length();
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    /**
+     * Number of bytes in the buffer not yet written out
+     */
+    private int count = 0;
+    private final byte[] lineSeparator = System.lineSeparator().getBytes();
+
+    public IntegerWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Append the value followed by a line separator.
+     */
+    public void println(int value) {
+        if (count + MAX_LINE > BUFFER_SIZE) {
+            flush();
+        }
+        if (value == Integer.MIN_VALUE) {
+            /* Can't be negated */
+            for (char c : "-2147483648".toCharArray()) {
+                buffer[count++] = (byte) c;
+            }
+        } else {
+            if (value < 0) {
+                buffer[count++] = '-';
+                value = -value;
+            }
+            /* Digits are generated least significant first, so count them
+             * first to place them directly in the buffer */
+            int digits = 1;
+            for (int v = value; v >= 10; v /= 10) {
+                digits++;
+            }
+            count += digits;
+            int i = count;
+            do {
+                buffer[--i] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value != 0);
+        }
+        for (byte b : lineSeparator) {
+            buffer[count++] = b;
+        }
+    }
+
+    /**
+     * Write out any buffered output.
+     */
+    public void flush() {
+        try {
+            out.write(buffer, 0, count);
+            out.flush();
+        } catch (IOException e) {
+            /* As for a PrintStream, output errors are not reported */
+        }
+        count = 0;
+    }
+}
@@ -3,6 +3,7 @@ package interpreter;
 import java.util.*;
 
 import java_cup.runtime.ComplexSymbolFactory.Location;
+import source.CoverageListing;
 import source.VisitorDebugger;
 import source.Errors;
 import syms.SymEntry;
@@ -25,6 +26,18 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     private final BufferedReader in;
 
+    /**
+     * Batched integer input and output for read and write statements, or
+     * null if they use the line reader and output stream directly
+     */
+    private IntegerReader batchIn = null;
+    private IntegerWriter batchOut = null;
+
+    /**
+     * Program input stream
+     */
+    private final InputStream inputStream;
+
     /**
      * Errors are reported through the error handler.
      */
@@ -46,6 +59,44 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      **/
     private Frame currentFrame;
 
+    /**
+     * Number of times each statement has been executed, if measuring
+     * coverage, otherwise null. The count of a while statement or a branch
+     * of a do statement is the number of times its condition is evaluated.
+     */
+    private Map<StatementNode, long[]> executions = null;
+
+    /**
+     * Whether the branches of a cobegin statement may run on threads of
+     * their own; they run one after another if not, or if measuring
+     * coverage, which is not synchronised
+     */
+    private boolean parallel = true;
+
+    /**
+     * The interpreters running the branches of cobegin statements share
+     * the frames of the statement's procedure and its callers, and the
+     * input and output. Once one of them has a runtime error the others
+     * are halted, so that only the first error is reported.
+     */
+    private static class Family {
+        volatile boolean failed = false;
+    }
+
+    /**
+     * Thrown to halt an interpreter running a branch once another has
+     * had a runtime error
+     */
+    private static class Halted extends Error {
+        private static final long serialVersionUID = 1L;
+
+        Halted() {
+            super("halted", null, false, false);
+        }
+    }
+
+    private final Family family;
+
     /**
      * Construct a new interpreter
      *
@@ -58,7 +109,63 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
         this.errors = errors;
         this.debug = new VisitorDebugger("executing", errors);
         this.in = new BufferedReader(new InputStreamReader(inputStream));
+        this.inputStream = inputStream;
         this.outStream = outStream;
+        this.family = new Family();
+    }
+
+    /**
+     * Construct an interpreter to run a branch of a cobegin statement
+     * executed by the parent, in the parent's current frame
+     */
+    private Interpreter(Interpreter parent) {
+        this.errors = parent.errors;
+        this.debug = new VisitorDebugger("executing", errors);
+        this.in = parent.in;
+        this.inputStream = parent.inputStream;
+        this.outStream = parent.outStream;
+        this.batchIn = parent.batchIn;
+        this.batchOut = parent.batchOut;
+        this.family = parent.family;
+        this.currentFrame = parent.currentFrame;
+    }
+
+    /**
+     * Specify whether read and write statements use batched input and
+     * output. Output is flushed before a runtime error is reported, so
+     * the result is identical to unbatched output.
+     */
+    public void setBatchIO(boolean batch) {
+        batchIn = batch ? new IntegerReader(inputStream) : null;
+        batchOut = batch ? new IntegerWriter(outStream) : null;
+    }
+
+    /**
+     * Count the executions of each statement, so that the coverage of
+     * the source lines can be reported.
+     */
+    public void setCoverage(boolean coverage) {
+        executions = coverage ? new IdentityHashMap<>() : null;
+    }
+
+    /**
+     * Specify whether the branches of a cobegin statement run in
+     * parallel, on threads of their own, or one after another.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    /**
+     * Add the number of times each line of the program has been executed
+     * to a coverage listing. The count of a line is the largest count of
+     * the statements starting on it.
+     * Requires that coverage has been set.
+     *
+     * @param node Abstract syntax tree for the main program.
+     */
+    public void addCoverage(DeclNode.ProcedureNode node, CoverageListing listing) {
+        node.getBlock().accept(new CoverageCollector(listing));
     }
 
     /**
@@ -72,12 +179,25 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
         /* Setup the main frame */
         currentFrame = new Frame(null, null, procEntry);
         /* Execute main procedure code body */
-        visitBlockNode(procEntry.getBlock());
+        try {
+            visitBlockNode(procEntry.getBlock());
+        } finally {
+            flushOutput();
+        }
         endExec("Program");
     }
 
     /* Statement Execution */
 
+    /**
+     * Count an execution of a statement, if measuring coverage
+     */
+    private void count(StatementNode node) {
+        if (executions != null) {
+            executions.computeIfAbsent(node, n -> new long[1])[0]++;
+        }
+    }
+
     /**
      * Execute code for a block statement
      */
@@ -128,6 +248,7 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public void visitAssignmentNode(StatementNode.AssignmentNode node) {
         beginExec("Assignment");
+        count(node);
         List<Value> values = new LinkedList<>();
         /* Evaluate all code to be assigned before assigning any */
         for (int i = 0; i < node.getConditions().size(); i++) {
@@ -146,10 +267,18 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public void visitReadNode(StatementNode.ReadNode node) {
         beginExec("Read");
+        count(node);
         /* Read next int from standard input */
         IntegerValue result = null;
         try {
-            result = new IntegerValue(Integer.parseInt(in.readLine()));
+            synchronized (family) {
+                if (batchIn != null) {
+                    flushOutput(); // in case the input is interactive
+                    result = new IntegerValue(batchIn.readInt());
+                } else {
+                    result = new IntegerValue(Integer.parseInt(in.readLine()));
+                }
+            }
         } catch (Exception e) {
             runtime("invalid value read - must be an integer",
                     node.getLocation(), currentFrame);
@@ -165,10 +294,17 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public void visitWriteNode(StatementNode.WriteNode node) {
         beginExec("Write");
+        count(node);
         /* Evaluate the write expression */
         int result = node.getExp().evaluate(this).getInteger();
         /* Print the result to the outStream */
-        outStream.println(result);
+        synchronized (family) {
+            if (batchOut != null) {
+                batchOut.println(result);
+            } else {
+                outStream.println(result);
+            }
+        }
         endExec("Write");
     }
 
@@ -177,6 +313,8 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public void visitCallNode(StatementNode.CallNode node) {
         beginExec("Call");
+        count(node);
+        checkHalted();
         /* Decent to the executing procedures frame */
         currentFrame = currentFrame.enterFrame(node.getEntry());
         /* Resolve the code block to call and execute the block */
@@ -192,6 +330,7 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public void visitIfNode(StatementNode.IfNode node) {
         beginExec("If");
+        count(node);
         ExpNode condition = node.getCondition();
         if (condition.evaluate(this).getInteger() == Type.TRUE_VALUE) {
             /* Execute then statement if condition evaluates to true */
@@ -208,10 +347,13 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public void visitWhileNode(StatementNode.WhileNode node) {
         beginExec("While");
+        count(node);
         /* Execute loop statement while the condition is true */
         ExpNode condition = node.getCondition();
         while (condition.evaluate(this).getInteger() == Type.TRUE_VALUE) {
             node.getLoopStmt().accept(this);
+            count(node);
+            checkHalted();
         }
         endExec("While");
     }
@@ -221,6 +363,7 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public void visitSkipNode(StatementNode.SkipNode node) {
         beginExec("Skip");
+        count(node);
         endExec("Skip");
     }
 
@@ -233,6 +376,7 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public int visitDoBranchNode(StatementNode.DoBranchNode node) {
         beginExec("DoBranch");
+        count(node);
         ExpNode condition = node.getCondition();
         if (condition.evaluate(this).getInteger() == Type.TRUE_VALUE) {
             // Execute statement if condition evaluates to true
@@ -255,8 +399,10 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
      */
     public void visitDoStatementNode(StatementNode.DoStatementNode node) {
         beginExec("DoStatement");
+        count(node);
         boolean done = false;
         while (!done) {
+            checkHalted();
             // Keeps track for if no branch runs
             boolean branchFound = false;
             for (StatementNode branch : node.getBranches()) {
@@ -285,6 +431,89 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
         endExec("DoStatement");
     }
 
+    /**
+     * Execute code for a cobegin statement. Each branch but the last runs
+     * on a thread of its own, and the last on the current thread, which
+     * then waits for the others.
+     */
+    public void visitCobeginNode(StatementNode.CobeginNode node) {
+        beginExec("Cobegin");
+        count(node);
+        List<StatementNode> branches = node.getBranches();
+        if (!parallel || executions != null) {
+            for (StatementNode branch : branches) {
+                branch.accept(this);
+            }
+            endExec("Cobegin");
+            return;
+        }
+        int forked = branches.size() - 1;
+        Thread[] threads = new Thread[forked];
+        Throwable[] failures = new Throwable[branches.size()];
+        for (int i = 0; i < forked; i++) {
+            final int branch = i;
+            Interpreter interpreter = new Interpreter(this);
+            threads[i] = new Thread(() -> {
+                try {
+                    branches.get(branch).accept(interpreter);
+                } catch (Error | RuntimeException e) {
+                    failures[branch] = e;
+                }
+            }, "branch");
+            threads[i].start();
+        }
+        try {
+            branches.get(forked).accept(this);
+        } catch (Error | RuntimeException e) {
+            failures[forked] = e;
+        }
+        for (Thread thread : threads) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        rethrowFirst(failures);
+        endExec("Cobegin");
+    }
+
+    /**
+     * Rethrow the failure of a branch, if any, preferring the one that
+     * was reported to those of the branches it halted.
+     */
+    private static void rethrowFirst(Throwable[] failures) {
+        Throwable first = null;
+        for (Throwable failure : failures) {
+            if (failure != null && (first == null || first instanceof Halted)) {
+                first = failure;
+            }
+        }
+        if (first instanceof Error) {
+            throw (Error) first;
+        } else if (first != null) {
+            throw (RuntimeException) first;
+        }
+    }
+
+    /**
+     * Halt if another branch has had a runtime error. Checked on every
+     * iteration of a loop and on every call, so that a branch that would
+     * not end does not keep the program from ending.
+     */
+    private void checkHalted() {
+        if (family.failed) {
+            throw new Halted();
+        }
+    }
+
     /* Expression Evaluations */
 
     /**
@@ -458,12 +687,121 @@ public class Interpreter implements StatementVisitor, ExpTransform<Value> {
 
     /* Supporting Methods */
 
+    /**
+     * Adds the counts of every statement, executed or not, to a coverage
+     * listing, including the statements of procedures never called
+     */
+    private class CoverageCollector implements StatementVisitor, DeclVisitor {
+        private final CoverageListing listing;
+
+        CoverageCollector(CoverageListing listing) {
+            this.listing = listing;
+        }
+
+        private void add(StatementNode node) {
+            long[] count = executions.get(node);
+            listing.add(node.getLocation().getLine(), count == null ? 0 : count[0]);
+        }
+
+        public void visitDeclListNode(DeclNode.DeclListNode node) {
+            for (DeclNode decl : node.getDeclarations()) {
+                decl.accept(this);
+            }
+        }
+
+        public void visitProcedureNode(DeclNode.ProcedureNode node) {
+            node.getBlock().accept(this);
+        }
+
+        public void visitBlockNode(StatementNode.BlockNode node) {
+            node.getProcedures().accept(this);
+            node.getBody().accept(this);
+        }
+
+        public void visitStatementErrorNode(StatementNode.ErrorNode node) {
+        }
+
+        public void visitStatementListNode(StatementNode.ListNode node) {
+            for (StatementNode statement : node.getStatements()) {
+                statement.accept(this);
+            }
+        }
+
+        public void visitAssignmentNode(StatementNode.AssignmentNode node) {
+            add(node);
+        }
+
+        public void visitReadNode(StatementNode.ReadNode node) {
+            add(node);
+        }
+
+        public void visitWriteNode(StatementNode.WriteNode node) {
+            add(node);
+        }
+
+        public void visitCallNode(StatementNode.CallNode node) {
+            add(node);
+        }
+
+        public void visitIfNode(StatementNode.IfNode node) {
+            add(node);
+            node.getThenStmt().accept(this);
+            node.getElseStmt().accept(this);
+        }
+
+        public void visitWhileNode(StatementNode.WhileNode node) {
+            add(node);
+            node.getLoopStmt().accept(this);
+        }
+
+        public void visitSkipNode(StatementNode.SkipNode node) {
+            add(node);
+        }
+
+        public int visitDoBranchNode(StatementNode.DoBranchNode node) {
+            add(node);
+            node.getStmtList().accept(this);
+            return 0;
+        }
+
+        public void visitDoStatementNode(StatementNode.DoStatementNode node) {
+            add(node);
+            for (StatementNode branch : node.getBranches()) {
+                branch.accept(this);
+            }
+        }
+
+        public void visitCobeginNode(StatementNode.CobeginNode node) {
+            add(node);
+            for (StatementNode branch : node.getBranches()) {
+                branch.accept(this);
+            }
+        }
+    }
+
+    /**
+     * Write out any batched output
+     */
+    private void flushOutput() {
+        if (batchOut != null) {
+            batchOut.flush();
+        }
+    }
+
     /**
      * Signal a runtime error has occurred at a given location
      */
     private void runtime(String m, Location loc, Frame frame) {
-        String error = m + System.lineSeparator() + frame.toString();
-        errors.fatal(error, loc);
+        synchronized (family) {
+            if (family.failed) {
+                // Only the first error is reported
+                throw new Halted();
+            }
+            family.failed = true;
+            flushOutput();
+            String error = m + System.lineSeparator() + frame.toString();
+            errors.fatal(error, loc);
+        }
     }
 
     /**
@@ -44,7 +44,8 @@ import java_cup.runtime.ComplexSymbolFactory.Location;
  * CompoundStatement -> KW_BEGIN StatementList KW_END
  * StatementList -> Statement { SEMICOLON Statement }
  * Statement -> WhileStatement | IfStatement | CallStatement | Assignment |
- *          ReadStatement | WriteStatement | CompoundStatement
+ *          ReadStatement | WriteStatement | CompoundStatement |
+ *          CobeginStatement
  * Assignment -> LValue ASSIGN Condition
  * WhileStatement -> KW_WHILE Condition KW_DO Statement
  * IfStatement -> KW_IF Condition KW_THEN Statement KW_ELSE Statement
@@ -52,6 +53,7 @@ import java_cup.runtime.ComplexSymbolFactory.Location;
  * ActualParameters ->
  * ReadStatement -> KW_READ LValue
  * WriteStatement -> KW_WRITE Exp
+ * CobeginStatement -> KW_COBEGIN StatementList { LOG_OR StatementList } KW_COEND
  * Condition -> RelCondition
  * RelCondition -> Exp [ RelOp Exp ]
  * RelOp   -> EQUALS | NEQUALS | LEQUALS | LESS | GREATER | GEQUALS
@@ -508,7 +510,7 @@ public class Parser {
             LVALUE_START_SET.union(Token.KW_WHILE, Token.KW_IF,
                     Token.KW_READ, Token.KW_WRITE,
                     Token.KW_CALL, Token.KW_BEGIN,
-                    Token.KW_SKIP, Token.KW_DO);
+                    Token.KW_SKIP, Token.KW_DO, Token.KW_COBEGIN);
 
     /**
      * Rule: CompoundStatement -> BEGIN StatementList END
@@ -549,7 +551,7 @@ public class Parser {
     /**
      * Rule: Statement -> Assignment | WhileStatement | IfStatement
      * | ReadStatement | WriteStatement | CallStatement
-     * | CompoundStatement | SkipStatement
+     * | CompoundStatement | SkipStatement | CobeginStatement
      */
     private StatementNode parseStatement(TokenSet recoverSet) {
         return stmt.parse("Statement", STATEMENT_START_SET, recoverSet,
@@ -578,6 +580,8 @@ public class Parser {
                             return parseDoStatement(recoverSet);
                         case KW_SKIP:
                             return parseSkipStatement(recoverSet);
+                        case KW_COBEGIN:
+                            return parseCobeginStatement(recoverSet);
                         default:
                             fatal("parseStatement");
                             // To keep the Java compiler happy - can't reach here
@@ -671,6 +675,29 @@ public class Parser {
                 });
     }
 
+    /**
+     * Rule: CobeginStatement ->
+     *           KW_COBEGIN StatementList { LOG_OR StatementList } KW_COEND
+     */
+    private StatementNode parseCobeginStatement(TokenSet recoverSet) {
+        return stmt.parse("Cobegin Statement", Token.KW_COBEGIN, recoverSet,
+                () -> {
+                    Location loc = tokens.getLocation();
+                    tokens.match(Token.KW_COBEGIN);
+                    List<StatementNode> branches = new LinkedList<>();
+                    // Branch can be followed by '||' or 'coend'
+                    branches.add(parseStatementList(recoverSet
+                            .union(Token.LOG_OR, Token.KW_COEND)));
+                    while (tokens.isMatch(Token.LOG_OR)) {
+                        tokens.match(Token.LOG_OR);
+                        branches.add(parseStatementList(recoverSet
+                                .union(Token.LOG_OR, Token.KW_COEND)));
+                    }
+                    tokens.match(Token.KW_COEND, recoverSet);
+                    return new StatementNode.CobeginNode(loc, branches);
+                });
+    }
+
     /**
      * Rule: WhileStatement -> KW_WHILE Condition KW_DO Statement
      */
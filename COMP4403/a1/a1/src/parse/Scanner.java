@@ -24,6 +24,8 @@ public class Scanner implements java.util.Iterator<LexicalToken> {
         addKeyword(Token.KW_BEGIN);
         addKeyword(Token.KW_EXIT);
         addKeyword(Token.KW_CALL);
+        addKeyword(Token.KW_COBEGIN);
+        addKeyword(Token.KW_COEND);
         addKeyword(Token.KW_CONST);
         addKeyword(Token.KW_DO);
         addKeyword(Token.KW_ELSE);
@@ -30,6 +30,8 @@ public enum Token {
     SEPARATOR("[]"),
     KW_BEGIN("begin"),
     KW_CALL("call"),
+    KW_COBEGIN("cobegin"),
+    KW_COEND("coend"),
     KW_CONST("const"),
     KW_DO("do"),
     KW_ELSE("else"),
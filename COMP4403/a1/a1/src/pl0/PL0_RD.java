@@ -4,6 +4,7 @@ import interpreter.Interpreter;
 import parse.Parser;
 import parse.Scanner;
 import parse.TokenStream;
+import source.CoverageListing;
 import source.Errors;
 import source.Source;
 import tree.DeclNode;
@@ -24,13 +25,21 @@ public class PL0_RD extends Runner {
      **/
     private static final String PROGRAM_NAME = "pl0.PL0_RD";
 
+    /**
+     * Source of the program, for the coverage listing
+     **/
+    private Source source = null;
+
     public PL0_RD() {
         configurations.put('i', new Option("turn off interpreting", false));
+        configurations.put('b', new Option("batch input and output of read and write", false));
+        configurations.put('C', new Option("list the number of times each source line is executed", false));
     }
 
     @Override
     public DeclNode.ProcedureNode parse(Source src) {
         DeclNode.ProcedureNode result;
+        source = src;
         /* Set up the lexical analyzer using the source program stream */
         Scanner lex = new Scanner(src);
         /* Recursive descent parser.
@@ -50,12 +59,24 @@ public class PL0_RD extends Runner {
 
         output.println("Running ...");
         Interpreter interpreter = new Interpreter(errors, input, output);
+        /* Debugging messages are written as the program executes so
+         * must stay in order with its output */
+        interpreter.setBatchIO(isFlagSet('b') && !isFlagSet('d'));
+        interpreter.setParallel(!isFlagSet('d'));
+        interpreter.setCoverage(isFlagSet('C'));
+        boolean completed = true;
         try {
             interpreter.executeCode(tree);
         } catch (Error error) {
-            return false;
+            completed = false;
+        }
+        if (isFlagSet('C')) {
+            CoverageListing listing = new CoverageListing(source);
+            interpreter.addCoverage(tree, listing);
+            output.println();
+            listing.print(output);
         }
-        return true;
+        return completed;
     }
 
     /**
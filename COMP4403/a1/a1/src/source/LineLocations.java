@@ -59,6 +59,13 @@ class LineLocations {
         return p.getColumn();
     }
 
+    /**
+     * Get the number of lines.
+     */
+    int lineCount() {
+        return lineEnds.size() - 1;
+    }
+
     /**
      * Get the location of the end of the last line.
      */
@@ -119,4 +119,17 @@ public class LineLocationsTest extends TestCase {
         assertEquals(7, (int) lp.endLast());
     }
 
+    /*
+     * Test method for 'pl0.source.LineLocations.lineCount()'
+     */
+    public void testLineCount() {
+        assertEquals(0, lp.lineCount());
+        lp.add(3);
+        assertEquals(1, lp.lineCount());
+        lp.add(3);
+        assertEquals(1, lp.lineCount());
+        lp.add(5);
+        assertEquals(2, lp.lineCount());
+    }
+
 }
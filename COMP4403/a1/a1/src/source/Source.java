@@ -59,6 +59,14 @@ public class Source extends java.io.Reader {
         return lineLocations.getLineStart(loc);
     }
 
+    /**
+     * Get the number of lines read so far, which is the number of
+     * lines in the source once it has been parsed.
+     */
+    public int getLineCount() {
+        return lineLocations.lineCount();
+    }
+
     /**
      * Provides buffered read to JFlex.
      * getNextChar should be enough, but this is the interface JFlex wants.
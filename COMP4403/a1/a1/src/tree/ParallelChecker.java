@@ -0,0 +1,320 @@
+package tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java_cup.runtime.ComplexSymbolFactory.Location;
+import source.Errors;
+import syms.SymEntry;
+import tree.StatementNode.*;
+
+/**
+ * class ParallelChecker - checks that no branch of a "cobegin" statement
+ * assigns a variable that another branch of it reads or assigns, so that
+ * the branches can be executed in parallel.
+ * <p>
+ * A branch uses the variables its statements use, and those used by the
+ * procedures it calls other than their own local variables, as each call
+ * has a frame of its own. Procedures may be called before they are
+ * declared, so the uses of each procedure are collected as it is checked,
+ * and the "cobegin" statements are only checked once the whole program
+ * has been.
+ */
+class ParallelChecker implements StatementVisitor, ExpTransform<ExpNode> {
+
+    /**
+     * Variables read and assigned, and procedures called, by a procedure
+     * or a branch, in the order found so that errors are reported in a
+     * consistent order
+     */
+    private static class Uses {
+        final Set<SymEntry.VarEntry> reads = new LinkedHashSet<>();
+        final Set<SymEntry.VarEntry> writes = new LinkedHashSet<>();
+        final Set<SymEntry.ProcedureEntry> calls = new LinkedHashSet<>();
+
+        void addAll(Uses other) {
+            reads.addAll(other.reads);
+            writes.addAll(other.writes);
+            calls.addAll(other.calls);
+        }
+    }
+
+    /**
+     * A "cobegin" statement still to be checked, with the uses of its
+     * branches
+     */
+    private static class Cobegin {
+        final Location loc;
+        final List<Uses> branches = new ArrayList<>();
+
+        Cobegin(Location loc) {
+            this.loc = loc;
+        }
+    }
+
+    private final Errors errors;
+
+    /**
+     * Uses by the statements of each procedure, not including the uses
+     * by the procedures it calls
+     */
+    private final Map<SymEntry.ProcedureEntry, Uses> procedures = new LinkedHashMap<>();
+    private final List<Cobegin> statements = new ArrayList<>();
+    /**
+     * Uses being collected, innermost (the current branch) on top
+     */
+    private final Deque<Uses> current = new ArrayDeque<>();
+
+    ParallelChecker(Errors errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Collect the uses of a checked procedure.
+     */
+    void addProcedure(DeclNode.ProcedureNode node) {
+        Uses uses = new Uses();
+        current.push(uses);
+        node.getBlock().getBody().accept(this);
+        current.pop();
+        procedures.put(node.getProcEntry(), uses);
+    }
+
+    /**
+     * Check the "cobegin" statements of the procedures added.
+     */
+    void check() {
+        if (statements.isEmpty()) {
+            return;
+        }
+        Map<SymEntry.ProcedureEntry, Uses> summaries = summarise();
+        for (Cobegin statement : statements) {
+            Set<SymEntry.VarEntry> reported = new HashSet<>();
+            List<Uses> branches = new ArrayList<>();
+            for (Uses branch : statement.branches) {
+                branches.add(withCalls(branch, summaries));
+            }
+            for (int i = 0; i < branches.size(); i++) {
+                for (int j = 0; j < branches.size(); j++) {
+                    if (i == j) {
+                        continue;
+                    }
+                    for (SymEntry.VarEntry var : branches.get(i).writes) {
+                        if ((branches.get(j).reads.contains(var) ||
+                                branches.get(j).writes.contains(var)) &&
+                                reported.add(var)) {
+                            errors.error("variable " + var.getIdent() +
+                                    " is assigned by one branch and used by another",
+                                    statement.loc);
+                        }
+                    }
+                }
+            }
+        }
+        statements.clear();
+    }
+
+    /**
+     * @return the uses of each procedure including those of the procedures
+     * it calls, directly or indirectly, other than their local variables
+     */
+    private Map<SymEntry.ProcedureEntry, Uses> summarise() {
+        Map<SymEntry.ProcedureEntry, Uses> summaries = new LinkedHashMap<>();
+        for (Map.Entry<SymEntry.ProcedureEntry, Uses> entry : procedures.entrySet()) {
+            Uses summary = new Uses();
+            summary.addAll(entry.getValue());
+            summaries.put(entry.getKey(), summary);
+        }
+        /* Recursive calls require iterating until nothing changes */
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<SymEntry.ProcedureEntry, Uses> entry : summaries.entrySet()) {
+                Uses summary = entry.getValue();
+                for (SymEntry.ProcedureEntry callee : summary.calls) {
+                    Uses called = summaries.get(callee);
+                    if (called != null) {
+                        changed |= addNonLocal(summary.reads, called.reads, callee);
+                        changed |= addNonLocal(summary.writes, called.writes, callee);
+                    }
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Add the variables that are not local to the called procedure.
+     *
+     * @return whether any variable was added
+     */
+    private static boolean addNonLocal(Set<SymEntry.VarEntry> to,
+                                       Set<SymEntry.VarEntry> from,
+                                       SymEntry.ProcedureEntry callee) {
+        boolean added = false;
+        for (SymEntry.VarEntry var : from) {
+            if (var.getLevel() <= callee.getLevel()) {
+                added |= to.add(var);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @return the uses of a branch including those of the procedures it calls
+     */
+    private static Uses withCalls(Uses branch, Map<SymEntry.ProcedureEntry, Uses> summaries) {
+        Uses uses = new Uses();
+        uses.addAll(branch);
+        for (SymEntry.ProcedureEntry callee : branch.calls) {
+            Uses called = summaries.get(callee);
+            if (called != null) {
+                addNonLocal(uses.reads, called.reads, callee);
+                addNonLocal(uses.writes, called.writes, callee);
+            }
+        }
+        return uses;
+    }
+
+    /* -------------------- Statements ----------------------------*/
+
+    public void visitBlockNode(BlockNode node) {
+        /* The procedures of a block are added separately */
+        node.getBody().accept(this);
+    }
+
+    public void visitStatementErrorNode(StatementNode.ErrorNode node) {
+    }
+
+    public void visitStatementListNode(ListNode node) {
+        for (StatementNode statement : node.getStatements()) {
+            statement.accept(this);
+        }
+    }
+
+    public void visitAssignmentNode(AssignmentNode node) {
+        for (ExpNode lValue : node.getLValues()) {
+            lValue(lValue);
+        }
+        for (ExpNode exp : node.getConditions()) {
+            exp.transform(this);
+        }
+    }
+
+    public void visitReadNode(ReadNode node) {
+        lValue(node.getLValue());
+    }
+
+    /**
+     * Note the variable assigned by an assignment or read.
+     */
+    private void lValue(ExpNode node) {
+        if (node instanceof ExpNode.VariableNode) {
+            current.peek().writes.add(((ExpNode.VariableNode) node).getVariable());
+        } else {
+            node.transform(this);
+        }
+    }
+
+    public void visitWriteNode(WriteNode node) {
+        node.getExp().transform(this);
+    }
+
+    public void visitCallNode(CallNode node) {
+        if (node.getEntry() != null) {
+            current.peek().calls.add(node.getEntry());
+        }
+    }
+
+    public void visitIfNode(IfNode node) {
+        node.getCondition().transform(this);
+        node.getThenStmt().accept(this);
+        node.getElseStmt().accept(this);
+    }
+
+    public void visitWhileNode(WhileNode node) {
+        node.getCondition().transform(this);
+        node.getLoopStmt().accept(this);
+    }
+
+    public void visitSkipNode(SkipNode node) {
+    }
+
+    public int visitDoBranchNode(DoBranchNode node) {
+        node.getCondition().transform(this);
+        node.getStmtList().accept(this);
+        return 0;
+    }
+
+    public void visitDoStatementNode(DoStatementNode node) {
+        for (StatementNode branch : node.getBranches()) {
+            branch.accept(this);
+        }
+    }
+
+    public void visitCobeginNode(CobeginNode node) {
+        Cobegin statement = new Cobegin(node.getLocation());
+        for (StatementNode branch : node.getBranches()) {
+            Uses uses = new Uses();
+            current.push(uses);
+            branch.accept(this);
+            current.pop();
+            /* The uses of the branches are also those of the statement */
+            current.peek().addAll(uses);
+            statement.branches.add(uses);
+        }
+        statements.add(statement);
+    }
+
+    /* -------------------- Expressions ----------------------------*/
+
+    public ExpNode visitErrorExpNode(ExpNode.ErrorNode node) {
+        return node;
+    }
+
+    public ExpNode visitConstNode(ExpNode.ConstNode node) {
+        return node;
+    }
+
+    public ExpNode visitIdentifierNode(ExpNode.IdentifierNode node) {
+        return node;
+    }
+
+    public ExpNode visitVariableNode(ExpNode.VariableNode node) {
+        current.peek().reads.add(node.getVariable());
+        return node;
+    }
+
+    public ExpNode visitBinaryNode(ExpNode.BinaryNode node) {
+        node.getLeft().transform(this);
+        node.getRight().transform(this);
+        return node;
+    }
+
+    public ExpNode visitUnaryNode(ExpNode.UnaryNode node) {
+        node.getArg().transform(this);
+        return node;
+    }
+
+    public ExpNode visitDereferenceNode(ExpNode.DereferenceNode node) {
+        node.getLeftValue().transform(this);
+        return node;
+    }
+
+    public ExpNode visitNarrowSubrangeNode(ExpNode.NarrowSubrangeNode node) {
+        node.getExp().transform(this);
+        return node;
+    }
+
+    public ExpNode visitWidenSubrangeNode(ExpNode.WidenSubrangeNode node) {
+        node.getExp().transform(this);
+        return node;
+    }
+}
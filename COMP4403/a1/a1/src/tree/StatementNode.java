@@ -509,5 +509,42 @@ public abstract class StatementNode {
 
     }
 
+    /**
+     * Tree node representing a "cobegin" statement, whose branches are
+     * executed in parallel.
+     */
+    public static class CobeginNode extends StatementNode {
+
+        // The branches of the cobegin statement
+        private final List<StatementNode> branches;
+
+        public CobeginNode(Location loc, List<StatementNode> branches) {
+            super(loc);
+            this.branches = branches;
+        }
+
+        @Override
+        public void accept(StatementVisitor visitor) {
+            visitor.visitCobeginNode(this);
+        }
+
+        public List<StatementNode> getBranches() {
+            return branches;
+        }
+
+        @Override
+        public String toString(int level) {
+            StringBuilder result = new StringBuilder();
+            result.append("COBEGIN");
+            String sep = newLine(level + 1);
+            for (StatementNode branch : branches) {
+                result.append(sep).append(branch.toString(level + 1));
+                sep = newLine(level) + "||" + newLine(level + 1);
+            }
+            result.append(newLine(level)).append("COEND");
+            return result.toString();
+        }
+    }
+
 }
 
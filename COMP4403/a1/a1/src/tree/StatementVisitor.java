@@ -34,4 +34,6 @@ public interface StatementVisitor {
 
     void visitDoStatementNode(StatementNode.DoStatementNode node);
 
+    void visitCobeginNode(StatementNode.CobeginNode node);
+
 }
@@ -35,6 +35,11 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
      * Debug messages are reported through the visitor debugger.
      */
     private final VisitorDebugger debug;
+    /**
+     * Checks the branches of "cobegin" statements once every procedure
+     * has been checked.
+     */
+    private final ParallelChecker parallel;
 
     /**
      * Construct a static checker for PL0.
@@ -45,6 +50,7 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
         super();
         this.errors = errors;
         debug = new VisitorDebugger("checking", errors);
+        parallel = new ParallelChecker(errors);
     }
 
     /**
@@ -58,6 +64,8 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
         beginCheck("Program");
         // The main program is a special case of a procedure
         visitProcedureNode(node);
+        // Check that the branches of each cobegin statement are independent
+        parallel.check();
         endCheck("Program");
     }
 
@@ -77,6 +85,8 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
         currentScope = localScope;
         // Check the block of the procedure.
         visitBlockNode(node.getBlock());
+        // Note the variables it uses, for checking parallel branches
+        parallel.addProcedure(node);
         // Restore the symbol table to the parent scope
         currentScope = currentScope.getParent();
         endCheck("Procedure");
@@ -278,6 +288,17 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
         endCheck("DoStatement");
     }
 
+    /**
+     * Cobegin statement node
+     */
+    public void visitCobeginNode(StatementNode.CobeginNode node) {
+        beginCheck("Cobegin");
+        for (StatementNode branch : node.getBranches()) {
+            branch.accept(this);
+        }
+        endCheck("Cobegin");
+    }
+
     /*************************************************
      *  Expression node static checker visit methods.
      *  The static checking visitor methods for expressions
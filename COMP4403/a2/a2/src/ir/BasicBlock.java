@@ -0,0 +1,63 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * class BasicBlock - a sequence of instructions executed in order,
+ * ended by a terminator that transfers control to other blocks.
+ */
+public class BasicBlock {
+    /**
+     * Number of the block within its procedure, for listings
+     */
+    private final int number;
+    private final List<Instr> instrs = new ArrayList<>();
+    private Terminator terminator;
+
+    BasicBlock(int number) {
+        this.number = number;
+    }
+
+    public String getName() {
+        return "B" + number;
+    }
+
+    public List<Instr> getInstrs() {
+        return instrs;
+    }
+
+    public void add(Instr instr) {
+        instrs.add(instr);
+    }
+
+    public Terminator getTerminator() {
+        return terminator;
+    }
+
+    public void setTerminator(Terminator terminator) {
+        this.terminator = terminator;
+    }
+
+    public List<BasicBlock> getSuccessors() {
+        return terminator.getSuccessors();
+    }
+
+    /**
+     * The instructions followed by the terminator
+     */
+    public List<Instr> getAllInstrs() {
+        List<Instr> all = new ArrayList<>(instrs);
+        all.add(terminator);
+        return all;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder(getName()).append(":\n");
+        for (Instr instr : getAllInstrs()) {
+            s.append("    ").append(instr).append("\n");
+        }
+        return s.toString();
+    }
+}
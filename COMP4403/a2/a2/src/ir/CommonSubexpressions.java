@@ -0,0 +1,88 @@
+package ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * class CommonSubexpressions - replaces the repeated evaluation of an
+ * expression by the value computed by an earlier evaluation that dominates
+ * it, e.g. the address of a variable of an enclosing procedure, found by
+ * following the static link chain, when it is both loaded and stored.
+ * <p>
+ * Expressions are identified by value numbering over the dominator tree;
+ * the value of a load is only reused within a block up to a store or call
+ * that may change it.
+ * On the stack machine a reused value must be stored in the frame and
+ * reloaded, so only expressions that cost more than that are replaced.
+ */
+public class CommonSubexpressions implements Pass {
+    /**
+     * An expression is reused if evaluating it costs more than saving it
+     * once and reloading it twice
+     */
+    private static final int MIN_COST =
+            Lowering.SPILL_COST + 2 * Lowering.RELOAD_COST;
+
+    public String getName() {
+        return "common subexpression elimination";
+    }
+
+    public boolean run(IrProcedure proc) {
+        Map<BasicBlock, BasicBlock> idom = proc.dominators();
+        Map<BasicBlock, List<BasicBlock>> children = new HashMap<>();
+        for (Map.Entry<BasicBlock, BasicBlock> entry : idom.entrySet()) {
+            if (entry.getKey() != entry.getValue()) {
+                children.computeIfAbsent(entry.getValue(), b -> new ArrayList<>())
+                        .add(entry.getKey());
+            }
+        }
+        Map<Operand.Temp, Instr> defs = proc.definitions();
+        Map<Operand.Temp, Integer> uses = proc.useCounts();
+        /* Value number of each temporary: the earliest temporary known to
+         * hold the same value */
+        Map<Operand.Temp, Operand> valueOf = new HashMap<>();
+        boolean changed = false;
+        /* Walk the dominator tree depth first, with the expressions
+         * available in each block being those of its dominators */
+        Deque<BasicBlock> pending = new ArrayDeque<>();
+        Deque<Map<String, Operand.Temp>> scopes = new ArrayDeque<>();
+        pending.push(proc.getEntry());
+        scopes.push(new HashMap<>());
+        while (!pending.isEmpty()) {
+            BasicBlock block = pending.pop();
+            Map<String, Operand.Temp> available = new HashMap<>(scopes.pop());
+            Map<String, Operand.Temp> loads = new HashMap<>();
+            List<Instr> instrs = block.getInstrs();
+            for (int i = 0; i < instrs.size(); i++) {
+                Instr instr = instrs.get(i);
+                if (instr.writesMemory()) {
+                    loads.clear();
+                }
+                String key = instr.getKey(arg -> valueOf.getOrDefault(arg, arg));
+                if (key == null) {
+                    continue;
+                }
+                Map<String, Operand.Temp> table = instr.readsMemory() ? loads : available;
+                Operand.Temp earlier = table.get(key);
+                if (earlier == null) {
+                    table.put(key, instr.getDst());
+                } else {
+                    valueOf.put(instr.getDst(), earlier);
+                    if (Lowering.treeCost(instr, defs, uses) > MIN_COST) {
+                        instrs.set(i, new Instr.Move(instr.getDst(), earlier));
+                        changed = true;
+                    }
+                }
+            }
+            for (BasicBlock child : children.getOrDefault(block, new ArrayList<>())) {
+                pending.push(child);
+                scopes.push(available);
+            }
+        }
+        return changed;
+    }
+}
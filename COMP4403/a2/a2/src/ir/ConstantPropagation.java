@@ -0,0 +1,222 @@
+package ir;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import syms.Type;
+
+/**
+ * class ConstantPropagation - folds instructions with constant operands,
+ * simplifies algebraic identities, and propagates constants stored in
+ * local variables to the loads of those variables.
+ * <p>
+ * The values of local variables are found by a forward data flow analysis
+ * over the control flow graph: a local variable has a known constant value
+ * at a point if it has the same constant value along all paths to it.
+ * Loads of a known constant are replaced by the constant; the stores are
+ * kept, as the variables are visible in a trace back.
+ * Branches on constant conditions become jumps, and the blocks that become
+ * unreachable are removed.
+ */
+public class ConstantPropagation implements Pass {
+
+    public String getName() {
+        return "constant propagation";
+    }
+
+    public boolean run(IrProcedure proc) {
+        Map<BasicBlock, Map<Integer, Integer>> entryValues = analyse(proc);
+        boolean changed = false;
+        for (BasicBlock block : proc.getBlocks()) {
+            Map<Integer, Integer> values = entryValues.get(block);
+            if (values == null) {
+                continue;   // unreachable
+            }
+            values = new HashMap<>(values);
+            List<Instr> instrs = block.getInstrs();
+            for (int i = 0; i < instrs.size(); i++) {
+                Instr instr = instrs.get(i);
+                Instr simpler = simplify(instr, values);
+                if (simpler != instr) {
+                    instrs.set(i, simpler);
+                    changed = true;
+                }
+                transfer(simpler, values);
+            }
+            changed |= foldBranch(block);
+        }
+        changed |= proc.removeUnreachable();
+        return changed;
+    }
+
+    /**
+     * Simplify a single instruction given the constant values of local
+     * variables at the instruction.
+     *
+     * @return the simplified instruction, or the instruction itself
+     */
+    private Instr simplify(Instr instr, Map<Integer, Integer> values) {
+        Operand.Temp dst = instr.getDst();
+        if (dst == null || instr instanceof Instr.Move) {
+            return instr;
+        }
+        Operand.Const result = instr.fold();
+        if (result != null) {
+            return new Instr.Move(dst, result);
+        }
+        if (instr instanceof Instr.Load && instr.getArg(0).isConst()) {
+            Integer value = values.get(instr.getArg(0).getConstValue());
+            if (value != null) {
+                return new Instr.Move(dst, new Operand.Const(value));
+            }
+        } else if (instr instanceof Instr.Index) {
+            Instr.Index index = (Instr.Index) instr;
+            if (index.hasConstIndex()) {
+                /* The address is at a known offset from the base */
+                int offset = (index.getArg(1).getConstValue() - index.getLower())
+                        * index.getElementSize();
+                return offset == 0 ? new Instr.Move(dst, index.getArg(0)) :
+                        new Instr.Binary(dst, Instr.BinaryOp.ADD,
+                                index.getArg(0), new Operand.Const(offset));
+            }
+        } else if (instr instanceof Instr.Binary) {
+            return simplifyBinary((Instr.Binary) instr);
+        }
+        return instr;
+    }
+
+    /**
+     * Simplify algebraic identities: x+0, 0+x, x-0, x*1, 1*x, x/1, x*0
+     * and 0*x. The operands are temporaries or constants, which have
+     * already been evaluated, so only the result is affected.
+     */
+    private Instr simplifyBinary(Instr.Binary instr) {
+        Operand left = instr.getArg(0);
+        Operand right = instr.getArg(1);
+        Operand.Temp dst = instr.getDst();
+        switch (instr.getOp()) {
+            case ADD:
+                if (isConst(right, 0)) {
+                    return new Instr.Move(dst, left);
+                } else if (isConst(left, 0)) {
+                    return new Instr.Move(dst, right);
+                }
+                break;
+            case SUB:
+                if (isConst(right, 0)) {
+                    return new Instr.Move(dst, left);
+                }
+                break;
+            case MUL:
+                if (isConst(right, 1)) {
+                    return new Instr.Move(dst, left);
+                } else if (isConst(left, 1)) {
+                    return new Instr.Move(dst, right);
+                } else if (isConst(left, 0) || isConst(right, 0)) {
+                    return new Instr.Move(dst, new Operand.Const(0));
+                }
+                break;
+            case DIV:
+                if (isConst(right, 1)) {
+                    return new Instr.Move(dst, left);
+                }
+                break;
+            default:
+                break;
+        }
+        return instr;
+    }
+
+    private static boolean isConst(Operand operand, int value) {
+        return operand.isConst() && operand.getConstValue() == value;
+    }
+
+    /**
+     * Replace a branch on a constant boolean by a jump
+     *
+     * @return true if the branch was replaced
+     */
+    private boolean foldBranch(BasicBlock block) {
+        if (!(block.getTerminator() instanceof Terminator.Branch)) {
+            return false;
+        }
+        Terminator.Branch branch = (Terminator.Branch) block.getTerminator();
+        Operand cond = branch.getArg(0);
+        if (isConst(cond, Type.TRUE_VALUE)) {
+            block.setTerminator(new Terminator.Jump(branch.getIfTrue()));
+        } else if (isConst(cond, Type.FALSE_VALUE)) {
+            block.setTerminator(new Terminator.Jump(branch.getIfFalse()));
+        } else {
+            /* Includes a non-boolean constant, which fails at run time */
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Find the known constant values of local variables, indexed by frame
+     * offset, on entry to each reachable block.
+     */
+    private Map<BasicBlock, Map<Integer, Integer>> analyse(IrProcedure proc) {
+        Map<BasicBlock, Map<Integer, Integer>> entryValues = new HashMap<>();
+        entryValues.put(proc.getEntry(), new HashMap<>());
+        Deque<BasicBlock> worklist = new ArrayDeque<>();
+        worklist.add(proc.getEntry());
+        while (!worklist.isEmpty()) {
+            BasicBlock block = worklist.removeFirst();
+            Map<Integer, Integer> values = new HashMap<>(entryValues.get(block));
+            for (Instr instr : block.getAllInstrs()) {
+                transfer(instr, values);
+            }
+            for (BasicBlock succ : block.getSuccessors()) {
+                Map<Integer, Integer> succValues = entryValues.get(succ);
+                if (succValues == null) {
+                    /* First path found to the successor */
+                    entryValues.put(succ, new HashMap<>(values));
+                    worklist.addLast(succ);
+                } else if (succValues.entrySet().retainAll(values.entrySet())) {
+                    /* Only values known along all paths are kept */
+                    worklist.addLast(succ);
+                }
+            }
+        }
+        return entryValues;
+    }
+
+    /**
+     * Update the known values of local variables for the effect of an
+     * instruction
+     */
+    private void transfer(Instr instr, Map<Integer, Integer> values) {
+        if (instr instanceof Instr.Store && instr.getArg(1).isConst()) {
+            int offset = instr.getArg(1).getConstValue();
+            if (instr.getArg(0).isConst()) {
+                values.put(offset, instr.getArg(0).getConstValue());
+            } else {
+                values.remove(offset);
+            }
+        } else if (instr instanceof Terminator.ForInit) {
+            Terminator.ForInit init = (Terminator.ForInit) instr;
+            setOrRemove(values, init.getCtrlOffset(), init.getArg(0));
+            setOrRemove(values, init.getBoundOffset(), init.getArg(1));
+        } else if (instr instanceof Terminator.ForStep) {
+            values.remove(((Terminator.ForStep) instr).getCtrlOffset());
+        } else if (instr.writesMemory()) {
+            /* A store to a computed address, a block copy or a call may
+             * change any variable */
+            values.clear();
+        }
+    }
+
+    private static void setOrRemove(Map<Integer, Integer> values, int offset,
+                                    Operand value) {
+        if (value.isConst()) {
+            values.put(offset, value.getConstValue());
+        } else {
+            values.remove(offset);
+        }
+    }
+}
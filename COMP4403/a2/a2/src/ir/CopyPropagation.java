@@ -0,0 +1,35 @@
+package ir;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * class CopyPropagation - replaces the uses of the temporary defined by a
+ * Move by its source operand, and removes the Move.
+ * As each temporary is defined once, and its definition dominates its
+ * uses, the source of a Move holds the same value wherever the temporary
+ * defined by the Move is used.
+ */
+public class CopyPropagation implements Pass {
+
+    public String getName() {
+        return "copy propagation";
+    }
+
+    public boolean run(IrProcedure proc) {
+        Map<Operand.Temp, Operand> copies = new HashMap<>();
+        for (BasicBlock block : proc.getBlocks()) {
+            Iterator<Instr> instrs = block.getInstrs().iterator();
+            while (instrs.hasNext()) {
+                Instr instr = instrs.next();
+                if (instr instanceof Instr.Move) {
+                    copies.put(instr.getDst(), instr.getArg(0));
+                    instrs.remove();
+                }
+            }
+        }
+        proc.substitute(copies);
+        return !copies.isEmpty();
+    }
+}
@@ -0,0 +1,108 @@
+package ir;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * class DeadCodeElimination - removes pure instructions whose results are
+ * not used, and simplifies the control flow graph by removing unreachable
+ * blocks, bypassing empty blocks that just jump elsewhere, and merging a
+ * block into its only predecessor when that predecessor jumps to it.
+ */
+public class DeadCodeElimination implements Pass {
+
+    public String getName() {
+        return "dead code elimination";
+    }
+
+    public boolean run(IrProcedure proc) {
+        boolean changed = removeDeadInstrs(proc);
+        changed |= proc.removeUnreachable();
+        changed |= bypassEmptyBlocks(proc);
+        changed |= mergeBlocks(proc);
+        return changed;
+    }
+
+    /**
+     * Remove pure instructions whose result is unused, repeating as the
+     * removal of an instruction may leave its operands unused.
+     */
+    private boolean removeDeadInstrs(IrProcedure proc) {
+        boolean changed = false;
+        boolean removed = true;
+        while (removed) {
+            removed = false;
+            Map<Operand.Temp, Integer> uses = proc.useCounts();
+            for (BasicBlock block : proc.getBlocks()) {
+                Iterator<Instr> instrs = block.getInstrs().iterator();
+                while (instrs.hasNext()) {
+                    Instr instr = instrs.next();
+                    if (instr.isPure() && !uses.containsKey(instr.getDst())) {
+                        instrs.remove();
+                        removed = true;
+                    }
+                }
+            }
+            changed |= removed;
+        }
+        return changed;
+    }
+
+    /**
+     * Redirect transfers to an empty block that ends in a jump straight to
+     * the target of the jump. The entry block is left in place.
+     */
+    private boolean bypassEmptyBlocks(IrProcedure proc) {
+        boolean changed = false;
+        for (BasicBlock block : proc.getBlocks()) {
+            if (block == proc.getEntry() || !block.getInstrs().isEmpty() ||
+                    !(block.getTerminator() instanceof Terminator.Jump)) {
+                continue;
+            }
+            BasicBlock target = ((Terminator.Jump) block.getTerminator()).getTarget();
+            if (target == block) {
+                continue;   // an empty infinite loop
+            }
+            for (BasicBlock pred : proc.getBlocks()) {
+                if (pred != block && pred.getSuccessors().contains(block)) {
+                    pred.getTerminator().replaceSuccessor(block, target);
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            proc.removeUnreachable();
+        }
+        return changed;
+    }
+
+    /**
+     * Merge a block into its only predecessor if the predecessor ends in
+     * a jump to it.
+     */
+    private boolean mergeBlocks(IrProcedure proc) {
+        boolean changed = false;
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            Map<BasicBlock, List<BasicBlock>> preds = proc.predecessors();
+            for (BasicBlock block : proc.getBlocks()) {
+                if (!(block.getTerminator() instanceof Terminator.Jump)) {
+                    continue;
+                }
+                BasicBlock next = ((Terminator.Jump) block.getTerminator()).getTarget();
+                if (next != block && next != proc.getEntry() &&
+                        preds.get(next).size() == 1) {
+                    block.getInstrs().addAll(next.getInstrs());
+                    block.setTerminator(next.getTerminator());
+                    proc.getBlocks().remove(next);
+                    merged = true;
+                    break;
+                }
+            }
+            changed |= merged;
+        }
+        return changed;
+    }
+}
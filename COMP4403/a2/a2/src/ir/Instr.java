@@ -0,0 +1,568 @@
+package ir;
+
+import java.util.function.UnaryOperator;
+
+import syms.SymEntry;
+
+/**
+ * class Instr - an intermediate code instruction.
+ * An instruction applies an operation to its operands and, unless it is
+ * executed only for its effect, defines a new temporary holding its result.
+ * Addresses are frame relative, as for the stack machine, so the address
+ * of a local variable is a constant operand.
+ */
+public abstract class Instr {
+    /**
+     * Temporary defined by the instruction, or null if none
+     */
+    private final Operand.Temp dst;
+    /**
+     * Operands in the order in which they are evaluated
+     */
+    private final Operand[] args;
+
+    protected Instr(Operand.Temp dst, Operand... args) {
+        this.dst = dst;
+        this.args = args;
+    }
+
+    public Operand.Temp getDst() {
+        return dst;
+    }
+
+    public Operand[] getArgs() {
+        return args;
+    }
+
+    public Operand getArg(int i) {
+        return args[i];
+    }
+
+    public void setArg(int i, Operand arg) {
+        args[i] = arg;
+    }
+
+    /**
+     * An instruction is pure if it has no effect other than defining its
+     * result and cannot fail at run time. A pure instruction can be removed
+     * if its result is unused, or evaluated where it might not have been.
+     */
+    public boolean isPure() {
+        return false;
+    }
+
+    /**
+     * Whether the instruction reads variables in memory
+     */
+    public boolean readsMemory() {
+        return false;
+    }
+
+    /**
+     * Whether the instruction may modify variables in memory
+     */
+    public boolean writesMemory() {
+        return false;
+    }
+
+    /**
+     * Key identifying the value computed by the instruction, such that
+     * two instructions with the same key compute the same value
+     * (given the same memory for instructions that read memory), or
+     * null if the instruction may not be shared, e.g. a read.
+     * A repeated instruction that may fail can share the result of the
+     * earlier one because the earlier one has not failed.
+     *
+     * @param valueNumber maps each operand to a representative of the
+     *                    operands known to hold the same value
+     */
+    public String getKey(UnaryOperator<Operand> valueNumber) {
+        return null;
+    }
+
+    /**
+     * @return the result as a constant, if it can be determined from
+     * constant operands, otherwise null
+     */
+    public Operand.Const fold() {
+        return null;
+    }
+
+    /**
+     * Key made from the name of the operation and the value numbers of
+     * the operands
+     */
+    protected String makeKey(String op, UnaryOperator<Operand> valueNumber) {
+        StringBuilder key = new StringBuilder(op);
+        for (Operand arg : args) {
+            key.append(' ').append(valueNumber.apply(arg));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Textual form of the instruction, for debugging
+     */
+    protected String format(String op) {
+        StringBuilder s = new StringBuilder();
+        if (dst != null) {
+            s.append(dst).append(" := ");
+        }
+        s.append(op);
+        String sep = " ";
+        for (Operand arg : args) {
+            s.append(sep).append(arg);
+            sep = ", ";
+        }
+        return s.toString();
+    }
+
+    /**
+     * Binary operators. Greater than is represented by less than with the
+     * operands evaluated in the reverse order.
+     */
+    public enum BinaryOp {
+        ADD, SUB, MUL, DIV, EQ, NE, LT, LE
+    }
+
+    /**
+     * Binary operator instruction
+     */
+    public static class Binary extends Instr {
+        private final BinaryOp op;
+
+        public Binary(Operand.Temp dst, BinaryOp op, Operand left, Operand right) {
+            super(dst, left, right);
+            this.op = op;
+        }
+
+        public BinaryOp getOp() {
+            return op;
+        }
+
+        @Override
+        public boolean isPure() {
+            /* Division fails if the divisor is zero */
+            return op != BinaryOp.DIV ||
+                    (getArg(1).isConst() && getArg(1).getConstValue() != 0);
+        }
+
+        @Override
+        public String getKey(UnaryOperator<Operand> valueNumber) {
+            return makeKey(op.toString(), valueNumber);
+        }
+
+        @Override
+        public Operand.Const fold() {
+            if (!getArg(0).isConst() || !getArg(1).isConst()) {
+                return null;
+            }
+            int left = getArg(0).getConstValue();
+            int right = getArg(1).getConstValue();
+            switch (op) {
+                case ADD:
+                    return new Operand.Const(left + right);
+                case SUB:
+                    return new Operand.Const(left + -right);
+                case MUL:
+                    return new Operand.Const(left * right);
+                case DIV:
+                    /* Division by zero is left to fail at run time */
+                    return right == 0 ? null : new Operand.Const(left / right);
+                case EQ:
+                    return bool(left == right);
+                case NE:
+                    return bool(left != right);
+                case LT:
+                    return bool(left < right);
+                case LE:
+                    return bool(left <= right);
+                default:
+                    return null;
+            }
+        }
+
+        private static Operand.Const bool(boolean value) {
+            return new Operand.Const(value ? syms.Type.TRUE_VALUE :
+                    syms.Type.FALSE_VALUE);
+        }
+
+        @Override
+        public String toString() {
+            return format(op.toString());
+        }
+    }
+
+    /**
+     * Unary operators. The successor and predecessor of an enumeration
+     * value wrap around.
+     */
+    public enum UnaryOp {
+        NEG, SUCC, PRED
+    }
+
+    /**
+     * Unary operator instruction
+     */
+    public static class Unary extends Instr {
+        private final UnaryOp op;
+        /**
+         * Number of elements of the enumeration to wrap around within,
+         * or zero for an integer operand
+         */
+        private final int elements;
+
+        public Unary(Operand.Temp dst, UnaryOp op, int elements, Operand arg) {
+            super(dst, arg);
+            this.op = op;
+            this.elements = elements;
+        }
+
+        public UnaryOp getOp() {
+            return op;
+        }
+
+        public int getElements() {
+            return elements;
+        }
+
+        @Override
+        public boolean isPure() {
+            return true;
+        }
+
+        @Override
+        public String getKey(UnaryOperator<Operand> valueNumber) {
+            return makeKey(op + "/" + elements, valueNumber);
+        }
+
+        @Override
+        public Operand.Const fold() {
+            if (!getArg(0).isConst()) {
+                return null;
+            }
+            int value = getArg(0).getConstValue();
+            switch (op) {
+                case NEG:
+                    return new Operand.Const(-value);
+                case SUCC:
+                    value = value + 1;
+                    return new Operand.Const(
+                            elements != 0 && value == elements ? 0 : value);
+                case PRED:
+                    value = value + -1;
+                    return new Operand.Const(
+                            elements != 0 && value < 0 ? elements - 1 : value);
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return format(elements == 0 ? op.toString() : op + "/" + elements);
+        }
+    }
+
+    /**
+     * Copy of an operand, as left by propagation of constants
+     */
+    public static class Move extends Instr {
+        public Move(Operand.Temp dst, Operand src) {
+            super(dst, src);
+        }
+
+        @Override
+        public boolean isPure() {
+            return true;
+        }
+
+        @Override
+        public Operand.Const fold() {
+            return getArg(0).isConst() ? (Operand.Const) getArg(0) : null;
+        }
+
+        @Override
+        public String toString() {
+            return format("MOVE");
+        }
+    }
+
+    /**
+     * Frame relative address of the frame of an enclosing procedure,
+     * found by following the static link chain. Static links do not change
+     * during a call so the result depends only on the level difference.
+     */
+    public static class FrameAddr extends Instr {
+        private final int levelDiff;
+
+        /* @requires levelDiff > 0 */
+        public FrameAddr(Operand.Temp dst, int levelDiff) {
+            super(dst);
+            this.levelDiff = levelDiff;
+        }
+
+        public int getLevelDiff() {
+            return levelDiff;
+        }
+
+        @Override
+        public boolean isPure() {
+            return true;
+        }
+
+        @Override
+        public String getKey(UnaryOperator<Operand> valueNumber) {
+            return makeKey("FRAME/" + levelDiff, valueNumber);
+        }
+
+        @Override
+        public String toString() {
+            return format("FRAME/" + levelDiff);
+        }
+    }
+
+    /**
+     * Load a word from memory at a frame relative address
+     */
+    public static class Load extends Instr {
+        public Load(Operand.Temp dst, Operand addr) {
+            super(dst, addr);
+        }
+
+        @Override
+        public boolean isPure() {
+            return true;
+        }
+
+        @Override
+        public boolean readsMemory() {
+            return true;
+        }
+
+        @Override
+        public String getKey(UnaryOperator<Operand> valueNumber) {
+            return makeKey("LOAD", valueNumber);
+        }
+
+        @Override
+        public String toString() {
+            return format("LOAD");
+        }
+    }
+
+    /**
+     * Store a word into memory at a frame relative address
+     */
+    public static class Store extends Instr {
+        public Store(Operand value, Operand addr) {
+            super(null, value, addr);
+        }
+
+        @Override
+        public boolean writesMemory() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return format("STORE");
+        }
+    }
+
+    /**
+     * Copy a multi-word value from one frame relative address to another
+     */
+    public static class BlockCopy extends Instr {
+        private final int size;
+
+        public BlockCopy(Operand src, Operand dst, int size) {
+            super(null, src, dst);
+            this.size = size;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public boolean readsMemory() {
+            return true;
+        }
+
+        @Override
+        public boolean writesMemory() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return format("COPY/" + size);
+        }
+    }
+
+    /**
+     * Address of an element of an array, with a bounds check of the index
+     */
+    public static class Index extends Instr {
+        private final int lower;
+        private final int upper;
+        private final int elementSize;
+
+        public Index(Operand.Temp dst, Operand base, Operand index,
+                     int lower, int upper, int elementSize) {
+            super(dst, base, index);
+            this.lower = lower;
+            this.upper = upper;
+            this.elementSize = elementSize;
+        }
+
+        public int getLower() {
+            return lower;
+        }
+
+        public int getUpper() {
+            return upper;
+        }
+
+        public int getElementSize() {
+            return elementSize;
+        }
+
+        /**
+         * Whether the index is a constant known to be within bounds
+         */
+        public boolean hasConstIndex() {
+            Operand index = getArg(1);
+            return index.isConst() && lower <= index.getConstValue() &&
+                    index.getConstValue() <= upper;
+        }
+
+        @Override
+        public String getKey(UnaryOperator<Operand> valueNumber) {
+            return makeKey("INDEX/" + lower + "/" + upper + "/" + elementSize, valueNumber);
+        }
+
+        @Override
+        public Operand.Const fold() {
+            if (!getArg(0).isConst() || !hasConstIndex()) {
+                return null;
+            }
+            return new Operand.Const(getArg(0).getConstValue() +
+                    (getArg(1).getConstValue() - lower) * elementSize);
+        }
+
+        @Override
+        public String toString() {
+            return format("INDEX/" + lower + ".." + upper + "*" + elementSize);
+        }
+    }
+
+    /**
+     * Bounds check of a value narrowed to a subrange; the result is the
+     * value itself
+     */
+    public static class Check extends Instr {
+        private final int lower;
+        private final int upper;
+
+        public Check(Operand.Temp dst, Operand value, int lower, int upper) {
+            super(dst, value);
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        public int getLower() {
+            return lower;
+        }
+
+        public int getUpper() {
+            return upper;
+        }
+
+        @Override
+        public String getKey(UnaryOperator<Operand> valueNumber) {
+            return makeKey("CHECK/" + lower + "/" + upper, valueNumber);
+        }
+
+        @Override
+        public Operand.Const fold() {
+            Operand value = getArg(0);
+            if (value.isConst() && lower <= value.getConstValue() &&
+                    value.getConstValue() <= upper) {
+                return (Operand.Const) value;
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            return format("CHECK/" + lower + ".." + upper);
+        }
+    }
+
+    /**
+     * Read an integer from the input
+     */
+    public static class Read extends Instr {
+        public Read(Operand.Temp dst) {
+            super(dst);
+        }
+
+        @Override
+        public String toString() {
+            return format("READ");
+        }
+    }
+
+    /**
+     * Write an integer to the output
+     */
+    public static class Write extends Instr {
+        public Write(Operand value) {
+            super(null, value);
+        }
+
+        @Override
+        public String toString() {
+            return format("WRITE");
+        }
+    }
+
+    /**
+     * Call a procedure. The called procedure may access any variable.
+     */
+    public static class Call extends Instr {
+        private final int levelDiff;
+        private final SymEntry.ProcedureEntry proc;
+
+        public Call(int levelDiff, SymEntry.ProcedureEntry proc) {
+            super(null);
+            this.levelDiff = levelDiff;
+            this.proc = proc;
+        }
+
+        public int getLevelDiff() {
+            return levelDiff;
+        }
+
+        public SymEntry.ProcedureEntry getProc() {
+            return proc;
+        }
+
+        @Override
+        public boolean readsMemory() {
+            return true;
+        }
+
+        @Override
+        public boolean writesMemory() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return format("CALL " + proc.getIdent() + "/" + levelDiff);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package ir;
+
+import source.Errors;
+import syms.SymEntry;
+import syms.Type;
+import tree.DeclNode;
+import tree.ExpNode;
+import tree.ExpTransform;
+import tree.StatementNode;
+import tree.StatementVisitor;
+
+/**
+ * class IrBuilder - builds the intermediate code for the body of a single
+ * procedure from its statically checked abstract syntax tree.
+ * Expressions are evaluated in the same order as by the code generator,
+ * so that run time errors are detected in the same order.
+ * The blocks are created in the order of the source, which is the order
+ * in which the code generator lays out the code.
+ */
+public class IrBuilder implements StatementVisitor, ExpTransform<Operand> {
+    /**
+     * Error message handler
+     */
+    private final Errors errors;
+    /**
+     * Static level of the procedure being built
+     */
+    private final int staticLevel;
+    /**
+     * Procedure being built
+     */
+    private IrProcedure proc;
+    /**
+     * Block being added to
+     */
+    private BasicBlock current;
+
+    public IrBuilder(Errors errors, int staticLevel) {
+        this.errors = errors;
+        this.staticLevel = staticLevel;
+    }
+
+    /**
+     * Build the intermediate code for the body of a procedure.
+     * The code for nested procedures is built separately.
+     */
+    public IrProcedure build(DeclNode.ProcedureNode node) {
+        StatementNode.BlockNode block = node.getBlock();
+        proc = new IrProcedure(node.getProcEntry(),
+                block.getBlockLocals().getVariableSpace());
+        current = proc.newBlock();
+        block.getBody().accept(this);
+        current.setTerminator(new Terminator.Return());
+        return proc;
+    }
+
+    /**
+     * Add an instruction to the current block
+     *
+     * @return the temporary defined by the instruction
+     */
+    private Operand.Temp add(Instr instr) {
+        current.add(instr);
+        return instr.getDst();
+    }
+
+    /**
+     * Start a new block, which becomes the current block
+     */
+    private BasicBlock startBlock() {
+        current = proc.newBlock();
+        return current;
+    }
+
+    //**************  Statements
+
+    public void visitBlockNode(StatementNode.BlockNode node) {
+        errors.fatal("PL0 Internal error: building IR for nested block",
+                node.getLocation());
+    }
+
+    public void visitStatementErrorNode(StatementNode.ErrorNode node) {
+        errors.fatal("PL0 Internal error: building IR for Statement Error Node",
+                node.getLocation());
+    }
+
+    public void visitStatementListNode(StatementNode.ListNode node) {
+        for (StatementNode s : node.getStatements()) {
+            s.accept(this);
+        }
+    }
+
+    public void visitAssignmentNode(StatementNode.AssignmentNode node) {
+        ExpNode exp = node.getExp();
+        int size = exp.getType().getSpace();
+        if (size == 1) {
+            Operand value = exp.genIr(this);
+            Operand addr = node.getVariable().genIr(this);
+            add(new Instr.Store(value, addr));
+        } else if (exp instanceof ExpNode.DereferenceNode) {
+            /* A multi-word value is copied directly */
+            Operand src = ((ExpNode.DereferenceNode) exp).getLeftValue().genIr(this);
+            Operand dst = node.getVariable().genIr(this);
+            add(new Instr.BlockCopy(src, dst, size));
+        } else {
+            errors.fatal("PL0 Internal error: multi-word value isn't a variable",
+                    node.getLocation());
+        }
+    }
+
+    public void visitReadNode(StatementNode.ReadNode node) {
+        Operand value = add(new Instr.Read(proc.newTemp()));
+        Operand addr = node.getLValue().genIr(this);
+        add(new Instr.Store(value, addr));
+    }
+
+    public void visitWriteNode(StatementNode.WriteNode node) {
+        add(new Instr.Write(node.getExp().genIr(this)));
+    }
+
+    public void visitCallNode(StatementNode.CallNode node) {
+        SymEntry.ProcedureEntry entry = node.getEntry();
+        add(new Instr.Call(staticLevel - entry.getLevel(), entry));
+    }
+
+    public void visitIfNode(StatementNode.IfNode node) {
+        Operand cond = node.getCondition().genIr(this);
+        BasicBlock condEnd = current;
+        BasicBlock thenBlock = startBlock();
+        node.getThenStmt().accept(this);
+        BasicBlock thenEnd = current;
+        BasicBlock elseBlock = startBlock();
+        node.getElseStmt().accept(this);
+        BasicBlock elseEnd = current;
+        BasicBlock join = startBlock();
+        condEnd.setTerminator(new Terminator.Branch(cond, thenBlock, elseBlock));
+        thenEnd.setTerminator(new Terminator.Jump(join));
+        elseEnd.setTerminator(new Terminator.Jump(join));
+    }
+
+    public void visitWhileNode(StatementNode.WhileNode node) {
+        BasicBlock before = current;
+        BasicBlock header = startBlock();
+        before.setTerminator(new Terminator.Jump(header));
+        Operand cond = node.getCondition().genIr(this);
+        BasicBlock condEnd = current;
+        BasicBlock body = startBlock();
+        node.getLoopStmt().accept(this);
+        current.setTerminator(new Terminator.Jump(header));
+        BasicBlock exit = startBlock();
+        condEnd.setTerminator(new Terminator.Branch(cond, body, exit));
+    }
+
+    public void visitForNode(StatementNode.ForNode node) {
+        // The control variable is always local to the current frame
+        SymEntry.VarEntry ctrlVar = node.getCtrlVar().getVariable();
+        assert staticLevel == ctrlVar.getLevel();
+        int ctrlOffset = ctrlVar.getOffset();
+        Operand lower = node.getLower().genIr(this);
+        Operand upper = node.getUpper().genIr(this);
+        BasicBlock init = current;
+        BasicBlock body = startBlock();
+        node.getLoopStmt().accept(this);
+        BasicBlock bodyEnd = current;
+        BasicBlock exit = startBlock();
+        init.setTerminator(new Terminator.ForInit(ctrlOffset,
+                node.getUpperOffset(), lower, upper, body, exit));
+        bodyEnd.setTerminator(new Terminator.ForStep(ctrlOffset,
+                node.getUpperOffset(), body, exit));
+    }
+
+    public void visitCobeginNode(StatementNode.CobeginNode node) {
+        errors.fatal("PL0 Internal error: building IR for cobegin statement",
+                node.getLocation());
+    }
+
+    //**************  Expressions
+
+    public Operand visitErrorExpNode(ExpNode.ErrorNode node) {
+        errors.fatal("PL0 Internal error: building IR for ErrorExpNode",
+                node.getLocation());
+        return null;
+    }
+
+    public Operand visitConstNode(ExpNode.ConstNode node) {
+        return new Operand.Const(node.getValue());
+    }
+
+    public Operand visitIdentifierNode(ExpNode.IdentifierNode node) {
+        errors.fatal("Internal error: IR built for IdentifierNode",
+                node.getLocation());
+        return null;
+    }
+
+    /**
+     * The address of an array element.
+     * The bounds check of the index is done by the Index instruction, so a
+     * narrowing of the index to exactly the bounds of the array is skipped.
+     */
+    public Operand visitArrayIndexNode(ExpNode.ArrayIndexNode node) {
+        Type.ScalarType indexType = node.getIndexType();
+        Operand base = node.getId().genIr(this);
+        ExpNode index = node.getIndex();
+        if (index instanceof ExpNode.NarrowSubrangeNode) {
+            Type.SubrangeType narrow = ((ExpNode.NarrowSubrangeNode) index).getSubrangeType();
+            if (narrow.getLower() == indexType.getLower() &&
+                    narrow.getUpper() == indexType.getUpper()) {
+                index = ((ExpNode.NarrowSubrangeNode) index).getExp();
+            }
+        }
+        Operand indexValue = index.genIr(this);
+        return add(new Instr.Index(proc.newTemp(), base, indexValue,
+                indexType.getLower(), indexType.getUpper(), node.getElementSize()));
+    }
+
+    /**
+     * The frame relative address of a variable
+     */
+    public Operand visitVariableNode(ExpNode.VariableNode node) {
+        SymEntry.VarEntry var = node.getVariable();
+        int levelDiff = staticLevel - var.getLevel();
+        Operand offset = new Operand.Const(var.getOffset());
+        if (levelDiff == 0) {
+            return offset;
+        }
+        Operand frame = add(new Instr.FrameAddr(proc.newTemp(), levelDiff));
+        return add(new Instr.Binary(proc.newTemp(), Instr.BinaryOp.ADD,
+                frame, offset));
+    }
+
+    public Operand visitBinaryNode(ExpNode.BinaryNode node) {
+        ExpNode left = node.getLeft();
+        ExpNode right = node.getRight();
+        switch (node.getOp()) {
+            case ADD_OP:
+                return binary(Instr.BinaryOp.ADD, left, right);
+            case SUB_OP:
+                return binary(Instr.BinaryOp.SUB, left, right);
+            case MUL_OP:
+                return binary(Instr.BinaryOp.MUL, left, right);
+            case DIV_OP:
+                return binary(Instr.BinaryOp.DIV, left, right);
+            case EQUALS_OP:
+                return binary(Instr.BinaryOp.EQ, left, right);
+            case NEQUALS_OP:
+                return binary(Instr.BinaryOp.NE, left, right);
+            case LESS_OP:
+                return binary(Instr.BinaryOp.LT, left, right);
+            case LEQUALS_OP:
+                return binary(Instr.BinaryOp.LE, left, right);
+            case GREATER_OP:
+                /* Evaluate the arguments in reverse order and use LT */
+                return binary(Instr.BinaryOp.LT, right, left);
+            case GEQUALS_OP:
+                /* Evaluate the arguments in reverse order and use LE */
+                return binary(Instr.BinaryOp.LE, right, left);
+            default:
+                errors.fatal("PL0 Internal error: Unknown operator",
+                        node.getLocation());
+                return null;
+        }
+    }
+
+    private Operand binary(Instr.BinaryOp op, ExpNode left, ExpNode right) {
+        Operand leftValue = left.genIr(this);
+        Operand rightValue = right.genIr(this);
+        return add(new Instr.Binary(proc.newTemp(), op, leftValue, rightValue));
+    }
+
+    public Operand visitUnaryNode(ExpNode.UnaryNode node) {
+        Operand arg = node.getArg().genIr(this);
+        /* The successor and predecessor of an enumeration value wrap */
+        int elements = 0;
+        if (node.getArg().getType() instanceof Type.EnumerationType) {
+            elements = ((Type.EnumerationType) node.getArg().getType()).numberOfElements();
+        }
+        switch (node.getOp()) {
+            case NEG_OP:
+                return add(new Instr.Unary(proc.newTemp(), Instr.UnaryOp.NEG, 0, arg));
+            case SUCC_OP:
+                return add(new Instr.Unary(proc.newTemp(), Instr.UnaryOp.SUCC, elements, arg));
+            case PRED_OP:
+                return add(new Instr.Unary(proc.newTemp(), Instr.UnaryOp.PRED, elements, arg));
+            default:
+                errors.fatal("PL0 Internal error: Unknown operator",
+                        node.getLocation());
+                return null;
+        }
+    }
+
+    public Operand visitDereferenceNode(ExpNode.DereferenceNode node) {
+        if (node.getType().getSpace() != 1) {
+            errors.fatal("PL0 Internal error: multi-word value in expression",
+                    node.getLocation());
+        }
+        Operand addr = node.getLeftValue().genIr(this);
+        return add(new Instr.Load(proc.newTemp(), addr));
+    }
+
+    public Operand visitNarrowSubrangeNode(ExpNode.NarrowSubrangeNode node) {
+        Operand value = node.getExp().genIr(this);
+        return add(new Instr.Check(proc.newTemp(), value,
+                node.getSubrangeType().getLower(), node.getSubrangeType().getUpper()));
+    }
+
+    public Operand visitWidenSubrangeNode(ExpNode.WidenSubrangeNode node) {
+        /* Widening doesn't require anything extra */
+        return node.getExp().genIr(this);
+    }
+}
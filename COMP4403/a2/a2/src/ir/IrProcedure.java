@@ -0,0 +1,263 @@
+package ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import syms.SymEntry;
+
+/**
+ * class IrProcedure - the intermediate code for the body of a procedure,
+ * as a control flow graph of basic blocks. The order of the blocks is the
+ * order in which their code is laid out when lowered; the first block is
+ * the entry.
+ */
+public class IrProcedure {
+    private final SymEntry.ProcedureEntry procEntry;
+    /**
+     * Space in words of the local variables of the procedure
+     */
+    private final int variableSpace;
+    private final List<BasicBlock> blocks = new ArrayList<>();
+    private int blockCount = 0;
+    private int tempCount = 0;
+
+    public IrProcedure(SymEntry.ProcedureEntry procEntry, int variableSpace) {
+        this.procEntry = procEntry;
+        this.variableSpace = variableSpace;
+    }
+
+    public SymEntry.ProcedureEntry getProcEntry() {
+        return procEntry;
+    }
+
+    public int getVariableSpace() {
+        return variableSpace;
+    }
+
+    public List<BasicBlock> getBlocks() {
+        return blocks;
+    }
+
+    public BasicBlock getEntry() {
+        return blocks.get(0);
+    }
+
+    /**
+     * Create a new block placed after all the existing blocks
+     */
+    public BasicBlock newBlock() {
+        BasicBlock block = new BasicBlock(blockCount++);
+        blocks.add(block);
+        return block;
+    }
+
+    /**
+     * Create a new block placed immediately before the given block
+     */
+    public BasicBlock newBlockBefore(BasicBlock next) {
+        BasicBlock block = new BasicBlock(blockCount++);
+        blocks.add(blocks.indexOf(next), block);
+        return block;
+    }
+
+    public Operand.Temp newTemp() {
+        return new Operand.Temp(tempCount++);
+    }
+
+    /**
+     * The predecessors of each block, in block order
+     */
+    public Map<BasicBlock, List<BasicBlock>> predecessors() {
+        Map<BasicBlock, List<BasicBlock>> preds = new HashMap<>();
+        for (BasicBlock block : blocks) {
+            preds.put(block, new ArrayList<>());
+        }
+        for (BasicBlock block : blocks) {
+            for (BasicBlock succ : block.getSuccessors()) {
+                if (!preds.get(succ).contains(block)) {
+                    preds.get(succ).add(block);
+                }
+            }
+        }
+        return preds;
+    }
+
+    /**
+     * The blocks reachable from the entry in reverse postorder, i.e. each
+     * block comes before its successors other than along back edges.
+     */
+    public List<BasicBlock> reversePostorder() {
+        List<BasicBlock> order = new ArrayList<>();
+        Set<BasicBlock> visited = new HashSet<>();
+        /* Iterative depth first search, with the successors still to be
+         * visited of each block on the path */
+        Deque<Iterator<BasicBlock>> path = new ArrayDeque<>();
+        Deque<BasicBlock> pathBlocks = new ArrayDeque<>();
+        visited.add(getEntry());
+        path.push(getEntry().getSuccessors().iterator());
+        pathBlocks.push(getEntry());
+        while (!path.isEmpty()) {
+            if (path.peek().hasNext()) {
+                BasicBlock succ = path.peek().next();
+                if (visited.add(succ)) {
+                    path.push(succ.getSuccessors().iterator());
+                    pathBlocks.push(succ);
+                }
+            } else {
+                path.pop();
+                order.add(pathBlocks.pop());
+            }
+        }
+        Collections.reverse(order);
+        return order;
+    }
+
+    /**
+     * Remove blocks that are not reachable from the entry.
+     *
+     * @return true if any were removed
+     */
+    public boolean removeUnreachable() {
+        Set<BasicBlock> reachable = new HashSet<>(reversePostorder());
+        return blocks.retainAll(reachable);
+    }
+
+    /**
+     * The immediate dominator of each reachable block; the entry is mapped
+     * to itself. Uses the iterative algorithm of Cooper, Harvey and Kennedy.
+     */
+    public Map<BasicBlock, BasicBlock> dominators() {
+        List<BasicBlock> order = reversePostorder();
+        Map<BasicBlock, Integer> position = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            position.put(order.get(i), i);
+        }
+        Map<BasicBlock, List<BasicBlock>> preds = predecessors();
+        Map<BasicBlock, BasicBlock> idom = new LinkedHashMap<>();
+        idom.put(getEntry(), getEntry());
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (BasicBlock block : order.subList(1, order.size())) {
+                BasicBlock newIdom = null;
+                for (BasicBlock pred : preds.get(block)) {
+                    if (idom.containsKey(pred)) {
+                        newIdom = (newIdom == null) ? pred :
+                                intersect(pred, newIdom, idom, position);
+                    }
+                }
+                if (newIdom != idom.get(block)) {
+                    idom.put(block, newIdom);
+                    changed = true;
+                }
+            }
+        }
+        return idom;
+    }
+
+    private static BasicBlock intersect(BasicBlock a, BasicBlock b,
+                                        Map<BasicBlock, BasicBlock> idom,
+                                        Map<BasicBlock, Integer> position) {
+        while (a != b) {
+            while (position.get(a) > position.get(b)) {
+                a = idom.get(a);
+            }
+            while (position.get(b) > position.get(a)) {
+                b = idom.get(b);
+            }
+        }
+        return a;
+    }
+
+    /**
+     * Whether block a dominates block b, given the immediate dominators
+     */
+    public static boolean dominates(Map<BasicBlock, BasicBlock> idom,
+                                    BasicBlock a, BasicBlock b) {
+        while (b != a) {
+            BasicBlock up = idom.get(b);
+            if (up == null || up == b) {
+                return false;
+            }
+            b = up;
+        }
+        return true;
+    }
+
+    /**
+     * The instruction defining each temporary
+     */
+    public Map<Operand.Temp, Instr> definitions() {
+        Map<Operand.Temp, Instr> defs = new HashMap<>();
+        for (BasicBlock block : blocks) {
+            for (Instr instr : block.getInstrs()) {
+                if (instr.getDst() != null) {
+                    defs.put(instr.getDst(), instr);
+                }
+            }
+        }
+        return defs;
+    }
+
+    /**
+     * The number of uses of each temporary that is used
+     */
+    public Map<Operand.Temp, Integer> useCounts() {
+        Map<Operand.Temp, Integer> counts = new HashMap<>();
+        for (BasicBlock block : blocks) {
+            for (Instr instr : block.getAllInstrs()) {
+                for (Operand arg : instr.getArgs()) {
+                    if (arg instanceof Operand.Temp) {
+                        counts.merge((Operand.Temp) arg, 1, Integer::sum);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Replace uses of temporaries according to the substitution, following
+     * chains of substitutions.
+     *
+     * @return true if any operand was replaced
+     */
+    public boolean substitute(Map<Operand.Temp, Operand> subst) {
+        boolean changed = false;
+        for (BasicBlock block : blocks) {
+            for (Instr instr : block.getAllInstrs()) {
+                Operand[] args = instr.getArgs();
+                for (int i = 0; i < args.length; i++) {
+                    Operand arg = args[i];
+                    while (subst.containsKey(arg)) {
+                        arg = subst.get(arg);
+                    }
+                    if (arg != args[i]) {
+                        args[i] = arg;
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("Procedure " +
+                procEntry.getIdent() + "\n");
+        for (BasicBlock block : blocks) {
+            s.append(block);
+        }
+        return s.toString();
+    }
+}
@@ -0,0 +1,269 @@
+package ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * class LoopInvariantMotion - moves expressions whose value does not change
+ * within a loop to a preheader block executed once before the loop.
+ * <p>
+ * Loops are the natural loops of the back edges of the control flow graph,
+ * processed innermost first so that an expression can move out of several
+ * nested loops. Only pure instructions are moved, as they cannot fail and
+ * so may be evaluated even if the loop body is never executed.
+ * A load is invariant if no instruction in the loop may store to the
+ * variable it loads. On the stack machine a moved value is stored in the
+ * frame and reloaded within the loop, so only expressions that cost more
+ * than a reload are moved.
+ */
+public class LoopInvariantMotion implements Pass {
+
+    public String getName() {
+        return "loop invariant code motion";
+    }
+
+    public boolean run(IrProcedure proc) {
+        List<BasicBlock> order = proc.reversePostorder();
+        Map<BasicBlock, BasicBlock> idom = proc.dominators();
+        Map<BasicBlock, List<BasicBlock>> preds = proc.predecessors();
+        /* The body of the natural loop of each header */
+        Map<BasicBlock, Set<BasicBlock>> loops = new LinkedHashMap<>();
+        for (BasicBlock block : order) {
+            for (BasicBlock succ : block.getSuccessors()) {
+                if (IrProcedure.dominates(idom, succ, block)) {
+                    addNaturalLoop(loops.computeIfAbsent(succ, h -> new HashSet<>()),
+                            succ, block, preds);
+                }
+            }
+        }
+        List<BasicBlock> headers = new ArrayList<>(loops.keySet());
+        headers.sort((a, b) -> loops.get(a).size() - loops.get(b).size());
+        boolean changed = false;
+        for (BasicBlock header : headers) {
+            if (header == proc.getEntry()) {
+                continue;   // there is nowhere before the loop to move to
+            }
+            Set<BasicBlock> body = loops.get(header);
+            List<Instr> hoisted = findHoisted(proc, body, order);
+            if (hoisted.isEmpty()) {
+                continue;
+            }
+            BasicBlock preheader = preheader(proc, header, body);
+            for (BasicBlock block : order) {
+                if (body.contains(block)) {
+                    block.getInstrs().removeAll(hoisted);
+                }
+            }
+            addShared(preheader, hoisted);
+            /* A new preheader is within any enclosing loop */
+            for (Set<BasicBlock> outer : loops.values()) {
+                if (outer != body && outer.contains(header)) {
+                    outer.add(preheader);
+                }
+            }
+            order = proc.reversePostorder();
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * Add the moved instructions to the end of the preheader. Moved
+     * instructions computing the same value, e.g. the address of the same
+     * variable of an enclosing procedure, become copies of the first.
+     * They are all evaluated at the same point, so this holds for loads too.
+     */
+    private void addShared(BasicBlock preheader, List<Instr> hoisted) {
+        Map<String, Operand.Temp> computed = new HashMap<>();
+        Map<Operand, Operand> valueOf = new HashMap<>();
+        for (Instr instr : hoisted) {
+            String key = instr.getKey(arg -> valueOf.getOrDefault(arg, arg));
+            Operand.Temp earlier = key == null ? null : computed.get(key);
+            if (earlier == null) {
+                computed.put(key, instr.getDst());
+                preheader.add(instr);
+            } else {
+                valueOf.put(instr.getDst(), earlier);
+                preheader.add(new Instr.Move(instr.getDst(), earlier));
+            }
+        }
+    }
+
+    /**
+     * Add the blocks of the natural loop of the back edge from latch to
+     * header, i.e. the blocks that can reach the latch without passing
+     * through the header.
+     */
+    private void addNaturalLoop(Set<BasicBlock> body, BasicBlock header,
+                                BasicBlock latch,
+                                Map<BasicBlock, List<BasicBlock>> preds) {
+        body.add(header);
+        Deque<BasicBlock> worklist = new ArrayDeque<>();
+        if (body.add(latch)) {
+            worklist.add(latch);
+        }
+        while (!worklist.isEmpty()) {
+            for (BasicBlock pred : preds.get(worklist.remove())) {
+                if (body.add(pred)) {
+                    worklist.add(pred);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the instructions to move out of a loop, in an order in which
+     * each is defined before it is used.
+     */
+    private List<Instr> findHoisted(IrProcedure proc, Set<BasicBlock> body,
+                                    List<BasicBlock> order) {
+        /* The memory effects of the loop */
+        boolean clobbersAll = false;
+        boolean writes = false;
+        Set<Integer> storedSlots = new HashSet<>();
+        Set<Operand.Temp> definedInLoop = new HashSet<>();
+        for (BasicBlock block : body) {
+            for (Instr instr : block.getAllInstrs()) {
+                if (instr.getDst() != null) {
+                    definedInLoop.add(instr.getDst());
+                }
+                if (!instr.writesMemory()) {
+                    continue;
+                }
+                writes = true;
+                if (instr instanceof Instr.Store && instr.getArg(1).isConst()) {
+                    storedSlots.add(instr.getArg(1).getConstValue());
+                } else if (instr instanceof Terminator.ForInit) {
+                    storedSlots.add(((Terminator.ForInit) instr).getCtrlOffset());
+                    storedSlots.add(((Terminator.ForInit) instr).getBoundOffset());
+                } else if (instr instanceof Terminator.ForStep) {
+                    storedSlots.add(((Terminator.ForStep) instr).getCtrlOffset());
+                } else {
+                    clobbersAll = true;
+                }
+            }
+        }
+        Map<Operand.Temp, Instr> defs = proc.definitions();
+        /* Find the invariant instructions, in order */
+        Set<Operand.Temp> invariant = new HashSet<>();
+        List<Instr> candidates = new ArrayList<>();
+        for (BasicBlock block : order) {
+            if (!body.contains(block)) {
+                continue;
+            }
+            for (Instr instr : block.getInstrs()) {
+                if (!instr.isPure() || !argsInvariant(instr, definedInLoop, invariant)) {
+                    continue;
+                }
+                if (instr instanceof Instr.Load &&
+                        !loadInvariant(instr.getArg(0), defs, clobbersAll, writes, storedSlots)) {
+                    continue;
+                }
+                invariant.add(instr.getDst());
+                candidates.add(instr);
+            }
+        }
+        /* Worthwhile roots are invariant values used by variant instructions */
+        Map<Operand.Temp, Integer> uses = proc.useCounts();
+        Set<Instr> hoist = new HashSet<>();
+        for (BasicBlock block : body) {
+            for (Instr instr : block.getAllInstrs()) {
+                if (instr.getDst() != null && invariant.contains(instr.getDst())) {
+                    continue;
+                }
+                for (Operand arg : instr.getArgs()) {
+                    if (invariant.contains(arg) &&
+                            Lowering.treeCost(defs.get(arg), defs, uses) > Lowering.RELOAD_COST) {
+                        addWithOperands(defs.get(arg), defs, invariant, hoist);
+                    }
+                }
+            }
+        }
+        List<Instr> hoisted = new ArrayList<>();
+        for (Instr instr : candidates) {
+            if (hoist.contains(instr)) {
+                hoisted.add(instr);
+            }
+        }
+        return hoisted;
+    }
+
+    private static boolean argsInvariant(Instr instr, Set<Operand.Temp> definedInLoop,
+                                         Set<Operand.Temp> invariant) {
+        for (Operand arg : instr.getArgs()) {
+            if (definedInLoop.contains(arg) && !invariant.contains(arg)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether a load from the address is invariant. The address of a
+     * variable of an enclosing procedure is not in the current frame, so
+     * it is only changed by a store to a computed address or a call.
+     */
+    private static boolean loadInvariant(Operand addr, Map<Operand.Temp, Instr> defs,
+                                         boolean clobbersAll, boolean writes,
+                                         Set<Integer> storedSlots) {
+        if (clobbersAll) {
+            return false;
+        } else if (addr.isConst()) {
+            return !storedSlots.contains(addr.getConstValue());
+        }
+        Instr def = defs.get(addr);
+        if (def instanceof Instr.Binary && def.getArg(0) instanceof Operand.Temp &&
+                defs.get(def.getArg(0)) instanceof Instr.FrameAddr) {
+            return true;
+        }
+        return !writes;
+    }
+
+    /**
+     * Add an invariant instruction and the invariant instructions defining
+     * its operands, which must be moved with it.
+     */
+    private static void addWithOperands(Instr instr, Map<Operand.Temp, Instr> defs,
+                                        Set<Operand.Temp> invariant, Set<Instr> hoist) {
+        if (!hoist.add(instr)) {
+            return;
+        }
+        for (Operand arg : instr.getArgs()) {
+            if (invariant.contains(arg)) {
+                addWithOperands(defs.get(arg), defs, invariant, hoist);
+            }
+        }
+    }
+
+    /**
+     * The block from which the loop is entered: the only predecessor from
+     * outside the loop if it has no other successor, otherwise a new block
+     * placed before the header.
+     */
+    private BasicBlock preheader(IrProcedure proc, BasicBlock header,
+                                 Set<BasicBlock> body) {
+        List<BasicBlock> outside = new ArrayList<>();
+        for (BasicBlock pred : proc.predecessors().get(header)) {
+            if (!body.contains(pred)) {
+                outside.add(pred);
+            }
+        }
+        if (outside.size() == 1 &&
+                outside.get(0).getTerminator() instanceof Terminator.Jump) {
+            return outside.get(0);
+        }
+        BasicBlock preheader = proc.newBlockBefore(header);
+        preheader.setTerminator(new Terminator.Jump(header));
+        for (BasicBlock pred : outside) {
+            pred.getTerminator().replaceSuccessor(header, preheader);
+        }
+        return preheader;
+    }
+}
@@ -0,0 +1,500 @@
+package ir;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import machine.Operation;
+import syms.Scope;
+import tree.Code;
+
+/**
+ * class Lowering - generates stack machine code for the intermediate code
+ * of a procedure.
+ * <p>
+ * Within a block, an instruction whose result has a single use by the
+ * instruction that immediately follows its own operands is evaluated
+ * directly onto the stack as part of that instruction's expression tree.
+ * Because the instructions of a tree are contiguous the code is generated
+ * in the same order as the intermediate code, so run time errors occur
+ * in the same order. The result of any other instruction is stored in
+ * a frame slot after the local variables and reloaded at each use.
+ * <p>
+ * The costs estimated here, in instructions executed, are used by the
+ * passes to decide whether it is worth replacing an expression by a
+ * reload of a value kept in the frame.
+ */
+public class Lowering {
+    /**
+     * Cost of reloading a value kept in the frame: LOAD_CON slot, LOAD_FRAME
+     */
+    public static final int RELOAD_COST = 2;
+    /**
+     * Cost of keeping a value in the frame: LOAD_CON slot, STORE_FRAME
+     */
+    public static final int SPILL_COST = 2;
+
+    private static final int SIZE_JUMP_ALWAYS =
+            Operation.LOAD_CON.getSize() + Operation.BR.getSize();
+    private static final int SIZE_JUMP_IF_FALSE =
+            Operation.LOAD_CON.getSize() + Operation.BR_FALSE.getSize();
+
+    private final IrProcedure proc;
+    private final Map<Operand.Temp, Instr> defs;
+    private final Map<Operand.Temp, Integer> uses;
+    /**
+     * Instructions evaluated as part of the expression tree of their use
+     */
+    private final Set<Instr> inlined = new HashSet<>();
+    /**
+     * Frame slots of the temporaries that are kept in the frame
+     */
+    private final Map<Operand.Temp, Integer> slots = new HashMap<>();
+    /**
+     * Space for the local variables and kept temporaries
+     */
+    private int frameSpace;
+
+    public Lowering(IrProcedure proc) {
+        this.proc = proc;
+        this.defs = proc.definitions();
+        this.uses = proc.useCounts();
+    }
+
+    /**
+     * Estimated cost of evaluating an instruction and those operands that
+     * would be evaluated as part of its expression tree.
+     */
+    public static int treeCost(Instr instr, Map<Operand.Temp, Instr> defs,
+                               Map<Operand.Temp, Integer> uses) {
+        int cost = cost(instr);
+        for (Operand arg : instr.getArgs()) {
+            if (arg.isConst()) {
+                cost += 1;
+            } else if (uses.getOrDefault(arg, 0) == 1 && defs.containsKey(arg)) {
+                cost += treeCost(defs.get(arg), defs, uses);
+            } else {
+                cost += RELOAD_COST;
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Number of instructions generated for the operation itself
+     */
+    private static int cost(Instr instr) {
+        if (instr instanceof Instr.Binary) {
+            switch (((Instr.Binary) instr).getOp()) {
+                case SUB:
+                    return 2;       // NEGATE ADD
+                case NE:
+                    return 4;       // EQUAL NEGATE ONE ADD
+                default:
+                    return 1;
+            }
+        } else if (instr instanceof Instr.Unary) {
+            Instr.Unary unary = (Instr.Unary) instr;
+            boolean wraps = unary.getElements() != 0;
+            switch (unary.getOp()) {
+                case SUCC:
+                    return wraps ? 9 : 2;
+                case PRED:
+                    return wraps ? 10 : 3;
+                default:
+                    return 1;
+            }
+        } else if (instr instanceof Instr.FrameAddr) {
+            /* ZERO LOAD_FRAME, a LOAD_ABS per further level, TO_LOCAL */
+            return ((Instr.FrameAddr) instr).getLevelDiff() + 2;
+        } else if (instr instanceof Instr.Check) {
+            return 3;
+        } else if (instr instanceof Instr.Move) {
+            return 0;
+        }
+        return 1;
+    }
+
+    /**
+     * Generate the code for the procedure, including the allocation of
+     * its frame and the return.
+     */
+    public Code lower() {
+        List<BasicBlock> blocks = proc.getBlocks();
+        for (BasicBlock block : blocks) {
+            matchTrees(block);
+        }
+        allocateSlots();
+        /* The size of the code for a transfer depends only on which block
+         * follows, so the start of each block is known before the
+         * transfers are generated. */
+        int n = blocks.size();
+        Code[] bodies = new Code[n];
+        Map<BasicBlock, Integer> start = new HashMap<>();
+        int position = 0;
+        for (int i = 0; i < n; i++) {
+            BasicBlock block = blocks.get(i);
+            bodies[i] = lowerBody(block);
+            start.put(block, position);
+            position += bodies[i].size() +
+                    transferSize(block.getTerminator(), next(blocks, i));
+        }
+        Code code = new Code();
+        code.genAllocStack(frameSpace);
+        for (int i = 0; i < n; i++) {
+            BasicBlock block = blocks.get(i);
+            code.append(bodies[i]);
+            genTransfer(code, block.getTerminator(), next(blocks, i),
+                    start.get(block) + bodies[i].size(), start);
+        }
+        return code;
+    }
+
+    private static BasicBlock next(List<BasicBlock> blocks, int i) {
+        return i + 1 < blocks.size() ? blocks.get(i + 1) : null;
+    }
+
+    /**
+     * Choose the instructions of a block to evaluate as part of the
+     * expression tree of their use, working back from the end of the block.
+     */
+    private void matchTrees(BasicBlock block) {
+        List<Instr> all = block.getAllInstrs();
+        for (int i = all.size() - 1; i >= 0; i--) {
+            i = match(all, i);
+        }
+    }
+
+    /**
+     * Match the operands of the instruction at position pos against the
+     * instructions immediately preceding it.
+     *
+     * @return the position of the first instruction of the tree
+     */
+    private int match(List<Instr> all, int pos) {
+        Operand[] args = all.get(pos).getArgs();
+        int first = pos;
+        for (int k = args.length - 1; k >= 0; k--) {
+            if (first > 0 && all.get(first - 1).getDst() == args[k] &&
+                    uses.get(args[k]) == 1) {
+                inlined.add(all.get(first - 1));
+                first = match(all, first - 1);
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Allocate frame slots after the local variables for the results that
+     * are not inlined. A result used only within its own block shares
+     * slots with the results of other blocks.
+     */
+    private void allocateSlots() {
+        Map<Operand.Temp, BasicBlock> defBlock = new HashMap<>();
+        for (BasicBlock block : proc.getBlocks()) {
+            for (Instr instr : block.getInstrs()) {
+                if (instr.getDst() != null && !inlined.contains(instr) &&
+                        uses.containsKey(instr.getDst())) {
+                    defBlock.put(instr.getDst(), block);
+                }
+            }
+        }
+        Set<Operand.Temp> global = new HashSet<>();
+        for (BasicBlock block : proc.getBlocks()) {
+            for (Instr instr : block.getAllInstrs()) {
+                for (Operand arg : instr.getArgs()) {
+                    if (defBlock.containsKey(arg) && defBlock.get(arg) != block) {
+                        global.add((Operand.Temp) arg);
+                    }
+                }
+            }
+        }
+        int base = Scope.LOCALS_BASE + proc.getVariableSpace();
+        for (BasicBlock block : proc.getBlocks()) {
+            for (Instr instr : block.getInstrs()) {
+                if (global.contains(instr.getDst())) {
+                    slots.put(instr.getDst(), base++);
+                }
+            }
+        }
+        int end = base;
+        for (BasicBlock block : proc.getBlocks()) {
+            int slot = base;
+            for (Instr instr : block.getInstrs()) {
+                if (defBlock.containsKey(instr.getDst()) && !global.contains(instr.getDst())) {
+                    slots.put(instr.getDst(), slot++);
+                }
+            }
+            end = Math.max(end, slot);
+        }
+        frameSpace = end - Scope.LOCALS_BASE;
+    }
+
+    /**
+     * Generate the code for the instructions of a block, and the operands
+     * of its terminator.
+     */
+    private Code lowerBody(BasicBlock block) {
+        Code code = new Code();
+        for (Instr instr : block.getInstrs()) {
+            if (inlined.contains(instr)) {
+                continue;
+            }
+            genInstr(code, instr);
+            Operand.Temp dst = instr.getDst();
+            if (slots.containsKey(dst)) {
+                code.genLoadConstant(slots.get(dst));
+                code.generateOp(Operation.STORE_FRAME);
+            } else if (dst != null) {
+                /* The result is unused */
+                code.generateOp(Operation.POP);
+            }
+        }
+        for (Operand arg : block.getTerminator().getArgs()) {
+            genOperand(code, arg);
+        }
+        return code;
+    }
+
+    /**
+     * Generate the code to push the value of an operand
+     */
+    private void genOperand(Code code, Operand operand) {
+        if (operand.isConst()) {
+            int value = operand.getConstValue();
+            if (value == 0) {
+                code.generateOp(Operation.ZERO);
+            } else if (value == 1) {
+                code.generateOp(Operation.ONE);
+            } else {
+                code.genLoadConstant(value);
+            }
+        } else if (inlined.contains(defs.get(operand))) {
+            genInstr(code, defs.get(operand));
+        } else {
+            code.genLoadConstant(slots.get(operand));
+            code.generateOp(Operation.LOAD_FRAME);
+        }
+    }
+
+    /**
+     * The inlined index instruction defining the address, if it indexes
+     * a local array, otherwise null
+     */
+    private Instr.Index localIndex(Operand addr) {
+        Instr def = defs.get(addr);
+        if (def instanceof Instr.Index && inlined.contains(def) &&
+                def.getArg(0).isConst()) {
+            return (Instr.Index) def;
+        }
+        return null;
+    }
+
+    /**
+     * Generate the code for an instruction, leaving its result (if any) on
+     * the stack.
+     */
+    private void genInstr(Code code, Instr instr) {
+        if (instr instanceof Instr.Load && localIndex(instr.getArg(0)) != null) {
+            genIndexed(code, localIndex(instr.getArg(0)), Operation.LOAD_INDEXED);
+            return;
+        } else if (instr instanceof Instr.Store && localIndex(instr.getArg(1)) != null) {
+            genOperand(code, instr.getArg(0));
+            genIndexed(code, localIndex(instr.getArg(1)), Operation.STORE_INDEXED);
+            return;
+        } else if (instr instanceof Instr.Index && instr.getArg(0).isConst()) {
+            genIndexed(code, (Instr.Index) instr, Operation.INDEX_FRAME);
+            return;
+        } else if (instr instanceof Instr.Call) {
+            Instr.Call call = (Instr.Call) instr;
+            code.genCall(call.getLevelDiff(), call.getProc());
+            return;
+        } else if (instr instanceof Instr.BlockCopy) {
+            genBlockCopy(code, (Instr.BlockCopy) instr);
+            return;
+        }
+        for (Operand arg : instr.getArgs()) {
+            genOperand(code, arg);
+        }
+        if (instr instanceof Instr.Binary) {
+            genBinary(code, ((Instr.Binary) instr).getOp());
+        } else if (instr instanceof Instr.Unary) {
+            genUnary(code, (Instr.Unary) instr);
+        } else if (instr instanceof Instr.FrameAddr) {
+            code.loadFrameAddress(((Instr.FrameAddr) instr).getLevelDiff());
+            code.generateOp(Operation.TO_LOCAL);
+        } else if (instr instanceof Instr.Load) {
+            code.generateOp(Operation.LOAD_FRAME);
+        } else if (instr instanceof Instr.Store) {
+            code.generateOp(Operation.STORE_FRAME);
+        } else if (instr instanceof Instr.Index) {
+            Instr.Index index = (Instr.Index) instr;
+            code.generateOp(Operation.INDEX, index.getLower(), index.getUpper(),
+                    index.getElementSize());
+        } else if (instr instanceof Instr.Check) {
+            Instr.Check check = (Instr.Check) instr;
+            code.genBoundsCheck(check.getLower(), check.getUpper());
+        } else if (instr instanceof Instr.Read) {
+            code.generateOp(Operation.READ);
+        } else if (instr instanceof Instr.Write) {
+            code.generateOp(Operation.WRITE);
+        }
+        /* A Move just pushes its operand */
+    }
+
+    /**
+     * Generate an instruction indexing a local array, whose operands are
+     * the frame offset of the array and the bounds and element size.
+     */
+    private void genIndexed(Code code, Instr.Index index, Operation op) {
+        genOperand(code, index.getArg(1));
+        code.generateOp(op, index.getArg(0).getConstValue(), index.getLower(),
+                index.getUpper(), index.getElementSize());
+    }
+
+    private void genBinary(Code code, Instr.BinaryOp op) {
+        switch (op) {
+            case ADD:
+                code.generateOp(Operation.ADD);
+                break;
+            case SUB:
+                code.generateOp(Operation.NEGATE);
+                code.generateOp(Operation.ADD);
+                break;
+            case MUL:
+                code.generateOp(Operation.MPY);
+                break;
+            case DIV:
+                code.generateOp(Operation.DIV);
+                break;
+            case EQ:
+                code.generateOp(Operation.EQUAL);
+                break;
+            case NE:
+                code.generateOp(Operation.EQUAL);
+                code.genBoolNot();
+                break;
+            case LT:
+                code.generateOp(Operation.LESS);
+                break;
+            case LE:
+                code.generateOp(Operation.LESSEQ);
+                break;
+        }
+    }
+
+    /**
+     * The successor and predecessor of an enumeration value wrap around,
+     * as generated by the code generator.
+     */
+    private void genUnary(Code code, Instr.Unary unary) {
+        int elements = unary.getElements();
+        switch (unary.getOp()) {
+            case NEG:
+                code.generateOp(Operation.NEGATE);
+                break;
+            case SUCC:
+                code.generateOp(Operation.ONE);
+                code.generateOp(Operation.ADD);
+                if (elements != 0) {
+                    code.generateOp(Operation.DUP);
+                    code.genLoadConstant(elements);
+                    code.generateOp(Operation.EQUAL);
+                    code.genJumpIfFalse(2);
+                    code.generateOp(Operation.POP);
+                    code.generateOp(Operation.ZERO);
+                }
+                break;
+            case PRED:
+                code.generateOp(Operation.ONE);
+                code.generateOp(Operation.NEGATE);
+                code.generateOp(Operation.ADD);
+                if (elements != 0) {
+                    code.generateOp(Operation.DUP);
+                    code.generateOp(Operation.ZERO);
+                    code.generateOp(Operation.LESS);
+                    code.genJumpIfFalse(3);
+                    code.generateOp(Operation.POP);
+                    code.genLoadConstant(elements - 1);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Copy a multi-word value: the value is loaded onto the stack from the
+     * source address before the destination address is pushed.
+     */
+    private void genBlockCopy(Code code, Instr.BlockCopy copy) {
+        genOperand(code, copy.getArg(0));
+        code.genLoadConstant(copy.getSize());
+        code.generateOp(Operation.LOAD_MULTI);
+        genOperand(code, copy.getArg(1));
+        code.genLoadConstant(copy.getSize());
+        code.generateOp(Operation.STORE_MULTI);
+    }
+
+    /**
+     * Size of the code for the transfer of control ending a block
+     */
+    private static int transferSize(Terminator terminator, BasicBlock next) {
+        if (terminator instanceof Terminator.Jump) {
+            return ((Terminator.Jump) terminator).getTarget() == next ? 0 : SIZE_JUMP_ALWAYS;
+        } else if (terminator instanceof Terminator.Branch) {
+            return SIZE_JUMP_IF_FALSE +
+                    (((Terminator.Branch) terminator).getIfTrue() == next ? 0 : SIZE_JUMP_ALWAYS);
+        } else if (terminator instanceof Terminator.ForInit) {
+            return Operation.FOR_INIT.getSize() +
+                    (((Terminator.ForInit) terminator).getBody() == next ? 0 : SIZE_JUMP_ALWAYS);
+        } else if (terminator instanceof Terminator.ForStep) {
+            return Operation.FOR_STEP.getSize() +
+                    (((Terminator.ForStep) terminator).getExit() == next ? 0 : SIZE_JUMP_ALWAYS);
+        } else {
+            return Operation.RETURN.getSize();
+        }
+    }
+
+    /**
+     * Generate the transfer of control ending a block. Branch offsets are
+     * relative to the instruction following the branch.
+     *
+     * @param position position of the transfer within the procedure
+     * @param start    start position of each block
+     */
+    private void genTransfer(Code code, Terminator terminator, BasicBlock next,
+                             int position, Map<BasicBlock, Integer> start) {
+        if (terminator instanceof Terminator.Jump) {
+            BasicBlock target = ((Terminator.Jump) terminator).getTarget();
+            if (target != next) {
+                code.genJumpAlways(start.get(target) - (position + SIZE_JUMP_ALWAYS));
+            }
+        } else if (terminator instanceof Terminator.Branch) {
+            Terminator.Branch branch = (Terminator.Branch) terminator;
+            position += SIZE_JUMP_IF_FALSE;
+            code.genJumpIfFalse(start.get(branch.getIfFalse()) - position);
+            if (branch.getIfTrue() != next) {
+                code.genJumpAlways(start.get(branch.getIfTrue()) - (position + SIZE_JUMP_ALWAYS));
+            }
+        } else if (terminator instanceof Terminator.ForInit) {
+            Terminator.ForInit init = (Terminator.ForInit) terminator;
+            position += Operation.FOR_INIT.getSize();
+            code.genForInit(init.getCtrlOffset(), init.getBoundOffset(),
+                    start.get(init.getExit()) - position);
+            if (init.getBody() != next) {
+                code.genJumpAlways(start.get(init.getBody()) - (position + SIZE_JUMP_ALWAYS));
+            }
+        } else if (terminator instanceof Terminator.ForStep) {
+            Terminator.ForStep step = (Terminator.ForStep) terminator;
+            position += Operation.FOR_STEP.getSize();
+            code.genForStep(step.getCtrlOffset(), step.getBoundOffset(),
+                    start.get(step.getBody()) - position);
+            if (step.getExit() != next) {
+                code.genJumpAlways(start.get(step.getExit()) - (position + SIZE_JUMP_ALWAYS));
+            }
+        } else {
+            code.generateOp(Operation.RETURN);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ir;
+
+/**
+ * class Operand - an operand of an intermediate code instruction.
+ * Either a constant or a temporary holding the result of another
+ * instruction. Each temporary is defined by exactly one instruction
+ * (the intermediate code is in static single assignment form for
+ * temporaries); variables are held in memory and accessed by explicit
+ * Load and Store instructions.
+ */
+public abstract class Operand {
+
+    /**
+     * A constant operand
+     */
+    public static class Const extends Operand {
+        private final int value;
+
+        public Const(int value) {
+            this.value = value;
+        }
+
+        public int getValue() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Const && ((Const) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return Integer.toString(value);
+        }
+    }
+
+    /**
+     * A temporary. Temporaries are compared by identity.
+     */
+    public static class Temp extends Operand {
+        /**
+         * Number of the temporary within its procedure, for listings
+         */
+        private final int number;
+
+        Temp(int number) {
+            this.number = number;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        @Override
+        public String toString() {
+            return "t" + number;
+        }
+    }
+
+    public boolean isConst() {
+        return this instanceof Const;
+    }
+
+    /**
+     * @return the value of a constant operand
+     * requires isConst()
+     */
+    public int getConstValue() {
+        return ((Const) this).getValue();
+    }
+}
@@ -0,0 +1,19 @@
+package ir;
+
+/**
+ * interface Pass - a transformation of the intermediate code of a
+ * procedure, run by the PassManager.
+ */
+public interface Pass {
+    /**
+     * @return the name of the pass, for debugging messages
+     */
+    String getName();
+
+    /**
+     * Transform the procedure in place.
+     *
+     * @return true if the procedure was changed
+     */
+    boolean run(IrProcedure proc);
+}
@@ -0,0 +1,63 @@
+package ir;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import source.Errors;
+
+/**
+ * class PassManager - runs a sequence of passes over the intermediate code
+ * of a procedure, repeating the sequence while any pass makes a change,
+ * as one pass may expose opportunities for another.
+ */
+public class PassManager {
+    /**
+     * Limit on the number of times the sequence of passes is run
+     */
+    private static final int MAX_ROUNDS = 10;
+
+    private final List<Pass> passes = new ArrayList<>();
+    /**
+     * Debugging messages are written through the error handler
+     */
+    private final Errors errors;
+
+    public PassManager(Errors errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * The standard optimisation pipeline
+     */
+    public static PassManager standard(Errors errors) {
+        return new PassManager(errors)
+                .add(new ConstantPropagation())
+                .add(new CopyPropagation())
+                .add(new CommonSubexpressions())
+                .add(new CopyPropagation())
+                .add(new DeadCodeElimination())
+                .add(new LoopInvariantMotion());
+    }
+
+    public PassManager add(Pass pass) {
+        passes.add(pass);
+        return this;
+    }
+
+    /**
+     * Run the passes over the procedure until none makes a change
+     */
+    public void run(IrProcedure proc) {
+        errors.debugMessage("IR built\n" + proc);
+        boolean changed = true;
+        for (int round = 0; changed && round < MAX_ROUNDS; round++) {
+            changed = false;
+            for (Pass pass : passes) {
+                if (pass.run(proc)) {
+                    errors.debugMessage("IR after " + pass.getName() + "\n" + proc);
+                    changed = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package ir;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * class Terminator - the control transfer that ends a basic block.
+ */
+public abstract class Terminator extends Instr {
+    /**
+     * Successor blocks
+     */
+    protected final BasicBlock[] targets;
+
+    protected Terminator(BasicBlock[] targets, Operand... args) {
+        super(null, args);
+        this.targets = targets;
+    }
+
+    public List<BasicBlock> getSuccessors() {
+        return Collections.unmodifiableList(Arrays.asList(targets));
+    }
+
+    /**
+     * Redirect control transfers to from to go to to instead
+     */
+    public void replaceSuccessor(BasicBlock from, BasicBlock to) {
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] == from) {
+                targets[i] = to;
+            }
+        }
+    }
+
+    @Override
+    protected String format(String op) {
+        StringBuilder s = new StringBuilder(super.format(op));
+        for (BasicBlock target : targets) {
+            s.append(" -> ").append(target.getName());
+        }
+        return s.toString();
+    }
+
+    /**
+     * Unconditional transfer
+     */
+    public static class Jump extends Terminator {
+        public Jump(BasicBlock target) {
+            super(new BasicBlock[]{target});
+        }
+
+        public BasicBlock getTarget() {
+            return targets[0];
+        }
+
+        @Override
+        public String toString() {
+            return format("JUMP");
+        }
+    }
+
+    /**
+     * Two way branch on a boolean condition
+     */
+    public static class Branch extends Terminator {
+        public Branch(Operand cond, BasicBlock ifTrue, BasicBlock ifFalse) {
+            super(new BasicBlock[]{ifTrue, ifFalse}, cond);
+        }
+
+        public BasicBlock getIfTrue() {
+            return targets[0];
+        }
+
+        public BasicBlock getIfFalse() {
+            return targets[1];
+        }
+
+        @Override
+        public String toString() {
+            return format("BRANCH");
+        }
+    }
+
+    /**
+     * Set up of a counted loop: the lower bound is stored in the control
+     * variable and the upper bound in its own frame slot, and control
+     * transfers to the loop body unless the range is empty.
+     */
+    public static class ForInit extends Terminator {
+        private final int ctrlOffset;
+        private final int boundOffset;
+
+        public ForInit(int ctrlOffset, int boundOffset, Operand lower,
+                       Operand upper, BasicBlock body, BasicBlock exit) {
+            super(new BasicBlock[]{body, exit}, lower, upper);
+            this.ctrlOffset = ctrlOffset;
+            this.boundOffset = boundOffset;
+        }
+
+        public int getCtrlOffset() {
+            return ctrlOffset;
+        }
+
+        public int getBoundOffset() {
+            return boundOffset;
+        }
+
+        public BasicBlock getBody() {
+            return targets[0];
+        }
+
+        public BasicBlock getExit() {
+            return targets[1];
+        }
+
+        @Override
+        public boolean writesMemory() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return format("FOR_INIT " + ctrlOffset + "/" + boundOffset);
+        }
+    }
+
+    /**
+     * Step of a counted loop: the control variable is incremented and
+     * control transfers back to the loop body while it is within bounds.
+     */
+    public static class ForStep extends Terminator {
+        private final int ctrlOffset;
+        private final int boundOffset;
+
+        public ForStep(int ctrlOffset, int boundOffset, BasicBlock body,
+                       BasicBlock exit) {
+            super(new BasicBlock[]{body, exit});
+            this.ctrlOffset = ctrlOffset;
+            this.boundOffset = boundOffset;
+        }
+
+        public int getCtrlOffset() {
+            return ctrlOffset;
+        }
+
+        public int getBoundOffset() {
+            return boundOffset;
+        }
+
+        public BasicBlock getBody() {
+            return targets[0];
+        }
+
+        public BasicBlock getExit() {
+            return targets[1];
+        }
+
+        @Override
+        public boolean readsMemory() {
+            return true;
+        }
+
+        @Override
+        public boolean writesMemory() {
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return format("FOR_STEP " + ctrlOffset + "/" + boundOffset);
+        }
+    }
+
+    /**
+     * Return from the procedure
+     */
+    public static class Return extends Terminator {
+        public Return() {
+            super(new BasicBlock[0]);
+        }
+
+        @Override
+        public String toString() {
+            return format("RETURN");
+        }
+    }
+}
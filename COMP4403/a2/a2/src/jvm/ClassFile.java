@@ -0,0 +1,218 @@
+package jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * class ClassFile - builds a JVM class file of static fields and methods,
+ * with the constant pool entries they refer to.
+ * <p>
+ * Classes are written in class file version 49 (Java 5), which requires
+ * no stack map frames; the JVM verifies such classes by type inference.
+ */
+class ClassFile {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MAJOR_VERSION = 49;
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    /* Constant pool tags */
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    /**
+     * A field or method of the class
+     */
+    private static class Member {
+        final int access;
+        final int name;
+        final int descriptor;
+        /**
+         * Code of a method, null for a field
+         */
+        final MethodCode code;
+
+        Member(int access, int name, int descriptor, MethodCode code) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.code = code;
+        }
+    }
+
+    private final String name;
+    /**
+     * Constant pool entries in order, from index 1
+     */
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private int poolCount = 1;
+    /**
+     * Index of each constant pool entry added, keyed by its tag and value,
+     * so that each is added only once
+     */
+    private final Map<String, Integer> entries = new HashMap<>();
+    private final List<Member> fields = new ArrayList<>();
+    private final List<Member> methods = new ArrayList<>();
+
+    /**
+     * @param name binary name of the class, with '/' separating packages
+     */
+    ClassFile(String name) {
+        this.name = name;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return the index of a constant pool entry, adding it if it is new
+     */
+    private int entry(String key, EntryWriter writer) {
+        Integer index = entries.get(key);
+        if (index == null) {
+            try {
+                writer.write(poolOut);
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // not thrown by a byte array
+            }
+            index = poolCount++;
+            entries.put(key, index);
+        }
+        return index;
+    }
+
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    int utf8(String value) {
+        return entry("U" + value, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(value);
+        });
+    }
+
+    int integer(int value) {
+        return entry("I" + value, out -> {
+            out.writeByte(CONSTANT_INTEGER);
+            out.writeInt(value);
+        });
+    }
+
+    int classRef(String className) {
+        int nameIndex = utf8(className);
+        return entry("C" + className, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(nameIndex);
+        });
+    }
+
+    int string(String value) {
+        int valueIndex = utf8(value);
+        return entry("S" + value, out -> {
+            out.writeByte(CONSTANT_STRING);
+            out.writeShort(valueIndex);
+        });
+    }
+
+    private int nameAndType(String memberName, String descriptor) {
+        int nameIndex = utf8(memberName);
+        int descriptorIndex = utf8(descriptor);
+        return entry("N" + memberName + ":" + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+    }
+
+    private int memberRef(int tag, String owner, String memberName, String descriptor) {
+        int classIndex = classRef(owner);
+        int nameAndTypeIndex = nameAndType(memberName, descriptor);
+        return entry(tag + owner + "." + memberName + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(classIndex);
+            out.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    int fieldRef(String owner, String fieldName, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, owner, fieldName, descriptor);
+    }
+
+    int methodRef(String owner, String methodName, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, methodName, descriptor);
+    }
+
+    void addField(int access, String fieldName, String descriptor) {
+        fields.add(new Member(access, utf8(fieldName), utf8(descriptor), null));
+    }
+
+    void addMethod(int access, String methodName, String descriptor, MethodCode code) {
+        methods.add(new Member(access, utf8(methodName), utf8(descriptor), code));
+    }
+
+    /**
+     * @return the bytes of the class file
+     * @throws IllegalStateException if a method is too large for the JVM
+     */
+    byte[] toBytes() {
+        int thisIndex = classRef(name);
+        int superIndex = classRef("java/lang/Object");
+        /* The Code attributes add their name to the constant pool, so
+         * the members are written before the pool */
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            DataOutputStream out = new DataOutputStream(body);
+            writeMembers(out, fields);
+            writeMembers(out, methods);
+            out.writeShort(0); // no class attributes
+            ByteArrayOutputStream file = new ByteArrayOutputStream();
+            DataOutputStream fileOut = new DataOutputStream(file);
+            fileOut.writeInt(MAGIC);
+            fileOut.writeShort(0);
+            fileOut.writeShort(MAJOR_VERSION);
+            fileOut.writeShort(poolCount);
+            pool.writeTo(fileOut);
+            fileOut.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            fileOut.writeShort(thisIndex);
+            fileOut.writeShort(superIndex);
+            fileOut.writeShort(0); // no interfaces
+            body.writeTo(fileOut);
+            return file.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not thrown by a byte array
+        }
+    }
+
+    private void writeMembers(DataOutputStream out, List<Member> members)
+            throws IOException {
+        out.writeShort(members.size());
+        for (Member member : members) {
+            out.writeShort(member.access);
+            out.writeShort(member.name);
+            out.writeShort(member.descriptor);
+            if (member.code == null) {
+                out.writeShort(0);
+            } else {
+                out.writeShort(1);
+                member.code.write(out);
+            }
+        }
+    }
+}
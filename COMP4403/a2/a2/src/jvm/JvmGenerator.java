@@ -0,0 +1,871 @@
+package jvm;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import machine.StackMachine;
+import source.ErrorHandler;
+import source.Errors;
+import syms.Scope;
+import syms.SymEntry;
+import syms.Type;
+import tree.DeclNode;
+import tree.ExpNode;
+import tree.ExpTransform;
+import tree.StatementNode;
+import tree.StatementVisitor;
+
+/**
+ * class JvmGenerator - translates a statically checked program directly
+ * into a JVM class that runs it without the stack machine.
+ * <p>
+ * Each procedure becomes a static method. Its frame is an int array,
+ * indexed by the offsets of its variables from the first local, and the
+ * frames of the procedures it is nested within are passed to it as
+ * parameters, one for each enclosing static level, as its environment.
+ * A scalar variable that no nested procedure uses is kept in a local of
+ * the method instead, and a procedure with only such variables has no
+ * frame array. Variables are initialised to the stack machine's
+ * uninitialised value, and an array element is at its offset within the
+ * frame of the array, so whole arrays are copied with System.arraycopy.
+ * <p>
+ * Run time errors are the stack machine's, without code addresses, and
+ * are thrown as RuntimeExceptions caught by the run method of the class,
+ * which reports them. Procedure calls account for the words of their
+ * frames, including the links, so that recursion too deep for the stack
+ * machine's memory fails with a memory overflow; the words of expression
+ * evaluation are not accounted for. The branches of a "cobegin" statement
+ * are run in turn.
+ * <p>
+ * The class has the methods
+ * <pre>
+ *     public static boolean run(PrintStream out, BufferedReader in)
+ *     public static void main(String[] args)
+ * </pre>
+ * the first returning whether the program ran without a run time error,
+ * and the second running it on the standard input and output.
+ */
+public class JvmGenerator implements StatementVisitor, ExpTransform<ExpNode> {
+    /**
+     * Words of the stack machine's memory available to frames
+     */
+    private static final int STACK_WORDS = StackMachine.CODE_START;
+    /**
+     * Words of the links at the start of a frame
+     */
+    private static final int FRAME_LINKS = Scope.LOCALS_BASE;
+    private static final int UNINITIALISED = StackMachine.NULL_ADDR;
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String STRING = "java/lang/String";
+    private static final String STRING_BUILDER = "java/lang/StringBuilder";
+    private static final String RUNTIME_EXCEPTION = "java/lang/RuntimeException";
+    private static final String PRINT_STREAM = "java/io/PrintStream";
+    private static final String BUFFERED_READER = "java/io/BufferedReader";
+
+    /* Fields and helper methods of the generated class */
+    private static final String OUT = "out";
+    private static final String IN = "in";
+    private static final String WORDS = "words";
+    private static final String RUN_DESCRIPTOR =
+            "(L" + PRINT_STREAM + ";L" + BUFFERED_READER + ";)Z";
+
+    /**
+     * Error message handler
+     */
+    private final Errors errors;
+    private ClassFile classFile;
+    /**
+     * Method name of each procedure
+     */
+    private final Map<SymEntry.ProcedureEntry, String> methodNames = new HashMap<>();
+    /**
+     * Variables used by a procedure nested within the procedure they are
+     * local to, which must be in frame arrays
+     */
+    private final Set<SymEntry.VarEntry> nonLocal = new HashSet<>();
+
+    /* State of the method being generated */
+    private MethodCode code;
+    /**
+     * Static level of the variables local to the procedure
+     */
+    private int staticLevel;
+    /**
+     * JVM local holding the frame array, or -1 if the procedure has none
+     */
+    private int frameLocal;
+    /**
+     * JVM local holding each scalar variable kept in a local
+     */
+    private Map<SymEntry.VarEntry, Integer> scalarLocals;
+
+    public JvmGenerator(Errors errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Generate the class for a checked program.
+     *
+     * @param className name of the class, in the unnamed package
+     * @return the program, or null if it is too large for the JVM
+     */
+    public JvmProgram generate(DeclNode.ProcedureNode program, String className) {
+        classFile = new ClassFile(className);
+        classFile.addField(ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC, OUT,
+                "L" + PRINT_STREAM + ";");
+        classFile.addField(ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC, IN,
+                "L" + BUFFERED_READER + ";");
+        classFile.addField(ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC, WORDS, "I");
+        genProcedure(program);
+        genRun(methodName(program.getProcEntry()));
+        genMain();
+        genWrite();
+        genRead();
+        genBound();
+        genDivide();
+        genEnter();
+        try {
+            return new JvmProgram(className, classFile.toBytes());
+        } catch (IllegalStateException e) {
+            errors.error("Program is too large for the JVM: " + e.getMessage(),
+                    ErrorHandler.NO_LOCATION);
+            return null;
+        }
+    }
+
+    /**
+     * @return the name of the method of a procedure, which is unique as
+     * procedures in different scopes may have the same name
+     */
+    private String methodName(SymEntry.ProcedureEntry proc) {
+        return methodNames.computeIfAbsent(proc, p ->
+                p.getIdent().replaceAll("[^A-Za-z0-9_]", "") + "$" + methodNames.size());
+    }
+
+    /**
+     * @return the descriptor of the method of a procedure declared at the
+     * given level, which takes the frames of levels 1 to that level
+     */
+    private static String methodDescriptor(int level) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (int i = 0; i < level; i++) {
+            descriptor.append("[I");
+        }
+        return descriptor.append(")V").toString();
+    }
+
+    /**
+     * Words of the stack machine's memory taken by a frame, which is
+     * more than the memory if it cannot fit
+     */
+    private static int frameWords(StatementNode.BlockNode block) {
+        return (int) Math.min((long) FRAME_LINKS + block.getBlockLocals().getVariableSpace(),
+                STACK_WORDS + 1);
+    }
+
+    /**
+     * Whether a variable is kept in a local of the method of the
+     * procedure it is local to
+     */
+    private boolean isScalarLocal(SymEntry.VarEntry var) {
+        return !nonLocal.contains(var) && var.getType().getArrayType() == null;
+    }
+
+    /**
+     * Generate the methods of a procedure and the procedures nested
+     * within it. The nested procedures are generated first, so that the
+     * variables they use are known when the procedure is generated.
+     */
+    private void genProcedure(DeclNode.ProcedureNode node) {
+        StatementNode.BlockNode block = node.getBlock();
+        for (DeclNode decl : block.getProcedures().getDeclarations()) {
+            genProcedure((DeclNode.ProcedureNode) decl);
+        }
+        SymEntry.ProcedureEntry proc = node.getProcEntry();
+        staticLevel = block.getBlockLocals().getLevel();
+        code = new MethodCode(classFile, proc.getLevel());
+        scalarLocals = new HashMap<>();
+        int words = frameWords(block);
+        code.constant(words);
+        code.invoke(MethodCode.INVOKESTATIC, classFile.getName(), "enter", "(I)V");
+        boolean hasFrame = false;
+        for (SymEntry entry : block.getBlockLocals().getEntries()) {
+            if (entry instanceof SymEntry.VarEntry && !((SymEntry.VarEntry) entry).isRemoved()) {
+                SymEntry.VarEntry var = (SymEntry.VarEntry) entry;
+                if (isScalarLocal(var)) {
+                    code.constant(UNINITIALISED);
+                    code.local(MethodCode.ISTORE, scalarLocal(var));
+                } else {
+                    hasFrame = true;
+                }
+            }
+        }
+        frameLocal = -1;
+        if (hasFrame) {
+            frameLocal = code.newLocal();
+            code.constant(words - FRAME_LINKS);
+            code.allocate(MethodCode.NEWARRAY, null);
+            code.op(MethodCode.DUP);
+            code.constant(UNINITIALISED);
+            code.invoke(MethodCode.INVOKESTATIC, "java/util/Arrays", "fill", "([II)V");
+            code.local(MethodCode.ASTORE, frameLocal);
+        }
+        block.getBody().accept(this);
+        code.field(MethodCode.GETSTATIC, classFile.getName(), WORDS, "I");
+        code.constant(words);
+        code.op(MethodCode.ISUB);
+        code.field(MethodCode.PUTSTATIC, classFile.getName(), WORDS, "I");
+        code.op(MethodCode.RETURN);
+        classFile.addMethod(ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC,
+                methodName(proc), methodDescriptor(proc.getLevel()), code);
+    }
+
+    /**
+     * @return the JVM local of a variable kept in a local, allocating it
+     * when first used
+     */
+    private int scalarLocal(SymEntry.VarEntry var) {
+        return scalarLocals.computeIfAbsent(var, v -> code.newLocal());
+    }
+
+    /**
+     * Generate code to push the frame array of a static level
+     */
+    private void genFrame(int level) {
+        if (level < staticLevel) {
+            /* Parameter of the enclosing frame */
+            code.local(MethodCode.ALOAD, level - 1);
+        } else if (frameLocal >= 0) {
+            code.local(MethodCode.ALOAD, frameLocal);
+        } else {
+            code.op(MethodCode.ACONST_NULL);
+        }
+    }
+
+    //**************  Statements
+
+    public void visitBlockNode(StatementNode.BlockNode node) {
+        errors.fatal("PL0 Internal error: generating JVM code for nested block",
+                node.getLocation());
+    }
+
+    public void visitStatementErrorNode(StatementNode.ErrorNode node) {
+        errors.fatal("PL0 Internal error: generating JVM code for Statement Error Node",
+                node.getLocation());
+    }
+
+    public void visitStatementListNode(StatementNode.ListNode node) {
+        for (StatementNode s : node.getStatements()) {
+            s.accept(this);
+        }
+    }
+
+    /**
+     * The value is evaluated before the address of the variable, as by
+     * the code generator, so that run time errors occur in the same order.
+     */
+    public void visitAssignmentNode(StatementNode.AssignmentNode node) {
+        ExpNode exp = node.getExp();
+        int size = exp.getType().getSpace();
+        if (size == 1) {
+            exp.transform(this);
+            genStore(node.getVariable());
+        } else if (exp instanceof ExpNode.DereferenceNode) {
+            /* A multi-word value is copied directly */
+            genAddress(((ExpNode.DereferenceNode) exp).getLeftValue());
+            genAddress(node.getVariable());
+            code.constant(size);
+            code.invoke(MethodCode.INVOKESTATIC, "java/lang/System", "arraycopy",
+                    "(L" + OBJECT + ";IL" + OBJECT + ";II)V");
+        } else {
+            errors.fatal("PL0 Internal error: multi-word value isn't a variable",
+                    node.getLocation());
+        }
+    }
+
+    public void visitReadNode(StatementNode.ReadNode node) {
+        code.invoke(MethodCode.INVOKESTATIC, classFile.getName(), "read", "()I");
+        genStore(node.getLValue());
+    }
+
+    public void visitWriteNode(StatementNode.WriteNode node) {
+        node.getExp().transform(this);
+        code.invoke(MethodCode.INVOKESTATIC, classFile.getName(), "write", "(I)V");
+    }
+
+    public void visitCallNode(StatementNode.CallNode node) {
+        SymEntry.ProcedureEntry proc = node.getEntry();
+        for (int level = 1; level <= proc.getLevel(); level++) {
+            genFrame(level);
+        }
+        code.invoke(MethodCode.INVOKESTATIC, classFile.getName(), methodName(proc),
+                methodDescriptor(proc.getLevel()));
+    }
+
+    public void visitIfNode(StatementNode.IfNode node) {
+        MethodCode.Label elseLabel = code.newLabel();
+        MethodCode.Label end = code.newLabel();
+        genJumpIfFalse(node.getCondition(), elseLabel);
+        node.getThenStmt().accept(this);
+        code.jump(MethodCode.GOTO, end);
+        code.place(elseLabel);
+        node.getElseStmt().accept(this);
+        code.place(end);
+    }
+
+    public void visitWhileNode(StatementNode.WhileNode node) {
+        MethodCode.Label top = code.newLabel();
+        MethodCode.Label exit = code.newLabel();
+        code.place(top);
+        genJumpIfFalse(node.getCondition(), exit);
+        node.getLoopStmt().accept(this);
+        code.jump(MethodCode.GOTO, top);
+        code.place(exit);
+    }
+
+    /**
+     * The upper bound is kept in a local of its own. As on the stack
+     * machine, a control variable equal to MAXINT is not incremented.
+     */
+    public void visitForNode(StatementNode.ForNode node) {
+        ExpNode.VariableNode ctrl = node.getCtrlVar();
+        int bound = code.newLocal();
+        MethodCode.Label body = code.newLabel();
+        MethodCode.Label exit = code.newLabel();
+        node.getLower().transform(this);
+        node.getUpper().transform(this);
+        code.local(MethodCode.ISTORE, bound);
+        genStore(ctrl);
+        genLoad(ctrl);
+        code.local(MethodCode.ILOAD, bound);
+        code.jump(MethodCode.IF_ICMPGT, exit);
+        code.place(body);
+        node.getLoopStmt().accept(this);
+        genLoad(ctrl);
+        code.constant(Integer.MAX_VALUE);
+        code.jump(MethodCode.IF_ICMPEQ, exit);
+        genLoad(ctrl);
+        code.constant(1);
+        code.op(MethodCode.IADD);
+        genStore(ctrl);
+        genLoad(ctrl);
+        code.local(MethodCode.ILOAD, bound);
+        code.jump(MethodCode.IF_ICMPLE, body);
+        code.place(exit);
+    }
+
+    public void visitCobeginNode(StatementNode.CobeginNode node) {
+        for (StatementNode branch : node.getBranches()) {
+            branch.accept(this);
+        }
+    }
+
+    /**
+     * Generate code to branch to a label if a condition is false.
+     * A comparison branches directly on its operands.
+     */
+    private void genJumpIfFalse(ExpNode cond, MethodCode.Label target) {
+        if (cond instanceof ExpNode.BinaryNode) {
+            ExpNode.BinaryNode node = (ExpNode.BinaryNode) cond;
+            int branch = genComparison(node);
+            if (branch >= 0) {
+                code.jump(negate(branch), target);
+                return;
+            }
+        }
+        cond.transform(this);
+        code.jump(MethodCode.IFEQ, target);
+    }
+
+    /**
+     * If the expression is a comparison generate code for its operands,
+     * in the order of the code generator.
+     *
+     * @return the branch taken if the comparison is true, or -1 if the
+     * expression is not a comparison
+     */
+    private int genComparison(ExpNode.BinaryNode node) {
+        ExpNode left = node.getLeft();
+        ExpNode right = node.getRight();
+        switch (node.getOp()) {
+            case EQUALS_OP:
+                genArgs(left, right);
+                return MethodCode.IF_ICMPEQ;
+            case NEQUALS_OP:
+                genArgs(left, right);
+                return MethodCode.IF_ICMPNE;
+            case LESS_OP:
+                genArgs(left, right);
+                return MethodCode.IF_ICMPLT;
+            case LEQUALS_OP:
+                genArgs(left, right);
+                return MethodCode.IF_ICMPLE;
+            case GREATER_OP:
+                /* Evaluate the arguments in reverse order */
+                genArgs(right, left);
+                return MethodCode.IF_ICMPLT;
+            case GEQUALS_OP:
+                /* Evaluate the arguments in reverse order */
+                genArgs(right, left);
+                return MethodCode.IF_ICMPLE;
+            default:
+                return -1;
+        }
+    }
+
+    private static int negate(int branch) {
+        switch (branch) {
+            case MethodCode.IF_ICMPEQ:
+                return MethodCode.IF_ICMPNE;
+            case MethodCode.IF_ICMPNE:
+                return MethodCode.IF_ICMPEQ;
+            case MethodCode.IF_ICMPLT:
+                return MethodCode.IF_ICMPGE;
+            case MethodCode.IF_ICMPLE:
+                return MethodCode.IF_ICMPGT;
+            default:
+                throw new IllegalArgumentException("not a comparison branch " + branch);
+        }
+    }
+
+    private void genArgs(ExpNode left, ExpNode right) {
+        left.transform(this);
+        right.transform(this);
+    }
+
+    //**************  Variables
+
+    /**
+     * Generate code to push the array and index of the first word of a
+     * variable or array element, which must not be kept in a local
+     */
+    private void genAddress(ExpNode lValue) {
+        if (lValue instanceof ExpNode.VariableNode) {
+            SymEntry.VarEntry var = ((ExpNode.VariableNode) lValue).getVariable();
+            if (var.getLevel() != staticLevel) {
+                nonLocal.add(var);
+            }
+            genFrame(var.getLevel());
+            code.constant(var.getOffset() - FRAME_LINKS);
+        } else if (lValue instanceof ExpNode.ArrayIndexNode) {
+            ExpNode.ArrayIndexNode node = (ExpNode.ArrayIndexNode) lValue;
+            Type.ScalarType indexType = node.getIndexType();
+            genAddress(node.getId());
+            genIndexExp(node);
+            code.constant(indexType.getLower());
+            code.constant(indexType.getUpper());
+            code.invoke(MethodCode.INVOKESTATIC, classFile.getName(), "bound", "(III)I");
+            if (indexType.getLower() != 0) {
+                code.constant(indexType.getLower());
+                code.op(MethodCode.ISUB);
+            }
+            if (node.getElementSize() != 1) {
+                code.constant(node.getElementSize());
+                code.op(MethodCode.IMUL);
+            }
+            code.op(MethodCode.IADD);
+        } else {
+            errors.fatal("PL0 Internal error: JVM address of an expression",
+                    lValue.getLocation());
+        }
+    }
+
+    /**
+     * Generate code for the index of an array element. The index is
+     * checked to be within the bounds of the array, so a narrowing of the
+     * index to exactly those bounds is skipped.
+     */
+    private void genIndexExp(ExpNode.ArrayIndexNode node) {
+        ExpNode index = node.getIndex();
+        if (index instanceof ExpNode.NarrowSubrangeNode) {
+            Type.SubrangeType narrow = ((ExpNode.NarrowSubrangeNode) index).getSubrangeType();
+            if (narrow.getLower() == node.getIndexType().getLower() &&
+                    narrow.getUpper() == node.getIndexType().getUpper()) {
+                index = ((ExpNode.NarrowSubrangeNode) index).getExp();
+            }
+        }
+        index.transform(this);
+    }
+
+    /**
+     * @return the variable if the left value is one kept in a local,
+     * otherwise null
+     */
+    private SymEntry.VarEntry localVariable(ExpNode lValue) {
+        if (lValue instanceof ExpNode.VariableNode) {
+            SymEntry.VarEntry var = ((ExpNode.VariableNode) lValue).getVariable();
+            if (var.getLevel() == staticLevel && isScalarLocal(var)) {
+                return var;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Generate code to push the value of a single word left value
+     */
+    private void genLoad(ExpNode lValue) {
+        SymEntry.VarEntry var = localVariable(lValue);
+        if (var != null) {
+            code.local(MethodCode.ILOAD, scalarLocal(var));
+        } else {
+            genAddress(lValue);
+            code.op(MethodCode.IALOAD);
+        }
+    }
+
+    /**
+     * Generate code to store the value on top of the stack in a single
+     * word left value
+     */
+    private void genStore(ExpNode lValue) {
+        SymEntry.VarEntry var = localVariable(lValue);
+        if (var != null) {
+            code.local(MethodCode.ISTORE, scalarLocal(var));
+        } else {
+            genAddress(lValue);
+            /* Move the value above the array and index */
+            code.op(MethodCode.DUP2_X1);
+            code.op(MethodCode.POP2);
+            code.op(MethodCode.IASTORE);
+        }
+    }
+
+    //**************  Expressions
+
+    public ExpNode visitErrorExpNode(ExpNode.ErrorNode node) {
+        errors.fatal("PL0 Internal error: generating JVM code for ErrorExpNode",
+                node.getLocation());
+        return node;
+    }
+
+    public ExpNode visitConstNode(ExpNode.ConstNode node) {
+        code.constant(node.getValue());
+        return node;
+    }
+
+    public ExpNode visitIdentifierNode(ExpNode.IdentifierNode node) {
+        errors.fatal("Internal error: JVM code generated for IdentifierNode",
+                node.getLocation());
+        return node;
+    }
+
+    /**
+     * Left values are generated by genAddress, genLoad and genStore
+     */
+    public ExpNode visitArrayIndexNode(ExpNode.ArrayIndexNode node) {
+        genAddress(node);
+        return node;
+    }
+
+    public ExpNode visitVariableNode(ExpNode.VariableNode node) {
+        genAddress(node);
+        return node;
+    }
+
+    public ExpNode visitBinaryNode(ExpNode.BinaryNode node) {
+        int branch = genComparison(node);
+        if (branch >= 0) {
+            /* The value of a comparison is 1 if true, and 0 if false */
+            MethodCode.Label isTrue = code.newLabel();
+            MethodCode.Label end = code.newLabel();
+            code.jump(branch, isTrue);
+            code.constant(0);
+            code.jump(MethodCode.GOTO, end);
+            code.place(isTrue);
+            code.constant(1);
+            code.place(end);
+            return node;
+        }
+        genArgs(node.getLeft(), node.getRight());
+        switch (node.getOp()) {
+            case ADD_OP:
+                code.op(MethodCode.IADD);
+                break;
+            case SUB_OP:
+                code.op(MethodCode.ISUB);
+                break;
+            case MUL_OP:
+                code.op(MethodCode.IMUL);
+                break;
+            case DIV_OP:
+                code.invoke(MethodCode.INVOKESTATIC, classFile.getName(), "divide", "(II)I");
+                break;
+            default:
+                errors.fatal("PL0 Internal error: Unknown operator",
+                        node.getLocation());
+        }
+        return node;
+    }
+
+    /**
+     * The successor and predecessor of an enumeration value wrap
+     */
+    public ExpNode visitUnaryNode(ExpNode.UnaryNode node) {
+        node.getArg().transform(this);
+        int elements = 0;
+        if (node.getArg().getType() instanceof Type.EnumerationType) {
+            elements = ((Type.EnumerationType) node.getArg().getType()).numberOfElements();
+        }
+        MethodCode.Label end = code.newLabel();
+        switch (node.getOp()) {
+            case NEG_OP:
+                code.op(MethodCode.INEG);
+                break;
+            case SUCC_OP:
+                code.constant(1);
+                code.op(MethodCode.IADD);
+                if (elements > 0) {
+                    code.op(MethodCode.DUP);
+                    code.constant(elements);
+                    code.jump(MethodCode.IF_ICMPNE, end);
+                    code.op(MethodCode.POP);
+                    code.constant(0);
+                }
+                break;
+            case PRED_OP:
+                code.constant(1);
+                code.op(MethodCode.ISUB);
+                if (elements > 0) {
+                    code.op(MethodCode.DUP);
+                    code.jump(MethodCode.IFGE, end);
+                    code.op(MethodCode.POP);
+                    code.constant(elements - 1);
+                }
+                break;
+            default:
+                errors.fatal("PL0 Internal error: Unknown operator",
+                        node.getLocation());
+        }
+        code.place(end);
+        return node;
+    }
+
+    /**
+     * A single word value is loaded; a multi-word value is left as its
+     * address, for an assignment to copy
+     */
+    public ExpNode visitDereferenceNode(ExpNode.DereferenceNode node) {
+        if (node.getType().getSpace() == 1) {
+            genLoad(node.getLeftValue());
+        } else {
+            genAddress(node.getLeftValue());
+        }
+        return node;
+    }
+
+    public ExpNode visitNarrowSubrangeNode(ExpNode.NarrowSubrangeNode node) {
+        node.getExp().transform(this);
+        code.constant(node.getSubrangeType().getLower());
+        code.constant(node.getSubrangeType().getUpper());
+        code.invoke(MethodCode.INVOKESTATIC, classFile.getName(), "bound", "(III)I");
+        return node;
+    }
+
+    public ExpNode visitWidenSubrangeNode(ExpNode.WidenSubrangeNode node) {
+        /* Widening doesn't require anything extra */
+        node.getExp().transform(this);
+        return node;
+    }
+
+    //**************  Methods of the generated class
+
+    /**
+     * Generate code to throw a RuntimeException with a message on the
+     * top of the stack
+     */
+    private static void genThrow(MethodCode code) {
+        code.allocate(MethodCode.NEW, RUNTIME_EXCEPTION);
+        code.op(MethodCode.DUP_X1);
+        code.op(MethodCode.SWAP);
+        code.invoke(MethodCode.INVOKESPECIAL, RUNTIME_EXCEPTION, "<init>",
+                "(L" + STRING + ";)V");
+        code.op(MethodCode.ATHROW);
+    }
+
+    private void addHelper(String name, String descriptor, MethodCode helper) {
+        classFile.addMethod(ClassFile.ACC_PRIVATE | ClassFile.ACC_STATIC,
+                name, descriptor, helper);
+    }
+
+    /**
+     * Run the main program, reporting a run time error
+     */
+    private void genRun(String mainProgram) {
+        MethodCode run = new MethodCode(classFile, 2);
+        String name = classFile.getName();
+        run.local(MethodCode.ALOAD, 0);
+        run.field(MethodCode.PUTSTATIC, name, OUT, "L" + PRINT_STREAM + ";");
+        run.local(MethodCode.ALOAD, 1);
+        run.field(MethodCode.PUTSTATIC, name, IN, "L" + BUFFERED_READER + ";");
+        run.constant(0);
+        run.field(MethodCode.PUTSTATIC, name, WORDS, "I");
+        MethodCode.Label start = run.newLabel();
+        MethodCode.Label end = run.newLabel();
+        MethodCode.Label handler = run.newLabel();
+        run.place(start);
+        run.invoke(MethodCode.INVOKESTATIC, name, mainProgram, methodDescriptor(0));
+        run.place(end);
+        run.constant(1);
+        run.op(MethodCode.IRETURN);
+        run.placeHandler(handler, start, end, RUNTIME_EXCEPTION);
+        int exception = run.newLocal();
+        run.local(MethodCode.ASTORE, exception);
+        run.local(MethodCode.ALOAD, 0);
+        run.invoke(MethodCode.INVOKEVIRTUAL, PRINT_STREAM, "println", "()V");
+        run.local(MethodCode.ALOAD, 0);
+        run.allocate(MethodCode.NEW, STRING_BUILDER);
+        run.op(MethodCode.DUP);
+        run.constant("Runtime error: ");
+        run.invoke(MethodCode.INVOKESPECIAL, STRING_BUILDER, "<init>", "(L" + STRING + ";)V");
+        run.local(MethodCode.ALOAD, exception);
+        run.invoke(MethodCode.INVOKEVIRTUAL, RUNTIME_EXCEPTION, "getMessage",
+                "()L" + STRING + ";");
+        appendString(run);
+        run.invoke(MethodCode.INVOKEVIRTUAL, STRING_BUILDER, "toString", "()L" + STRING + ";");
+        run.invoke(MethodCode.INVOKEVIRTUAL, PRINT_STREAM, "println", "(L" + STRING + ";)V");
+        run.constant(0);
+        run.op(MethodCode.IRETURN);
+        classFile.addMethod(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, "run",
+                RUN_DESCRIPTOR, run);
+    }
+
+    private static void appendString(MethodCode code) {
+        code.invoke(MethodCode.INVOKEVIRTUAL, STRING_BUILDER, "append",
+                "(L" + STRING + ";)L" + STRING_BUILDER + ";");
+    }
+
+    private static void appendInt(MethodCode code) {
+        code.invoke(MethodCode.INVOKEVIRTUAL, STRING_BUILDER, "append",
+                "(I)L" + STRING_BUILDER + ";");
+    }
+
+    /**
+     * Run on the standard input and output, exiting with status 1 after
+     * a run time error
+     */
+    private void genMain() {
+        MethodCode main = new MethodCode(classFile, 1);
+        main.field(MethodCode.GETSTATIC, "java/lang/System", "out", "L" + PRINT_STREAM + ";");
+        main.allocate(MethodCode.NEW, BUFFERED_READER);
+        main.op(MethodCode.DUP);
+        main.allocate(MethodCode.NEW, "java/io/InputStreamReader");
+        main.op(MethodCode.DUP);
+        main.field(MethodCode.GETSTATIC, "java/lang/System", "in", "Ljava/io/InputStream;");
+        main.invoke(MethodCode.INVOKESPECIAL, "java/io/InputStreamReader", "<init>",
+                "(Ljava/io/InputStream;)V");
+        main.invoke(MethodCode.INVOKESPECIAL, BUFFERED_READER, "<init>", "(Ljava/io/Reader;)V");
+        main.invoke(MethodCode.INVOKESTATIC, classFile.getName(), "run", RUN_DESCRIPTOR);
+        MethodCode.Label ran = main.newLabel();
+        main.jump(MethodCode.IFNE, ran);
+        main.constant(1);
+        main.invoke(MethodCode.INVOKESTATIC, "java/lang/System", "exit", "(I)V");
+        main.place(ran);
+        main.op(MethodCode.RETURN);
+        classFile.addMethod(ClassFile.ACC_PUBLIC | ClassFile.ACC_STATIC, "main",
+                "([L" + STRING + ";)V", main);
+    }
+
+    private void genWrite() {
+        MethodCode write = new MethodCode(classFile, 1);
+        write.field(MethodCode.GETSTATIC, classFile.getName(), OUT, "L" + PRINT_STREAM + ";");
+        write.local(MethodCode.ILOAD, 0);
+        write.invoke(MethodCode.INVOKEVIRTUAL, PRINT_STREAM, "println", "(I)V");
+        write.op(MethodCode.RETURN);
+        addHelper("write", "(I)V", write);
+    }
+
+    private void genRead() {
+        MethodCode read = new MethodCode(classFile, 0);
+        MethodCode.Label start = read.newLabel();
+        MethodCode.Label end = read.newLabel();
+        MethodCode.Label handler = read.newLabel();
+        read.place(start);
+        read.field(MethodCode.GETSTATIC, classFile.getName(), IN, "L" + BUFFERED_READER + ";");
+        read.invoke(MethodCode.INVOKEVIRTUAL, BUFFERED_READER, "readLine", "()L" + STRING + ";");
+        read.invoke(MethodCode.INVOKESTATIC, "java/lang/Integer", "parseInt",
+                "(L" + STRING + ";)I");
+        read.place(end);
+        read.op(MethodCode.IRETURN);
+        /* An end of input or input error is also an invalid value */
+        read.placeHandler(handler, start, end, "java/lang/Exception");
+        read.op(MethodCode.POP);
+        read.constant("invalid value read - must be an integer");
+        genThrow(read);
+        addHelper("read", "()I", read);
+    }
+
+    /**
+     * Check a value is within bounds, returning it
+     */
+    private void genBound() {
+        MethodCode bound = new MethodCode(classFile, 3);
+        MethodCode.Label fail = bound.newLabel();
+        bound.local(MethodCode.ILOAD, 0);
+        bound.local(MethodCode.ILOAD, 1);
+        bound.jump(MethodCode.IF_ICMPLT, fail);
+        bound.local(MethodCode.ILOAD, 0);
+        bound.local(MethodCode.ILOAD, 2);
+        bound.jump(MethodCode.IF_ICMPGT, fail);
+        bound.local(MethodCode.ILOAD, 0);
+        bound.op(MethodCode.IRETURN);
+        bound.place(fail);
+        bound.allocate(MethodCode.NEW, STRING_BUILDER);
+        bound.op(MethodCode.DUP);
+        bound.constant("bounds check failed: ");
+        bound.invoke(MethodCode.INVOKESPECIAL, STRING_BUILDER, "<init>", "(L" + STRING + ";)V");
+        bound.local(MethodCode.ILOAD, 0);
+        appendInt(bound);
+        bound.constant(" not in ");
+        appendString(bound);
+        bound.local(MethodCode.ILOAD, 1);
+        appendInt(bound);
+        bound.constant("..");
+        appendString(bound);
+        bound.local(MethodCode.ILOAD, 2);
+        appendInt(bound);
+        bound.invoke(MethodCode.INVOKEVIRTUAL, STRING_BUILDER, "toString", "()L" + STRING + ";");
+        genThrow(bound);
+        addHelper("bound", "(III)I", bound);
+    }
+
+    private void genDivide() {
+        MethodCode divide = new MethodCode(classFile, 2);
+        MethodCode.Label nonZero = divide.newLabel();
+        divide.local(MethodCode.ILOAD, 1);
+        divide.jump(MethodCode.IFNE, nonZero);
+        divide.constant("divide by zero");
+        genThrow(divide);
+        divide.place(nonZero);
+        divide.local(MethodCode.ILOAD, 0);
+        divide.local(MethodCode.ILOAD, 1);
+        divide.op(MethodCode.IDIV);
+        divide.op(MethodCode.IRETURN);
+        addHelper("divide", "(II)I", divide);
+    }
+
+    /**
+     * Account for the words of a frame on procedure entry, failing if
+     * they exceed the stack machine's memory
+     */
+    private void genEnter() {
+        MethodCode enter = new MethodCode(classFile, 1);
+        MethodCode.Label fits = enter.newLabel();
+        enter.field(MethodCode.GETSTATIC, classFile.getName(), WORDS, "I");
+        enter.local(MethodCode.ILOAD, 0);
+        enter.op(MethodCode.IADD);
+        enter.op(MethodCode.DUP);
+        enter.field(MethodCode.PUTSTATIC, classFile.getName(), WORDS, "I");
+        enter.constant(STACK_WORDS);
+        enter.jump(MethodCode.IF_ICMPLE, fits);
+        enter.constant("memory overflow!");
+        genThrow(enter);
+        enter.place(fits);
+        enter.op(MethodCode.RETURN);
+        addHelper("enter", "(I)V", enter);
+    }
+}
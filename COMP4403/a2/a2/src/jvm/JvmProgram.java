@@ -0,0 +1,87 @@
+package jvm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * class JvmProgram - a program translated into a JVM class by the
+ * JvmGenerator, which may be run in this JVM or written as a runnable jar.
+ */
+public class JvmProgram {
+    private final String className;
+    private final byte[] classBytes;
+
+    JvmProgram(String className, byte[] classBytes) {
+        this.className = className;
+        this.classBytes = classBytes;
+    }
+
+    /**
+     * @return a class name for the program in a file, which is the name
+     * of the file without its suffix with any character that can't be in
+     * a Java identifier replaced by '_'
+     */
+    public static String className(String fileName) {
+        StringBuilder name = new StringBuilder();
+        for (char c : fileName.toCharArray()) {
+            name.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+            name.insert(0, '_');
+        }
+        return name.toString();
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Run the program in this JVM, in a class loader of its own.
+     *
+     * @return whether the program ran without a run time error
+     */
+    public boolean run(InputStream input, PrintStream output) {
+        Class<?> program = new ClassLoader(JvmProgram.class.getClassLoader()) {
+            Class<?> define() {
+                return defineClass(className, classBytes, 0, classBytes.length);
+            }
+        }.define();
+        try {
+            return (Boolean) program.getMethod("run", PrintStream.class, BufferedReader.class)
+                    .invoke(null, output, new BufferedReader(new InputStreamReader(input)));
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("program " + className + " failed",
+                    e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot run program " + className, e);
+        }
+    }
+
+    /**
+     * Write the program as a jar whose manifest runs it.
+     */
+    public void writeJar(Path jar) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.put(Attributes.Name.MAIN_CLASS, className);
+        try (OutputStream file = Files.newOutputStream(jar);
+             JarOutputStream out = new JarOutputStream(file, manifest)) {
+            out.putNextEntry(new JarEntry(className + ".class"));
+            out.write(classBytes);
+            out.closeEntry();
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package jvm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * class MethodCode - the bytecode of a single method of a class file,
+ * with the maximum depth of its operand stack and number of its locals.
+ * <p>
+ * Branches are to labels, which may be placed after the branches to them
+ * are generated. The depth of the operand stack is tracked as the code is
+ * generated: the depth at a label is that at the branches to it, and code
+ * following an unconditional branch or throw starts at the depth of the
+ * label placed there.
+ */
+class MethodCode {
+    /* Opcodes of the instructions generated */
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int ILOAD = 0x15;
+    static final int ALOAD = 0x19;
+    static final int IALOAD = 0x2e;
+    static final int ISTORE = 0x36;
+    static final int ASTORE = 0x3a;
+    static final int IASTORE = 0x4f;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int DUP = 0x59;
+    static final int DUP_X1 = 0x5a;
+    static final int DUP2_X1 = 0x5d;
+    static final int SWAP = 0x5f;
+    static final int IADD = 0x60;
+    static final int ISUB = 0x64;
+    static final int IMUL = 0x68;
+    static final int IDIV = 0x6c;
+    static final int INEG = 0x74;
+    static final int IINC = 0x84;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFGT = 0x9d;
+    static final int IFLE = 0x9e;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int IF_ICMPGT = 0xa3;
+    static final int IF_ICMPLE = 0xa4;
+    static final int GOTO = 0xa7;
+    static final int IRETURN = 0xac;
+    static final int RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2;
+    static final int PUTSTATIC = 0xb3;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int NEW = 0xbb;
+    static final int NEWARRAY = 0xbc;
+    static final int ATHROW = 0xbf;
+
+    /**
+     * Element type operand of NEWARRAY for an int array
+     */
+    static final int T_INT = 10;
+
+    /**
+     * Largest branch offset of a two byte branch instruction
+     */
+    private static final int MAX_BRANCH = Short.MAX_VALUE;
+    /**
+     * Largest code of a method allowed by the JVM
+     */
+    private static final int MAX_CODE = 65535;
+
+    /**
+     * A position in the code to branch to
+     */
+    static class Label {
+        /**
+         * Address of the label, or -1 until it is placed
+         */
+        private int address = -1;
+        /**
+         * Depth of the operand stack at the label, or -1 until known
+         */
+        private int depth = -1;
+        /**
+         * Addresses of the branch instructions to the label
+         */
+        private final List<Integer> branches = new ArrayList<>();
+    }
+
+    /**
+     * An entry of the exception table
+     */
+    private static class Handler {
+        final Label start;
+        final Label end;
+        final Label handler;
+        final int catchType;
+
+        Handler(Label start, Label end, Label handler, int catchType) {
+            this.start = start;
+            this.end = end;
+            this.handler = handler;
+            this.catchType = catchType;
+        }
+    }
+
+    private final ClassFile classFile;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final List<Label> labels = new ArrayList<>();
+    private final List<Handler> handlers = new ArrayList<>();
+    /**
+     * Current depth of the operand stack, or -1 if the current code
+     * cannot be reached
+     */
+    private int depth = 0;
+    private int maxStack = 0;
+    private int maxLocals;
+
+    /**
+     * @param parameters number of words of the parameters of the method,
+     *                   which are its first locals
+     */
+    MethodCode(ClassFile classFile, int parameters) {
+        this.classFile = classFile;
+        this.maxLocals = parameters;
+    }
+
+    /**
+     * @return the index of a new local variable of a single word
+     */
+    int newLocal() {
+        return maxLocals++;
+    }
+
+    ClassFile getClassFile() {
+        return classFile;
+    }
+
+    /**
+     * @return the size of the code generated so far in bytes
+     */
+    int size() {
+        return bytes.size();
+    }
+
+    /**
+     * Adjust the depth of the operand stack by the effect of an instruction
+     */
+    private void adjust(int delta) {
+        if (depth >= 0) {
+            depth += delta;
+            assert depth >= 0 : "operand stack underflow";
+            maxStack = Math.max(maxStack, depth);
+        }
+    }
+
+    private void u1(int value) {
+        bytes.write(value);
+    }
+
+    private void u2(int value) {
+        bytes.write(value >> 8);
+        bytes.write(value);
+    }
+
+    /**
+     * Generate an instruction without operands
+     */
+    void op(int opcode) {
+        u1(opcode);
+        switch (opcode) {
+            case ACONST_NULL:
+            case DUP:
+            case DUP_X1:
+                adjust(1);
+                break;
+            case DUP2_X1:
+                adjust(2);
+                break;
+            case POP:
+            case IALOAD:
+            case IADD:
+            case ISUB:
+            case IMUL:
+            case IDIV:
+                adjust(-1);
+                break;
+            case POP2:
+                adjust(-2);
+                break;
+            case IASTORE:
+                adjust(-3);
+                break;
+            case SWAP:
+            case INEG:
+                break;
+            case RETURN:
+                depth = -1;
+                break;
+            case IRETURN:
+            case ATHROW:
+                adjust(-1);
+                depth = -1;
+                break;
+            default:
+                throw new IllegalArgumentException("operands required by opcode " + opcode);
+        }
+    }
+
+    /**
+     * Generate code to push an integer constant
+     */
+    void constant(int value) {
+        if (-1 <= value && value <= 5) {
+            u1(ICONST_0 + value);
+        } else if (Byte.MIN_VALUE <= value && value <= Byte.MAX_VALUE) {
+            u1(BIPUSH);
+            u1(value);
+        } else if (Short.MIN_VALUE <= value && value <= Short.MAX_VALUE) {
+            u1(SIPUSH);
+            u2(value);
+        } else {
+            u1(LDC_W);
+            u2(classFile.integer(value));
+        }
+        adjust(1);
+    }
+
+    /**
+     * Generate code to push a string constant
+     */
+    void constant(String value) {
+        u1(LDC_W);
+        u2(classFile.string(value));
+        adjust(1);
+    }
+
+    /**
+     * Generate a load or store (ILOAD, ISTORE, ALOAD or ASTORE) of a local
+     */
+    void local(int opcode, int index) {
+        if (index > 0xff) {
+            u1(0xc4); // wide
+            u1(opcode);
+            u2(index);
+        } else {
+            u1(opcode);
+            u1(index);
+        }
+        adjust(opcode == ILOAD || opcode == ALOAD ? 1 : -1);
+    }
+
+    /**
+     * Generate an increment of an integer local by a small constant
+     */
+    void increment(int index, int value) {
+        if (index > 0xff) {
+            u1(0xc4); // wide
+            u1(IINC);
+            u2(index);
+            u2(value);
+        } else {
+            u1(IINC);
+            u1(index);
+            u1(value);
+        }
+    }
+
+    /**
+     * Generate NEW or a NEWARRAY of ints
+     */
+    void allocate(int opcode, String className) {
+        u1(opcode);
+        if (opcode == NEW) {
+            u2(classFile.classRef(className));
+            adjust(1);
+        } else {
+            u1(T_INT);
+        }
+    }
+
+    /**
+     * Generate GETSTATIC or PUTSTATIC of a field of a single word
+     */
+    void field(int opcode, String owner, String name, String descriptor) {
+        u1(opcode);
+        u2(classFile.fieldRef(owner, name, descriptor));
+        adjust(opcode == GETSTATIC ? 1 : -1);
+    }
+
+    /**
+     * Generate an invocation of a method whose parameters and result
+     * are single words, references or void
+     */
+    void invoke(int opcode, String owner, String name, String descriptor) {
+        u1(opcode);
+        u2(classFile.methodRef(owner, name, descriptor));
+        int params = descriptor.indexOf(')');
+        int words = 0;
+        for (int i = 1; i < params; i++) {
+            char c = descriptor.charAt(i);
+            if (c == 'L') {
+                i = descriptor.indexOf(';', i);
+            } else if (c == '[') {
+                while (descriptor.charAt(i + 1) == '[') {
+                    i++;
+                }
+                if (descriptor.charAt(i + 1) == 'L') {
+                    i = descriptor.indexOf(';', i);
+                } else {
+                    i++;
+                }
+            }
+            words++;
+        }
+        if (opcode != INVOKESTATIC) {
+            words++;
+        }
+        adjust(-words + (descriptor.endsWith(")V") ? 0 : 1));
+    }
+
+    Label newLabel() {
+        Label label = new Label();
+        labels.add(label);
+        return label;
+    }
+
+    /**
+     * Generate a branch to a label: GOTO, or a conditional branch on one
+     * (IFxx) or two (IF_ICMPxx) integers
+     */
+    void jump(int opcode, Label target) {
+        if (opcode == GOTO) {
+            // no operands
+        } else if (opcode >= IF_ICMPEQ) {
+            adjust(-2);
+        } else {
+            adjust(-1);
+        }
+        setDepth(target);
+        target.branches.add(bytes.size());
+        u1(opcode);
+        u2(0);
+        if (opcode == GOTO) {
+            depth = -1;
+        }
+    }
+
+    private void setDepth(Label target) {
+        if (depth >= 0) {
+            assert target.depth < 0 || target.depth == depth :
+                    "inconsistent operand stack at label";
+            target.depth = depth;
+        }
+    }
+
+    /**
+     * Place a label at the current position
+     */
+    void place(Label label) {
+        assert label.address < 0 : "label placed twice";
+        label.address = bytes.size();
+        setDepth(label);
+        depth = label.depth;
+    }
+
+    /**
+     * Place the label of an exception handler, at which the operand stack
+     * holds only the exception
+     */
+    void placeHandler(Label label, Label start, Label end, String catchType) {
+        handlers.add(new Handler(start, end, label, classFile.classRef(catchType)));
+        depth = 0;
+        place(label);
+        adjust(1);
+    }
+
+    /**
+     * Write the Code attribute of the method
+     *
+     * @throws IllegalStateException if the method is too large for the JVM
+     */
+    void write(DataOutputStream out) throws IOException {
+        byte[] code = bytes.toByteArray();
+        if (code.length > MAX_CODE) {
+            throw new IllegalStateException("method code of " + code.length +
+                    " bytes exceeds the JVM limit of " + MAX_CODE);
+        }
+        for (Label label : labels) {
+            for (int branch : label.branches) {
+                assert label.address >= 0 : "branch to a label never placed";
+                int offset = label.address - branch;
+                if (offset > MAX_BRANCH || offset < -MAX_BRANCH - 1) {
+                    throw new IllegalStateException("branch offset " + offset +
+                            " exceeds the JVM limit");
+                }
+                code[branch + 1] = (byte) (offset >> 8);
+                code[branch + 2] = (byte) offset;
+            }
+        }
+        out.writeShort(classFile.utf8("Code"));
+        out.writeInt(12 + code.length + 8 * handlers.size());
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(handlers.size());
+        for (Handler handler : handlers) {
+            out.writeShort(handler.start.address);
+            out.writeShort(handler.end.address);
+            out.writeShort(handler.handler.address);
+            out.writeShort(handler.catchType);
+        }
+        out.writeShort(0); // no attributes
+    }
+}
@@ -0,0 +1,534 @@
+package machine;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import tree.Procedures;
+import tree.Procedures.ProcedureCode;
+
+/**
+ * class CodeVerifier - checks the code loaded into the stack machine
+ * before it is run, so that it can be run without checking the stack
+ * pointer on every push and pop.
+ * <p>
+ * The verifier follows every path through the code of each procedure,
+ * computing the depth of the stack before each instruction, counted from
+ * just above the links of the procedure's frame, so that it includes the
+ * local variables as well as the operands. The depth must be the same on
+ * every path to an instruction, and no instruction may pop more than the
+ * depth. Branches, ALLOC_STACK, DEALLOC_STACK, LOAD_MULTI, STORE_MULTI
+ * and CALL take an operand from the stack that determines their effect,
+ * so it must have been loaded as a constant, as it always is in generated
+ * code. A call must be to the start of a procedure and, on return, has
+ * removed the procedure address and the static link. The maximum depth
+ * of each procedure bounds the stack space its frame uses.
+ * <p>
+ * Once the code has been verified the stack space needed to run code
+ * from an address, including the frames of the procedures it calls, can
+ * be found, which is used to size the stacks of the branches of a
+ * "cobegin" statement.
+ */
+public class CodeVerifier {
+    /**
+     * Number of words on top of the stack whose constant values are tracked
+     */
+    private static final int TRACKED = 4;
+
+    /**
+     * Stack space needed by code that may recurse, or start branches of
+     * its own, which cannot be bounded
+     */
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
+    /**
+     * Marks a procedure whose stack need is being found, so that a call
+     * back to it is recognised as recursion
+     */
+    private static final int IN_PROGRESS = -2;
+
+    /**
+     * Exception for code that fails verification, with a message giving
+     * the address of the instruction and the reason
+     */
+    public static class VerifyException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        VerifyException(String message) {
+            super(message);
+        }
+    }
+
+    private final int[] memory;
+    private final Procedures procedures;
+    private final Operation[] operations = Operation.values();
+
+    /**
+     * Abstract state before each instruction, or null if it has not
+     * been reached
+     */
+    private final State[] states;
+    /**
+     * Whether each address is the start of an instruction
+     */
+    private final boolean[] instrStart;
+    /**
+     * Maximum stack depth of the procedure starting at each address
+     */
+    private final int[] maxDepth;
+    /**
+     * Stack space needed by the procedure starting at each address,
+     * including the frames of the procedures it calls, or -1 if it has
+     * not been found yet
+     */
+    private final int[] procedureNeed;
+    /**
+     * Procedure being verified, for diagnostics
+     */
+    private ProcedureCode current;
+
+    public CodeVerifier(int[] memory, Procedures procedures) {
+        this.memory = memory;
+        this.procedures = procedures;
+        states = new State[memory.length];
+        instrStart = new boolean[memory.length];
+        maxDepth = new int[memory.length];
+        Arrays.fill(maxDepth, -1);
+        procedureNeed = new int[memory.length];
+        Arrays.fill(procedureNeed, -1);
+    }
+
+    /**
+     * Verify the code of every procedure.
+     *
+     * @return the maximum stack depth of the procedure starting at each
+     * address, and -1 at any other address
+     * @throws VerifyException describing the first error found
+     */
+    public int[] verify() throws VerifyException {
+        for (ProcedureCode proc : procedures.getProcedureEntries()) {
+            if (proc.getFinish() > memory.length) {
+                throw new VerifyException("procedure " + proc.getName() +
+                        " does not fit in memory");
+            }
+            maxDepth[proc.getStart()] = 0;
+        }
+        for (ProcedureCode proc : procedures.getProcedureEntries()) {
+            current = proc;
+            decode(proc);
+            /* A frame deeper than memory fails when it is called */
+            maxDepth[proc.getStart()] = (int) Math.min(followPaths(proc), memory.length);
+        }
+        return maxDepth;
+    }
+
+    /**
+     * Stack space needed to run the code from an address to the end of its
+     * branch (END_BRANCH or JOIN) or procedure, counted from the depth of
+     * the stack at the address and including the frames of the procedures
+     * it calls. Requires the code to have been verified.
+     *
+     * @param start address of an instruction
+     * @return the number of words needed, or UNBOUNDED if the code may
+     * recurse or fork, or the address has not been verified
+     */
+    public int stackNeed(int start) {
+        if (start < 0 || start >= memory.length || states[start] == null) {
+            return UNBOUNDED;
+        }
+        long base = states[start].depth;
+        long need = 0;
+        boolean[] seen = new boolean[memory.length];
+        Deque<Integer> worklist = new ArrayDeque<>();
+        worklist.push(start);
+        seen[start] = true;
+        while (!worklist.isEmpty()) {
+            int pc = worklist.pop();
+            State state = states[pc];
+            long depth = state.depth - base;
+            need = Math.max(need, depth);
+            Operation op = operations[memory[pc]];
+            int next = pc + op.getSize();
+            Integer target = null;    // branch target, if any
+            boolean fallsThrough = true;
+            switch (op) {
+                case BR:
+                    target = next + state.top();
+                    fallsThrough = false;
+                    break;
+                case BR_FALSE:
+                    target = next + state.top();
+                    break;
+                case FOR_INIT:
+                case FOR_STEP:
+                    target = next + memory[pc + 3];
+                    break;
+                case CALL:
+                    /* The callee's dynamic link replaces the address,
+                     * and its return address and frame go above it */
+                    int callee = procedureNeed(state.top());
+                    if (callee == UNBOUNDED) {
+                        return UNBOUNDED;
+                    }
+                    need = Math.max(need, depth + 1 + callee);
+                    break;
+                case FORK:
+                    return UNBOUNDED;
+                case RETURN:
+                case STOP:
+                case END_BRANCH:
+                case JOIN:
+                    fallsThrough = false;
+                    break;
+                default:
+                    break;
+            }
+            if (target != null && !seen[target]) {
+                seen[target] = true;
+                worklist.push(target);
+            }
+            if (fallsThrough && !seen[next]) {
+                seen[next] = true;
+                worklist.push(next);
+            }
+        }
+        return (int) Math.min(need, UNBOUNDED);
+    }
+
+    /**
+     * @return the stack space needed by the procedure starting at an
+     * address, above the links of its frame
+     */
+    private int procedureNeed(int start) {
+        if (procedureNeed[start] == IN_PROGRESS) {
+            return UNBOUNDED;
+        }
+        if (procedureNeed[start] < 0) {
+            procedureNeed[start] = IN_PROGRESS;
+            procedureNeed[start] = stackNeed(start);
+        }
+        return procedureNeed[start];
+    }
+
+    /**
+     * Mark the start of each instruction of a procedure, checking that
+     * each is a valid opcode and lies within the procedure.
+     */
+    private void decode(ProcedureCode proc) throws VerifyException {
+        int pc = proc.getStart();
+        while (pc < proc.getFinish()) {
+            instrStart[pc] = true;
+            pc += decodeOp(pc).getSize();
+        }
+        if (pc != proc.getFinish()) {
+            throw error(pc, "last instruction extends beyond the end of the procedure");
+        }
+    }
+
+    private Operation decodeOp(int pc) throws VerifyException {
+        int word = memory[pc];
+        if (word < 0 || operations.length <= word) {
+            throw error(pc, "invalid opcode " + word);
+        }
+        if (operations[word] == Operation.ALLOC_HEAP) {
+            /* Heap allocation would lower the limit below the space
+             * checked for the frames on the stack */
+            throw error(pc, "ALLOC_HEAP is not supported in verified code");
+        }
+        return operations[word];
+    }
+
+    /**
+     * Follow every path through a procedure from its start.
+     *
+     * @return the maximum depth of the stack
+     */
+    private long followPaths(ProcedureCode proc) throws VerifyException {
+        long max = 0;
+        Deque<Integer> worklist = new ArrayDeque<>();
+        states[proc.getStart()] = new State(0);
+        worklist.push(proc.getStart());
+        while (!worklist.isEmpty()) {
+            int pc = worklist.pop();
+            State state = new State(states[pc]);
+            Operation op = decodeOp(pc);
+            int next = pc + op.getSize();
+            Integer target = null;    // branch target, if any
+            boolean fallsThrough = true;
+            switch (op) {
+                case NO_OP:
+                    break;
+                case BR:
+                    target = next + state.popConst(pc, op);
+                    fallsThrough = false;
+                    break;
+                case BR_FALSE:
+                    target = next + state.popConst(pc, op);
+                    state.pop(pc, op, 1);
+                    break;
+                case FOR_INIT:
+                    state.pop(pc, op, 2);
+                    target = next + memory[pc + 3];
+                    break;
+                case FOR_STEP:
+                    target = next + memory[pc + 3];
+                    break;
+                case COPY:
+                    state.pop(pc, op, 3);
+                    break;
+                case CALL:
+                    int addr = state.popConst(pc, op);
+                    if (addr < 0 || addr >= memory.length || maxDepth[addr] < 0) {
+                        throw error(pc, "call to " + addr +
+                                ", which is not the start of a procedure");
+                    }
+                    /* The callee's return removes the static link */
+                    state.pop(pc, op, 1);
+                    break;
+                case RETURN:
+                    fallsThrough = false;
+                    break;
+                case ALLOC_STACK:
+                    int words = state.popConst(pc, op);
+                    if (words < 0) {
+                        throw error(pc, "allocating " + words + " words");
+                    }
+                    state.push(words);
+                    break;
+                case DEALLOC_STACK:
+                    words = state.popConst(pc, op);
+                    if (words < 0) {
+                        throw error(pc, "deallocating " + words + " words");
+                    }
+                    state.pop(pc, op, words);
+                    break;
+                case POP:
+                case WRITE:
+                    state.pop(pc, op, 1);
+                    break;
+                case DUP:
+                    Integer value = state.top();
+                    state.pop(pc, op, 1);
+                    state.pushConst(value);
+                    state.pushConst(value);
+                    break;
+                case SWAP:
+                    Integer first = state.top();
+                    state.pop(pc, op, 1);
+                    Integer second = state.top();
+                    state.pop(pc, op, 1);
+                    state.pushConst(first);
+                    state.pushConst(second);
+                    break;
+                case ADD:
+                case MPY:
+                case DIV:
+                case OR:
+                case AND:
+                case XOR:
+                case SHIFT_LEFT:
+                case EQUAL:
+                case LESS:
+                case LESSEQ:
+                case INDEX:
+                    state.pop(pc, op, 2);
+                    state.push(1);
+                    break;
+                case NOT:
+                case NEGATE:
+                case INDEX_FRAME:
+                case LOAD_INDEXED:
+                case TO_GLOBAL:
+                case TO_LOCAL:
+                case LOAD_ABS:
+                case LOAD_FRAME:
+                    state.pop(pc, op, 1);
+                    state.push(1);
+                    break;
+                case READ:
+                    state.push(1);
+                    break;
+                case BOUND:
+                    state.pop(pc, op, 3);
+                    state.push(1);
+                    break;
+                case STORE_INDEXED:
+                case STORE_FRAME:
+                    state.pop(pc, op, 2);
+                    break;
+                case LOAD_CON:
+                    state.pushConst(memory[pc + 1]);
+                    break;
+                case ZERO:
+                    state.pushConst(0);
+                    break;
+                case ONE:
+                    state.pushConst(1);
+                    break;
+                case LOAD_MULTI:
+                    words = state.popConst(pc, op);
+                    state.pop(pc, op, 1);
+                    if (words < 0) {
+                        throw error(pc, "loading " + words + " words");
+                    }
+                    state.push(words);
+                    break;
+                case STORE_MULTI:
+                    words = state.popConst(pc, op);
+                    state.pop(pc, op, 1);
+                    if (words < 0) {
+                        throw error(pc, "storing " + words + " words");
+                    }
+                    state.pop(pc, op, words);
+                    break;
+                case STOP:
+                    state.pop(pc, op, 1);
+                    fallsThrough = false;
+                    break;
+                case FORK:
+                    /* The branch that follows runs on a stack of its own,
+                     * which the frame's depth also bounds */
+                    if (memory[pc + 1] < 2) {
+                        throw error(pc, "forking " + memory[pc + 1] + " branches");
+                    }
+                    target = next + memory[pc + 2];
+                    break;
+                case END_BRANCH:
+                    fallsThrough = false;
+                    break;
+                case JOIN:
+                    if (memory[pc + 1] < 1) {
+                        throw error(pc, "joining " + memory[pc + 1] + " branches");
+                    }
+                    break;
+                default:
+                    throw error(pc, "opcode " + op + " cannot be verified");
+            }
+            max = Math.max(max, Math.max(states[pc].depth, state.maxDepth));
+            if (target != null) {
+                merge(pc, target, state, worklist);
+            }
+            if (fallsThrough) {
+                if (next >= proc.getFinish()) {
+                    throw error(pc, "execution continues past the end of the procedure");
+                }
+                merge(pc, next, state, worklist);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Merge the state after the instruction at pc into the state before
+     * the instruction at target, adding the target to the worklist if its
+     * state has changed.
+     */
+    private void merge(int pc, int target, State state, Deque<Integer> worklist)
+            throws VerifyException {
+        if (target < current.getStart() || target >= current.getFinish()) {
+            throw error(pc, "branch to " + target + ", which is outside the procedure");
+        }
+        if (!instrStart[target]) {
+            throw error(pc, "branch to " + target +
+                    ", which is not the start of an instruction");
+        }
+        State before = states[target];
+        if (before == null) {
+            states[target] = new State(state);
+            worklist.push(target);
+        } else if (before.depth != state.depth) {
+            throw error(target, "stack depth is " + state.depth + " coming from " +
+                    pc + " but " + before.depth + " on another path");
+        } else if (before.forget(state)) {
+            worklist.push(target);
+        }
+    }
+
+    private VerifyException error(int pc, String reason) {
+        return new VerifyException("at " + pc + " in " + current.getName() +
+                ": " + reason);
+    }
+
+    /**
+     * Abstract state of the stack: its depth and the constant values
+     * of the words on top of it, where they are known
+     */
+    private class State {
+        /* Depths are long as a huge array could overflow an int */
+        long depth;
+        /**
+         * Maximum depth reached within an instruction
+         */
+        long maxDepth;
+        /**
+         * Known values of the top words, with the top first; null if unknown
+         */
+        final Integer[] top = new Integer[TRACKED];
+
+        State(long depth) {
+            this.depth = depth;
+            this.maxDepth = depth;
+        }
+
+        State(State other) {
+            this(other.depth);
+            System.arraycopy(other.top, 0, top, 0, TRACKED);
+        }
+
+        Integer top() {
+            return top[0];
+        }
+
+        void pop(int pc, Operation op, int words) throws VerifyException {
+            if (words > depth) {
+                throw error(pc, op + " pops " + words + " words but the stack holds " +
+                        depth);
+            }
+            depth -= words;
+            int shift = Math.min(words, TRACKED);
+            System.arraycopy(top, shift, top, 0, TRACKED - shift);
+            Arrays.fill(top, TRACKED - shift, TRACKED, null);
+        }
+
+        int popConst(int pc, Operation op) throws VerifyException {
+            Integer value = top[0];
+            pop(pc, op, 1);
+            if (value == null) {
+                throw error(pc, "operand of " + op + " is not a constant");
+            }
+            return value;
+        }
+
+        /**
+         * Push words of unknown value
+         */
+        void push(int words) {
+            depth += words;
+            maxDepth = Math.max(maxDepth, depth);
+            int shift = Math.min(words, TRACKED);
+            System.arraycopy(top, 0, top, shift, TRACKED - shift);
+            Arrays.fill(top, 0, shift, null);
+        }
+
+        void pushConst(Integer value) {
+            push(1);
+            top[0] = value;
+        }
+
+        /**
+         * Forget the values that differ in the other state, which has the
+         * same depth.
+         *
+         * @return whether any value was forgotten
+         */
+        boolean forget(State other) {
+            boolean changed = false;
+            for (int i = 0; i < TRACKED; i++) {
+                if (top[i] != null && !top[i].equals(other.top[i])) {
+                    top[i] = null;
+                    changed = true;
+                }
+            }
+            return changed;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package machine;
 import syms.SymEntry;
 
 /**
- * class Instruction - represents an instruction in generated code
+ * class Instruction - represents an instruction in generated code.
+ * Code is stored in a compact word encoding (see tree.Code); instruction
+ * objects are only created when decoding it for listings and debugging.
  */
 public class Instruction {
     final Operation op;
@@ -12,8 +14,19 @@ public class Instruction {
         this.op = op;
     }
 
-    public void loadInstruction(StackMachine machine) {
-        machine.generateWord(op.ordinal());
+    /**
+     * @return number of words the instruction occupies when loaded
+     */
+    public int getSize() {
+        return op.getSize();
+    }
+
+    /**
+     * Resolve any references that are only known once the program
+     * has been loaded.
+     */
+    public void resolve() {
+        /* Plain instructions have nothing to resolve */
     }
 
     @Override
@@ -22,7 +35,31 @@ public class Instruction {
     }
 
     /**
-     * LOAD_CON is the only instruction with a parameter
+     * An instruction with operands in the words following the opcode
+     */
+    public static class OperandInstruction extends Instruction {
+        private final int[] operands;
+
+        public OperandInstruction(Operation op, int... operands) {
+            super(op);
+            assert operands.length == op.getSize() - 1;
+            this.operands = operands;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder s = new StringBuilder(op.toString()).append("(");
+            String sep = "";
+            for (int operand : operands) {
+                s.append(sep).append(operand);
+                sep = ",";
+            }
+            return s + ")";
+        }
+    }
+
+    /**
+     * LOAD_CON loads its operand as a constant
      */
     public static class LoadConInstruction extends Instruction {
         protected int value;
@@ -40,12 +77,6 @@ public class Instruction {
             this.value = value;
         }
 
-        @Override
-        public void loadInstruction(StackMachine machine) {
-            super.loadInstruction(machine);
-            machine.generateWord(value);
-        }
-
         @Override
         public String toString() {
             return super.toString() + "(" + value + ")";
@@ -67,9 +98,8 @@ public class Instruction {
         }
 
         @Override
-        public void loadInstruction(StackMachine machine) {
+        public void resolve() {
             value = proc.getStart();
-            super.loadInstruction(machine);
         }
 
         @Override
@@ -8,6 +8,10 @@ public enum Operation {
     NO_OP(),           /* Do nothing */
     BR,                /* Unconditional branch */
     BR_FALSE(),        /* Branch if false (0) */
+    /* Counted loops - operands are the frame offsets of the control
+     * variable and upper bound, and a branch offset */
+    FOR_INIT(4),       /* Set up control variable and bound, skip if empty */
+    FOR_STEP(4),       /* Increment control variable, repeat if in bounds */
     COPY(),            /* Copy block of memory */
     /* Procedure call and return */
     CALL(),            /* Call */
@@ -37,6 +41,13 @@ public enum Operation {
     WRITE(),           /* Write word to stdout */
 
     BOUND(),           /* Bounds check */
+    /* Array element access - operands are the index lower and upper
+     * bounds and the element size, preceded by the frame offset of the
+     * array for all but INDEX */
+    INDEX(4),          /* Address of element of array on top of stack */
+    INDEX_FRAME(5),    /* Address of element of local array */
+    LOAD_INDEXED(5),   /* Load word element of local array */
+    STORE_INDEXED(5),  /* Store word element of local array */
     /* Instructions for handling references to non-local variables */
     TO_GLOBAL(),       /* Covert local address on top of stack to global */
     TO_LOCAL(),        /* Covert global address on top of stack to local*/
@@ -53,9 +64,15 @@ public enum Operation {
     /* Loading multiple words onto the stack */
     LOAD_MULTI(),      /* Load multiple words onto stack */
     STORE_MULTI(),     /* Store multiple words from stack */
+    /* Parallel branches - FORK's operands are the number of branches
+     * sharing the free stack space and a branch offset, JOIN's is the
+     * number of branches forked */
+    FORK(3),           /* Start the following branch on a new thread */
+    END_BRANCH(),      /* End the thread of a branch */
+    JOIN(2),           /* Wait for the number of branches forked to end */
     STOP();            /* Halt execution */
 
-    /* Size of the instruction - LOAD_CON of size 2 */
+    /* Size of the instruction including any operand words */
     private int size;
 
     public int getSize() {
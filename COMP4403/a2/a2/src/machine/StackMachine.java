@@ -2,14 +2,24 @@ package machine;
 
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
 import java.io.PrintStream;
 
+import source.CoverageListing;
 import source.ErrorHandler;
 import source.Errors;
 import syms.SymEntry;
 import syms.Type;
+import tree.LineTable;
 import tree.Procedures;
 import tree.Procedures.ProcedureCode;
 
@@ -28,23 +38,33 @@ public class StackMachine {
      * Size of memory
      */
     private final static int MEM_LIMIT = 10000;
+    /**
+     * Whether to count the words read from and written to the stack in
+     * memory, set by the system property pl0.countStackTraffic. As it is a
+     * constant the just-in-time compiler removes the counting if it is not
+     * set, so that it does not slow down the execution loops.
+     */
+    public final static boolean COUNT_STACK_TRAFFIC =
+            Boolean.getBoolean("pl0.countStackTraffic");
     /**
      * Address way outside memory
      */
     public final static int NULL_ADDR = 0x80808080;
 
     /**
-     * Memory array - stack and heap and code
+     * Memory array - stack and heap and code, shared by the machines
+     * running the branches of a "cobegin" statement
      */
-    private int[] memory = new int[MEM_LIMIT];
+    private final int[] memory;
     /**
      * Location to store the next instruction during code generation
      */
     private int currLocn = CODE_START;
     /**
-     * Stack machine running?
+     * Stack machine running? Volatile as it is cleared by the machine
+     * running another branch if that branch fails.
      */
-    private boolean running = false;
+    private volatile boolean running = false;
 
     /**
      * Stack machine stop codes
@@ -74,6 +94,10 @@ public class StackMachine {
      * Current tracing during execution of stack machine
      */
     private EnumSet<Trace> tracing = TRACE_NONE;
+    /**
+     * Recorder of a binary trace of execution, or null if not recording
+     */
+    private TraceRecorder recorder = null;
 
     /**
      * Output stream
@@ -92,6 +116,11 @@ public class StackMachine {
      * Bottom of stack
      */
     private final int STACK_START = 0;
+    /**
+     * Bottom of this machine's stack, which is above STACK_START for a
+     * machine running a branch
+     */
+    private final int base;
     /**
      * Program counter
      */
@@ -109,18 +138,139 @@ public class StackMachine {
      */
     private int limit = CODE_START;
     /**
-     * Standard input line reader
+     * Input of READ
+     */
+    private final InputStream input;
+    /**
+     * Input line reader
+     */
+    private final BufferedReader in;
+    /**
+     * Batched integer input and output for READ and WRITE, or null if
+     * they use the line reader and output stream directly
+     */
+    private IntegerReader batchIn = null;
+    private IntegerWriter batchOut = null;
+    /**
+     * Maximum stack depth of the frame of the procedure starting at each
+     * address, once the code has been verified, otherwise null
      */
-    private BufferedReader in =
-            new BufferedReader(new InputStreamReader(System.in));
+    private int[] frameDepth = null;
+    /**
+     * Whether verified code is run with the top of the stack cached
+     */
+    private boolean caching = false;
+    /**
+     * Number of words read from and written to the stack in memory by
+     * pushes and pops, counted by the checked and caching execution loops
+     * if COUNT_STACK_TRAFFIC is set
+     */
+    private long stackReads = 0;
+    private long stackWrites = 0;
+    /**
+     * Number of times the instruction at each address has been executed,
+     * if measuring coverage, otherwise null
+     */
+    private long[] executions = null;
+
+    /**
+     * The machines running the branches of a "cobegin" statement share
+     * the memory, and the stack space that is free when the statement
+     * starts is divided between them according to their needs (see
+     * branchShare). The family is the root
+     * machine, running the main program, and the machines running
+     * branches, which it uses to stop them all when one of them fails.
+     */
+    private static class Family {
+        /**
+         * Whether branches run on threads of their own; if not each runs
+         * to its end when it is forked
+         */
+        boolean parallel = true;
+        /**
+         * Whether a runtime error has been reported by any machine
+         */
+        boolean failed = false;
+        /**
+         * The machines running
+         */
+        final Set<StackMachine> running = new HashSet<>();
+        /**
+         * Verifier of the code, used to find the stack needs of branches,
+         * or null if the code has not been verified or failed to verify
+         */
+        CodeVerifier verifier = null;
+        /**
+         * Whether verification of the code has been tried
+         */
+        boolean verified = false;
+
+        /**
+         * Stop every machine. Requires the lock on the family.
+         */
+        void halt() {
+            failed = true;
+            for (StackMachine machine : running) {
+                machine.running = false;
+            }
+        }
+    }
+
+    /**
+     * A branch forked by this machine
+     */
+    private static class Branch {
+        final StackMachine machine;
+        /**
+         * Thread running the branch, or null if it has already run
+         */
+        final Thread thread;
+        /**
+         * Limit of this machine's stack when the branch was forked,
+         * which is the end of the branch's stack
+         */
+        final int end;
+
+        Branch(StackMachine machine, Thread thread, int end) {
+            this.machine = machine;
+            this.thread = thread;
+            this.end = end;
+        }
+    }
+
+    private final Family family;
+    /**
+     * Branches forked and not yet joined, most recent on top
+     */
+    private final Deque<Branch> branches = new ArrayDeque<>();
+    /**
+     * Stack space needed by the branch this machine runs, or UNBOUNDED
+     * if it is not known or this machine is not running a branch
+     */
+    private int branchNeed = CodeVerifier.UNBOUNDED;
 
     /****************************** Constructors **************************/
 
     public StackMachine(Errors errors, PrintStream outStream,
                         boolean listing, Procedures procedures) {
+        this(errors, outStream, listing, procedures, System.in);
+    }
+
+    /**
+     * Machine whose READ instructions read from the given input, rather
+     * than the standard input
+     */
+    public StackMachine(Errors errors, PrintStream outStream,
+                        boolean listing, Procedures procedures,
+                        InputStream input) {
         this.errors = errors;
         this.outStream = outStream;
         this.procedures = procedures;
+        memory = new int[MEM_LIMIT];
+        this.input = input;
+        in = new BufferedReader(new InputStreamReader(input));
+        family = new Family();
+        base = STACK_START;
         for (int i = 0; i < MEM_LIMIT; i++) {
             memory[i] = NULL_ADDR;  // out of memory address
         }
@@ -133,16 +283,50 @@ public class StackMachine {
                 /* Set the start location for execution */
                 pc = currLocn;
             }
-            for (Instruction inst : proc.getCode().getInstructionList()) {
-                int locn = currLocn;
-                inst.loadInstruction(this);
-                if (listing) {
-                    printListing(locn, inst);
+            /* Load the flattened code for the procedure */
+            int start = currLocn;
+            for (int word : proc.getCode().toWords()) {
+                generateWord(word);
+            }
+            if (listing) {
+                int locn = start;
+                for (Instruction inst : proc.getCode().getInstructionList()) {
+                    inst.resolve();
+                    printListing(Math.min(locn, MEM_LIMIT), inst);
+                    locn += inst.getSize();
                 }
             }
         }
     }
 
+    /**
+     * Machine to run a branch forked by the parent, with the stack
+     * from base to limit
+     */
+    private StackMachine(StackMachine parent, int base, int limit) {
+        errors = parent.errors;
+        outStream = parent.outStream;
+        procedures = parent.procedures;
+        memory = parent.memory;
+        currLocn = parent.currLocn;
+        input = parent.input;
+        in = parent.in;
+        batchIn = parent.batchIn;
+        batchOut = parent.batchOut;
+        tracing = parent.tracing;
+        recorder = parent.recorder;
+        frameDepth = parent.frameDepth;
+        caching = parent.caching;
+        executions = parent.executions;
+        family = parent.family;
+        /* The branch is in the same procedure as the fork */
+        pc = parent.pc;
+        fp = parent.fp;
+        this.base = base;
+        sp = base;
+        this.limit = limit;
+    }
+
 //***************************** Public Methods *************************
 
     /**
@@ -152,6 +336,110 @@ public class StackMachine {
         tracing = flags;
     }
 
+    /**
+     * Record a binary trace of the execution in a file, which can be
+     * formatted as text by TraceDecoder. Recording is much faster than
+     * tracing, but as for tracing the code is executed by the checked
+     * execution loop.
+     *
+     * @param ringRecords the number of most recent records to keep, or 0
+     *                    to keep the whole trace
+     */
+    public void setRecorder(Path file, int ringRecords) throws IOException {
+        recorder = new TraceRecorder(file, memory, currLocn, procedures, ringRecords);
+    }
+
+    /**
+     * Count the executions of each instruction, so that the coverage of
+     * the source lines can be reported. As for tracing, the code is
+     * executed by the checked execution loop.
+     */
+    public void setCoverage(boolean coverage) {
+        executions = coverage ? new long[memory.length] : null;
+    }
+
+    /**
+     * Add the number of times each line of the source has been executed
+     * to a coverage listing. The count of a line is the number of times
+     * its most frequently executed instruction has been executed.
+     * Requires that coverage has been set.
+     */
+    public void addCoverage(CoverageListing listing) {
+        LineTable lines = procedures.getLineTable();
+        for (ProcedureCode proc : procedures.getProcedureEntries()) {
+            int address = proc.getStart();
+            while (address < proc.getFinish()) {
+                listing.add(lines.getLine(address), executions[address]);
+                int word = memory[address];
+                address += 0 <= word && word < getOperation.length ?
+                        getOperation[word].getSize() : 1;
+            }
+        }
+    }
+
+    /**
+     * Specify whether READ and WRITE use batched input and output.
+     * Output is flushed before any other output from the machine, so the
+     * result is identical to unbatched output.
+     */
+    public void setBatchIO(boolean batch) {
+        batchIn = batch ? new IntegerReader(input) : null;
+        batchOut = batch ? new IntegerWriter(outStream) : null;
+    }
+
+    /**
+     * Verify the loaded code (see CodeVerifier), so that it can be run
+     * without checking for stack overflow and underflow on each push
+     * and pop. Instead the space for a procedure's frame is checked once
+     * when it is called; if there is not enough, execution continues in
+     * the checked execution loop, which reports the overflow where it
+     * occurs. Tracing also uses the checked execution loop.
+     *
+     * @return whether the code was verified; if not an error is reported
+     */
+    public boolean verify() {
+        CodeVerifier verifier = new CodeVerifier(memory, procedures);
+        family.verified = true;
+        try {
+            frameDepth = verifier.verify();
+            family.verifier = verifier;
+            return true;
+        } catch (CodeVerifier.VerifyException e) {
+            errors.error("Code verification failed " + e.getMessage(),
+                    ErrorHandler.NO_LOCATION);
+            return false;
+        }
+    }
+
+    /**
+     * Specify whether verified code is run with the top two words of the
+     * stack cached in local variables of the execution loop (see
+     * execCached), rather than in memory. Has no effect unless the code
+     * has been verified. This saves most of the stack traffic, but once
+     * the JIT has compiled the loops it runs a little slower than the
+     * verified loop, so it only pays off on an interpreting JVM (see
+     * pl0.StackCacheBenchmark).
+     */
+    public void setCaching(boolean caching) {
+        this.caching = caching;
+    }
+
+    /**
+     * @return the number of words read from the stack in memory, if
+     * COUNT_STACK_TRAFFIC is set
+     */
+    public long getStackReads() {
+        return stackReads;
+    }
+
+    /**
+     * @return the number of words written to the stack in memory, if
+     * COUNT_STACK_TRAFFIC is set
+     */
+    public long getStackWrites() {
+        return stackWrites;
+    }
+
     /**
      * Begin executing the code stored in the stack machine.
      * Runs until a STOP opcode, a return to 0, or an illegal condition
@@ -159,6 +447,10 @@ public class StackMachine {
      */
     public void run() {
         running = true;
+        family.running.add(this);
+        /* Tracing, recording and coverage are not synchronised, so the
+         * branches then run one at a time */
+        family.parallel = tracing.isEmpty() && recorder == null && executions == null;
         /* Establish stack frame for the main program
          * Place dummy static and dynamic links on stack.
          * The stack machine begins execution with the frame pointer
@@ -169,8 +461,29 @@ public class StackMachine {
         push(0); // Push dummy static link for main program
         push(0); // Push dummy dynamic link for main program
         push(0); //Push return address for main program
-        while (running) {
-            execInstruction();
+        try {
+            /* If the frame of the main program would overflow, the
+             * checked loop reports where */
+            if (frameDepth != null && tracing.isEmpty() && recorder == null &&
+                    executions == null && sp + frameDepth[pc] <= limit) {
+                if (caching) {
+                    execCached();
+                } else {
+                    execVerified();
+                }
+            }
+            while (running) {
+                execInstruction();
+            }
+            abandonBranches();
+        } catch (UncheckedIOException e) {
+            /* Thrown by the recorder */
+            running = false;
+            errors.error("Error writing trace: " + e.getCause().getMessage(),
+                    ErrorHandler.NO_LOCATION);
+        } finally {
+            flushOutput();
+            closeRecorder();
         }
         // dumpStack();
     }
@@ -190,6 +503,21 @@ public class StackMachine {
         }
     }
 
+    /**
+     * Close the trace recorder, if recording
+     */
+    private void closeRecorder() {
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                errors.error("Error writing trace: " + e.getMessage(),
+                        ErrorHandler.NO_LOCATION);
+            }
+            recorder = null;
+        }
+    }
+
     /**
      * Print a listing line to the message handler
      */
@@ -217,7 +545,11 @@ public class StackMachine {
             if (tracing.contains(Trace.STACK)) {
                 outStream.print(" Push(" + val + ") ");
             }
+            if (recorder != null) {
+                recorder.record(TraceRecorder.Kind.PUSH, val);
+            }
             memory[sp++] = val;
+            countWrites(1);
         }
     }
 
@@ -225,13 +557,17 @@ public class StackMachine {
      * Pop the top value form the stack and decrement the stack pointer
      */
     private int pop() {
-        if (sp <= STACK_START) {
+        if (sp <= base) {
             runtimeError("stack underflow!");
             return 0;
         } else {
             if (tracing.contains(Trace.STACK)) {
                 outStream.print(" Pop() = " + memory[sp - 1] + " ");
             }
+            if (recorder != null) {
+                recorder.record(TraceRecorder.Kind.POP, memory[sp - 1]);
+            }
+            countReads(1);
             return memory[--sp];
         }
     }
@@ -250,6 +586,9 @@ public class StackMachine {
         if (tracing.contains(Trace.MEM)) {
             outStream.print("\n    Load [" + address + "] => " + val);
         }
+        if (recorder != null) {
+            recorder.record(TraceRecorder.Kind.LOAD, address, val);
+        }
         return val;
     }
 
@@ -266,6 +605,9 @@ public class StackMachine {
         if (tracing.contains(Trace.MEM)) {
             outStream.print("\n    Store [" + (address) + "] <= " + value);
         }
+        if (recorder != null) {
+            recorder.record(TraceRecorder.Kind.STORE, address, value);
+        }
     }
 
     /**
@@ -319,7 +661,8 @@ public class StackMachine {
             // Return address is at offset 2
             outStream.println(" RA=" + memory[traceFP + 2]);
             for (SymEntry entry : proc.getLocals().getEntries()) {
-                if (entry instanceof SymEntry.VarEntry) {
+                if (entry instanceof SymEntry.VarEntry &&
+                        !((SymEntry.VarEntry) entry).isRemoved()) {
                     SymEntry.VarEntry varEntry = (SymEntry.VarEntry) entry;
                     int varSize = varEntry.getType().getBaseType().getSpace();
                     int addr = traceFP + varEntry.getOffset();
@@ -359,15 +702,248 @@ public class StackMachine {
         }
     }
 
+    /**
+     * Write out any batched output.
+     */
+    private void flushOutput() {
+        if (batchOut != null) {
+            batchOut.flush();
+        }
+    }
+
     /**
      * Runtime error while executing program.
      */
     private void runtimeError(String message) {
-        running = false;
-        outStream.println("\nRuntime error: " + message);
-        // dumpStack();
-        traceBack();
+        synchronized (family) {
+            if (family.failed) {
+                /* Only the first error is reported */
+                running = false;
+                return;
+            }
+            family.halt();
+            running = false;
+            flushOutput();
+            outStream.println("\nRuntime error: " + message);
+            if (recorder != null) {
+                recorder.record(TraceRecorder.Kind.ERROR, pc);
+            }
+            // dumpStack();
+            traceBack();
+        }
+    }
+
+    /**
+     * Check an array index is within bounds, halting if it is not.
+     * @param instAddr address of the indexing instruction for the message
+     * @return true if the index is within bounds
+     */
+    private boolean indexInBounds(int index, int lower, int upper,
+                                  int instAddr) {
+        if (index < lower || index > upper) {
+            runtimeError("bounds check failed at " + instAddr + ": "
+                    + index + " not in " + lower + ".." + upper);
+            return false;
+        }
+        return true;
+    }
+    /**
+     * Run a forked branch until its END_BRANCH, or until a machine fails.
+     */
+    private void runBranch() {
+        synchronized (family) {
+            running = !family.failed;
+            family.running.add(this);
+        }
+        try {
+            if (running && frameDepth != null && family.parallel && frameFits()) {
+                if (caching) {
+                    execCached();
+                } else {
+                    execVerified();
+                }
+            }
+            while (running) {
+                execInstruction();
+            }
+            abandonBranches();
+        } finally {
+            synchronized (family) {
+                family.running.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Fork the branch starting at pc, giving it its share of the top of the
+     * free stack space, and continue at the offset from pc.
+     *
+     * @param count number of branches sharing the free stack space
+     */
+    private void fork(int count, int offset) {
+        if (count < 2) {
+            runtimeError("forking a branch with " + count + " branches");
+            return;
+        }
+        int end = limit;
+        int need = stackNeed(pc);
+        limit -= branchShare(count, offset, need);
+        StackMachine branch = new StackMachine(this, limit, end);
+        branch.branchNeed = need;
+        if (family.parallel) {
+            Thread thread = new Thread(branch::runBranch, "branch");
+            branches.push(new Branch(branch, thread, end));
+            thread.start();
+        } else {
+            branches.push(new Branch(branch, null, end));
+            branch.runBranch();
+            if (family.failed) {
+                running = false;
+                return;
+            }
+        }
+        pc += offset;
+    }
+
+    /**
+     * Share of the free stack space for the branch starting at pc, the
+     * first of count branches still to start, the last of which this
+     * machine runs itself. A branch whose stack need is bounded (it makes
+     * no recursive calls and starts no branches of its own) is given what
+     * it needs, and the rest of the space is divided equally between the
+     * others, or between all of them if every need is bounded. If the
+     * needs cannot be found, or do not fit, the space is divided equally.
+     *
+     * @param need stack need of the branch starting at pc
+     */
+    private int branchShare(int count, int offset, int need) {
+        int free = limit - sp;
+        long bounded = 0;
+        int unbounded = 0;
+        int start = pc;
+        int next = pc + offset;
+        for (int i = 0; i < count; i++) {
+            int branchNeed = i == 0 ? need : stackNeed(start);
+            if (branchNeed == CodeVerifier.UNBOUNDED) {
+                unbounded++;
+            } else {
+                bounded += branchNeed;
+            }
+            if (i < count - 2) {
+                /* The next branch follows the FORK at the continuation */
+                if (next < 0 || next + 3 > memory.length ||
+                        memory[next] != Operation.FORK.ordinal()) {
+                    return free / count;
+                }
+                start = next + 3;
+                next = start + memory[next + 2];
+            } else {
+                /* The last branch is the continuation */
+                start = next;
+            }
+        }
+        if (bounded > free) {
+            return free / count;
+        }
+        long spare = free - bounded;
+        if (need == CodeVerifier.UNBOUNDED) {
+            return (int) (spare / unbounded);
+        }
+        return need + (unbounded == 0 ? (int) (spare / count) : 0);
     }
+
+    /**
+     * Stack space needed to run the code from an address to the end of
+     * its branch, verifying the code the first time it is needed if it
+     * has not been verified.
+     *
+     * @return the number of words needed, or UNBOUNDED if it is not known
+     */
+    private int stackNeed(int start) {
+        synchronized (family) {
+            if (!family.verified) {
+                family.verified = true;
+                CodeVerifier verifier = new CodeVerifier(memory, procedures);
+                try {
+                    verifier.verify();
+                    family.verifier = verifier;
+                } catch (CodeVerifier.VerifyException e) {
+                    /* The branches share the space equally */
+                }
+            }
+            if (family.verifier == null) {
+                return CodeVerifier.UNBOUNDED;
+            }
+            return family.verifier.stackNeed(start);
+        }
+    }
+
+    /**
+     * Wait for the most recently forked branches to end, and give their
+     * stack space back.
+     *
+     * @param count number of branches to join
+     */
+    private void join(int count) {
+        if (count < 1 || count > branches.size()) {
+            runtimeError("joining " + count + " branches when " +
+                    branches.size() + " are running");
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            Branch branch = branches.pop();
+            awaitBranch(branch);
+            limit = branch.end;
+        }
+        synchronized (family) {
+            if (family.failed) {
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * Wait for the branches still running when this machine stopped,
+     * which they only are if a machine has failed.
+     */
+    private void abandonBranches() {
+        while (!branches.isEmpty()) {
+            awaitBranch(branches.pop());
+        }
+    }
+
+    private void awaitBranch(Branch branch) {
+        if (branch.thread != null) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    branch.thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        stackReads += branch.machine.stackReads;
+        stackWrites += branch.machine.stackWrites;
+    }
+
+    /**
+     * @return whether the deepest frame of the current procedure, or all
+     * of the branch this machine runs if its need is known, fits below the
+     * limit, so that a fast execution loop can run it
+     */
+    private boolean frameFits() {
+        if (branchNeed != CodeVerifier.UNBOUNDED && sp + branchNeed <= limit) {
+            return true;
+        }
+        int start = procedures.getProcedure(pc).getStart();
+        return Math.max(fp + 3, base) + frameDepth[start] <= limit;
+    }
+
 //********************************** Execution *******************************
     /**
      * Convert from integer to operation
@@ -383,6 +959,9 @@ public class StackMachine {
             runtimeError("PC = " + pc + " out of range of code");
             return;
         }
+        if (executions != null) {
+            executions[pc]++;
+        }
         int instWord = memory[pc++];
         if (instWord < 0 || getOperation.length <= instWord) {
             runtimeError("invalid opcode");
@@ -397,10 +976,14 @@ public class StackMachine {
                     "  Limit: " + limit +
                     "  Opcode: " +
                     inst + " ");
-            if (inst == Operation.LOAD_CON) {
-                outStream.print(memory[pc] + " ");
+            /* Operand words following the opcode */
+            for (int i = 0; i < inst.getSize() - 1; i++) {
+                outStream.print(memory[pc + i] + " ");
             }
         }
+        if (recorder != null) {
+            recorder.state(inst, pc - 1, fp, sp, limit);
+        }
         switch (inst) {
             case NO_OP: /* Do nothing */
                 break;
@@ -410,6 +993,9 @@ public class StackMachine {
                 if (tracing.contains(Trace.JUMPS)) {
                     outStream.print("\n      Branch => " + pc);
                 }
+                if (recorder != null) {
+                    recorder.record(TraceRecorder.Kind.BRANCH, pc);
+                }
                 break;
             case BR_FALSE: /* If the second top value = FALSE_VALUE,
                 jump to the destination */
@@ -423,6 +1009,49 @@ public class StackMachine {
                 if (tracing.contains(Trace.JUMPS)) {
                     outStream.print("\n      Branch => " + pc);
                 }
+                if (recorder != null) {
+                    recorder.record(TraceRecorder.Kind.BRANCH, pc);
+                }
+                break;
+            case FOR_INIT: /* Store the lower and upper bounds on the stack
+                into the control variable and the bound (at the frame offsets
+                that follow), and branch over the loop if lower > upper */
+                int ctrlAddr = fp + memory[pc++];
+                int boundAddr = fp + memory[pc++];
+                dest = memory[pc++];
+                int bound = pop();
+                int ctrl = pop();
+                storeValue(ctrlAddr, ctrl);
+                storeValue(boundAddr, bound);
+                if (ctrl > bound) {
+                    pc += dest;
+                }
+                if (tracing.contains(Trace.JUMPS)) {
+                    outStream.print("\n      Branch => " + pc);
+                }
+                if (recorder != null) {
+                    recorder.record(TraceRecorder.Kind.BRANCH, pc);
+                }
+                break;
+            case FOR_STEP: /* Unless the control variable is MAXINT (which
+                would overflow) increment it, and branch back to the loop body
+                if it is still within the bound */
+                ctrlAddr = fp + memory[pc++];
+                boundAddr = fp + memory[pc++];
+                dest = memory[pc++];
+                ctrl = loadValue(ctrlAddr);
+                if (ctrl != Integer.MAX_VALUE) {
+                    storeValue(ctrlAddr, ++ctrl);
+                    if (ctrl <= loadValue(boundAddr)) {
+                        pc += dest;
+                    }
+                }
+                if (tracing.contains(Trace.JUMPS)) {
+                    outStream.print("\n      Branch => " + pc);
+                }
+                if (recorder != null) {
+                    recorder.record(TraceRecorder.Kind.BRANCH, pc);
+                }
                 break;
             case COPY: /* Copy top-of-stack words from third-top-of-stack address
                       to second-top-of-stack address */
@@ -448,6 +1077,9 @@ public class StackMachine {
                     Procedures.ProcedureCode proc = procedures.getProcedure(pc);
                     outStream.print("\n      Call => " + proc.getName() + " at " + pc);
                 }
+                if (recorder != null) {
+                    recorder.record(TraceRecorder.Kind.CALL, pc);
+                }
                 break;
             case RETURN: /* Return to caller */
                 sp = fp + 3;   /* Set stack pointer so next pop is return address
@@ -466,6 +1098,9 @@ public class StackMachine {
                                 procedures.getProcedure(pc).getName() + " at " + pc);
                     }
                 }
+                if (recorder != null) {
+                    recorder.record(TraceRecorder.Kind.RETURN, pc);
+                }
                 break;
             case ALLOC_STACK: /* Allocate top-of-stack words on stack */
                 /* It is assumed that the top of stack contains the number of
@@ -556,14 +1191,34 @@ public class StackMachine {
             case READ: /* Read a number from stdin */
                 int read;
                 try {
-                    read = Integer.parseInt(in.readLine());
+                    synchronized (family) {
+                        if (batchIn != null) {
+                            flushOutput(); // in case the input is interactive
+                            read = batchIn.readInt();
+                        } else {
+                            read = Integer.parseInt(in.readLine());
+                        }
+                    }
                     push(read);
                 } catch (Exception e) {
                     runtimeError("invalid value read - must be an integer");
                 }
                 break;
             case WRITE: /* Write a number to stdout */
-                outStream.println(pop());
+                int written = pop();
+                if (recorder != null) {
+                    recorder.record(TraceRecorder.Kind.WRITE, written);
+                }
+                synchronized (family) {
+                    if (batchOut == null) {
+                        outStream.println(written);
+                    } else {
+                        batchOut.println(written);
+                        if (!tracing.isEmpty()) {
+                            flushOutput(); // keep in order with the trace
+                        }
+                    }
+                }
                 break;
             case BOUND: /* Check if index is within bounds, halt if not.
                 This needs to be an instruction to write the error */
@@ -576,6 +1231,53 @@ public class StackMachine {
                 }
                 push(val); /* push the value back on the stack */
                 break;
+            case INDEX: /* Replace the index and (frame-relative) array
+                address on the stack by the address of the element */
+                int indexLower = memory[pc++];
+                int indexUpper = memory[pc++];
+                int elementSize = memory[pc++];
+                int index = pop();
+                int arrayBase = pop();
+                if (indexInBounds(index, indexLower, indexUpper, pc - 4)) {
+                    push(arrayBase + (index - indexLower) * elementSize);
+                }
+                break;
+            case INDEX_FRAME: /* Replace the index on the stack by the
+                address of the element of the array at the frame offset */
+                arrayBase = memory[pc++];
+                indexLower = memory[pc++];
+                indexUpper = memory[pc++];
+                elementSize = memory[pc++];
+                index = pop();
+                if (indexInBounds(index, indexLower, indexUpper, pc - 5)) {
+                    push(arrayBase + (index - indexLower) * elementSize);
+                }
+                break;
+            case LOAD_INDEXED: /* Replace the index on the stack by the
+                element of the array at the frame offset */
+                arrayBase = memory[pc++];
+                indexLower = memory[pc++];
+                indexUpper = memory[pc++];
+                elementSize = memory[pc++];
+                index = pop();
+                if (indexInBounds(index, indexLower, indexUpper, pc - 5)) {
+                    push(loadValue(fp + arrayBase
+                            + (index - indexLower) * elementSize));
+                }
+                break;
+            case STORE_INDEXED: /* Store the second top of stack into the
+                element of the array at the frame offset indexed by the top */
+                arrayBase = memory[pc++];
+                indexLower = memory[pc++];
+                indexUpper = memory[pc++];
+                elementSize = memory[pc++];
+                index = pop();
+                int element = pop();
+                if (indexInBounds(index, indexLower, indexUpper, pc - 5)) {
+                    storeValue(fp + arrayBase
+                            + (index - indexLower) * elementSize, element);
+                }
+                break;
             case TO_GLOBAL: /* Adjust local to global */
                 push(pop() + fp);
                 break;
@@ -631,6 +1333,20 @@ public class StackMachine {
                     count--;
                 }
                 break;
+            case FORK: /* Start the branch that follows on a new machine,
+                sharing the memory, with its share of the top of the free
+                stack space. Continue after the branch, at the offset in
+                the second operand. */
+                int branchCount = memory[pc++];
+                int nextOffset = memory[pc++];
+                fork(branchCount, nextOffset);
+                break;
+            case END_BRANCH: /* The branch is complete */
+                running = false;
+                break;
+            case JOIN: /* Wait for the number of branches in the operand */
+                join(memory[pc++]);
+                break;
             case STOP: /* Halt */
                 int exitcode = pop();
                 switch (exitcode) {
@@ -643,4 +1359,862 @@ public class StackMachine {
                 runtimeError("opcode not implemented: " + inst);
         }
     }
+
+    /**
+     * Execute verified code until the machine stops. The verifier has
+     * checked that the code is valid and that no instruction pops more
+     * than its frame holds, and each call checks that there is space for
+     * the deepest stack of the called procedure, so pushes and pops need
+     * not be checked. Returns early, before a call for which there is
+     * not enough space, for the checked loop to continue.
+     * Tracing is not supported.
+     */
+    private void execVerified() {
+        final int[] memory = this.memory;
+        while (running) {
+            Operation inst = getOperation[memory[pc++]];
+            int address;
+            switch (inst) {
+                case NO_OP:
+                    break;
+                case BR:
+                    pc += memory[--sp];
+                    break;
+                case BR_FALSE:
+                    int dest = memory[--sp];
+                    int test = memory[--sp];
+                    if (test == Type.FALSE_VALUE) {
+                        pc += dest;
+                    } else if (test != Type.TRUE_VALUE) {
+                        runtimeError("non-boolean operand in branch");
+                    }
+                    break;
+                case FOR_INIT:
+                    int ctrlAddr = fp + memory[pc++];
+                    int boundAddr = fp + memory[pc++];
+                    dest = memory[pc++];
+                    int bound = memory[--sp];
+                    int ctrl = memory[--sp];
+                    storeValue(ctrlAddr, ctrl);
+                    storeValue(boundAddr, bound);
+                    if (ctrl > bound) {
+                        pc += dest;
+                    }
+                    break;
+                case FOR_STEP:
+                    ctrlAddr = fp + memory[pc++];
+                    boundAddr = fp + memory[pc++];
+                    dest = memory[pc++];
+                    ctrl = loadValue(ctrlAddr);
+                    if (ctrl != Integer.MAX_VALUE) {
+                        storeValue(ctrlAddr, ++ctrl);
+                        if (ctrl <= loadValue(boundAddr)) {
+                            pc += dest;
+                        }
+                    }
+                    break;
+                case COPY:
+                    int copySize = memory[--sp];
+                    int toAddr = fp + memory[--sp];
+                    int fromAddr = fp + memory[--sp];
+                    int copyLimit = fromAddr + copySize;
+                    while (fromAddr < copyLimit && running) {
+                        storeValue(toAddr, loadValue(fromAddr));
+                        fromAddr += 1;
+                        toAddr += 1;
+                    }
+                    break;
+                case CALL:
+                    /* The new frame starts at the static link below the
+                     * address, and has three words of links */
+                    if (sp + 1 + frameDepth[memory[sp - 1]] > limit) {
+                        pc--;
+                        return;
+                    }
+                    int addr = memory[--sp];
+                    memory[sp++] = fp;
+                    fp = sp - 2;
+                    memory[sp++] = pc;
+                    pc = addr;
+                    break;
+                case RETURN:
+                    sp = fp;
+                    pc = memory[fp + 2];
+                    fp = memory[fp + 1];
+                    if (pc == 0) {
+                        running = false;
+                    }
+                    break;
+                case ALLOC_STACK:
+                    int locs = memory[--sp];
+                    for (int i = 1; i <= locs; i++) {
+                        memory[sp++] = NULL_ADDR;
+                    }
+                    break;
+                case DEALLOC_STACK:
+                    int nwords = memory[--sp];
+                    sp -= nwords;
+                    break;
+                case POP:
+                    sp--;
+                    break;
+                case DUP:
+                    memory[sp] = memory[sp - 1];
+                    sp++;
+                    break;
+                case SWAP:
+                    int val = memory[sp - 1];
+                    memory[sp - 1] = memory[sp - 2];
+                    memory[sp - 2] = val;
+                    break;
+                case DIV:
+                    int divbottom = memory[--sp];
+                    if (divbottom == 0) {
+                        runtimeError("divide by zero");
+                    } else {
+                        memory[sp - 1] /= divbottom;
+                    }
+                    break;
+                case MPY:
+                    sp--;
+                    memory[sp - 1] *= memory[sp];
+                    break;
+                case ADD:
+                    sp--;
+                    memory[sp - 1] += memory[sp];
+                    break;
+                case XOR:
+                    sp--;
+                    memory[sp - 1] ^= memory[sp];
+                    break;
+                case OR:
+                    sp--;
+                    memory[sp - 1] |= memory[sp];
+                    break;
+                case AND:
+                    sp--;
+                    memory[sp - 1] &= memory[sp];
+                    break;
+                case SHIFT_LEFT:
+                    sp--;
+                    memory[sp - 1] <<= memory[sp];
+                    break;
+                case EQUAL:
+                    sp--;
+                    memory[sp - 1] = memory[sp - 1] == memory[sp] ?
+                            Type.TRUE_VALUE : Type.FALSE_VALUE;
+                    break;
+                case LESS:
+                    sp--;
+                    memory[sp - 1] = memory[sp - 1] < memory[sp] ?
+                            Type.TRUE_VALUE : Type.FALSE_VALUE;
+                    break;
+                case LESSEQ:
+                    sp--;
+                    memory[sp - 1] = memory[sp - 1] <= memory[sp] ?
+                            Type.TRUE_VALUE : Type.FALSE_VALUE;
+                    break;
+                case NOT:
+                    memory[sp - 1] = ~memory[sp - 1];
+                    break;
+                case NEGATE:
+                    memory[sp - 1] = -memory[sp - 1];
+                    break;
+                case READ:
+                    try {
+                        synchronized (family) {
+                            if (batchIn != null) {
+                                flushOutput(); // in case the input is interactive
+                                memory[sp] = batchIn.readInt();
+                            } else {
+                                memory[sp] = Integer.parseInt(in.readLine());
+                            }
+                        }
+                        sp++;
+                    } catch (Exception e) {
+                        runtimeError("invalid value read - must be an integer");
+                    }
+                    break;
+                case WRITE:
+                    synchronized (family) {
+                        if (batchOut == null) {
+                            outStream.println(memory[--sp]);
+                        } else {
+                            batchOut.println(memory[--sp]);
+                        }
+                    }
+                    break;
+                case BOUND:
+                    int upper = memory[--sp];
+                    int lower = memory[--sp];
+                    val = memory[sp - 1];
+                    if (val < lower || val > upper) {
+                        runtimeError("bounds check failed at " + (pc - 1) + ": "
+                                + val + " not in " + lower + ".." + upper);
+                    }
+                    break;
+                case INDEX:
+                    int indexLower = memory[pc++];
+                    int indexUpper = memory[pc++];
+                    int elementSize = memory[pc++];
+                    int index = memory[--sp];
+                    if (indexInBounds(index, indexLower, indexUpper, pc - 4)) {
+                        memory[sp - 1] += (index - indexLower) * elementSize;
+                    }
+                    break;
+                case INDEX_FRAME:
+                    int arrayBase = memory[pc++];
+                    indexLower = memory[pc++];
+                    indexUpper = memory[pc++];
+                    elementSize = memory[pc++];
+                    index = memory[sp - 1];
+                    if (indexInBounds(index, indexLower, indexUpper, pc - 5)) {
+                        memory[sp - 1] = arrayBase + (index - indexLower) * elementSize;
+                    }
+                    break;
+                case LOAD_INDEXED:
+                    arrayBase = memory[pc++];
+                    indexLower = memory[pc++];
+                    indexUpper = memory[pc++];
+                    elementSize = memory[pc++];
+                    index = memory[sp - 1];
+                    if (indexInBounds(index, indexLower, indexUpper, pc - 5)) {
+                        memory[sp - 1] = loadValue(fp + arrayBase
+                                + (index - indexLower) * elementSize);
+                    }
+                    break;
+                case STORE_INDEXED:
+                    arrayBase = memory[pc++];
+                    indexLower = memory[pc++];
+                    indexUpper = memory[pc++];
+                    elementSize = memory[pc++];
+                    index = memory[--sp];
+                    int element = memory[--sp];
+                    if (indexInBounds(index, indexLower, indexUpper, pc - 5)) {
+                        storeValue(fp + arrayBase
+                                + (index - indexLower) * elementSize, element);
+                    }
+                    break;
+                case TO_GLOBAL:
+                    memory[sp - 1] += fp;
+                    break;
+                case TO_LOCAL:
+                    memory[sp - 1] -= fp;
+                    break;
+                case LOAD_CON:
+                    memory[sp++] = memory[pc++];
+                    break;
+                case LOAD_ABS:
+                    memory[sp - 1] = loadValue(memory[sp - 1]);
+                    break;
+                case STORE_FRAME:
+                    address = fp + memory[--sp];
+                    storeValue(address, memory[--sp]);
+                    break;
+                case LOAD_FRAME:
+                    memory[sp - 1] = loadValue(fp + memory[sp - 1]);
+                    break;
+                case ZERO:
+                    memory[sp++] = 0;
+                    break;
+                case ONE:
+                    memory[sp++] = 1;
+                    break;
+                case LOAD_MULTI:
+                    int count = memory[--sp];
+                    address = fp + memory[--sp];
+                    while (count > 0 && running) {
+                        memory[sp++] = loadValue(address++);
+                        count--;
+                    }
+                    break;
+                case STORE_MULTI:
+                    count = memory[--sp];
+                    address = fp + memory[--sp] + count;
+                    while (count > 0 && running) {
+                        storeValue(--address, memory[--sp]);
+                        count--;
+                    }
+                    break;
+                case FORK:
+                    pc--;
+                    execInstruction();
+                    /* The fork lowered the limit */
+                    if (running && !frameFits()) {
+                        return;
+                    }
+                    break;
+                case END_BRANCH:
+                case JOIN:
+                    pc--;
+                    execInstruction();
+                    break;
+                case STOP:
+                    runtimeError("machine halted with code " + memory[--sp]);
+                    break;
+                default:
+                    runtimeError("opcode not implemented: " + inst);
+            }
+        }
+    }
+
+    /**
+     * Execute verified code with up to two words on top of the stack held
+     * in the local variables tos and nos (next on stack) rather than in
+     * memory, so that most instructions of an expression do not read or
+     * write the stack in memory. The stack consists of the words in memory
+     * below sp followed by the cached words: none, tos, or nos then tos.
+     * Only operands are cached: ALLOC_STACK, CALL, LOAD_MULTI and
+     * STORE_MULTI spill the cached words to memory first and RETURN
+     * discards them, so variables and frame links are always in memory.
+     * The cached words are spilled before an error is reported, and
+     * instructions that are not executed often are executed by
+     * execInstruction after a spill.
+     * As for execVerified, returns early, with the cache spilled, before
+     * a call for which there is not enough space. Tracing is not supported.
+     */
+    private void execCached() {
+        final int[] memory = this.memory;
+        int tos = 0;
+        int nos = 0;
+        int cached = 0;     /* number of words cached */
+        while (running) {
+            Operation inst = getOperation[memory[pc++]];
+            int address;
+            switch (inst) {
+                case NO_OP:
+                    break;
+                case BR:
+                    if (cached == 0) {
+                        pc += memory[--sp];
+                        countReads(1);
+                    } else {
+                        pc += tos;
+                        tos = nos;
+                        cached--;
+                    }
+                    break;
+                case BR_FALSE:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                        cached = 2;
+                    }
+                    if (nos == Type.FALSE_VALUE) {
+                        pc += tos;
+                    } else if (nos != Type.TRUE_VALUE) {
+                        spill(cached, tos, nos);
+                        runtimeError("non-boolean operand in branch");
+                    }
+                    cached = 0;
+                    break;
+                case FOR_INIT:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    cached = 0;
+                    int ctrlAddr = fp + memory[pc++];
+                    int boundAddr = fp + memory[pc++];
+                    int dest = memory[pc++];
+                    storeValue(ctrlAddr, nos);
+                    storeValue(boundAddr, tos);
+                    if (nos > tos) {
+                        pc += dest;
+                    }
+                    break;
+                case FOR_STEP:
+                    if (cached != 0) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                    }
+                    ctrlAddr = fp + memory[pc++];
+                    boundAddr = fp + memory[pc++];
+                    dest = memory[pc++];
+                    int ctrl = loadValue(ctrlAddr);
+                    if (ctrl != Integer.MAX_VALUE) {
+                        storeValue(ctrlAddr, ++ctrl);
+                        if (ctrl <= loadValue(boundAddr)) {
+                            pc += dest;
+                        }
+                    }
+                    break;
+                case CALL:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    /* As in execVerified, with the cached words
+                     * counted in the stack pointer */
+                    if (sp + cached + 1 + frameDepth[tos] > limit) {
+                        spill(cached, tos, nos);
+                        pc--;
+                        return;
+                    }
+                    int addr = tos;
+                    /* Spill the static link */
+                    if (cached == 2) {
+                        memory[sp++] = nos;
+                        countWrites(1);
+                    }
+                    cached = 0;
+                    memory[sp++] = fp;
+                    fp = sp - 2;
+                    memory[sp++] = pc;
+                    countWrites(2);
+                    pc = addr;
+                    break;
+                case RETURN:
+                    cached = 0;
+                    sp = fp;
+                    pc = memory[fp + 2];
+                    fp = memory[fp + 1];
+                    countReads(2);
+                    if (pc == 0) {
+                        running = false;
+                    }
+                    break;
+                case POP:
+                    if (cached == 0) {
+                        sp--;
+                    } else {
+                        tos = nos;
+                        cached--;
+                    }
+                    break;
+                case DUP:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                    } else if (cached == 2) {
+                        memory[sp++] = nos;
+                        countWrites(1);
+                    }
+                    nos = tos;
+                    cached = 2;
+                    break;
+                case SWAP:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                        cached = 2;
+                    }
+                    int val = tos;
+                    tos = nos;
+                    nos = val;
+                    break;
+                case DIV:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                        cached = 2;
+                    }
+                    if (tos == 0) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                        runtimeError("divide by zero");
+                    } else {
+                        tos = nos / tos;
+                        cached = 1;
+                    }
+                    break;
+                case MPY:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos * tos;
+                    cached = 1;
+                    break;
+                case ADD:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos + tos;
+                    cached = 1;
+                    break;
+                case XOR:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos ^ tos;
+                    cached = 1;
+                    break;
+                case OR:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos | tos;
+                    cached = 1;
+                    break;
+                case AND:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos & tos;
+                    cached = 1;
+                    break;
+                case SHIFT_LEFT:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos << tos;
+                    cached = 1;
+                    break;
+                case EQUAL:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos == tos ? Type.TRUE_VALUE : Type.FALSE_VALUE;
+                    cached = 1;
+                    break;
+                case LESS:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos < tos ? Type.TRUE_VALUE : Type.FALSE_VALUE;
+                    cached = 1;
+                    break;
+                case LESSEQ:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    tos = nos <= tos ? Type.TRUE_VALUE : Type.FALSE_VALUE;
+                    cached = 1;
+                    break;
+                case NOT:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    tos = ~tos;
+                    break;
+                case NEGATE:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    tos = -tos;
+                    break;
+                case WRITE:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                    } else {
+                        cached--;
+                    }
+                    synchronized (family) {
+                        if (batchOut == null) {
+                            outStream.println(tos);
+                        } else {
+                            batchOut.println(tos);
+                        }
+                    }
+                    tos = nos;
+                    break;
+                case BOUND:
+                    /* The upper and lower bounds are above the value */
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                    }
+                    int upper = tos;
+                    int lower = nos;
+                    tos = memory[--sp];
+                    countReads(1);
+                    cached = 1;
+                    if (tos < lower || tos > upper) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                        runtimeError("bounds check failed at " + (pc - 1) + ": "
+                                + tos + " not in " + lower + ".." + upper);
+                    }
+                    break;
+                case INDEX:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                        cached = 2;
+                    }
+                    int indexLower = memory[pc++];
+                    int indexUpper = memory[pc++];
+                    int elementSize = memory[pc++];
+                    if (tos < indexLower || tos > indexUpper) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                        indexInBounds(tos, indexLower, indexUpper, pc - 4);
+                    } else {
+                        tos = nos + (tos - indexLower) * elementSize;
+                        cached = 1;
+                    }
+                    break;
+                case INDEX_FRAME:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    int arrayBase = memory[pc++];
+                    indexLower = memory[pc++];
+                    indexUpper = memory[pc++];
+                    elementSize = memory[pc++];
+                    if (tos < indexLower || tos > indexUpper) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                        indexInBounds(tos, indexLower, indexUpper, pc - 5);
+                    } else {
+                        tos = arrayBase + (tos - indexLower) * elementSize;
+                    }
+                    break;
+                case LOAD_INDEXED:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    arrayBase = memory[pc++];
+                    indexLower = memory[pc++];
+                    indexUpper = memory[pc++];
+                    elementSize = memory[pc++];
+                    address = fp + arrayBase + (tos - indexLower) * elementSize;
+                    if (tos < indexLower || tos > indexUpper) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                        indexInBounds(tos, indexLower, indexUpper, pc - 5);
+                    } else if (address < 0 || address >= MEM_LIMIT) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                        loadValue(address);     /* reports the error */
+                    } else {
+                        tos = memory[address];
+                    }
+                    break;
+                case STORE_INDEXED:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                        cached = 2;
+                    }
+                    arrayBase = memory[pc++];
+                    indexLower = memory[pc++];
+                    indexUpper = memory[pc++];
+                    elementSize = memory[pc++];
+                    address = fp + arrayBase + (tos - indexLower) * elementSize;
+                    if (tos < indexLower || tos > indexUpper) {
+                        spill(cached, tos, nos);
+                        indexInBounds(tos, indexLower, indexUpper, pc - 5);
+                    } else if (address < 0 || address >= CODE_START) {
+                        spill(cached, tos, nos);
+                        storeValue(address, nos);   /* reports the error */
+                    } else {
+                        memory[address] = nos;
+                    }
+                    cached = 0;
+                    break;
+                case TO_GLOBAL:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    tos += fp;
+                    break;
+                case TO_LOCAL:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    tos -= fp;
+                    break;
+                case LOAD_CON:
+                    if (cached == 2) {
+                        memory[sp++] = nos;
+                        countWrites(1);
+                    } else {
+                        cached++;
+                    }
+                    nos = tos;
+                    tos = memory[pc++];
+                    break;
+                case LOAD_ABS:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    if (tos < 0 || tos >= MEM_LIMIT) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                        loadValue(tos);     /* reports the error */
+                    } else {
+                        tos = memory[tos];
+                    }
+                    break;
+                case STORE_FRAME:
+                    if (cached < 2) {
+                        if (cached == 0) {
+                            tos = memory[--sp];
+                        }
+                        nos = memory[--sp];
+                        countReads(2 - cached);
+                        cached = 2;
+                    }
+                    address = fp + tos;
+                    if (address < 0 || address >= CODE_START) {
+                        spill(cached, tos, nos);
+                        storeValue(address, nos);   /* reports the error */
+                    } else {
+                        memory[address] = nos;
+                    }
+                    cached = 0;
+                    break;
+                case LOAD_FRAME:
+                    if (cached == 0) {
+                        tos = memory[--sp];
+                        countReads(1);
+                        cached = 1;
+                    }
+                    address = fp + tos;
+                    if (address < 0 || address >= MEM_LIMIT) {
+                        spill(cached, tos, nos);
+                        cached = 0;
+                        loadValue(address);     /* reports the error */
+                    } else {
+                        tos = memory[address];
+                    }
+                    break;
+                case ZERO:
+                    if (cached == 2) {
+                        memory[sp++] = nos;
+                        countWrites(1);
+                    } else {
+                        cached++;
+                    }
+                    nos = tos;
+                    tos = 0;
+                    break;
+                case ONE:
+                    if (cached == 2) {
+                        memory[sp++] = nos;
+                        countWrites(1);
+                    } else {
+                        cached++;
+                    }
+                    nos = tos;
+                    tos = 1;
+                    break;
+                case FORK:
+                    spill(cached, tos, nos);
+                    cached = 0;
+                    pc--;
+                    execInstruction();
+                    /* The fork lowered the limit */
+                    if (running && !frameFits()) {
+                        return;
+                    }
+                    break;
+                default:
+                    /* ALLOC_STACK, DEALLOC_STACK, COPY, READ, LOAD_MULTI,
+                     * STORE_MULTI, STOP, END_BRANCH and JOIN use the
+                     * stack in memory or the machine's state */
+                    spill(cached, tos, nos);
+                    cached = 0;
+                    pc--;
+                    execInstruction();
+            }
+        }
+}
+
+    /**
+     * Write the words cached by execCached to the stack in memory
+     *
+     * @param cached the number of words cached
+     */
+    private void spill(int cached, int tos, int nos) {
+        if (cached == 2) {
+            memory[sp++] = nos;
+        }
+        if (cached != 0) {
+            memory[sp++] = tos;
+        }
+        countWrites(cached);
+    }
+
+    /**
+     * Count words read from the stack in memory, if counting
+     */
+    private void countReads(int words) {
+        if (COUNT_STACK_TRAFFIC) {
+            stackReads += words;
+        }
+    }
+
+    /**
+     * Count words written to the stack in memory, if counting
+     */
+    private void countWrites(int words) {
+        if (COUNT_STACK_TRAFFIC) {
+            stackWrites += words;
+        }
+    }
 }
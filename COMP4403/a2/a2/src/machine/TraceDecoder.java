@@ -0,0 +1,249 @@
+package machine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * class TraceDecoder - formats a binary trace recorded by TraceRecorder
+ * as the text the stack machine prints when tracing (-t), optionally only
+ * for the instructions of one procedure or within a range of addresses.
+ * <p>
+ * Usage: java machine.TraceDecoder [-p procedure] [-r from..to] file.trace
+ * <p>
+ * The events of an instruction (pushes, pops, loads, stores, branches,
+ * calls and returns) follow its state record, and are shown if the
+ * instruction is. The messages of runtime errors and the trace back
+ * are not recorded, so only the program counter at the error is shown.
+ * If only the end of the trace was kept, decoding starts at the first
+ * instruction kept.
+ */
+public class TraceDecoder {
+    private static final String USAGE =
+            "Usage: java machine.TraceDecoder [-p procedure] [-r from..to] file.trace";
+
+    private final Operation[] operations = Operation.values();
+    private final TraceRecorder.Kind[] kinds = TraceRecorder.Kind.values();
+    private final PrintStream out;
+
+    /**
+     * Code image, indexed by address
+     */
+    private int[] memory;
+    private final List<String> procNames = new ArrayList<>();
+    private final List<Integer> procStarts = new ArrayList<>();
+    private final List<Integer> procFinishes = new ArrayList<>();
+    /**
+     * Range of addresses of the instructions to show, inclusive
+     */
+    private int from = Integer.MIN_VALUE;
+    private int to = Integer.MAX_VALUE;
+    /**
+     * Name of the procedure whose instructions are shown, or null for all
+     */
+    private String procedure = null;
+    /**
+     * Whether the records of the current instruction are shown
+     */
+    private boolean showing;
+
+    public TraceDecoder(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Decode a trace file, writing the text of the trace.
+     */
+    public void decode(String file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            int ringRecords = readHeader(in, file);
+            long count = in.readLong();
+            readCode(in);
+            /* Records before the first instruction are shown if
+             * every instruction is */
+            showing = procedure == null && from == Integer.MIN_VALUE &&
+                    to == Integer.MAX_VALUE;
+            byte[] record = new byte[TraceRecorder.RECORD_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            if (ringRecords == 0 || count <= ringRecords) {
+                for (long i = 0; i < count; i++) {
+                    in.readFully(record);
+                    buffer.rewind();
+                    decodeRecord(buffer, false);
+                }
+            } else {
+                /* The oldest record kept follows the last one written */
+                byte[] ring = new byte[ringRecords * TraceRecorder.RECORD_SIZE];
+                in.readFully(ring);
+                int oldest = (int) (count % ringRecords);
+                boolean started = false;
+                for (int i = 0; i < ringRecords; i++) {
+                    int offset = ((oldest + i) % ringRecords) * TraceRecorder.RECORD_SIZE;
+                    ByteBuffer kept = ByteBuffer.wrap(ring, offset, TraceRecorder.RECORD_SIZE);
+                    started = decodeRecord(kept, !started) || started;
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException(file + " is truncated");
+        }
+        out.flush();
+    }
+
+    private int readHeader(DataInputStream in, String file) throws IOException {
+        if (in.readInt() != TraceRecorder.MAGIC) {
+            throw new IOException(file + " is not a trace file");
+        }
+        int version = in.readInt();
+        if (version != TraceRecorder.VERSION) {
+            throw new IOException(file + " has unsupported version " + version);
+        }
+        return in.readInt();
+    }
+
+    private void readCode(DataInputStream in) throws IOException {
+        int codeStart = in.readInt();
+        int codeEnd = in.readInt();
+        memory = new int[codeEnd];
+        for (int i = codeStart; i < codeEnd; i++) {
+            memory[i] = in.readInt();
+        }
+        int procCount = in.readInt();
+        for (int i = 0; i < procCount; i++) {
+            procStarts.add(in.readInt());
+            procFinishes.add(in.readInt());
+            procNames.add(in.readUTF());
+        }
+    }
+
+    /**
+     * Print a record, if it is shown.
+     *
+     * @param skipping whether to skip the record unless it is the state
+     *                 before an instruction
+     * @return whether the record is the state before an instruction
+     */
+    private boolean decodeRecord(ByteBuffer record, boolean skipping) {
+        TraceRecorder.Kind kind = kinds[record.get()];
+        int opcode = record.get();
+        record.getShort();
+        int a = record.getInt();
+        int b = record.getInt();
+        int c = record.getInt();
+        int d = record.getInt();
+        if (kind == TraceRecorder.Kind.STATE) {
+            showing = from <= a && a <= to &&
+                    (procedure == null || procedure.equals(procedureName(a)));
+        } else if (skipping) {
+            return false;
+        }
+        if (!showing) {
+            return kind == TraceRecorder.Kind.STATE;
+        }
+        switch (kind) {
+            case STATE:
+                Operation inst = operations[opcode];
+                out.print("\n" + "PC: " + a +
+                        ": FP: " + b +
+                        "  SP: " + c +
+                        "  Limit: " + d +
+                        "  Opcode: " +
+                        inst + " ");
+                for (int i = 1; i < inst.getSize(); i++) {
+                    out.print(memory[a + i] + " ");
+                }
+                return true;
+            case PUSH:
+                out.print(" Push(" + a + ") ");
+                break;
+            case POP:
+                out.print(" Pop() = " + a + " ");
+                break;
+            case LOAD:
+                out.print("\n    Load [" + a + "] => " + b);
+                break;
+            case STORE:
+                out.print("\n    Store [" + a + "] <= " + b);
+                break;
+            case BRANCH:
+                out.print("\n      Branch => " + a);
+                break;
+            case CALL:
+                out.print("\n      Call => " + procedureName(a) + " at " + a);
+                break;
+            case RETURN:
+                if (a == 0) {
+                    out.println("\n      Exiting program");
+                } else {
+                    out.print("\n      Returning to => " + procedureName(a) + " at " + a);
+                }
+                break;
+            case WRITE:
+                out.println(a);
+                break;
+            case ERROR:
+                out.println("\nRuntime error at PC: " + a);
+                break;
+        }
+        return false;
+    }
+
+    /**
+     * @return the name of the procedure whose code contains the address,
+     * or null if it is not within a procedure
+     */
+    private String procedureName(int pc) {
+        int low = 0;
+        int high = procStarts.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (pc < procStarts.get(mid)) {
+                high = mid - 1;
+            } else if (pc >= procFinishes.get(mid)) {
+                low = mid + 1;
+            } else {
+                return procNames.get(mid);
+            }
+        }
+        return null;
+    }
+
+    public static void main(String[] args) {
+        TraceDecoder decoder = new TraceDecoder(new PrintStream(
+                new BufferedOutputStream(System.out, 1 << 16), false));
+        int next = 0;
+        try {
+            while (next < args.length - 1) {
+                if (args[next].equals("-p")) {
+                    decoder.procedure = args[next + 1];
+                } else if (args[next].equals("-r")) {
+                    String[] range = args[next + 1].split("\\.\\.", 2);
+                    decoder.from = Integer.parseInt(range[0]);
+                    decoder.to = range.length > 1 ? Integer.parseInt(range[1]) : decoder.from;
+                } else {
+                    break;
+                }
+                next += 2;
+            }
+        } catch (NumberFormatException e) {
+            next = args.length;
+        }
+        if (next != args.length - 1) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        try {
+            decoder.decode(args[next]);
+        } catch (IOException e) {
+            System.err.println("Cannot decode " + args[next] + ": " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package machine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import tree.Procedures;
+
+/**
+ * class TraceRecorder - records a trace of the execution of the stack
+ * machine as fixed size binary records, which is much faster than
+ * formatting the trace as text. TraceDecoder formats the records as the
+ * text the stack machine prints when tracing.
+ * <p>
+ * The file starts with a header holding the loaded code and the address
+ * range of each procedure, so that the trace can be decoded without the
+ * program. The records follow, each of RECORD_SIZE bytes: the kind of
+ * record, the opcode for a STATE record, an unused short, and four ints
+ * whose meaning depends on the kind (see Kind).
+ * <p>
+ * The records are either written to the file as a whole, or, if a ring
+ * size is given, only the most recent records are kept, in a ring buffer
+ * mapped into memory.
+ */
+public class TraceRecorder implements Closeable {
+    /**
+     * Identifies a trace file ("PL0T")
+     */
+    static final int MAGIC = 0x504c3054;
+    static final int VERSION = 1;
+    static final int RECORD_SIZE = 20;
+    /**
+     * Offset in the header of the number of records written
+     */
+    static final int COUNT_OFFSET = 12;
+    /**
+     * Number of records buffered before they are written to the file
+     */
+    private static final int BUFFER_RECORDS = 1 << 16;
+
+    /**
+     * Kinds of record, and the meaning of their values
+     */
+    public enum Kind {
+        STATE,      /* before each instruction: pc, fp, sp, limit */
+        PUSH,       /* value pushed */
+        POP,        /* value popped */
+        LOAD,       /* address and value loaded */
+        STORE,      /* address and value stored */
+        BRANCH,     /* pc after a branch instruction */
+        CALL,       /* address of the procedure called */
+        RETURN,     /* return address, 0 on exit from the program */
+        WRITE,      /* value written */
+        ERROR       /* execution stopped by a runtime error */
+    }
+
+    private final FileChannel channel;
+    /**
+     * Number of records kept in the ring buffer, or 0 if all are kept
+     */
+    private final int ringRecords;
+    /**
+     * Records not yet written to the file, or the ring buffer
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Number of records written so far
+     */
+    private long count = 0;
+
+    /**
+     * Create a trace file for the code in memory from CODE_START to
+     * codeEnd.
+     *
+     * @param ringRecords the number of records to keep, or 0 to keep all
+     */
+    public TraceRecorder(Path file, int[] memory, int codeEnd,
+                         Procedures procedures, int ringRecords) throws IOException {
+        this.ringRecords = ringRecords;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(bytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(ringRecords);
+        header.writeLong(0);    /* count, written on closing */
+        header.writeInt(StackMachine.CODE_START);
+        header.writeInt(codeEnd);
+        for (int i = StackMachine.CODE_START; i < codeEnd; i++) {
+            header.writeInt(memory[i]);
+        }
+        header.writeInt(procedures.getProcedureEntries().size());
+        for (Procedures.ProcedureCode proc : procedures.getProcedureEntries()) {
+            header.writeInt(proc.getStart());
+            header.writeInt(proc.getFinish());
+            header.writeUTF(proc.getName());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer start = ByteBuffer.wrap(bytes.toByteArray());
+        while (start.hasRemaining()) {
+            channel.write(start);
+        }
+        if (ringRecords > 0) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, channel.position(),
+                    (long) ringRecords * RECORD_SIZE);
+        } else {
+            buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+        }
+    }
+
+    /**
+     * Record the state of the machine before executing an instruction
+     */
+    public void state(Operation op, int pc, int fp, int sp, int limit) {
+        put(Kind.STATE, op.ordinal(), pc, fp, sp, limit);
+    }
+
+    /**
+     * Record an event with up to two values
+     */
+    public void record(Kind kind, int value1, int value2) {
+        put(kind, 0, value1, value2, 0, 0);
+    }
+
+    public void record(Kind kind, int value) {
+        put(kind, 0, value, 0, 0, 0);
+    }
+
+    private void put(Kind kind, int opcode, int a, int b, int c, int d) {
+        if (!buffer.hasRemaining()) {
+            if (ringRecords > 0) {
+                buffer.rewind();
+            } else {
+                flush();
+            }
+        }
+        buffer.put((byte) kind.ordinal()).put((byte) opcode).putShort((short) 0)
+                .putInt(a).putInt(b).putInt(c).putInt(d);
+        count++;
+    }
+
+    /**
+     * Write the buffered records to the file
+     */
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write any buffered records and the number of records, and close
+     * the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (ringRecords == 0) {
+                flush();
+            }
+            ByteBuffer total = ByteBuffer.allocate(Long.BYTES).putLong(count);
+            total.flip();
+            channel.write(total, COUNT_OFFSET);
+        } finally {
+            channel.close();
+        }
+    }
+}
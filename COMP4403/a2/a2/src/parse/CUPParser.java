@@ -14,6 +14,7 @@ import tree.ConstExp;
 import tree.StatementNode;
 import tree.ExpNode;
 import tree.Operator;
+import tree.StreamingCompiler;
 import syms.*;
 import java_cup.runtime.ComplexSymbolFactory.Location;
 import java_cup.runtime.XMLElement;
@@ -41,31 +42,33 @@ public class CUPParser extends java_cup.runtime.lr_parser {
   /** Production table. */
   protected static final short _production_table[][] = 
     unpackFromStrings(new String[] {
-    "\000\120\000\002\041\002\000\002\002\004\000\002\002" +
-    "\004\000\002\002\003\000\002\003\004\000\002\004\004" +
-    "\000\002\004\004\000\002\004\002\000\002\005\004\000" +
-    "\002\005\004\000\002\005\004\000\002\006\003\000\002" +
-    "\006\004\000\002\007\006\000\002\007\003\000\002\010" +
-    "\003\000\002\010\004\000\002\010\003\000\002\010\003" +
-    "\000\002\011\003\000\002\011\004\000\002\012\006\000" +
-    "\002\012\003\000\002\013\003\000\002\013\007\000\002" +
-    "\013\003\000\002\013\005\000\002\013\006\000\002\014" +
-    "\003\000\002\026\003\000\002\026\005\000\002\015\003" +
-    "\000\002\015\004\000\002\016\006\000\002\016\003\000" +
-    "\002\017\006\000\002\020\007\000\002\020\005\000\002" +
-    "\021\002\000\002\025\005\000\002\023\003\000\002\023" +
-    "\005\000\002\024\006\000\002\024\010\000\002\024\003" +
-    "\000\002\024\004\000\002\024\004\000\002\024\005\000" +
-    "\002\024\007\000\002\024\013\000\002\024\003\000\002" +
-    "\022\002\000\002\040\003\000\002\040\006\000\002\040" +
-    "\003\000\002\027\003\000\002\030\003\000\002\030\005" +
-    "\000\002\034\003\000\002\034\003\000\002\034\003\000" +
-    "\002\034\003\000\002\034\003\000\002\034\003\000\002" +
-    "\031\003\000\002\031\005\000\002\035\003\000\002\035" +
-    "\003\000\002\032\003\000\002\032\005\000\002\036\003" +
-    "\000\002\036\003\000\002\033\004\000\002\033\004\000" +
-    "\002\033\005\000\002\033\003\000\002\033\003\000\002" +
-    "\037\003\000\002\037\003\000\002\037\003" });
+    "\000\125\000\002\042\002\000\002\002\004\000\002\002" +
+    "\004\000\002\002\003\000\002\043\002\000\002\003\005" +
+    "\000\002\004\004\000\002\004\004\000\002\004\002\000" +
+    "\002\005\004\000\002\005\004\000\002\005\004\000\002" +
+    "\006\003\000\002\006\004\000\002\007\006\000\002\007" +
+    "\003\000\002\010\003\000\002\010\004\000\002\010\003" +
+    "\000\002\010\003\000\002\011\003\000\002\011\004\000" +
+    "\002\012\006\000\002\012\003\000\002\013\003\000\002" +
+    "\013\007\000\002\013\003\000\002\013\005\000\002\013" +
+    "\006\000\002\014\003\000\002\027\003\000\002\027\005" +
+    "\000\002\015\003\000\002\015\004\000\002\016\006\000" +
+    "\002\016\003\000\002\017\006\000\002\020\007\000\002" +
+    "\020\005\000\002\021\002\000\002\026\005\000\002\023" +
+    "\003\000\002\023\005\000\002\025\006\000\002\025\010" +
+    "\000\002\025\003\000\002\025\004\000\002\025\004\000" +
+    "\002\025\005\000\002\025\007\000\002\044\002\000\002" +
+    "\025\014\000\002\025\005\000\002\025\003\000\002\024" +
+    "\003\000\002\024\005\000\002\022\002\000\002\041\003" +
+    "\000\002\041\006\000\002\041\003\000\002\030\003\000" +
+    "\002\031\003\000\002\031\005\000\002\035\003\000\002" +
+    "\035\003\000\002\035\003\000\002\035\003\000\002\035" +
+    "\003\000\002\035\003\000\002\032\003\000\002\032\005" +
+    "\000\002\036\003\000\002\036\003\000\002\033\003\000" +
+    "\002\033\005\000\002\037\003\000\002\037\003\000\002" +
+    "\034\004\000\002\034\004\000\002\034\005\000\002\034" +
+    "\003\000\002\034\003\000\002\040\003\000\002\040\003" +
+    "\000\002\040\003" });
 
   /** Access to production table. */
   public short[][] production_table() {return _production_table;}
@@ -73,181 +76,200 @@ public class CUPParser extends java_cup.runtime.lr_parser {
   /** Parse-action table. */
   protected static final short[][] _action_table = 
     unpackFromStrings(new String[] {
-    "\000\222\000\016\003\005\032\001\034\001\045\001\051" +
-    "\001\052\001\001\002\000\004\002\224\001\002\000\004" +
-    "\002\ufffe\001\002\000\014\032\ufffa\034\ufffa\045\ufffa\051" +
-    "\ufffa\052\ufffa\001\002\000\004\002\000\001\002\000\014" +
-    "\032\020\034\021\045\011\051\017\052\013\001\002\000" +
-    "\004\056\217\001\002\000\006\002\ufffd\004\ufffd\001\002" +
-    "\000\006\003\207\056\212\001\002\000\014\032\ufffc\034" +
-    "\ufffc\045\ufffc\051\ufffc\052\ufffc\001\002\000\014\032\ufffb" +
-    "\034\ufffb\045\ufffb\051\ufffb\052\ufffb\001\002\000\004\013" +
-    "\204\001\002\000\006\003\152\056\153\001\002\000\024" +
-    "\003\046\032\020\033\041\040\050\041\052\046\043\053" +
-    "\037\054\045\056\047\001\002\000\006\003\022\056\024" +
-    "\001\002\000\020\003\ufff3\032\ufff3\034\ufff3\045\ufff3\051" +
-    "\ufff3\052\ufff3\056\ufff3\001\002\000\020\003\022\032\ufff9" +
-    "\034\ufff9\045\ufff9\051\ufff9\052\ufff9\056\024\001\002\000" +
-    "\004\013\026\001\002\000\020\003\ufff6\032\ufff6\034\ufff6" +
-    "\045\ufff6\051\ufff6\052\ufff6\056\ufff6\001\002\000\012\003" +
-    "\027\010\032\056\031\057\030\001\002\000\010\004\uffef" +
-    "\021\uffef\030\uffef\001\002\000\010\004\ufff2\021\ufff2\030" +
-    "\ufff2\001\002\000\010\004\ufff0\021\ufff0\030\ufff0\001\002" +
-    "\000\012\003\027\010\032\056\031\057\030\001\002\000" +
-    "\004\004\034\001\002\000\020\003\ufff4\032\ufff4\034\ufff4" +
-    "\045\ufff4\051\ufff4\052\ufff4\056\ufff4\001\002\000\010\004" +
-    "\ufff1\021\ufff1\030\ufff1\001\002\000\020\003\ufff5\032\ufff5" +
-    "\034\ufff5\045\ufff5\051\ufff5\052\ufff5\056\ufff5\001\002\000" +
-    "\022\003\063\007\061\010\053\025\067\044\055\047\065" +
-    "\056\047\057\056\001\002\000\012\004\uffd5\036\uffd5\037" +
-    "\uffd5\042\uffd5\001\002\000\004\056\143\001\002\000\006" +
-    "\004\135\037\142\001\002\000\006\003\063\056\047\001" +
-    "\002\000\010\004\uffd9\037\uffd9\042\uffd9\001\002\000\022" +
-    "\003\063\007\061\010\053\025\067\044\055\047\065\056" +
-    "\047\057\056\001\002\000\016\004\uffcf\006\uffcb\027\uffcb" +
-    "\036\uffcf\037\uffcf\042\uffcf\001\002\000\054\004\uffcd\006" +
-    "\uffcd\007\uffcd\010\uffcd\011\uffcd\012\uffcd\013\uffcd\014\uffcd" +
-    "\015\uffcd\016\uffcd\017\uffcd\020\uffcd\021\uffcd\026\uffcd\027" +
-    "\uffcd\030\uffcd\035\uffcd\036\uffcd\037\uffcd\042\uffcd\050\uffcd" +
-    "\001\002\000\004\056\126\001\002\000\006\006\124\027" +
-    "\071\001\002\000\022\003\063\007\061\010\053\025\067" +
-    "\044\055\047\065\056\047\057\056\001\002\000\022\003" +
-    "\uffb4\007\uffb4\010\uffb4\025\uffb4\044\uffb4\047\uffb4\056\uffb4" +
-    "\057\uffb4\001\002\000\024\004\uffca\021\uffca\026\uffca\030" +
-    "\uffca\035\uffca\036\uffca\037\uffca\042\uffca\050\uffca\001\002" +
-    "\000\022\003\uffb2\007\uffb2\010\uffb2\025\uffb2\044\uffb2\047" +
-    "\uffb2\056\uffb2\057\uffb2\001\002\000\050\004\uffb6\007\uffb6" +
-    "\010\uffb6\011\uffb6\012\uffb6\013\uffb6\014\uffb6\015\uffb6\016" +
-    "\uffb6\017\uffb6\020\uffb6\021\uffb6\026\uffb6\030\uffb6\035\uffb6" +
-    "\036\uffb6\037\uffb6\042\uffb6\050\uffb6\001\002\000\044\004" +
-    "\uffc9\007\114\010\110\013\120\014\112\015\111\016\115" +
-    "\017\117\020\113\021\uffc9\026\uffc9\030\uffc9\035\uffc9\036" +
-    "\uffc9\037\uffc9\042\uffc9\050\uffc9\001\002\000\004\050\104" +
-    "\001\002\000\022\003\063\007\061\010\053\025\067\044" +
-    "\055\047\065\056\047\057\056\001\002\000\050\004\uffc1" +
-    "\007\uffc1\010\uffc1\011\100\012\077\013\uffc1\014\uffc1\015" +
-    "\uffc1\016\uffc1\017\uffc1\020\uffc1\021\uffc1\026\uffc1\030\uffc1" +
-    "\035\uffc1\036\uffc1\037\uffc1\042\uffc1\050\uffc1\001\002\000" +
-    "\052\004\uffcb\007\uffcb\010\uffcb\011\uffcb\012\uffcb\013\uffcb" +
-    "\014\uffcb\015\uffcb\016\uffcb\017\uffcb\020\uffcb\021\uffcb\026" +
-    "\uffcb\027\uffcb\030\uffcb\035\uffcb\036\uffcb\037\uffcb\042\uffcb" +
-    "\050\uffcb\001\002\000\050\004\uffbd\007\uffbd\010\uffbd\011" +
-    "\uffbd\012\uffbd\013\uffbd\014\uffbd\015\uffbd\016\uffbd\017\uffbd" +
-    "\020\uffbd\021\uffbd\026\uffbd\030\uffbd\035\uffbd\036\uffbd\037" +
-    "\uffbd\042\uffbd\050\uffbd\001\002\000\022\003\uffb3\007\uffb3" +
-    "\010\uffb3\025\uffb3\044\uffb3\047\uffb3\056\uffb3\057\uffb3\001" +
-    "\002\000\022\003\063\007\061\010\053\025\067\044\055" +
-    "\047\065\056\047\057\056\001\002\000\022\003\063\007" +
-    "\061\010\053\025\067\044\055\047\065\056\047\057\056" +
-    "\001\002\000\052\004\uffb5\007\uffb5\010\uffb5\011\uffb5\012" +
-    "\uffb5\013\uffb5\014\uffb5\015\uffb5\016\uffb5\017\uffb5\020\uffb5" +
-    "\021\uffb5\026\uffb5\027\071\030\uffb5\035\uffb5\036\uffb5\037" +
-    "\uffb5\042\uffb5\050\uffb5\001\002\000\022\003\063\007\061" +
-    "\010\053\025\067\044\055\047\065\056\047\057\056\001" +
-    "\002\000\004\030\073\001\002\000\054\004\uffcc\006\uffcc" +
-    "\007\uffcc\010\uffcc\011\uffcc\012\uffcc\013\uffcc\014\uffcc\015" +
-    "\uffcc\016\uffcc\017\uffcc\020\uffcc\021\uffcc\026\uffcc\027\uffcc" +
-    "\030\uffcc\035\uffcc\036\uffcc\037\uffcc\042\uffcc\050\uffcc\001" +
-    "\002\000\004\026\075\001\002\000\050\004\uffb7\007\uffb7" +
-    "\010\uffb7\011\uffb7\012\uffb7\013\uffb7\014\uffb7\015\uffb7\016" +
-    "\uffb7\017\uffb7\020\uffb7\021\uffb7\026\uffb7\030\uffb7\035\uffb7" +
-    "\036\uffb7\037\uffb7\042\uffb7\050\uffb7\001\002\000\050\004" +
-    "\uffb8\007\uffb8\010\uffb8\011\uffb8\012\uffb8\013\uffb8\014\uffb8" +
-    "\015\uffb8\016\uffb8\017\uffb8\020\uffb8\021\uffb8\026\uffb8\030" +
-    "\uffb8\035\uffb8\036\uffb8\037\uffb8\042\uffb8\050\uffb8\001\002" +
-    "\000\022\003\uffba\007\uffba\010\uffba\025\uffba\044\uffba\047" +
-    "\uffba\056\uffba\057\uffba\001\002\000\022\003\uffbb\007\uffbb" +
-    "\010\uffbb\025\uffbb\044\uffbb\047\uffbb\056\uffbb\057\uffbb\001" +
-    "\002\000\022\003\063\007\061\010\053\025\067\044\055" +
-    "\047\065\056\047\057\056\001\002\000\050\004\uffbc\007" +
-    "\uffbc\010\uffbc\011\uffbc\012\uffbc\013\uffbc\014\uffbc\015\uffbc" +
-    "\016\uffbc\017\uffbc\020\uffbc\021\uffbc\026\uffbc\030\uffbc\035" +
-    "\uffbc\036\uffbc\037\uffbc\042\uffbc\050\uffbc\001\002\000\050" +
-    "\004\uffb9\007\uffb9\010\uffb9\011\uffb9\012\uffb9\013\uffb9\014" +
-    "\uffb9\015\uffb9\016\uffb9\017\uffb9\020\uffb9\021\uffb9\026\uffb9" +
-    "\030\uffb9\035\uffb9\036\uffb9\037\uffb9\042\uffb9\050\uffb9\001" +
-    "\002\000\024\003\046\032\020\033\041\040\050\041\052" +
-    "\046\043\053\037\054\045\056\047\001\002\000\004\036" +
-    "\106\001\002\000\024\003\046\032\020\033\041\040\050" +
-    "\041\052\046\043\053\037\054\045\056\047\001\002\000" +
-    "\012\004\uffd6\036\uffd6\037\uffd6\042\uffd6\001\002\000\022" +
-    "\003\uffbe\007\uffbe\010\uffbe\025\uffbe\044\uffbe\047\uffbe\056" +
-    "\uffbe\057\uffbe\001\002\000\022\003\uffc5\007\uffc5\010\uffc5" +
-    "\025\uffc5\044\uffc5\047\uffc5\056\uffc5\057\uffc5\001\002\000" +
-    "\022\003\uffc6\007\uffc6\010\uffc6\025\uffc6\044\uffc6\047\uffc6" +
-    "\056\uffc6\057\uffc6\001\002\000\022\003\uffc3\007\uffc3\010" +
-    "\uffc3\025\uffc3\044\uffc3\047\uffc3\056\uffc3\057\uffc3\001\002" +
-    "\000\022\003\uffbf\007\uffbf\010\uffbf\025\uffbf\044\uffbf\047" +
-    "\uffbf\056\uffbf\057\uffbf\001\002\000\022\003\uffc2\007\uffc2" +
-    "\010\uffc2\025\uffc2\044\uffc2\047\uffc2\056\uffc2\057\uffc2\001" +
-    "\002\000\022\003\063\007\061\010\053\025\067\044\055" +
-    "\047\065\056\047\057\056\001\002\000\022\003\uffc4\007" +
-    "\uffc4\010\uffc4\025\uffc4\044\uffc4\047\uffc4\056\uffc4\057\uffc4" +
-    "\001\002\000\022\003\uffc7\007\uffc7\010\uffc7\025\uffc7\044" +
-    "\uffc7\047\uffc7\056\uffc7\057\uffc7\001\002\000\022\003\063" +
-    "\007\061\010\053\025\067\044\055\047\065\056\047\057" +
-    "\056\001\002\000\030\004\uffc8\007\114\010\110\021\uffc8" +
-    "\026\uffc8\030\uffc8\035\uffc8\036\uffc8\037\uffc8\042\uffc8\050" +
-    "\uffc8\001\002\000\050\004\uffc0\007\uffc0\010\uffc0\011\100" +
-    "\012\077\013\uffc0\014\uffc0\015\uffc0\016\uffc0\017\uffc0\020" +
-    "\uffc0\021\uffc0\026\uffc0\030\uffc0\035\uffc0\036\uffc0\037\uffc0" +
-    "\042\uffc0\050\uffc0\001\002\000\022\003\063\007\061\010" +
-    "\053\025\067\044\055\047\065\056\047\057\056\001\002" +
-    "\000\012\004\uffd2\036\uffd2\037\uffd2\042\uffd2\001\002\000" +
-    "\004\005\127\001\002\000\022\003\063\007\061\010\053" +
-    "\025\067\044\055\047\065\056\047\057\056\001\002\000" +
-    "\004\021\131\001\002\000\022\003\063\007\061\010\053" +
-    "\025\067\044\055\047\065\056\047\057\056\001\002\000" +
-    "\004\035\133\001\002\000\024\003\046\032\020\033\041" +
-    "\040\050\041\052\046\043\053\037\054\045\056\047\001" +
-    "\002\000\006\004\135\042\136\001\002\000\024\003\046" +
-    "\032\020\033\041\040\050\041\052\046\043\053\037\054" +
-    "\045\056\047\001\002\000\012\004\uffd0\036\uffd0\037\uffd0" +
-    "\042\uffd0\001\002\000\010\004\uffd8\037\uffd8\042\uffd8\001" +
-    "\002\000\016\004\uffd3\007\114\010\110\036\uffd3\037\uffd3" +
-    "\042\uffd3\001\002\000\014\004\uffd4\027\071\036\uffd4\037" +
-    "\uffd4\042\uffd4\001\002\000\014\002\uffda\004\uffda\036\uffda" +
-    "\037\uffda\042\uffda\001\002\000\004\025\144\001\002\000" +
-    "\004\026\uffce\001\002\000\004\026\146\001\002\000\012" +
-    "\004\uffd1\036\uffd1\037\uffd1\042\uffd1\001\002\000\004\035" +
-    "\150\001\002\000\024\003\046\032\020\033\041\040\050" +
-    "\041\052\046\043\053\037\054\045\056\047\001\002\000" +
-    "\012\004\uffd7\036\uffd7\037\uffd7\042\uffd7\001\002\000\020" +
-    "\003\uffeb\032\uffeb\034\uffeb\045\uffeb\051\uffeb\052\uffeb\056" +
-    "\uffeb\001\002\000\004\013\157\001\002\000\020\003\uffee" +
-    "\032\uffee\034\uffee\045\uffee\051\uffee\052\uffee\056\uffee\001" +
-    "\002\000\020\003\152\032\ufff8\034\ufff8\045\ufff8\051\ufff8" +
-    "\052\ufff8\056\153\001\002\000\020\003\uffed\032\uffed\034" +
-    "\uffed\045\uffed\051\uffed\052\uffed\056\uffed\001\002\000\014" +
-    "\003\161\023\163\027\166\031\162\056\164\001\002\000" +
-    "\004\004\203\001\002\000\006\004\uffe8\043\uffe8\001\002" +
-    "\000\014\003\161\023\163\027\166\031\162\056\164\001" +
-    "\002\000\004\056\173\001\002\000\006\004\uffe5\043\uffe5" +
-    "\001\002\000\006\004\uffea\043\uffea\001\002\000\012\003" +
-    "\027\010\032\056\031\057\030\001\002\000\004\021\170" +
-    "\001\002\000\012\003\027\010\032\056\031\057\030\001" +
-    "\002\000\004\030\172\001\002\000\006\004\uffe9\043\uffe9" +
-    "\001\002\000\006\022\uffe4\024\uffe4\001\002\000\006\022" +
-    "\175\024\176\001\002\000\004\056\177\001\002\000\006" +
-    "\004\uffe7\043\uffe7\001\002\000\006\022\uffe3\024\uffe3\001" +
-    "\002\000\004\043\201\001\002\000\014\003\161\023\163" +
-    "\027\166\031\162\056\164\001\002\000\006\004\uffe6\043" +
-    "\uffe6\001\002\000\020\003\uffec\032\uffec\034\uffec\045\uffec" +
-    "\051\uffec\052\uffec\056\uffec\001\002\000\014\032\ufffa\034" +
-    "\ufffa\045\ufffa\051\ufffa\052\ufffa\001\002\000\004\004\206" +
-    "\001\002\000\014\032\uffde\034\uffde\045\uffde\051\uffde\052" +
-    "\uffde\001\002\000\020\003\uffdf\032\uffdf\034\uffdf\045\uffdf" +
-    "\051\uffdf\052\uffdf\056\uffdf\001\002\000\020\003\207\032" +
-    "\ufff7\034\ufff7\045\ufff7\051\ufff7\052\ufff7\056\212\001\002" +
-    "\000\020\003\uffe2\032\uffe2\034\uffe2\045\uffe2\051\uffe2\052" +
-    "\uffe2\056\uffe2\001\002\000\004\005\213\001\002\000\004" +
-    "\056\164\001\002\000\004\004\215\001\002\000\020\003" +
-    "\uffe0\032\uffe0\034\uffe0\045\uffe0\051\uffe0\052\uffe0\056\uffe0" +
-    "\001\002\000\020\003\uffe1\032\uffe1\034\uffe1\045\uffe1\051" +
-    "\uffe1\052\uffe1\056\uffe1\001\002\000\006\003\220\025\221" +
-    "\001\002\000\004\013\uffdc\001\002\000\004\026\uffdb\001" +
-    "\002\000\004\026\223\001\002\000\004\013\uffdd\001\002" +
-    "\000\004\002\uffff\001\002" });
+    "\000\232\000\016\003\005\033\001\037\001\050\001\054" +
+    "\001\055\001\001\002\000\004\002\234\001\002\000\004" +
+    "\002\ufffe\001\002\000\014\033\ufff9\037\ufff9\050\ufff9\054" +
+    "\ufff9\055\ufff9\001\002\000\004\002\000\001\002\000\014" +
+    "\033\ufffd\037\016\050\017\054\015\055\020\001\002\000" +
+    "\004\013\231\001\002\000\014\033\ufffa\037\ufffa\050\ufffa" +
+    "\054\ufffa\055\ufffa\001\002\000\014\033\ufffb\037\ufffb\050" +
+    "\ufffb\054\ufffb\055\ufffb\001\002\000\004\033\105\001\002" +
+    "\000\006\003\054\061\055\001\002\000\006\003\037\061" +
+    "\040\001\002\000\004\061\032\001\002\000\006\003\022" +
+    "\061\024\001\002\000\020\003\022\033\ufff6\037\ufff6\050" +
+    "\ufff6\054\ufff6\055\ufff6\061\024\001\002\000\020\003\uffde" +
+    "\033\uffde\037\uffde\050\uffde\054\uffde\055\uffde\061\uffde\001" +
+    "\002\000\020\003\uffe1\033\uffe1\037\uffe1\050\uffe1\054\uffe1" +
+    "\055\uffe1\061\uffe1\001\002\000\004\005\025\001\002\000" +
+    "\004\061\026\001\002\000\006\004\uffe4\046\uffe4\001\002" +
+    "\000\004\004\030\001\002\000\020\003\uffdf\033\uffdf\037" +
+    "\uffdf\050\uffdf\054\uffdf\055\uffdf\061\uffdf\001\002\000\020" +
+    "\003\uffe0\033\uffe0\037\uffe0\050\uffe0\054\uffe0\055\uffe0\061" +
+    "\uffe0\001\002\000\006\003\033\025\034\001\002\000\004" +
+    "\013\uffdb\001\002\000\004\026\uffda\001\002\000\004\026" +
+    "\036\001\002\000\004\013\uffdc\001\002\000\020\003\ufff2" +
+    "\033\ufff2\037\ufff2\050\ufff2\054\ufff2\055\ufff2\061\ufff2\001" +
+    "\002\000\004\013\044\001\002\000\020\003\037\033\ufff8" +
+    "\037\ufff8\050\ufff8\054\ufff8\055\ufff8\061\040\001\002\000" +
+    "\020\003\ufff5\033\ufff5\037\ufff5\050\ufff5\054\ufff5\055\ufff5" +
+    "\061\ufff5\001\002\000\020\003\ufff4\033\ufff4\037\ufff4\050" +
+    "\ufff4\054\ufff4\055\ufff4\061\ufff4\001\002\000\012\003\045" +
+    "\010\047\061\051\062\046\001\002\000\010\004\uffee\021" +
+    "\uffee\030\uffee\001\002\000\010\004\ufff1\021\ufff1\030\ufff1" +
+    "\001\002\000\012\003\045\010\047\061\051\062\046\001" +
+    "\002\000\004\004\052\001\002\000\010\004\uffef\021\uffef" +
+    "\030\uffef\001\002\000\020\003\ufff3\033\ufff3\037\ufff3\050" +
+    "\ufff3\054\ufff3\055\ufff3\061\ufff3\001\002\000\010\004\ufff0" +
+    "\021\ufff0\030\ufff0\001\002\000\020\003\uffea\033\uffea\037" +
+    "\uffea\050\uffea\054\uffea\055\uffea\061\uffea\001\002\000\004" +
+    "\013\061\001\002\000\020\003\uffed\033\uffed\037\uffed\050" +
+    "\uffed\054\uffed\055\uffed\061\uffed\001\002\000\020\003\054" +
+    "\033\ufff7\037\ufff7\050\ufff7\054\ufff7\055\ufff7\061\055\001" +
+    "\002\000\020\003\uffec\033\uffec\037\uffec\050\uffec\054\uffec" +
+    "\055\uffec\061\uffec\001\002\000\014\003\064\023\065\027" +
+    "\066\032\063\061\026\001\002\000\004\004\104\001\002" +
+    "\000\014\003\064\023\065\027\066\032\063\061\026\001" +
+    "\002\000\006\004\uffe7\046\uffe7\001\002\000\004\061\075" +
+    "\001\002\000\012\003\045\010\047\061\051\062\046\001" +
+    "\002\000\006\004\uffe9\046\uffe9\001\002\000\004\021\071" +
+    "\001\002\000\012\003\045\010\047\061\051\062\046\001" +
+    "\002\000\004\030\073\001\002\000\006\004\uffe8\046\uffe8" +
+    "\001\002\000\006\022\076\024\077\001\002\000\006\022" +
+    "\uffe3\024\uffe3\001\002\000\004\061\100\001\002\000\006" +
+    "\004\uffe6\046\uffe6\001\002\000\006\022\uffe2\024\uffe2\001" +
+    "\002\000\004\046\102\001\002\000\014\003\064\023\065" +
+    "\027\066\032\063\061\026\001\002\000\006\004\uffe5\046" +
+    "\uffe5\001\002\000\020\003\uffeb\033\uffeb\037\uffeb\050\uffeb" +
+    "\054\uffeb\055\uffeb\061\uffeb\001\002\000\026\003\116\033" +
+    "\105\034\110\035\117\043\121\044\122\051\112\056\107" +
+    "\057\115\061\120\001\002\000\006\002\ufffc\004\ufffc\001" +
+    "\002\000\022\003\136\007\134\010\126\025\142\047\130" +
+    "\052\140\061\120\062\131\001\002\000\004\061\222\001" +
+    "\002\000\016\004\uffd4\031\uffd4\036\uffd4\041\uffd4\042\uffd4" +
+    "\045\uffd4\001\002\000\006\003\136\061\120\001\002\000" +
+    "\006\004\207\042\220\001\002\000\014\004\uffd8\031\uffd8" +
+    "\036\uffd8\042\uffd8\045\uffd8\001\002\000\022\003\136\007" +
+    "\134\010\126\025\142\047\130\052\140\061\120\062\131" +
+    "\001\002\000\022\004\uffcc\006\uffc6\027\uffc6\031\uffcc\036" +
+    "\uffcc\041\uffcc\042\uffcc\045\uffcc\001\002\000\026\003\116" +
+    "\033\105\034\110\035\117\043\121\044\122\051\112\056" +
+    "\107\057\115\061\120\001\002\000\060\004\uffc8\006\uffc8" +
+    "\007\uffc8\010\uffc8\011\uffc8\012\uffc8\013\uffc8\014\uffc8\015" +
+    "\uffc8\016\uffc8\017\uffc8\020\uffc8\021\uffc8\026\uffc8\027\uffc8" +
+    "\030\uffc8\031\uffc8\036\uffc8\040\uffc8\041\uffc8\042\uffc8\045" +
+    "\uffc8\053\uffc8\001\002\000\004\061\177\001\002\000\022" +
+    "\003\136\007\134\010\126\025\142\047\130\052\140\061" +
+    "\120\062\131\001\002\000\006\006\125\027\124\001\002" +
+    "\000\022\003\136\007\134\010\126\025\142\047\130\052" +
+    "\140\061\120\062\131\001\002\000\022\003\136\007\134" +
+    "\010\126\025\142\047\130\052\140\061\120\062\131\001" +
+    "\002\000\022\003\uffaf\007\uffaf\010\uffaf\025\uffaf\047\uffaf" +
+    "\052\uffaf\061\uffaf\062\uffaf\001\002\000\030\004\uffc5\021" +
+    "\uffc5\026\uffc5\030\uffc5\031\uffc5\036\uffc5\040\uffc5\041\uffc5" +
+    "\042\uffc5\045\uffc5\053\uffc5\001\002\000\022\003\uffad\007" +
+    "\uffad\010\uffad\025\uffad\047\uffad\052\uffad\061\uffad\062\uffad" +
+    "\001\002\000\054\004\uffb1\007\uffb1\010\uffb1\011\uffb1\012" +
+    "\uffb1\013\uffb1\014\uffb1\015\uffb1\016\uffb1\017\uffb1\020\uffb1" +
+    "\021\uffb1\026\uffb1\030\uffb1\031\uffb1\036\uffb1\040\uffb1\041" +
+    "\uffb1\042\uffb1\045\uffb1\053\uffb1\001\002\000\050\004\uffc4" +
+    "\007\160\010\154\013\165\014\156\015\155\016\161\017" +
+    "\163\020\157\021\uffc4\026\uffc4\030\uffc4\031\uffc4\036\uffc4" +
+    "\040\uffc4\041\uffc4\042\uffc4\045\uffc4\053\uffc4\001\002\000" +
+    "\016\004\uffd1\031\uffd1\036\uffd1\041\uffd1\042\uffd1\045\uffd1" +
+    "\001\002\000\022\003\136\007\134\010\126\025\142\047" +
+    "\130\052\140\061\120\062\131\001\002\000\054\004\uffbc" +
+    "\007\uffbc\010\uffbc\011\150\012\147\013\uffbc\014\uffbc\015" +
+    "\uffbc\016\uffbc\017\uffbc\020\uffbc\021\uffbc\026\uffbc\030\uffbc" +
+    "\031\uffbc\036\uffbc\040\uffbc\041\uffbc\042\uffbc\045\uffbc\053" +
+    "\uffbc\001\002\000\056\004\uffc6\007\uffc6\010\uffc6\011\uffc6" +
+    "\012\uffc6\013\uffc6\014\uffc6\015\uffc6\016\uffc6\017\uffc6\020" +
+    "\uffc6\021\uffc6\026\uffc6\027\uffc6\030\uffc6\031\uffc6\036\uffc6" +
+    "\040\uffc6\041\uffc6\042\uffc6\045\uffc6\053\uffc6\001\002\000" +
+    "\054\004\uffb8\007\uffb8\010\uffb8\011\uffb8\012\uffb8\013\uffb8" +
+    "\014\uffb8\015\uffb8\016\uffb8\017\uffb8\020\uffb8\021\uffb8\026" +
+    "\uffb8\030\uffb8\031\uffb8\036\uffb8\040\uffb8\041\uffb8\042\uffb8" +
+    "\045\uffb8\053\uffb8\001\002\000\022\003\uffae\007\uffae\010" +
+    "\uffae\025\uffae\047\uffae\052\uffae\061\uffae\062\uffae\001\002" +
+    "\000\022\003\136\007\134\010\126\025\142\047\130\052" +
+    "\140\061\120\062\131\001\002\000\022\003\136\007\134" +
+    "\010\126\025\142\047\130\052\140\061\120\062\131\001" +
+    "\002\000\056\004\uffb0\007\uffb0\010\uffb0\011\uffb0\012\uffb0" +
+    "\013\uffb0\014\uffb0\015\uffb0\016\uffb0\017\uffb0\020\uffb0\021" +
+    "\uffb0\026\uffb0\027\124\030\uffb0\031\uffb0\036\uffb0\040\uffb0" +
+    "\041\uffb0\042\uffb0\045\uffb0\053\uffb0\001\002\000\004\026" +
+    "\145\001\002\000\054\004\uffb2\007\uffb2\010\uffb2\011\uffb2" +
+    "\012\uffb2\013\uffb2\014\uffb2\015\uffb2\016\uffb2\017\uffb2\020" +
+    "\uffb2\021\uffb2\026\uffb2\030\uffb2\031\uffb2\036\uffb2\040\uffb2" +
+    "\041\uffb2\042\uffb2\045\uffb2\053\uffb2\001\002\000\054\004" +
+    "\uffb3\007\uffb3\010\uffb3\011\uffb3\012\uffb3\013\uffb3\014\uffb3" +
+    "\015\uffb3\016\uffb3\017\uffb3\020\uffb3\021\uffb3\026\uffb3\030" +
+    "\uffb3\031\uffb3\036\uffb3\040\uffb3\041\uffb3\042\uffb3\045\uffb3" +
+    "\053\uffb3\001\002\000\022\003\uffb5\007\uffb5\010\uffb5\025" +
+    "\uffb5\047\uffb5\052\uffb5\061\uffb5\062\uffb5\001\002\000\022" +
+    "\003\uffb6\007\uffb6\010\uffb6\025\uffb6\047\uffb6\052\uffb6\061" +
+    "\uffb6\062\uffb6\001\002\000\022\003\136\007\134\010\126" +
+    "\025\142\047\130\052\140\061\120\062\131\001\002\000" +
+    "\054\004\uffb7\007\uffb7\010\uffb7\011\uffb7\012\uffb7\013\uffb7" +
+    "\014\uffb7\015\uffb7\016\uffb7\017\uffb7\020\uffb7\021\uffb7\026" +
+    "\uffb7\030\uffb7\031\uffb7\036\uffb7\040\uffb7\041\uffb7\042\uffb7" +
+    "\045\uffb7\053\uffb7\001\002\000\054\004\uffb4\007\uffb4\010" +
+    "\uffb4\011\uffb4\012\uffb4\013\uffb4\014\uffb4\015\uffb4\016\uffb4" +
+    "\017\uffb4\020\uffb4\021\uffb4\026\uffb4\030\uffb4\031\uffb4\036" +
+    "\uffb4\040\uffb4\041\uffb4\042\uffb4\045\uffb4\053\uffb4\001\002" +
+    "\000\022\003\uffb9\007\uffb9\010\uffb9\025\uffb9\047\uffb9\052" +
+    "\uffb9\061\uffb9\062\uffb9\001\002\000\022\003\uffc0\007\uffc0" +
+    "\010\uffc0\025\uffc0\047\uffc0\052\uffc0\061\uffc0\062\uffc0\001" +
+    "\002\000\022\003\uffc1\007\uffc1\010\uffc1\025\uffc1\047\uffc1" +
+    "\052\uffc1\061\uffc1\062\uffc1\001\002\000\022\003\uffbe\007" +
+    "\uffbe\010\uffbe\025\uffbe\047\uffbe\052\uffbe\061\uffbe\062\uffbe" +
+    "\001\002\000\022\003\uffba\007\uffba\010\uffba\025\uffba\047" +
+    "\uffba\052\uffba\061\uffba\062\uffba\001\002\000\022\003\uffbd" +
+    "\007\uffbd\010\uffbd\025\uffbd\047\uffbd\052\uffbd\061\uffbd\062" +
+    "\uffbd\001\002\000\022\003\136\007\134\010\126\025\142" +
+    "\047\130\052\140\061\120\062\131\001\002\000\022\003" +
+    "\uffbf\007\uffbf\010\uffbf\025\uffbf\047\uffbf\052\uffbf\061\uffbf" +
+    "\062\uffbf\001\002\000\022\003\136\007\134\010\126\025" +
+    "\142\047\130\052\140\061\120\062\131\001\002\000\022" +
+    "\003\uffc2\007\uffc2\010\uffc2\025\uffc2\047\uffc2\052\uffc2\061" +
+    "\uffc2\062\uffc2\001\002\000\034\004\uffc3\007\160\010\154" +
+    "\021\uffc3\026\uffc3\030\uffc3\031\uffc3\036\uffc3\040\uffc3\041" +
+    "\uffc3\042\uffc3\045\uffc3\053\uffc3\001\002\000\054\004\uffbb" +
+    "\007\uffbb\010\uffbb\011\150\012\147\013\uffbb\014\uffbb\015" +
+    "\uffbb\016\uffbb\017\uffbb\020\uffbb\021\uffbb\026\uffbb\030\uffbb" +
+    "\031\uffbb\036\uffbb\040\uffbb\041\uffbb\042\uffbb\045\uffbb\053" +
+    "\uffbb\001\002\000\004\030\171\001\002\000\060\004\uffc7" +
+    "\006\uffc7\007\uffc7\010\uffc7\011\uffc7\012\uffc7\013\uffc7\014" +
+    "\uffc7\015\uffc7\016\uffc7\017\uffc7\020\uffc7\021\uffc7\026\uffc7" +
+    "\027\uffc7\030\uffc7\031\uffc7\036\uffc7\040\uffc7\041\uffc7\042" +
+    "\uffc7\045\uffc7\053\uffc7\001\002\000\004\053\173\001\002" +
+    "\000\026\003\116\033\105\034\110\035\117\043\121\044" +
+    "\122\051\112\056\107\057\115\061\120\001\002\000\004" +
+    "\041\175\001\002\000\026\003\116\033\105\034\110\035" +
+    "\117\043\121\044\122\051\112\056\107\057\115\061\120" +
+    "\001\002\000\016\004\uffd5\031\uffd5\036\uffd5\041\uffd5\042" +
+    "\uffd5\045\uffd5\001\002\000\004\005\200\001\002\000\022" +
+    "\003\136\007\134\010\126\025\142\047\130\052\140\061" +
+    "\120\062\131\001\002\000\004\021\202\001\002\000\022" +
+    "\003\136\007\134\010\126\025\142\047\130\052\140\061" +
+    "\120\062\131\001\002\000\004\040\204\001\002\000\026" +
+    "\003\uffcf\033\uffcf\034\uffcf\035\uffcf\043\uffcf\044\uffcf\051" +
+    "\uffcf\056\uffcf\057\uffcf\061\uffcf\001\002\000\026\003\116" +
+    "\033\105\034\110\035\117\043\121\044\122\051\112\056" +
+    "\107\057\115\061\120\001\002\000\006\004\207\045\210" +
+    "\001\002\000\026\003\116\033\105\034\110\035\117\043" +
+    "\121\044\122\051\112\056\107\057\115\061\120\001\002" +
+    "\000\016\004\uffce\031\uffce\036\uffce\041\uffce\042\uffce\045" +
+    "\uffce\001\002\000\014\004\uffd7\031\uffd7\036\uffd7\042\uffd7" +
+    "\045\uffd7\001\002\000\010\004\207\031\uffcb\036\uffcb\001" +
+    "\002\000\006\031\214\036\215\001\002\000\026\003\116" +
+    "\033\105\034\110\035\117\043\121\044\122\051\112\056" +
+    "\107\057\115\061\120\001\002\000\016\004\uffcd\031\uffcd" +
+    "\036\uffcd\041\uffcd\042\uffcd\045\uffcd\001\002\000\010\004" +
+    "\207\031\uffca\036\uffca\001\002\000\022\004\uffd2\007\160" +
+    "\010\154\031\uffd2\036\uffd2\041\uffd2\042\uffd2\045\uffd2\001" +
+    "\002\000\020\002\uffd9\004\uffd9\031\uffd9\036\uffd9\041\uffd9" +
+    "\042\uffd9\045\uffd9\001\002\000\020\004\uffd3\027\124\031" +
+    "\uffd3\036\uffd3\041\uffd3\042\uffd3\045\uffd3\001\002\000\004" +
+    "\025\223\001\002\000\004\026\uffc9\001\002\000\004\026" +
+    "\225\001\002\000\016\004\uffd0\031\uffd0\036\uffd0\041\uffd0" +
+    "\042\uffd0\045\uffd0\001\002\000\004\040\227\001\002\000" +
+    "\026\003\116\033\105\034\110\035\117\043\121\044\122" +
+    "\051\112\056\107\057\115\061\120\001\002\000\016\004" +
+    "\uffd6\031\uffd6\036\uffd6\041\uffd6\042\uffd6\045\uffd6\001\002" +
+    "\000\014\033\ufff9\037\ufff9\050\ufff9\054\ufff9\055\ufff9\001" +
+    "\002\000\004\004\233\001\002\000\014\033\uffdd\037\uffdd" +
+    "\050\uffdd\054\uffdd\055\uffdd\001\002\000\004\002\uffff\001" +
+    "\002" });
 
   /** Access to parse-action table. */
   public short[][] action_table() {return _action_table;}
@@ -255,72 +277,76 @@ public class CUPParser extends java_cup.runtime.lr_parser {
   /** <code>reduce_goto</code> table. */
   protected static final short[][] _reduce_table = 
     unpackFromStrings(new String[] {
-    "\000\222\000\006\002\003\041\005\001\001\000\002\001" +
+    "\000\232\000\006\002\003\042\005\001\001\000\002\001" +
     "\001\000\002\001\001\000\006\003\006\004\007\001\001" +
-    "\000\002\001\001\000\012\005\014\017\013\020\015\025" +
-    "\011\001\001\000\002\001\001\000\002\001\001\000\006" +
-    "\015\207\016\210\001\001\000\002\001\001\000\002\001" +
-    "\001\000\002\001\001\000\006\011\154\012\153\001\001" +
-    "\000\012\023\041\024\043\025\037\040\050\001\001\000" +
-    "\006\006\022\007\024\001\001\000\002\001\001\000\004" +
-    "\007\035\001\001\000\002\001\001\000\002\001\001\000" +
-    "\004\010\032\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\004\010\034\001\001\000\002\001" +
+    "\000\002\001\001\000\012\005\011\017\012\020\010\043" +
+    "\013\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\001\000\004\026\105\001\001\000\006\011\056\012" +
+    "\055\001\001\000\006\006\040\007\041\001\001\000\002" +
+    "\001\001\000\006\015\020\016\022\001\001\000\004\016" +
+    "\030\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\001\000\004\014\026\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\001\000\002\001\001\000\004\021\034\001\001\000" +
+    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\001\000\004\007\042\001\001\000\002\001\001\000" +
+    "\002\001\001\000\004\010\047\001\001\000\002\001\001" +
+    "\000\002\001\001\000\004\010\052\001\001\000\002\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\020\027\146\030\053\031\056\032\061\033\063\037" +
-    "\065\040\067\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\004\040\140\001\001\000\002\001" +
-    "\001\000\014\031\137\032\061\033\063\037\065\040\067" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\004\012\057\001\001\000\002\001\001\000\006\013\061" +
+    "\014\066\001\001\000\002\001\001\000\006\013\100\014" +
+    "\066\001\001\000\002\001\001\000\004\027\073\001\001" +
+    "\000\004\010\067\001\001\000\002\001\001\000\002\001" +
+    "\001\000\004\010\071\001\001\000\002\001\001\000\002" +
     "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
-    "\001\000\002\001\001\000\020\027\057\030\053\031\056" +
-    "\032\061\033\063\037\065\040\067\001\001\000\002\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\006\034\120\035\115\001\001\000\002\001\001\000" +
-    "\010\033\102\037\065\040\067\001\001\000\004\036\100" +
+    "\000\006\013\102\014\066\001\001\000\002\001\001\000" +
+    "\002\001\001\000\012\023\112\025\113\026\110\041\122" +
+    "\001\001\000\002\001\001\000\020\030\225\031\126\032" +
+    "\131\033\134\034\136\040\140\041\142\001\001\000\002" +
+    "\001\001\000\002\001\001\000\004\041\220\001\001\000" +
+    "\002\001\001\000\002\001\001\000\014\032\216\033\134" +
+    "\034\136\040\140\041\142\001\001\000\002\001\001\000" +
+    "\014\023\211\024\212\025\113\026\110\041\122\001\001" +
+    "\000\002\001\001\000\002\001\001\000\020\030\171\031" +
+    "\126\032\131\033\134\034\136\040\140\041\142\001\001" +
+    "\000\002\001\001\000\020\030\167\031\126\032\131\033" +
+    "\134\034\136\040\140\041\142\001\001\000\020\030\132" +
+    "\031\126\032\131\033\134\034\136\040\140\041\142\001" +
+    "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
+    "\000\002\001\001\000\006\035\163\036\161\001\001\000" +
+    "\002\001\001\000\010\034\152\040\140\041\142\001\001" +
+    "\000\004\037\150\001\001\000\002\001\001\000\002\001" +
+    "\001\000\002\001\001\000\010\034\145\040\140\041\142" +
+    "\001\001\000\020\030\143\031\126\032\131\033\134\034" +
+    "\136\040\140\041\142\001\001\000\002\001\001\000\002" +
     "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
-    "\001\000\010\033\075\037\065\040\067\001\001\000\020" +
-    "\027\073\030\053\031\056\032\061\033\063\037\065\040" +
-    "\067\001\001\000\002\001\001\000\020\027\071\030\053" +
-    "\031\056\032\061\033\063\037\065\040\067\001\001\000" +
-    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
+    "\001\000\002\001\001\000\010\034\151\040\140\041\142" +
     "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
-    "\001\000\010\033\101\037\065\040\067\001\001\000\002" +
-    "\001\001\000\002\001\001\000\010\024\104\025\037\040" +
-    "\050\001\001\000\002\001\001\000\010\024\106\025\037" +
-    "\040\050\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
-    "\001\001\000\002\001\001\000\012\032\122\033\063\037" +
-    "\065\040\067\001\001\000\002\001\001\000\002\001\001" +
-    "\000\014\031\121\032\061\033\063\037\065\040\067\001" +
-    "\001\000\004\035\115\001\001\000\004\036\100\001\001" +
-    "\000\020\027\124\030\053\031\056\032\061\033\063\037" +
-    "\065\040\067\001\001\000\002\001\001\000\002\001\001" +
-    "\000\020\027\127\030\053\031\056\032\061\033\063\037" +
-    "\065\040\067\001\001\000\002\001\001\000\020\027\131" +
-    "\030\053\031\056\032\061\033\063\037\065\040\067\001" +
-    "\001\000\002\001\001\000\012\023\133\024\043\025\037" +
-    "\040\050\001\001\000\002\001\001\000\010\024\136\025" +
-    "\037\040\050\001\001\000\002\001\001\000\002\001\001" +
-    "\000\004\035\115\001\001\000\002\001\001\000\002\001" +
-    "\001\000\002\001\001\000\004\022\144\001\001\000\002" +
-    "\001\001\000\002\001\001\000\002\001\001\000\010\024" +
-    "\150\025\037\040\050\001\001\000\002\001\001\000\002" +
-    "\001\001\000\002\001\001\000\002\001\001\000\004\012" +
-    "\155\001\001\000\002\001\001\000\006\013\157\014\164" +
-    "\001\001\000\002\001\001\000\002\001\001\000\006\013" +
-    "\177\014\164\001\001\000\004\026\173\001\001\000\002" +
-    "\001\001\000\002\001\001\000\004\010\166\001\001\000" +
-    "\002\001\001\000\004\010\170\001\001\000\002\001\001" +
-    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
-    "\001\001\000\006\013\201\014\164\001\001\000\002\001" +
-    "\001\000\002\001\001\000\006\003\204\004\007\001\001" +
-    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
-    "\004\016\215\001\001\000\002\001\001\000\002\001\001" +
-    "\000\004\014\213\001\001\000\002\001\001\000\002\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\004\021\221\001\001\000\002\001\001\000\002\001" +
-    "\001\000\002\001\001" });
+    "\000\002\001\001\000\002\001\001\000\012\033\166\034" +
+    "\136\040\140\041\142\001\001\000\002\001\001\000\014" +
+    "\032\165\033\134\034\136\040\140\041\142\001\001\000" +
+    "\002\001\001\000\004\036\161\001\001\000\004\037\150" +
+    "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
+    "\001\000\010\025\173\026\110\041\122\001\001\000\002" +
+    "\001\001\000\010\025\175\026\110\041\122\001\001\000" +
+    "\002\001\001\000\002\001\001\000\020\030\200\031\126" +
+    "\032\131\033\134\034\136\040\140\041\142\001\001\000" +
+    "\002\001\001\000\020\030\202\031\126\032\131\033\134" +
+    "\034\136\040\140\041\142\001\001\000\002\001\001\000" +
+    "\004\044\204\001\001\000\012\023\205\025\113\026\110" +
+    "\041\122\001\001\000\002\001\001\000\010\025\210\026" +
+    "\110\041\122\001\001\000\002\001\001\000\002\001\001" +
+    "\000\002\001\001\000\002\001\001\000\012\023\215\025" +
+    "\113\026\110\041\122\001\001\000\002\001\001\000\002" +
+    "\001\001\000\004\036\161\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\004\022\223\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\010\025\227\026\110\041\122\001\001\000\002\001\001" +
+    "\000\006\003\231\004\007\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001" });
 
   /** Access to <code>reduce_goto</code> table. */
   public short[][] reduce_table() {return _reduce_table;}
@@ -377,6 +403,23 @@ public class CUPParser extends java_cup.runtime.lr_parser {
         errors.error("PL0 unrecovered syntax error", 
                         ((ComplexSymbol) cur_token).xleft);
     }
+
+    /* If set, each procedure is handed to the streaming compiler as soon
+     * as it has been parsed, rather than being added to the syntax tree. */
+    StreamingCompiler streaming = null;
+
+    public void setStreamingCompiler(StreamingCompiler streaming) {
+        this.streaming = streaming;
+    }
+
+    /* If set, the predefined scope of the symbol table is shared with
+     * other programs, rather than the program having a symbol table of
+     * its own. */
+    SymbolTable symbolTable = null;
+
+    public void setSymbolTable(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
             
 
 
@@ -397,6 +440,15 @@ class CUP$CUPParser$actions {
      */
     private Scope currentScope;
 
+    /* Note a use of an identifier within the current scope, which
+     * the streaming compiler needs to know when a procedure can be
+     * compiled. */
+    private void use(String id) {
+        if (parser.streaming != null) {
+            parser.streaming.use(currentScope, id);
+        }
+    }
+
 
   private final CUPParser parser;
 
@@ -427,7 +479,14 @@ class CUP$CUPParser$actions {
             /* This action occurs before the whole program is recognised.
              * It constructs the initial symbol table with current scope the
              * predefined scope. */
-            currentScope = new SymbolTable().getPredefinedScope();
+            if (parser.symbolTable == null) {
+                currentScope = new SymbolTable().getPredefinedScope();
+            } else {
+                /* The main program is added to an extension of a shared
+                 * predefined scope, which is left unchanged */
+                currentScope = parser.symbolTable.getPredefinedScope()
+                        .extendCurrentScope();
+            }
             /* Set up a dummy symbol table entry for the main program */
             SymEntry.ProcedureEntry procMain = 
                 currentScope.addProcedure("<main>", ErrorHandler.NO_LOCATION);
@@ -439,7 +498,7 @@ class CUP$CUPParser$actions {
              * scope in main's symbol table entry */
             currentScope = currentScope.newScope(procMain);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("NT$0",31, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("NT$0",32, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
@@ -457,6 +516,9 @@ class CUP$CUPParser$actions {
              * has been recognised */
             /* Returned result of the whole parsing phase */
             RESULT = new DeclNode.ProcedureNode(currentScope.getOwnerEntry(), block);
+            if (parser.streaming != null) {
+                parser.streaming.programParsed(RESULT);
+            }
             /* Exit the current scope */
             currentScope = currentScope.getParent();
         
@@ -492,24 +554,44 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 4: // Block ::= DeclarationList CompoundStatement 
+          case 4: // NT$1 ::= 
             {
               StatementNode.BlockNode RESULT =null;
-		Location dlxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
-		Location dlxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xright;
-		DeclNode.DeclListNode dl = (DeclNode.DeclListNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).value;
+		Location dlxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
+		Location dlxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xright;
+		DeclNode.DeclListNode dl = (DeclNode.DeclListNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.peek()).value;
+
+            /* Procedures deferred until the declarations are complete
+             * can be compiled before the body is parsed */
+            if (parser.streaming != null) {
+                parser.streaming.declarationsComplete(currentScope);
+            }
+        
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("NT$1",33, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+            }
+          return CUP$CUPParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 5: // Block ::= DeclarationList NT$1 CompoundStatement 
+            {
+              StatementNode.BlockNode RESULT =null;
+              // propagate RESULT from NT$1
+                RESULT = (StatementNode.BlockNode) ((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).value;
+		Location dlxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
+		Location dlxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xright;
+		DeclNode.DeclListNode dl = (DeclNode.DeclListNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).value;
 		Location bxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
 		Location bxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xright;
 		StatementNode b = (StatementNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.peek()).value;
 		
             RESULT = new StatementNode.BlockNode(bxleft, dl, b, currentScope);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Block",1, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Block",1, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 5: // DeclarationList ::= DeclarationList ProcedureDef 
+          case 6: // DeclarationList ::= DeclarationList ProcedureDef 
             {
               DeclNode.DeclListNode RESULT =null;
 		Location dlxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
@@ -519,8 +601,11 @@ class CUP$CUPParser$actions {
 		Location pxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xright;
 		DeclNode.ProcedureNode p = (DeclNode.ProcedureNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.peek()).value;
 		
-            /* Add a procedure declaration to the list of declarations */
-            dl.addDeclaration(p);
+            /* Add a procedure declaration to the list of declarations,
+             * unless it has been handed to the streaming compiler */
+            if (p != null) {
+                dl.addDeclaration(p);
+            }
             RESULT = dl;
         
               CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("DeclarationList",2, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
@@ -528,7 +613,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 6: // DeclarationList ::= DeclarationList Declaration 
+          case 7: // DeclarationList ::= DeclarationList Declaration 
             {
               DeclNode.DeclListNode RESULT =null;
 		Location dlxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
@@ -544,7 +629,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 7: // DeclarationList ::= 
+          case 8: // DeclarationList ::= 
             {
               DeclNode.DeclListNode RESULT =null;
 		
@@ -555,7 +640,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 8: // Declaration ::= KW_CONST ConstDefSeq 
+          case 9: // Declaration ::= KW_CONST ConstDefSeq 
             {
               Object RESULT =null;
 
@@ -564,7 +649,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 9: // Declaration ::= KW_TYPE TypeDefSeq 
+          case 10: // Declaration ::= KW_TYPE TypeDefSeq 
             {
               Object RESULT =null;
 
@@ -573,7 +658,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 10: // Declaration ::= KW_VAR VarDeclSeq 
+          case 11: // Declaration ::= KW_VAR VarDeclSeq 
             {
               Object RESULT =null;
 
@@ -582,7 +667,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 11: // ConstDefSeq ::= ConstDef 
+          case 12: // ConstDefSeq ::= ConstDef 
             {
               Object RESULT =null;
 
@@ -591,7 +676,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 12: // ConstDefSeq ::= ConstDefSeq ConstDef 
+          case 13: // ConstDefSeq ::= ConstDefSeq ConstDef 
             {
               Object RESULT =null;
 
@@ -600,7 +685,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 13: // ConstDef ::= IDENTIFIER EQUALS Constant SEMICOLON 
+          case 14: // ConstDef ::= IDENTIFIER EQUALS Constant SEMICOLON 
             {
               Object RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
@@ -623,7 +708,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 14: // ConstDef ::= error 
+          case 15: // ConstDef ::= error 
             {
               Object RESULT =null;
 
@@ -632,7 +717,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 15: // Constant ::= NUMBER 
+          case 16: // Constant ::= NUMBER 
             {
               ConstExp RESULT =null;
 		Location nxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -646,7 +731,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 16: // Constant ::= MINUS Constant 
+          case 17: // Constant ::= MINUS Constant 
             {
               ConstExp RESULT =null;
 		Location opxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
@@ -663,13 +748,14 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 17: // Constant ::= IDENTIFIER 
+          case 18: // Constant ::= IDENTIFIER 
             {
               ConstExp RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
 		Location idxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xright;
 		String id = (String)((java_cup.runtime.Symbol) CUP$CUPParser$stack.peek()).value;
 		 
+            use(id);
             RESULT = new ConstExp.ConstIdNode(idxleft, id, currentScope);
         
               CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Constant",6, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
@@ -677,7 +763,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 18: // Constant ::= error 
+          case 19: // Constant ::= error 
             {
               ConstExp RESULT =null;
 		Location errxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -691,7 +777,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 19: // TypeDefSeq ::= TypeDef 
+          case 20: // TypeDefSeq ::= TypeDef 
             {
               Object RESULT =null;
 
@@ -700,7 +786,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 20: // TypeDefSeq ::= TypeDefSeq TypeDef 
+          case 21: // TypeDefSeq ::= TypeDefSeq TypeDef 
             {
               Object RESULT =null;
 
@@ -709,7 +795,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 21: // TypeDef ::= IDENTIFIER EQUALS Type SEMICOLON 
+          case 22: // TypeDef ::= IDENTIFIER EQUALS Type SEMICOLON 
             {
               Object RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
@@ -729,7 +815,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 22: // TypeDef ::= error 
+          case 23: // TypeDef ::= error 
             {
               Object RESULT =null;
 
@@ -738,7 +824,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 23: // Type ::= TypeIdentifier 
+          case 24: // Type ::= TypeIdentifier 
             {
               Type RESULT =null;
 		Location typexleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -752,7 +838,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 24: // Type ::= LBRACKET Constant RANGE Constant RBRACKET 
+          case 25: // Type ::= LBRACKET Constant RANGE Constant RBRACKET 
             {
               Type RESULT =null;
 		Location subrxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-4)).xleft;
@@ -772,7 +858,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 25: // Type ::= error 
+          case 26: // Type ::= error 
             {
               Type RESULT =null;
 		Location errxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -786,7 +872,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 26: // Type ::= LCURLY EnumerationList RCURLY 
+          case 27: // Type ::= LCURLY EnumerationList RCURLY 
             {
               Type RESULT =null;
 		Location curlyxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -803,7 +889,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 27: // Type ::= KW_ARRAY Type KW_OF Type 
+          case 28: // Type ::= KW_ARRAY Type KW_OF Type 
             {
               Type RESULT =null;
 		Location t1xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -820,7 +906,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 28: // TypeIdentifier ::= IDENTIFIER 
+          case 29: // TypeIdentifier ::= IDENTIFIER 
             {
               Type RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -830,6 +916,7 @@ class CUP$CUPParser$actions {
             * IdRefType records the id, as well as the symbol table scope
             * to look it up during type resolution in the static checker.
             */
+            use(id);
             RESULT = new Type.IdRefType(idxleft, id, currentScope);
         
               CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("TypeIdentifier",10, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
@@ -837,7 +924,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 29: // EnumerationList ::= IDENTIFIER 
+          case 30: // EnumerationList ::= IDENTIFIER 
             {
               List<Type.EnumerationElement> RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -847,12 +934,12 @@ class CUP$CUPParser$actions {
             RESULT = new ArrayList<Type.EnumerationElement>();
             RESULT.add(new Type.EnumerationElement(id, idxleft));
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("EnumerationList",20, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("EnumerationList",21, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 30: // EnumerationList ::= EnumerationList COMMA IDENTIFIER 
+          case 31: // EnumerationList ::= EnumerationList COMMA IDENTIFIER 
             {
               List<Type.EnumerationElement> RESULT =null;
 		Location elementsxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -865,12 +952,12 @@ class CUP$CUPParser$actions {
             elements.add(new Type.EnumerationElement(id, idxleft));
             RESULT = elements;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("EnumerationList",20, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("EnumerationList",21, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 31: // VarDeclSeq ::= VarDecl 
+          case 32: // VarDeclSeq ::= VarDecl 
             {
               Object RESULT =null;
 
@@ -879,7 +966,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 32: // VarDeclSeq ::= VarDeclSeq VarDecl 
+          case 33: // VarDeclSeq ::= VarDeclSeq VarDecl 
             {
               Object RESULT =null;
 
@@ -888,7 +975,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 33: // VarDecl ::= IDENTIFIER COLON TypeIdentifier SEMICOLON 
+          case 34: // VarDecl ::= IDENTIFIER COLON TypeIdentifier SEMICOLON 
             {
               Object RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
@@ -909,7 +996,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 34: // VarDecl ::= error 
+          case 35: // VarDecl ::= error 
             {
               Object RESULT =null;
 
@@ -918,7 +1005,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 35: // ProcedureDef ::= ProcedureHead EQUALS Block SEMICOLON 
+          case 36: // ProcedureDef ::= ProcedureHead EQUALS Block SEMICOLON 
             {
               DeclNode.ProcedureNode RESULT =null;
 		Location procEntryxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
@@ -933,13 +1020,17 @@ class CUP$CUPParser$actions {
              * for ProcedureHead. */
             currentScope = currentScope.getParent();
             RESULT = new DeclNode.ProcedureNode(procEntry, b);
+            if (parser.streaming != null) {
+                parser.streaming.procedureParsed(RESULT);
+                RESULT = null;
+            }
         
               CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("ProcedureDef",13, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 36: // ProcedureHead ::= KW_PROCEDURE IDENTIFIER LPAREN FormalParamList RPAREN 
+          case 37: // ProcedureHead ::= KW_PROCEDURE IDENTIFIER LPAREN FormalParamList RPAREN 
             {
               SymEntry.ProcedureEntry RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
@@ -970,7 +1061,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 37: // ProcedureHead ::= KW_PROCEDURE IDENTIFIER error 
+          case 38: // ProcedureHead ::= KW_PROCEDURE IDENTIFIER error 
             {
               SymEntry.ProcedureEntry RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
@@ -992,7 +1083,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 38: // FormalParamList ::= 
+          case 39: // FormalParamList ::= 
             {
               Object RESULT =null;
 
@@ -1001,7 +1092,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 39: // CompoundStatement ::= KW_BEGIN StatementList KW_END 
+          case 40: // CompoundStatement ::= KW_BEGIN StatementList KW_END 
             {
               StatementNode RESULT =null;
 		Location slxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
@@ -1010,12 +1101,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = new StatementNode.ListNode(slxleft,sl);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("CompoundStatement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("CompoundStatement",20, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 40: // StatementList ::= Statement 
+          case 41: // StatementList ::= Statement 
             {
               List<StatementNode> RESULT =null;
 		Location sxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1030,7 +1121,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 41: // StatementList ::= StatementList SEMICOLON Statement 
+          case 42: // StatementList ::= StatementList SEMICOLON Statement 
             {
               List<StatementNode> RESULT =null;
 		Location slxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -1048,7 +1139,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 42: // Statement ::= KW_WHILE Condition KW_DO Statement 
+          case 43: // Statement ::= KW_WHILE Condition KW_DO Statement 
             {
               StatementNode RESULT =null;
 		Location cxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -1060,12 +1151,12 @@ class CUP$CUPParser$actions {
 		 
             RESULT = new StatementNode.WhileNode(cxleft, c, s);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 43: // Statement ::= KW_IF Condition KW_THEN Statement KW_ELSE Statement 
+          case 44: // Statement ::= KW_IF Condition KW_THEN Statement KW_ELSE Statement 
             {
               StatementNode RESULT =null;
 		Location cxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-4)).xleft;
@@ -1080,12 +1171,12 @@ class CUP$CUPParser$actions {
 		 
             RESULT = new StatementNode.IfNode(cxleft, c, s1, s2);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-5)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-5)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 44: // Statement ::= CompoundStatement 
+          case 45: // Statement ::= CompoundStatement 
             {
               StatementNode RESULT =null;
 		Location sxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1094,12 +1185,12 @@ class CUP$CUPParser$actions {
 		 
             RESULT = s; 
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 45: // Statement ::= KW_READ LValue 
+          case 46: // Statement ::= KW_READ LValue 
             {
               StatementNode RESULT =null;
 		Location lvalxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1108,12 +1199,12 @@ class CUP$CUPParser$actions {
 		 
             RESULT = new StatementNode.ReadNode(lvalxleft, lval);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 46: // Statement ::= KW_WRITE Exp 
+          case 47: // Statement ::= KW_WRITE Exp 
             {
               StatementNode RESULT =null;
 		Location exleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1122,12 +1213,12 @@ class CUP$CUPParser$actions {
 		 
             RESULT = new StatementNode.WriteNode(exleft, e);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 47: // Statement ::= LValue ASSIGN Condition 
+          case 48: // Statement ::= LValue ASSIGN Condition 
             {
               StatementNode RESULT =null;
 		Location lvalxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -1139,12 +1230,12 @@ class CUP$CUPParser$actions {
 		
           RESULT = new StatementNode.AssignmentNode(lvalxleft, lval, rval);
        
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 48: // Statement ::= KW_CALL IDENTIFIER LPAREN ActualParamList RPAREN 
+          case 49: // Statement ::= KW_CALL IDENTIFIER LPAREN ActualParamList RPAREN 
             {
               StatementNode RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
@@ -1154,37 +1245,83 @@ class CUP$CUPParser$actions {
 		Location plxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xright;
 		Object pl = (Object)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).value;
 		 
+            use(id);
             RESULT = new StatementNode.CallNode(idxleft, id);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-4)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-4)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 49: // Statement ::= KW_FOR IDENTIFIER COLON Condition RANGE Condition KW_DO StatementList KW_OD 
+          case 50: // NT$2 ::= 
             {
               StatementNode RESULT =null;
-		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-7)).xleft;
-		Location idxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-7)).xright;
-		String id = (String)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-7)).value;
-		Location c1xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-5)).xleft;
-		Location c1xright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-5)).xright;
-		ExpNode c1 = (ExpNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-5)).value;
-		Location c2xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
-		Location c2xright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xright;
-		ExpNode c2 = (ExpNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).value;
+		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-5)).xleft;
+		Location idxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-5)).xright;
+		String id = (String)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-5)).value;
+		Location c1xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
+		Location c1xright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xright;
+		ExpNode c1 = (ExpNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).value;
+		Location c2xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
+		Location c2xright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xright;
+		ExpNode c2 = (ExpNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).value;
+
+            /* The control variable is declared only within the body */
+            if (parser.streaming != null) {
+                parser.streaming.beginFor(id);
+            }
+        
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("NT$2",34, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+            }
+          return CUP$CUPParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 51: // Statement ::= KW_FOR IDENTIFIER COLON Condition RANGE Condition KW_DO NT$2 StatementList KW_OD 
+            {
+              StatementNode RESULT =null;
+              // propagate RESULT from NT$2
+                RESULT = (StatementNode) ((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).value;
+		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-8)).xleft;
+		Location idxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-8)).xright;
+		String id = (String)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-8)).value;
+		Location c1xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-6)).xleft;
+		Location c1xright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-6)).xright;
+		ExpNode c1 = (ExpNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-6)).value;
+		Location c2xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-4)).xleft;
+		Location c2xright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-4)).xright;
+		ExpNode c2 = (ExpNode)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-4)).value;
 		Location stmtListxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
 		Location stmtListxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xright;
 		List<StatementNode> stmtList = (List<StatementNode>)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).value;
 		
+            if (parser.streaming != null) {
+                parser.streaming.endFor();
+            }
             RESULT = new StatementNode.ForNode(idxleft, id, c1, c2, stmtList, stmtListxleft);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-8)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-9)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+            }
+          return CUP$CUPParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 52: // Statement ::= KW_COBEGIN BranchList KW_COEND 
+            {
+              StatementNode RESULT =null;
+		Location locxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
+		Location locxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xright;
+		Object loc = (Object)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).value;
+		Location blxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
+		Location blxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xright;
+		List<StatementNode> bl = (List<StatementNode>)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).value;
+		
+            RESULT = new StatementNode.CobeginNode(locxleft, bl);
+        
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 50: // Statement ::= error 
+          case 53: // Statement ::= error 
             {
               StatementNode RESULT =null;
 		Location locxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1193,12 +1330,45 @@ class CUP$CUPParser$actions {
 		 
             RESULT = new StatementNode.ErrorNode(locxleft);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Statement",19, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+            }
+          return CUP$CUPParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 54: // BranchList ::= StatementList 
+            {
+              List<StatementNode> RESULT =null;
+		Location slxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
+		Location slxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xright;
+		List<StatementNode> sl = (List<StatementNode>)((java_cup.runtime.Symbol) CUP$CUPParser$stack.peek()).value;
+		
+            RESULT = new ArrayList<StatementNode>();
+            RESULT.add(new StatementNode.ListNode(slxleft, sl));
+        
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("BranchList",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+            }
+          return CUP$CUPParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 55: // BranchList ::= BranchList PARALLEL StatementList 
+            {
+              List<StatementNode> RESULT =null;
+		Location blxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
+		Location blxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xright;
+		List<StatementNode> bl = (List<StatementNode>)((java_cup.runtime.Symbol) CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).value;
+		Location slxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
+		Location slxright = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xright;
+		List<StatementNode> sl = (List<StatementNode>)((java_cup.runtime.Symbol) CUP$CUPParser$stack.peek()).value;
+		
+            bl.add(new StatementNode.ListNode(slxleft, sl));
+            RESULT = bl;
+        
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("BranchList",18, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 51: // ActualParamList ::= 
+          case 56: // ActualParamList ::= 
             {
               Object RESULT =null;
 
@@ -1207,7 +1377,7 @@ class CUP$CUPParser$actions {
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 52: // LValue ::= IDENTIFIER 
+          case 57: // LValue ::= IDENTIFIER 
             {
               ExpNode RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1219,14 +1389,15 @@ class CUP$CUPParser$actions {
              * checking when the IdentifierNode will be transformed into either
              * a ConstNode or a VariableNode or detected as invalid.
              */
+            use(id);
             RESULT = new ExpNode.IdentifierNode(idxleft, id);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("LValue",30, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("LValue",31, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 53: // LValue ::= LValue LBRACKET Condition RBRACKET 
+          case 58: // LValue ::= LValue LBRACKET Condition RBRACKET 
             {
               ExpNode RESULT =null;
 		Location idxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)).xleft;
@@ -1238,12 +1409,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = new ExpNode.ArrayIndexNode(idxleft, id, index);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("LValue",30, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("LValue",31, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-3)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 54: // LValue ::= error 
+          case 59: // LValue ::= error 
             {
               ExpNode RESULT =null;
 		Location exleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1252,12 +1423,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = new ExpNode.ErrorNode(exleft);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("LValue",30, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("LValue",31, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 55: // Condition ::= RelCondition 
+          case 60: // Condition ::= RelCondition 
             {
               ExpNode RESULT =null;
 		Location exleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1266,12 +1437,12 @@ class CUP$CUPParser$actions {
 		 
             RESULT = e;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Condition",21, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Condition",22, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 56: // RelCondition ::= Exp 
+          case 61: // RelCondition ::= Exp 
             {
               ExpNode RESULT =null;
 		Location exleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1280,12 +1451,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = e;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("RelCondition",22, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("RelCondition",23, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 57: // RelCondition ::= Exp Relation Exp 
+          case 62: // RelCondition ::= Exp Relation Exp 
             {
               ExpNode RESULT =null;
 		Location e1xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -1300,78 +1471,78 @@ class CUP$CUPParser$actions {
 		
             RESULT = new ExpNode.BinaryNode(opxleft, op, e1,e2);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("RelCondition",22, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("RelCondition",23, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 58: // Relation ::= EQUALS 
+          case 63: // Relation ::= EQUALS 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.EQUALS_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",27, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 59: // Relation ::= NEQUALS 
+          case 64: // Relation ::= NEQUALS 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.NEQUALS_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",27, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 60: // Relation ::= LEQUALS 
+          case 65: // Relation ::= LEQUALS 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.LEQUALS_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",27, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 61: // Relation ::= LESS 
+          case 66: // Relation ::= LESS 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.LESS_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",27, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 62: // Relation ::= GREATER 
+          case 67: // Relation ::= GREATER 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.GREATER_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",27, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 63: // Relation ::= GEQUALS 
+          case 68: // Relation ::= GEQUALS 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.GEQUALS_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Relation",27, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 64: // Exp ::= Term 
+          case 69: // Exp ::= Term 
             {
               ExpNode RESULT =null;
 		Location txleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1380,12 +1551,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = t;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Exp",23, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Exp",24, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 65: // Exp ::= Exp AddOp Term 
+          case 70: // Exp ::= Exp AddOp Term 
             {
               ExpNode RESULT =null;
 		Location e1xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -1400,34 +1571,34 @@ class CUP$CUPParser$actions {
 		
             RESULT = new ExpNode.BinaryNode(opxleft, op, e1,e2);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Exp",23, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Exp",24, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 66: // AddOp ::= PLUS 
+          case 71: // AddOp ::= PLUS 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.ADD_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("AddOp",27, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("AddOp",28, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 67: // AddOp ::= MINUS 
+          case 72: // AddOp ::= MINUS 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.SUB_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("AddOp",27, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("AddOp",28, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 68: // Term ::= Factor 
+          case 73: // Term ::= Factor 
             {
               ExpNode RESULT =null;
 		Location fxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1436,12 +1607,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = f;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Term",24, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Term",25, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 69: // Term ::= Term MulOp Factor 
+          case 74: // Term ::= Term MulOp Factor 
             {
               ExpNode RESULT =null;
 		Location e1xleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)).xleft;
@@ -1456,34 +1627,34 @@ class CUP$CUPParser$actions {
 		
             RESULT = new ExpNode.BinaryNode(opxleft, op, e1,e2);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Term",24, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Term",25, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 70: // MulOp ::= TIMES 
+          case 75: // MulOp ::= TIMES 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.MUL_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("MulOp",28, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("MulOp",29, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 71: // MulOp ::= DIVIDE 
+          case 76: // MulOp ::= DIVIDE 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.DIV_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("MulOp",28, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("MulOp",29, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 72: // Factor ::= PLUS Factor 
+          case 77: // Factor ::= PLUS Factor 
             {
               ExpNode RESULT =null;
 		Location exleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1492,12 +1663,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = e; 
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",25, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 73: // Factor ::= UnaryOperator Factor 
+          case 78: // Factor ::= UnaryOperator Factor 
             {
               ExpNode RESULT =null;
 		Location opxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
@@ -1509,12 +1680,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = new ExpNode.UnaryNode(opxleft, op, e);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",25, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 74: // Factor ::= LPAREN Condition RPAREN 
+          case 79: // Factor ::= LPAREN Condition RPAREN 
             {
               ExpNode RESULT =null;
 		Location cxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-1)).xleft;
@@ -1523,12 +1694,12 @@ class CUP$CUPParser$actions {
 		
             RESULT = c;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",25, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.elementAt(CUP$CUPParser$top-2)), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 75: // Factor ::= NUMBER 
+          case 80: // Factor ::= NUMBER 
             {
               ExpNode RESULT =null;
 		Location nxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1538,12 +1709,12 @@ class CUP$CUPParser$actions {
             RESULT = new ExpNode.ConstNode(nxleft, 
                     Predefined.INTEGER_TYPE, n);
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",25, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 76: // Factor ::= LValue 
+          case 81: // Factor ::= LValue 
             {
               ExpNode RESULT =null;
 		Location lvalxleft = ((java_cup.runtime.ComplexSymbolFactory.ComplexSymbol)CUP$CUPParser$stack.peek()).xleft;
@@ -1552,40 +1723,40 @@ class CUP$CUPParser$actions {
 		
             RESULT = lval;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",25, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("Factor",26, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 77: // UnaryOperator ::= MINUS 
+          case 82: // UnaryOperator ::= MINUS 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.NEG_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("UnaryOperator",29, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("UnaryOperator",30, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 78: // UnaryOperator ::= KW_SUCC 
+          case 83: // UnaryOperator ::= KW_SUCC 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.SUCC_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("UnaryOperator",29, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("UnaryOperator",30, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 79: // UnaryOperator ::= KW_PRED 
+          case 84: // UnaryOperator ::= KW_PRED 
             {
               Operator RESULT =null;
 		
             RESULT = Operator.PRED_OP;
         
-              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("UnaryOperator",29, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
+              CUP$CUPParser$result = parser.getSymbolFactory().newSymbol("UnaryOperator",30, ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$CUPParser$stack.peek()), RESULT);
             }
           return CUP$CUPParser$result;
 
@@ -8,16 +8,18 @@ package parse;
 /** CUP generated interface containing symbol constants. */
 public interface CUPToken {
   /* terminals */
+  public static final int PARALLEL = 23;
   public static final int DIVIDE = 8;
+  public static final int KW_COEND = 28;
   public static final int LBRACKET = 21;
-  public static final int KW_PROCEDURE = 35;
+  public static final int KW_PROCEDURE = 38;
   public static final int EQUALS = 9;
-  public static final int KW_FOR = 30;
-  public static final int KW_DO = 27;
+  public static final int KW_FOR = 33;
+  public static final int KW_DO = 30;
   public static final int LPAREN = 19;
   public static final int GREATER = 14;
-  public static final int KW_PRED = 34;
-  public static final int KW_CONST = 26;
+  public static final int KW_PRED = 37;
+  public static final int KW_CONST = 29;
   public static final int LESS = 13;
   public static final int MINUS = 6;
   public static final int RPAREN = 20;
@@ -26,34 +28,35 @@ public interface CUPToken {
   public static final int RANGE = 15;
   public static final int LEQUALS = 11;
   public static final int NEQUALS = 10;
-  public static final int KW_ARRAY = 23;
+  public static final int KW_ARRAY = 24;
   public static final int COMMA = 16;
-  public static final int KW_WRITE = 42;
+  public static final int KW_WRITE = 45;
+  public static final int KW_COBEGIN = 27;
   public static final int PLUS = 5;
-  public static final int KW_TYPE = 39;
+  public static final int KW_TYPE = 42;
   public static final int ASSIGN = 4;
-  public static final int KW_CALL = 25;
+  public static final int KW_CALL = 26;
   public static final int EOF = 0;
   public static final int RBRACKET = 22;
-  public static final int KW_BEGIN = 24;
+  public static final int KW_BEGIN = 25;
   public static final int error = 1;
   public static final int LCURLY = 17;
-  public static final int NUMBER = 45;
-  public static final int KW_IF = 31;
+  public static final int NUMBER = 48;
+  public static final int KW_IF = 34;
   public static final int RCURLY = 18;
-  public static final int KW_OF = 33;
+  public static final int KW_OF = 36;
   public static final int TIMES = 7;
+  public static final int KW_OD = 35;
   public static final int COLON = 3;
-  public static final int KW_OD = 32;
-  public static final int ILLEGAL = 43;
-  public static final int KW_END = 29;
-  public static final int KW_SUCC = 37;
-  public static final int KW_ELSE = 28;
-  public static final int KW_READ = 36;
-  public static final int KW_VAR = 40;
-  public static final int KW_WHILE = 41;
-  public static final int KW_THEN = 38;
-  public static final int IDENTIFIER = 44;
+  public static final int ILLEGAL = 46;
+  public static final int KW_END = 32;
+  public static final int KW_SUCC = 40;
+  public static final int KW_ELSE = 31;
+  public static final int KW_READ = 39;
+  public static final int KW_VAR = 43;
+  public static final int KW_WHILE = 44;
+  public static final int KW_THEN = 41;
+  public static final int IDENTIFIER = 47;
   public static final String[] terminalNames = new String[] {
   "EOF",
   "error",
@@ -78,9 +81,12 @@ public interface CUPToken {
   "RPAREN",
   "LBRACKET",
   "RBRACKET",
+  "PARALLEL",
   "KW_ARRAY",
   "KW_BEGIN",
   "KW_CALL",
+  "KW_COBEGIN",
+  "KW_COEND",
   "KW_CONST",
   "KW_DO",
   "KW_ELSE",
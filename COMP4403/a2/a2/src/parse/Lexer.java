@@ -82,7 +82,7 @@ public class Lexer implements java_cup.runtime.Scanner {
     "\1\32\1\33\1\34\1\35\1\36\1\37\1\40\2\25"+
     "\1\41\1\25\1\42\1\43\1\44\1\25\1\45\1\46"+
     "\1\47\1\50\1\51\1\52\1\25\1\53\1\25\1\54"+
-    "\1\0\1\55\7\0\1\3\u01a2\0\2\3\326\0\u0100\3";
+    "\1\55\1\56\7\0\1\3\u01a2\0\2\3\326\0\u0100\3";
 
   private static int [] zzUnpackcmap_blocks() {
     int [] result = new int[1024];
@@ -111,15 +111,16 @@ public class Lexer implements java_cup.runtime.Scanner {
   private static final String ZZ_ACTION_PACKED_0 =
     "\1\0\1\1\2\2\1\1\1\3\1\4\1\5\1\6"+
     "\1\7\1\10\1\1\1\11\1\12\1\13\1\14\1\15"+
-    "\1\16\1\17\1\20\1\21\1\22\16\20\1\23\1\24"+
-    "\1\25\1\26\1\27\1\30\1\31\1\32\4\20\1\33"+
-    "\3\20\1\34\1\35\1\36\15\20\1\37\1\40\6\20"+
-    "\1\41\4\20\1\42\1\20\1\43\1\44\1\20\1\45"+
-    "\1\46\1\47\1\50\2\20\1\51\1\52\1\53\1\20"+
-    "\1\54\1\55\3\20\1\56";
+    "\1\16\1\17\1\20\1\21\1\22\16\20\1\23\1\1"+
+    "\1\24\1\25\1\26\1\27\1\30\1\31\1\32\4\20"+
+    "\1\33\3\20\1\34\1\35\1\36\10\20\1\37\7\20"+
+    "\1\40\1\41\6\20\1\42\4\20\1\43\3\20\1\44"+
+    "\1\45\1\20\1\46\1\47\1\50\1\51\2\20\1\52"+
+    "\1\53\1\20\1\54\1\55\1\20\1\56\1\57\2\20"+
+    "\1\60\2\20\1\61";
 
   private static int [] zzUnpackAction() {
-    int [] result = new int[102];
+    int [] result = new int[112];
     int offset = 0;
     offset = zzUnpackAction(ZZ_ACTION_PACKED_0, offset, result);
     return result;
@@ -144,22 +145,23 @@ public class Lexer implements java_cup.runtime.Scanner {
   private static final int [] ZZ_ROWMAP = zzUnpackRowMap();
 
   private static final String ZZ_ROWMAP_PACKED_0 =
-    "\0\0\0\56\0\56\0\134\0\212\0\56\0\56\0\56"+
-    "\0\56\0\56\0\56\0\270\0\346\0\u0114\0\u0142\0\56"+
-    "\0\u0170\0\56\0\u019e\0\u01cc\0\56\0\56\0\u01fa\0\u0228"+
-    "\0\u0256\0\u0284\0\u02b2\0\u02e0\0\u030e\0\u033c\0\u036a\0\u0398"+
-    "\0\u03c6\0\u03f4\0\u0422\0\u0450\0\56\0\56\0\56\0\56"+
-    "\0\u047e\0\56\0\56\0\56\0\u04ac\0\u04da\0\u0508\0\u0536"+
-    "\0\u01cc\0\u0564\0\u0592\0\u05c0\0\u01cc\0\u01cc\0\u01cc\0\u05ee"+
-    "\0\u061c\0\u064a\0\u0678\0\u06a6\0\u06d4\0\u0702\0\u0730\0\u075e"+
-    "\0\u078c\0\u07ba\0\u07e8\0\u0816\0\u01cc\0\u01cc\0\u0844\0\u0872"+
-    "\0\u08a0\0\u08ce\0\u08fc\0\u092a\0\u01cc\0\u0958\0\u0986\0\u09b4"+
-    "\0\u09e2\0\u01cc\0\u0a10\0\u01cc\0\u01cc\0\u0a3e\0\u01cc\0\u01cc"+
-    "\0\u01cc\0\u01cc\0\u0a6c\0\u0a9a\0\u01cc\0\u01cc\0\u01cc\0\u0ac8"+
-    "\0\u01cc\0\u01cc\0\u0af6\0\u0b24\0\u0b52\0\u01cc";
+    "\0\0\0\57\0\57\0\136\0\215\0\57\0\57\0\57"+
+    "\0\57\0\57\0\57\0\274\0\353\0\u011a\0\u0149\0\57"+
+    "\0\u0178\0\57\0\u01a7\0\u01d6\0\57\0\57\0\u0205\0\u0234"+
+    "\0\u0263\0\u0292\0\u02c1\0\u02f0\0\u031f\0\u034e\0\u037d\0\u03ac"+
+    "\0\u03db\0\u040a\0\u0439\0\u0468\0\57\0\u0497\0\57\0\57"+
+    "\0\57\0\u04c6\0\57\0\57\0\57\0\u04f5\0\u0524\0\u0553"+
+    "\0\u0582\0\u01d6\0\u05b1\0\u05e0\0\u060f\0\u01d6\0\u01d6\0\u01d6"+
+    "\0\u063e\0\u066d\0\u069c\0\u06cb\0\u06fa\0\u0729\0\u0758\0\u0787"+
+    "\0\57\0\u07b6\0\u07e5\0\u0814\0\u0843\0\u0872\0\u08a1\0\u08d0"+
+    "\0\u01d6\0\u01d6\0\u08ff\0\u092e\0\u095d\0\u098c\0\u09bb\0\u09ea"+
+    "\0\u01d6\0\u0a19\0\u0a48\0\u0a77\0\u0aa6\0\u01d6\0\u0ad5\0\u0b04"+
+    "\0\u0b33\0\u01d6\0\u01d6\0\u0b62\0\u01d6\0\u01d6\0\u01d6\0\u01d6"+
+    "\0\u0b91\0\u0bc0\0\u01d6\0\u01d6\0\u0bef\0\u01d6\0\u01d6\0\u0c1e"+
+    "\0\u01d6\0\u01d6\0\u0c4d\0\u0c7c\0\u01d6\0\u0cab\0\u0cda\0\u01d6";
 
   private static int [] zzUnpackRowMap() {
-    int [] result = new int[102];
+    int [] result = new int[112];
     int offset = 0;
     offset = zzUnpackRowMap(ZZ_ROWMAP_PACKED_0, offset, result);
     return result;
@@ -187,66 +189,73 @@ public class Lexer implements java_cup.runtime.Scanner {
     "\1\20\1\21\1\22\1\23\1\24\1\25\1\26\1\27"+
     "\1\30\1\31\1\32\1\33\1\34\2\24\1\35\2\24"+
     "\1\36\1\37\1\40\1\41\1\42\1\24\1\43\1\44"+
-    "\1\24\1\45\1\46\60\0\1\3\76\0\1\47\47\0"+
-    "\1\50\56\0\1\51\56\0\1\16\61\0\1\52\55\0"+
-    "\1\53\55\0\1\54\51\0\1\24\5\0\1\24\2\0"+
-    "\24\24\21\0\1\24\5\0\1\24\2\0\15\24\1\55"+
-    "\6\24\21\0\1\24\5\0\1\24\2\0\4\24\1\56"+
-    "\17\24\21\0\1\24\5\0\1\24\2\0\1\57\12\24"+
-    "\1\60\10\24\21\0\1\24\5\0\1\24\2\0\13\24"+
-    "\1\61\10\24\21\0\1\24\5\0\1\24\2\0\11\24"+
-    "\1\62\1\63\11\24\21\0\1\24\5\0\1\24\2\0"+
-    "\13\24\1\64\10\24\21\0\1\24\5\0\1\24\2\0"+
-    "\5\24\1\65\16\24\21\0\1\24\5\0\1\24\2\0"+
-    "\3\24\1\66\1\24\1\67\16\24\21\0\1\24\5\0"+
-    "\1\24\2\0\15\24\1\70\6\24\21\0\1\24\5\0"+
-    "\1\24\2\0\4\24\1\71\17\24\21\0\1\24\5\0"+
-    "\1\24\2\0\20\24\1\72\3\24\21\0\1\24\5\0"+
-    "\1\24\2\0\7\24\1\73\13\24\1\74\21\0\1\24"+
-    "\5\0\1\24\2\0\1\75\23\24\21\0\1\24\5\0"+
-    "\1\24\2\0\7\24\1\76\5\24\1\77\6\24\2\0"+
-    "\2\51\1\0\1\51\2\0\50\51\17\0\1\24\5\0"+
-    "\1\24\2\0\15\24\1\100\6\24\21\0\1\24\5\0"+
-    "\1\24\2\0\6\24\1\101\15\24\21\0\1\24\5\0"+
-    "\1\24\2\0\11\24\1\102\12\24\21\0\1\24\5\0"+
-    "\1\24\2\0\12\24\1\103\11\24\21\0\1\24\5\0"+
-    "\1\24\2\0\16\24\1\104\5\24\21\0\1\24\5\0"+
-    "\1\24\2\0\3\24\1\105\20\24\21\0\1\24\5\0"+
-    "\1\24\2\0\15\24\1\106\6\24\21\0\1\24\5\0"+
-    "\1\24\2\0\4\24\1\107\6\24\1\110\10\24\21\0"+
-    "\1\24\5\0\1\24\2\0\1\111\23\24\21\0\1\24"+
-    "\5\0\1\24\2\0\2\24\1\112\21\24\21\0\1\24"+
-    "\5\0\1\24\2\0\4\24\1\113\17\24\21\0\1\24"+
-    "\5\0\1\24\2\0\14\24\1\114\7\24\21\0\1\24"+
-    "\5\0\1\24\2\0\15\24\1\115\6\24\21\0\1\24"+
-    "\5\0\1\24\2\0\10\24\1\116\13\24\21\0\1\24"+
-    "\5\0\1\24\2\0\10\24\1\117\13\24\21\0\1\24"+
-    "\5\0\1\24\2\0\1\120\23\24\21\0\1\24\5\0"+
-    "\1\24\2\0\10\24\1\121\13\24\21\0\1\24\5\0"+
-    "\1\24\2\0\11\24\1\122\12\24\21\0\1\24\5\0"+
-    "\1\24\2\0\16\24\1\123\5\24\21\0\1\24\5\0"+
-    "\1\24\2\0\4\24\1\124\17\24\21\0\1\24\5\0"+
-    "\1\24\2\0\3\24\1\125\20\24\21\0\1\24\5\0"+
-    "\1\24\2\0\2\24\1\126\21\24\21\0\1\24\5\0"+
-    "\1\24\2\0\3\24\1\127\20\24\21\0\1\24\5\0"+
-    "\1\24\2\0\2\24\1\130\21\24\21\0\1\24\5\0"+
-    "\1\24\2\0\12\24\1\131\11\24\21\0\1\24\5\0"+
-    "\1\24\2\0\4\24\1\132\17\24\21\0\1\24\5\0"+
-    "\1\24\2\0\11\24\1\133\12\24\21\0\1\24\5\0"+
-    "\1\24\2\0\17\24\1\134\4\24\21\0\1\24\5\0"+
-    "\1\24\2\0\23\24\1\135\21\0\1\24\5\0\1\24"+
-    "\2\0\12\24\1\136\11\24\21\0\1\24\5\0\1\24"+
-    "\2\0\17\24\1\137\4\24\21\0\1\24\5\0\1\24"+
-    "\2\0\4\24\1\140\17\24\21\0\1\24\5\0\1\24"+
-    "\2\0\4\24\1\141\17\24\21\0\1\24\5\0\1\24"+
-    "\2\0\4\24\1\142\17\24\21\0\1\24\5\0\1\24"+
-    "\2\0\3\24\1\143\20\24\21\0\1\24\5\0\1\24"+
-    "\2\0\20\24\1\144\3\24\21\0\1\24\5\0\1\24"+
-    "\2\0\15\24\1\145\6\24\21\0\1\24\5\0\1\24"+
-    "\2\0\4\24\1\146\17\24\2\0";
+    "\1\24\1\45\1\46\1\47\61\0\1\3\77\0\1\50"+
+    "\50\0\1\51\57\0\1\52\57\0\1\16\62\0\1\53"+
+    "\56\0\1\54\56\0\1\55\52\0\1\24\5\0\1\24"+
+    "\2\0\24\24\22\0\1\24\5\0\1\24\2\0\15\24"+
+    "\1\56\6\24\22\0\1\24\5\0\1\24\2\0\4\24"+
+    "\1\57\17\24\22\0\1\24\5\0\1\24\2\0\1\60"+
+    "\12\24\1\61\10\24\22\0\1\24\5\0\1\24\2\0"+
+    "\13\24\1\62\10\24\22\0\1\24\5\0\1\24\2\0"+
+    "\11\24\1\63\1\64\11\24\22\0\1\24\5\0\1\24"+
+    "\2\0\13\24\1\65\10\24\22\0\1\24\5\0\1\24"+
+    "\2\0\5\24\1\66\16\24\22\0\1\24\5\0\1\24"+
+    "\2\0\3\24\1\67\1\24\1\70\16\24\22\0\1\24"+
+    "\5\0\1\24\2\0\15\24\1\71\6\24\22\0\1\24"+
+    "\5\0\1\24\2\0\4\24\1\72\17\24\22\0\1\24"+
+    "\5\0\1\24\2\0\20\24\1\73\3\24\22\0\1\24"+
+    "\5\0\1\24\2\0\7\24\1\74\13\24\1\75\22\0"+
+    "\1\24\5\0\1\24\2\0\1\76\23\24\22\0\1\24"+
+    "\5\0\1\24\2\0\7\24\1\77\5\24\1\100\6\24"+
+    "\60\0\1\101\1\0\2\52\1\0\1\52\2\0\51\52"+
+    "\17\0\1\24\5\0\1\24\2\0\15\24\1\102\6\24"+
+    "\22\0\1\24\5\0\1\24\2\0\6\24\1\103\15\24"+
+    "\22\0\1\24\5\0\1\24\2\0\11\24\1\104\12\24"+
+    "\22\0\1\24\5\0\1\24\2\0\1\24\1\105\2\24"+
+    "\1\106\5\24\1\107\11\24\22\0\1\24\5\0\1\24"+
+    "\2\0\16\24\1\110\5\24\22\0\1\24\5\0\1\24"+
+    "\2\0\3\24\1\111\20\24\22\0\1\24\5\0\1\24"+
+    "\2\0\15\24\1\112\6\24\22\0\1\24\5\0\1\24"+
+    "\2\0\4\24\1\113\6\24\1\114\10\24\22\0\1\24"+
+    "\5\0\1\24\2\0\1\115\23\24\22\0\1\24\5\0"+
+    "\1\24\2\0\2\24\1\116\21\24\22\0\1\24\5\0"+
+    "\1\24\2\0\4\24\1\117\17\24\22\0\1\24\5\0"+
+    "\1\24\2\0\14\24\1\120\7\24\22\0\1\24\5\0"+
+    "\1\24\2\0\15\24\1\121\6\24\22\0\1\24\5\0"+
+    "\1\24\2\0\10\24\1\122\13\24\22\0\1\24\5\0"+
+    "\1\24\2\0\10\24\1\123\13\24\22\0\1\24\5\0"+
+    "\1\24\2\0\1\124\23\24\22\0\1\24\5\0\1\24"+
+    "\2\0\10\24\1\125\13\24\22\0\1\24\5\0\1\24"+
+    "\2\0\11\24\1\126\12\24\22\0\1\24\5\0\1\24"+
+    "\2\0\4\24\1\127\17\24\22\0\1\24\5\0\1\24"+
+    "\2\0\12\24\1\130\11\24\22\0\1\24\5\0\1\24"+
+    "\2\0\16\24\1\131\5\24\22\0\1\24\5\0\1\24"+
+    "\2\0\4\24\1\132\17\24\22\0\1\24\5\0\1\24"+
+    "\2\0\3\24\1\133\20\24\22\0\1\24\5\0\1\24"+
+    "\2\0\2\24\1\134\21\24\22\0\1\24\5\0\1\24"+
+    "\2\0\3\24\1\135\20\24\22\0\1\24\5\0\1\24"+
+    "\2\0\2\24\1\136\21\24\22\0\1\24\5\0\1\24"+
+    "\2\0\12\24\1\137\11\24\22\0\1\24\5\0\1\24"+
+    "\2\0\4\24\1\140\17\24\22\0\1\24\5\0\1\24"+
+    "\2\0\11\24\1\141\12\24\22\0\1\24\5\0\1\24"+
+    "\2\0\17\24\1\142\4\24\22\0\1\24\5\0\1\24"+
+    "\2\0\23\24\1\143\22\0\1\24\5\0\1\24\2\0"+
+    "\12\24\1\144\11\24\22\0\1\24\5\0\1\24\2\0"+
+    "\6\24\1\145\15\24\22\0\1\24\5\0\1\24\2\0"+
+    "\3\24\1\146\20\24\22\0\1\24\5\0\1\24\2\0"+
+    "\17\24\1\147\4\24\22\0\1\24\5\0\1\24\2\0"+
+    "\4\24\1\150\17\24\22\0\1\24\5\0\1\24\2\0"+
+    "\4\24\1\151\17\24\22\0\1\24\5\0\1\24\2\0"+
+    "\4\24\1\152\17\24\22\0\1\24\5\0\1\24\2\0"+
+    "\10\24\1\153\13\24\22\0\1\24\5\0\1\24\2\0"+
+    "\3\24\1\154\20\24\22\0\1\24\5\0\1\24\2\0"+
+    "\12\24\1\155\11\24\22\0\1\24\5\0\1\24\2\0"+
+    "\20\24\1\156\3\24\22\0\1\24\5\0\1\24\2\0"+
+    "\15\24\1\157\6\24\22\0\1\24\5\0\1\24\2\0"+
+    "\4\24\1\160\17\24\3\0";
 
   private static int [] zzUnpackTrans() {
-    int [] result = new int[2944];
+    int [] result = new int[3337];
     int offset = 0;
     offset = zzUnpackTrans(ZZ_TRANS_PACKED_0, offset, result);
     return result;
@@ -290,10 +299,11 @@ public class Lexer implements java_cup.runtime.Scanner {
 
   private static final String ZZ_ATTRIBUTE_PACKED_0 =
     "\1\0\2\11\2\1\6\11\4\1\1\11\1\1\1\11"+
-    "\2\1\2\11\16\1\4\11\1\1\3\11\72\1";
+    "\2\1\2\11\16\1\1\11\1\1\3\11\1\1\3\11"+
+    "\23\1\1\11\57\1";
 
   private static int [] zzUnpackAttribute() {
-    int [] result = new int[102];
+    int [] result = new int[112];
     int offset = 0;
     offset = zzUnpackAttribute(ZZ_ATTRIBUTE_PACKED_0, offset, result);
     return result;
@@ -820,47 +830,47 @@ public class Lexer implements java_cup.runtime.Scanner {
             { return makeToken(CUPToken.ILLEGAL);
             }
             // fall through
-          case 47: break;
+          case 50: break;
           case 2:
             { /* ignore white space */
             }
             // fall through
-          case 48: break;
+          case 51: break;
           case 3:
             { return makeToken(CUPToken.LPAREN);
             }
             // fall through
-          case 49: break;
+          case 52: break;
           case 4:
             { return makeToken(CUPToken.RPAREN);
             }
             // fall through
-          case 50: break;
+          case 53: break;
           case 5:
             { return makeToken(CUPToken.TIMES);
             }
             // fall through
-          case 51: break;
+          case 54: break;
           case 6:
             { return makeToken(CUPToken.PLUS);
             }
             // fall through
-          case 52: break;
+          case 55: break;
           case 7:
             { return makeToken(CUPToken.COMMA);
             }
             // fall through
-          case 53: break;
+          case 56: break;
           case 8:
             { return makeToken(CUPToken.MINUS);
             }
             // fall through
-          case 54: break;
+          case 57: break;
           case 9:
             { return makeToken(CUPToken.DIVIDE);
             }
             // fall through
-          case 55: break;
+          case 58: break;
           case 10:
             { int value = 0x80808080; // Nonsense value
       try {
@@ -874,189 +884,204 @@ public class Lexer implements java_cup.runtime.Scanner {
       return makeToken(CUPToken.NUMBER, new Integer(value));
             }
             // fall through
-          case 56: break;
+          case 59: break;
           case 11:
             { return makeToken(CUPToken.COLON);
             }
             // fall through
-          case 57: break;
+          case 60: break;
           case 12:
             { return makeToken(CUPToken.SEMICOLON);
             }
             // fall through
-          case 58: break;
+          case 61: break;
           case 13:
             { return makeToken(CUPToken.LESS);
             }
             // fall through
-          case 59: break;
+          case 62: break;
           case 14:
             { return makeToken(CUPToken.EQUALS);
             }
             // fall through
-          case 60: break;
+          case 63: break;
           case 15:
             { return makeToken(CUPToken.GREATER);
             }
             // fall through
-          case 61: break;
+          case 64: break;
           case 16:
             { return makeToken(CUPToken.IDENTIFIER, yytext());
             }
             // fall through
-          case 62: break;
+          case 65: break;
           case 17:
             { return makeToken(CUPToken.LBRACKET);
             }
             // fall through
-          case 63: break;
+          case 66: break;
           case 18:
             { return makeToken(CUPToken.RBRACKET);
             }
             // fall through
-          case 64: break;
+          case 67: break;
           case 19:
             { return makeToken(CUPToken.LCURLY);
             }
             // fall through
-          case 65: break;
+          case 68: break;
           case 20:
             { return makeToken(CUPToken.RCURLY);
             }
             // fall through
-          case 66: break;
+          case 69: break;
           case 21:
             { return makeToken(CUPToken.NEQUALS);
             }
             // fall through
-          case 67: break;
+          case 70: break;
           case 22:
             { return makeToken(CUPToken.RANGE);
             }
             // fall through
-          case 68: break;
+          case 71: break;
           case 23:
             { /* ignore comment - an empty action causes the lexical analyser
        * to skip the matched characters in the input and then start
        * scanning for a token from the next character. */
             }
             // fall through
-          case 69: break;
+          case 72: break;
           case 24:
             { return makeToken(CUPToken.ASSIGN);
             }
             // fall through
-          case 70: break;
+          case 73: break;
           case 25:
             { return makeToken(CUPToken.LEQUALS);
             }
             // fall through
-          case 71: break;
+          case 74: break;
           case 26:
             { return makeToken(CUPToken.GEQUALS);
             }
             // fall through
-          case 72: break;
+          case 75: break;
           case 27:
             { return makeToken(CUPToken.KW_DO);
             }
             // fall through
-          case 73: break;
+          case 76: break;
           case 28:
             { return makeToken(CUPToken.KW_IF);
             }
             // fall through
-          case 74: break;
+          case 77: break;
           case 29:
             { return makeToken(CUPToken.KW_OD);
             }
             // fall through
-          case 75: break;
+          case 78: break;
           case 30:
             { return makeToken(CUPToken.KW_OF);
             }
             // fall through
-          case 76: break;
+          case 79: break;
           case 31:
-            { return makeToken(CUPToken.KW_END);
+            { return makeToken(CUPToken.PARALLEL);
             }
             // fall through
-          case 77: break;
+          case 80: break;
           case 32:
-            { return makeToken(CUPToken.KW_FOR);
+            { return makeToken(CUPToken.KW_END);
             }
             // fall through
-          case 78: break;
+          case 81: break;
           case 33:
-            { return makeToken(CUPToken.KW_VAR);
+            { return makeToken(CUPToken.KW_FOR);
             }
             // fall through
-          case 79: break;
+          case 82: break;
           case 34:
-            { return makeToken(CUPToken.KW_CALL);
+            { return makeToken(CUPToken.KW_VAR);
             }
             // fall through
-          case 80: break;
+          case 83: break;
           case 35:
-            { return makeToken(CUPToken.KW_ELSE);
+            { return makeToken(CUPToken.KW_CALL);
             }
             // fall through
-          case 81: break;
+          case 84: break;
           case 36:
-            { return makeToken(CUPToken.KW_PRED);
+            { return makeToken(CUPToken.KW_ELSE);
             }
             // fall through
-          case 82: break;
+          case 85: break;
           case 37:
-            { return makeToken(CUPToken.KW_READ);
+            { return makeToken(CUPToken.KW_PRED);
             }
             // fall through
-          case 83: break;
+          case 86: break;
           case 38:
-            { return makeToken(CUPToken.KW_SUCC);
+            { return makeToken(CUPToken.KW_READ);
             }
             // fall through
-          case 84: break;
+          case 87: break;
           case 39:
-            { return makeToken(CUPToken.KW_THEN);
+            { return makeToken(CUPToken.KW_SUCC);
             }
             // fall through
-          case 85: break;
+          case 88: break;
           case 40:
-            { return makeToken(CUPToken.KW_TYPE);
+            { return makeToken(CUPToken.KW_THEN);
             }
             // fall through
-          case 86: break;
+          case 89: break;
           case 41:
-            { return makeToken(CUPToken.KW_ARRAY);
+            { return makeToken(CUPToken.KW_TYPE);
             }
             // fall through
-          case 87: break;
+          case 90: break;
           case 42:
-            { return makeToken(CUPToken.KW_BEGIN);
+            { return makeToken(CUPToken.KW_ARRAY);
             }
             // fall through
-          case 88: break;
+          case 91: break;
           case 43:
-            { return makeToken(CUPToken.KW_CONST);
+            { return makeToken(CUPToken.KW_BEGIN);
             }
             // fall through
-          case 89: break;
+          case 92: break;
           case 44:
-            { return makeToken(CUPToken.KW_WHILE);
+            { return makeToken(CUPToken.KW_COEND);
             }
             // fall through
-          case 90: break;
+          case 93: break;
           case 45:
-            { return makeToken(CUPToken.KW_WRITE);
+            { return makeToken(CUPToken.KW_CONST);
             }
             // fall through
-          case 91: break;
+          case 94: break;
           case 46:
+            { return makeToken(CUPToken.KW_WHILE);
+            }
+            // fall through
+          case 95: break;
+          case 47:
+            { return makeToken(CUPToken.KW_WRITE);
+            }
+            // fall through
+          case 96: break;
+          case 48:
+            { return makeToken(CUPToken.KW_COBEGIN);
+            }
+            // fall through
+          case 97: break;
+          case 49:
             { return makeToken(CUPToken.KW_PROCEDURE);
             }
             // fall through
-          case 92: break;
+          case 98: break;
           default:
             zzScanError(ZZ_NO_MATCH);
         }
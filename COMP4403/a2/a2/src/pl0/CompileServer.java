@@ -0,0 +1,285 @@
+package pl0;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import syms.SymbolTable;
+
+/**
+ * class CompileServer - a long-lived PL0 compiler that compiles and runs
+ * programs on request, so that each request avoids starting a JVM,
+ * loading the parser tables and lexer, and running the compiler and
+ * stack machine before they are compiled by the JIT.
+ * <p>
+ * Usage: java pl0.CompileServer [-port n]
+ * <p>
+ * Requests are read a line at a time from the standard input or, with
+ * -port, from connections to that port on the local host. A request is
+ * <ul>
+ * <li>the arguments of PL0_LALR, optionally followed by "&lt;file" to
+ * take the input of the program from a file, to compile and run a
+ * program, with the output PL0_LALR would write;</li>
+ * <li>"stats", for the number of requests, their latency as the server
+ * warms up, the classes loaded and the time spent by the JIT;</li>
+ * <li>"quit", to end the session, which for the standard input stops
+ * the server; or</li>
+ * <li>"shutdown", to stop the server.</li>
+ * </ul>
+ * The response to each request ends with the line
+ * <pre>
+ *     #end n t
+ * </pre>
+ * where n is the number of the request and t its latency in milliseconds.
+ * A program's input is empty unless it is given, as the standard input
+ * carries the requests.
+ * <p>
+ * Each request has a compiler of its own, with its own flags. As the
+ * error handler is shared, requests are compiled one at a time, and the
+ * error handler is reset for each. The parser tables are loaded once,
+ * and the predefined scope of the symbol table is shared by the programs,
+ * which each add their main program to an extension of it.
+ */
+public class CompileServer {
+    private static final String USAGE = "Usage: java pl0.CompileServer [-port n]";
+    private static final String PROGRAM_NAME = "pl0.PL0_LALR";
+    /**
+     * Number of most recent requests whose mean latency is reported,
+     * which shows the latency once the server has warmed up
+     */
+    private static final int RECENT = 16;
+
+    /**
+     * Failure of a request that abandons it
+     */
+    private static class AbortException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        AbortException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Compiler for a single request, which abandons the request rather
+     * than exiting on a failure
+     */
+    private static class RequestCompiler extends PL0_LALR {
+        @Override
+        protected void abort(String message) {
+            throw new AbortException(message);
+        }
+    }
+
+    private final SymbolTable symbolTable = new SymbolTable();
+    private final long started = System.nanoTime();
+    /**
+     * Latency of each request compiled, in nanoseconds
+     */
+    private final List<Long> latencies = new ArrayList<>();
+    private volatile boolean running = true;
+
+    /**
+     * Serve the requests of a session until it ends
+     *
+     * @return whether the session ended the server
+     */
+    private boolean serve(BufferedReader requests, PrintStream out) throws IOException {
+        String line;
+        while (running && (line = requests.readLine()) != null) {
+            String[] args = line.trim().split("\\s+");
+            if (args[0].isEmpty()) {
+                continue;
+            }
+            switch (args[0]) {
+                case "quit":
+                    return false;
+                case "shutdown":
+                    running = false;
+                    return true;
+                case "stats":
+                    synchronized (this) {
+                        printStatistics(out);
+                        out.println("#end " + latencies.size() + " 0.000");
+                    }
+                    break;
+                default:
+                    synchronized (this) {
+                        long start = System.nanoTime();
+                        compile(args, out);
+                        long latency = System.nanoTime() - start;
+                        latencies.add(latency);
+                        out.printf("#end %d %.3f%n", latencies.size(), latency / 1e6);
+                    }
+            }
+            out.flush();
+        }
+        return false;
+    }
+
+    /**
+     * Compile and run a program, as PL0_LALR would with the arguments
+     */
+    private void compile(String[] args, PrintStream out) {
+        InputStream input = new ByteArrayInputStream(new byte[0]);
+        try {
+            String inputFile = null;
+            if (args.length > 1 && args[args.length - 1].startsWith("<")) {
+                inputFile = args[args.length - 1].substring(1);
+                args = Arrays.copyOf(args, args.length - 1);
+            }
+            RequestCompiler compiler = new RequestCompiler();
+            compiler.setSymbolTable(symbolTable);
+            String srcFile = compiler.parseFlags(args, PROGRAM_NAME, out);
+            if (srcFile == null) {
+                return;
+            }
+            if (!new File(srcFile).canRead()) {
+                out.println("Unable to open source file " + srcFile);
+                return;
+            }
+            if (inputFile != null) {
+                input = new FileInputStream(inputFile);
+            }
+            compiler.run(new File(srcFile), out, input);
+        } catch (AbortException e) {
+            out.println(e.getMessage());
+        } catch (IOException e) {
+            out.println("Unable to open input file: " + e.getMessage());
+        } catch (Exception | Error e) {
+            /* Including fatal errors from the error handler */
+            out.println("Request failed: " + e);
+        } finally {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // nothing more to report
+            }
+        }
+    }
+
+    /**
+     * Print the statistics of the requests compiled so far
+     */
+    private void printStatistics(PrintStream out) {
+        out.printf("uptime %.3f s%n", (System.nanoTime() - started) / 1e9);
+        out.println("requests " + latencies.size());
+        if (!latencies.isEmpty()) {
+            long total = 0;
+            long min = Long.MAX_VALUE;
+            long max = 0;
+            for (long latency : latencies) {
+                total += latency;
+                min = Math.min(min, latency);
+                max = Math.max(max, latency);
+            }
+            out.printf("first request %.3f ms%n", latencies.get(0) / 1e6);
+            out.printf("latency mean %.3f ms, min %.3f ms, max %.3f ms%n",
+                    total / 1e6 / latencies.size(), min / 1e6, max / 1e6);
+            List<Long> recent = latencies.subList(
+                    Math.max(0, latencies.size() - RECENT), latencies.size());
+            long recentTotal = 0;
+            for (long latency : recent) {
+                recentTotal += latency;
+            }
+            out.printf("latency mean of last %d %.3f ms%n", recent.size(),
+                    recentTotal / 1e6 / recent.size());
+        }
+        out.println("classes loaded " +
+                ManagementFactory.getClassLoadingMXBean().getLoadedClassCount());
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        if (jit != null && jit.isCompilationTimeMonitoringSupported()) {
+            out.println("JIT compilation " + jit.getTotalCompilationTime() + " ms");
+        }
+    }
+
+    /**
+     * Serve requests on the standard input
+     */
+    private void serveStandardInput() throws IOException {
+        BufferedReader requests = new BufferedReader(new InputStreamReader(System.in));
+        serve(requests, System.out);
+    }
+
+    /**
+     * Serve the requests of each connection to a port of the local host
+     * on a thread of its own
+     */
+    private void serveSocket(int port) throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.out.println("Listening on port " + server.getLocalPort());
+            int localPort = server.getLocalPort();
+            while (running) {
+                Socket socket = server.accept();
+                if (!running) {
+                    /* Woken by the session that stopped the server */
+                    socket.close();
+                    break;
+                }
+                Thread session = new Thread(() -> {
+                    try (Socket s = socket;
+                         OutputStream output = s.getOutputStream()) {
+                        BufferedReader requests = new BufferedReader(
+                                new InputStreamReader(s.getInputStream()));
+                        if (serve(requests, new PrintStream(output, false))) {
+                            /* Wake the server from accepting connections,
+                             * so that it stops */
+                            new Socket(InetAddress.getLoopbackAddress(), localPort).close();
+                        }
+                    } catch (IOException e) {
+                        // the connection failed; others are unaffected
+                    }
+                });
+                session.start();
+            }
+        } catch (IOException e) {
+            if (running) {
+                throw e;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = -1;
+        try {
+            if (args.length == 2 && args[0].equals("-port")) {
+                port = Integer.parseInt(args[1]);
+            } else if (args.length != 0) {
+                port = -2;
+            }
+        } catch (NumberFormatException e) {
+            port = -2;
+        }
+        if (port < -1) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        CompileServer server = new CompileServer();
+        try {
+            if (port < 0) {
+                server.serveStandardInput();
+            } else {
+                server.serveSocket(port);
+            }
+        } catch (IOException e) {
+            System.err.println("Compile server failed: " + e.getMessage());
+            System.exit(1);
+        }
+        /* Programs forked by cobegin may still be running */
+        System.exit(0);
+    }
+}
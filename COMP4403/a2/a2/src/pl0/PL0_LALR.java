@@ -1,17 +1,27 @@
 package pl0;
 
 import java_cup.runtime.ComplexSymbolFactory;
+import jvm.JvmGenerator;
+import jvm.JvmProgram;
 import machine.StackMachine;
 import parse.CUPParser;
+import source.CoverageListing;
+import source.ErrorHandler;
 import source.Errors;
 import source.Source;
+import syms.SymbolTable;
 import tree.CodeGenerator;
+import tree.DeadCodeEliminator;
 import tree.DeclNode;
 import tree.Procedures;
+import tree.StreamingCompiler;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * class PL0_LALR - PL0 Compiler with JavaCUP generated parser.
@@ -24,6 +34,41 @@ public class PL0_LALR extends Runner {
      * Name of the program being executed - used for usage
      **/
     private static final String PROGRAM_NAME = "pl0.PL0_LALR";
+    /**
+     * Suffix of the file a binary trace is recorded in
+     **/
+    private static final String TRACE_SUFFIX = ".trace";
+    /**
+     * Number of records kept when recording only the end of the trace
+     **/
+    private static final int TRACE_RING_RECORDS = 1_000_000;
+    /**
+     * Suffix of the file a program compiled to the JVM is written in
+     **/
+    private static final String JAR_SUFFIX = ".jar";
+
+    /**
+     * Compiler of each procedure as it is parsed, if compiling with
+     * the streaming flag, otherwise null
+     **/
+    private StreamingCompiler streaming = null;
+    /**
+     * File to record a binary trace of execution in
+     **/
+    private Path traceFile = null;
+    /**
+     * Name of the class of the program compiled to the JVM
+     **/
+    private String className = null;
+    /**
+     * Source of the program, for the coverage listing
+     **/
+    private Source source = null;
+    /**
+     * Symbol table whose predefined scope is shared by the programs
+     * compiled, or null for a symbol table of the program's own
+     **/
+    private SymbolTable symbolTable = null;
 
     public PL0_LALR() {
         /* Setup the command line configuration flags */
@@ -31,6 +76,26 @@ public class PL0_LALR extends Runner {
         configurations.put('v', new Option("output of generated code", false));
         configurations.put('g', new Option("turn code generation off", false));
         configurations.put('e', new Option("turn stack machine execution off", false));
+        configurations.put('b', new Option("batch input and output of read and write", false));
+        configurations.put('O', new Option("optimise code through the intermediate representation", false));
+        configurations.put('p', new Option("generate code for procedures in parallel", false));
+        configurations.put('c', new Option("compile each procedure as soon as it is parsed", false));
+        configurations.put('f', new Option("verify the code and execute it without stack checks", false));
+        configurations.put('r', new Option("verify the code and execute it caching the top of the stack", false));
+        configurations.put('T', new Option("record a binary trace of execution in <program>" + TRACE_SUFFIX, false));
+        configurations.put('L', new Option("with -T, record only the last " + TRACE_RING_RECORDS + " trace records", false));
+        configurations.put('u', new Option("remove unused procedures, variables and assignments (overrides -c; with -j the code size is not reported)", false));
+        configurations.put('C', new Option("list the number of times each source line is executed (overrides -O)", false));
+        configurations.put('j', new Option("compile to a JVM class and run it instead of the stack machine (overrides -c)", false));
+        configurations.put('J', new Option("with -j, also write the class as a runnable <program>" + JAR_SUFFIX, false));
+    }
+
+    /**
+     * Share the predefined scope of a symbol table, rather than building
+     * it for the program. It is not changed by compiling the program.
+     */
+    public void setSymbolTable(SymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
     }
 
     @Override
@@ -39,23 +104,34 @@ public class PL0_LALR extends Runner {
          * StatementNode.ProcedureNode but the parser generator doesn't know that. */
         Object parseResult;
 
-        ComplexSymbolFactory csf = new ComplexSymbolFactory();
-        /* Set up the lexical analyzer using the source program stream */
-        parse.Lexer lex = new parse.Lexer(src, csf);
-        /* Generated parser.
-         * Set up the parser with the lexical analyzer. */
-        CUPParser parser = new CUPParser(lex, csf);
+        source = src;
+        String name = new File(src.getFileName()).getName();
+        if (name.endsWith(".pl0")) {
+            name = name.substring(0, name.length() - ".pl0".length());
+        }
+        if (isFlagSet('T')) {
+            /* The trace is recorded in the current directory */
+            traceFile = Paths.get(name + TRACE_SUFFIX);
+        }
+        className = JvmProgram.className(name);
+        /* Streaming compilation checks each procedure as it is parsed */
+        if (isFlagSet('c') && !isFlagSet('s') && !isFlagSet('u') && !isFlagSet('j')) {
+            streaming = new StreamingCompiler(ErrorHandler.getErrorHandler(),
+                    optimising());
+        }
         try {
-            if (isFlagSet('d')) {
-                /* Parse the source with debugging on */
-                parseResult = parser.debug_parse().value;
-            } else {
-                /* Parse the source with no debugging */
-                parseResult = parser.parse().value;
+            parseResult = runParser(src);
+            if (streaming != null && streaming.mustRecompile()) {
+                /* A procedure was compiled before a declaration hid an
+                 * entry it used, and its syntax tree has been released,
+                 * so the program is parsed again and compiled as a whole.
+                 * The errors reported so far are reported again. */
+                streaming = null;
+                ((ErrorHandler) ErrorHandler.getErrorHandler()).discardErrors();
+                parseResult = runParser(new Source(src.getFileName()));
             }
         } catch (Exception e) {
-            System.out.println("Exception: " + e + "... Aborting");
-            System.exit(1);
+            abort("Exception: " + e + "... Aborting");
             return null;
         }
         if (parseResult instanceof DeclNode.ProcedureNode) {
@@ -66,12 +142,59 @@ public class PL0_LALR extends Runner {
         }
     }
 
+    /**
+     * Parse the source, handing each procedure to the streaming compiler
+     * if there is one
+     *
+     * @return the abstract syntax tree returned by the parser
+     */
+    private Object runParser(Source src) throws Exception {
+        ComplexSymbolFactory csf = new ComplexSymbolFactory();
+        /* Set up the lexical analyzer using the source program stream */
+        parse.Lexer lex = new parse.Lexer(src, csf);
+        /* Generated parser.
+         * Set up the parser with the lexical analyzer. */
+        CUPParser parser = new CUPParser(lex, csf);
+        parser.setSymbolTable(symbolTable);
+        parser.setStreamingCompiler(streaming);
+        if (isFlagSet('d')) {
+            /* Parse the source with debugging on */
+            return parser.debug_parse().value;
+        } else {
+            /* Parse the source with no debugging */
+            return parser.parse().value;
+        }
+    }
+
+    @Override
+    protected boolean staticCheck(DeclNode.ProcedureNode tree) {
+        if (streaming != null) {
+            /* Each procedure has been checked as it was parsed */
+            return !ErrorHandler.getErrorHandler().hadErrors();
+        }
+        return super.staticCheck(tree);
+    }
+
+    /**
+     * Optimised code has no line table, so it is not optimised when
+     * listing coverage
+     */
+    private boolean optimising() {
+        return isFlagSet('O') && !isFlagSet('C');
+    }
+
     /**
      * Compile the abstract syntax tree into procedures to execute
      * in the stack machine
      */
     private Procedures compile(DeclNode.ProcedureNode tree, Errors errors) {
-        CodeGenerator generator = new CodeGenerator(errors);
+        if (streaming != null) {
+            /* Each procedure has been compiled as it was parsed */
+            return streaming.getProcedures();
+        }
+        CodeGenerator generator = new CodeGenerator(errors, optimising());
+        /* Debugging messages from concurrent procedures would be interleaved */
+        generator.setParallel(isFlagSet('p') && !isFlagSet('d'));
         return generator.generateCode(tree);
     }
 
@@ -82,9 +205,25 @@ public class PL0_LALR extends Runner {
         if (isFlagSet('g')) {
             return false;
         }
+        if (isFlagSet('j')) {
+            return executeJvm(tree, input, output, errors);
+        }
+
+        DeadCodeEliminator eliminator = null;
+        int sizeBefore = 0;
+        if (isFlagSet('u')) {
+            /* The code is generated before elimination only to compare its size */
+            sizeBefore = compile(tree, errors).getCodeSize();
+            eliminator = new DeadCodeEliminator(errors);
+            eliminator.eliminate(tree);
+        }
 
         /* Compile syntax tree to code */
         Procedures code = compile(tree, errors);
+        if (eliminator != null && code != null) {
+            output.println(eliminator.getReport());
+            output.println("Code size " + sizeBefore + " -> " + code.getCodeSize() + " words");
+        }
         output.println("Code generation complete");
 
         if (code != null) { /* run it if possible */
@@ -95,11 +234,35 @@ public class PL0_LALR extends Runner {
 
             /* Run compiled code on stack machine */
             StackMachine machine = new StackMachine(errors, output,
-                    isFlagSet('v'), code);
+                    isFlagSet('v'), code, input);
+            /* Verified code is not run if it fails verification */
+            if ((isFlagSet('f') || isFlagSet('r')) && !machine.verify()) {
+                return true;
+            }
+            machine.setCaching(isFlagSet('r'));
             output.println("Running ...");
             machine.setTracing(isFlagSet('t') ? StackMachine.TRACE_ALL
                     : StackMachine.TRACE_NONE);
+            machine.setBatchIO(isFlagSet('b'));
+            if (isFlagSet('T')) {
+                try {
+                    machine.setRecorder(traceFile,
+                            isFlagSet('L') ? TRACE_RING_RECORDS : 0);
+                } catch (IOException e) {
+                    errors.error("Cannot record trace in " + traceFile + ": " +
+                            e.getMessage(), ErrorHandler.NO_LOCATION);
+                    errors.flush();
+                    return true;
+                }
+            }
+            machine.setCoverage(isFlagSet('C'));
             machine.run();
+            if (isFlagSet('C')) {
+                CoverageListing listing = new CoverageListing(source);
+                machine.addCoverage(listing);
+                output.println();
+                listing.print(output);
+            }
 
             return true;
         }
@@ -108,6 +271,44 @@ public class PL0_LALR extends Runner {
         return false;
     }
 
+    /**
+     * Compile the abstract syntax tree to a JVM class and run it in this
+     * JVM, instead of on the stack machine, first removing dead code if
+     * asked to
+     */
+    private boolean executeJvm(DeclNode.ProcedureNode tree, InputStream input,
+                               PrintStream output, Errors errors) {
+        if (isFlagSet('u')) {
+            /* There is no stack machine code whose size to compare */
+            DeadCodeEliminator eliminator = new DeadCodeEliminator(errors);
+            eliminator.eliminate(tree);
+            output.println(eliminator.getReport());
+        }
+        JvmProgram program = new JvmGenerator(errors).generate(tree, className);
+        output.println("Code generation complete");
+        if (program == null) {
+            errors.flush();
+            return false;
+        }
+        if (isFlagSet('J')) {
+            Path jar = Paths.get(className + JAR_SUFFIX);
+            try {
+                program.writeJar(jar);
+            } catch (IOException e) {
+                errors.error("Cannot write " + jar + ": " + e.getMessage(),
+                        ErrorHandler.NO_LOCATION);
+                errors.flush();
+                return true;
+            }
+        }
+        if (isFlagSet('e')) {
+            return true;
+        }
+        output.println("Running ...");
+        program.run(input, output);
+        return true;
+    }
+
     /**
      * PL0 LALR main procedure
      */
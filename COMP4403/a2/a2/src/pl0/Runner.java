@@ -88,7 +88,7 @@ public abstract class Runner {
      * @param tree the abstract syntax tree to analyse
      * @return true iff the static check had no errors
      */
-    private boolean staticCheck(DeclNode.ProcedureNode tree) {
+    protected boolean staticCheck(DeclNode.ProcedureNode tree) {
         Errors errors = ErrorHandler.getErrorHandler();
 
         /* Perform static analysis on the abstract syntax tree */
@@ -146,6 +146,17 @@ public abstract class Runner {
      * @param outStream stream to output the result of running the program to
      */
     public void run(File srcFile, PrintStream outStream) {
+        run(srcFile, outStream, System.in);
+    }
+
+    /**
+     * Compile and run a source PL0 file
+     *
+     * @param srcFile   the source PL0 file
+     * @param outStream stream to output the result of running the program to
+     * @param input     input of the program
+     */
+    public void run(File srcFile, PrintStream outStream, InputStream input) {
         Source source = openSource(srcFile);
 
         /* Failed to open source file, stop running */
@@ -178,7 +189,7 @@ public abstract class Runner {
 
         if (tree != null) {
             /* Execute the abstract syntax tree */
-            if (!execute(tree, System.in, outStream, errors)) {
+            if (!execute(tree, input, outStream, errors)) {
                 return;
             }
             outStream.println("\nTerminated");
@@ -188,7 +199,9 @@ public abstract class Runner {
     }
 
     /**
-     * Parse arguments and set run configuration flags accordingly.
+     * Parse arguments and set run configuration flags accordingly,
+     * exiting after printing the usage instructions if requested, or
+     * if there is no source file.
      *
      * @param args        list of arguments to a program
      * @param programName Name of the program - used for usage instructions
@@ -197,6 +210,28 @@ public abstract class Runner {
      */
     String parseArguments(String[] args, String programName,
                           PrintStream outStream) {
+        String srcFile = parseFlags(args, programName, outStream);
+        if (isFlagSet('h')) {
+            System.exit(0);
+        }
+        if (srcFile == null) {
+            System.exit(1);
+        }
+        return srcFile;
+    }
+
+    /**
+     * Parse arguments and set run configuration flags accordingly,
+     * printing the usage instructions if requested.
+     *
+     * @param args        list of arguments to a program
+     * @param programName Name of the program - used for usage instructions
+     * @param outStream   stream to output errors to
+     * @return Name of the file passed as an argument, or null if there is
+     * none or the usage instructions were printed
+     */
+    String parseFlags(String[] args, String programName,
+                      PrintStream outStream) {
         /* Name of the input source program file. */
         String srcFile = null;
 
@@ -227,16 +262,27 @@ public abstract class Runner {
         if (isFlagSet('h')) {
             /* Output help message */
             outStream.println(usage(programName));
-            System.exit(0);
+            return null;
         }
 
         if (srcFile == null) {
             outStream.println("No source file specified.");
-            System.exit(1);
         }
 
         return srcFile;
     }
+
+    /**
+     * Abandon compiling after an unexpected failure, such as an exception
+     * from the parser. The command line compiler exits; a compiler
+     * serving many requests abandons only the current one.
+     *
+     * @param message describing the failure
+     */
+    protected void abort(String message) {
+        System.out.println(message);
+        System.exit(1);
+    }
 }
 
 
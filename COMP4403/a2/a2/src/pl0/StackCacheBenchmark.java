@@ -0,0 +1,189 @@
+package pl0;
+
+import machine.StackMachine;
+import source.ErrorHandler;
+import source.Source;
+import tree.CodeGenerator;
+import tree.DeclNode;
+import tree.Procedures;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * class StackCacheBenchmark - compares the running time and the memory
+ * traffic of programs executed by the stack machine with checking on every
+ * push and pop, with verified code (-f), and with verified code and the top
+ * of the stack cached (-r).
+ * <p>
+ * Usage: java pl0.StackCacheBenchmark [-c] [-n runs] [program.pl0 ...]
+ * <p>
+ * By default the expression-heavy programs in test-pgm/bench are run.
+ * Each program is first run a few times in each mode without being timed,
+ * and then the given number of times in each mode, and the fastest time is
+ * reported. The warm-up matters most for -r: its loop is the largest and
+ * is recompiled by the JIT as instructions and cache states it has not
+ * seen before turn up, so over the first few runs it can take twice as
+ * long as -f.
+ * <p>
+ * Caching the top of the stack removes around 90% of the stack traffic,
+ * which pays off where each access to the memory array is costly: run
+ * interpreted (java -Xint) -r takes around two thirds of the time of -f
+ * on these programs. Once HotSpot has compiled both loops, though, the
+ * accesses to the array are cheap and the tests of how many words are
+ * cached cost more than they save, so -r runs around 5-15% slower than
+ * -f. Use -f for speed on a JIT compiling JVM; -r is for interpreting
+ * JVMs and for studying the stack traffic with -c.
+ * <p>
+ * With -c the words read from and written to the stack in memory are also
+ * counted, which slows execution. The verified loop reads and writes the
+ * stack exactly as the checked loop does, so its traffic is not counted.
+ */
+public class StackCacheBenchmark {
+
+    /**
+     * Folder to search for benchmark programs
+     **/
+    private static final String BENCH_FOLDER = "test-pgm" + File.separator + "bench";
+    /**
+     * Suffix of program files to look for
+     **/
+    private static final String PROGRAM_SUFFIX = ".pl0";
+    /**
+     * Default number of times each program is run in each mode
+     **/
+    private static final int DEFAULT_RUNS = 5;
+    /**
+     * Number of untimed runs of each program in each mode before it is timed
+     **/
+    private static final int WARM_UP_RUNS = 5;
+
+    /**
+     * Ways of executing the code
+     */
+    private enum Mode {
+        CHECKED(""),
+        VERIFIED("-f"),
+        CACHED("-r");
+
+        private final String flag;
+
+        Mode(String flag) {
+            this.flag = flag;
+        }
+    }
+
+    /**
+     * Output stream discarding the output of the programs
+     */
+    private final PrintStream discard = new PrintStream(new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+    });
+    private final ErrorHandler errors = (ErrorHandler) ErrorHandler.getErrorHandler();
+
+    private final int runs;
+
+    private StackCacheBenchmark(int runs) {
+        this.runs = runs;
+    }
+
+    /**
+     * Compile a program, reporting any errors.
+     *
+     * @return the code of the program, or null if it failed to compile
+     */
+    private Procedures compile(File program) throws IOException {
+        Source source = new Source(new FileInputStream(program),
+                program.getCanonicalPath());
+        errors.resetErrorHandler(System.out, source, false);
+        PL0_LALR runner = new PL0_LALR();
+        DeclNode.ProcedureNode tree = runner.parse(source);
+        Procedures code = null;
+        if (tree != null && runner.staticCheck(tree)) {
+            code = new CodeGenerator(errors).generateCode(tree);
+        }
+        errors.flush();
+        return errors.hadErrors() ? null : code;
+    }
+
+    /**
+     * Run the code in each mode and print its fastest time and, if
+     * counting, the stack traffic of the last run as well as its size
+     * relative to that of the checked execution.
+     */
+    private void measure(String name, Procedures code) {
+        long checkedTraffic = 0;
+        for (Mode mode : Mode.values()) {
+            long fastest = Long.MAX_VALUE;
+            StackMachine machine = null;
+            for (int i = -WARM_UP_RUNS; i < runs; i++) {
+                machine = new StackMachine(errors, discard, false, code);
+                if (mode != Mode.CHECKED && !machine.verify()) {
+                    errors.flush();
+                    return;
+                }
+                machine.setCaching(mode == Mode.CACHED);
+                long start = System.nanoTime();
+                machine.run();
+                if (i >= 0) {
+                    fastest = Math.min(fastest, System.nanoTime() - start);
+                }
+            }
+            System.out.printf("%-20s %-4s %10.1f", name, mode.flag, fastest / 1e6);
+            if (StackMachine.COUNT_STACK_TRAFFIC && mode != Mode.VERIFIED) {
+                long traffic = machine.getStackReads() + machine.getStackWrites();
+                if (mode == Mode.CHECKED) {
+                    checkedTraffic = traffic;
+                }
+                System.out.printf(" %14d %14d %8.1f%%", machine.getStackReads(),
+                        machine.getStackWrites(), 100.0 * traffic / checkedTraffic);
+            }
+            System.out.println();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int runs = DEFAULT_RUNS;
+        int first = 0;
+        if (first < args.length && args[first].equals("-c")) {
+            /* Must be set before the stack machine is first used */
+            System.setProperty("pl0.countStackTraffic", "true");
+            first++;
+        }
+        if (first + 1 < args.length && args[first].equals("-n")) {
+            runs = Integer.parseInt(args[first + 1]);
+            first += 2;
+        }
+        File[] programs;
+        if (first < args.length) {
+            programs = Arrays.stream(args, first, args.length)
+                    .map(File::new).toArray(File[]::new);
+        } else {
+            programs = new File(BENCH_FOLDER)
+                    .listFiles(f -> f.isFile() && f.getName().endsWith(PROGRAM_SUFFIX));
+            if (programs == null) {
+                System.out.println("No programs found in " + BENCH_FOLDER);
+                return;
+            }
+            Arrays.sort(programs);
+        }
+        StackCacheBenchmark benchmark = new StackCacheBenchmark(runs);
+        System.out.printf("%-20s %-4s %10s", "program", "mode", "time (ms)");
+        if (StackMachine.COUNT_STACK_TRAFFIC) {
+            System.out.printf(" %14s %14s %9s", "stack reads", "stack writes", "traffic");
+        }
+        System.out.println();
+        for (File program : programs) {
+            Procedures code = benchmark.compile(program);
+            if (code != null) {
+                benchmark.measure(program.getName(), code);
+            }
+        }
+    }
+}
@@ -59,6 +59,15 @@ public abstract class TestRunner {
      */
     public abstract void run(PrintStream outputStream) throws IOException;
 
+    /**
+     * Overridden by subclasses whose output may differ from the expected
+     * results in details that do not matter, to remove those details
+     * from both before they are compared
+     */
+    protected String normalise(String output) {
+        return output;
+    }
+
     /**
      * Compile and run the program and compare it with the expected results file
      */
@@ -80,7 +89,7 @@ public abstract class TestRunner {
         String result = slurp(resultFile(program));
         result = result.replaceAll("\\r\\n", "\n");
         /* Compare the accumulated output strings */
-        assertEquals("The outputs do not match", result, output);
+        assertEquals("The outputs do not match", normalise(result), normalise(output));
     }
 
     /**
@@ -0,0 +1,37 @@
+package pl0;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Test that programs compiled to the JVM produce the same output as on
+ * the stack machine, apart from the code addresses and trace back of a
+ * run time error, which the JVM does not report.
+ */
+public class Test_JVM extends TestRunner {
+
+    /**
+     * Construct a new parameterized test instance
+     *
+     * @param program PL0 source code currently being tested
+     */
+    public Test_JVM(File program) {
+        super(program);
+    }
+
+    @Override
+    public void run(PrintStream outputStream) throws IOException {
+        Runner runner = new PL0_LALR();
+        String srcFile = runner.parseArguments(
+                new String[]{"-j", program.getCanonicalPath()}, "pl0.PL0_LALR", outputStream);
+        runner.run(new File(srcFile), outputStream);
+    }
+
+    @Override
+    protected String normalise(String output) {
+        return output
+                .replaceAll("(?s)(Runtime error: [^\\n]*\\n).*?End of traceBack\\n", "$1")
+                .replaceAll("bounds check failed at \\d+:", "bounds check failed:");
+    }
+}
@@ -0,0 +1,36 @@
+package pl0;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+/**
+ * Test that programs compiled a procedure at a time with -c produce the
+ * same output as when the whole program is parsed first, apart from where
+ * the end of parsing is reported, as errors found while checking a
+ * procedure may now be reported before it.
+ */
+public class Test_Streaming extends TestRunner {
+
+    /**
+     * Construct a new parameterized test instance
+     *
+     * @param program PL0 source code currently being tested
+     */
+    public Test_Streaming(File program) {
+        super(program);
+    }
+
+    @Override
+    public void run(PrintStream outputStream) throws IOException {
+        Runner runner = new PL0_LALR();
+        String srcFile = runner.parseArguments(
+                new String[]{"-c", program.getCanonicalPath()}, "pl0.PL0_LALR", outputStream);
+        runner.run(new File(srcFile), outputStream);
+    }
+
+    @Override
+    protected String normalise(String output) {
+        return output.replaceAll("Parsing complete\\n", "");
+    }
+}
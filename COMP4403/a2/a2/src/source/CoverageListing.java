@@ -0,0 +1,93 @@
+package source;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * class CoverageListing - lists a source program with the number of times
+ * each of its lines was executed, followed by a summary of the lines
+ * executed and the most frequently executed lines.
+ * <p>
+ * Lines are numbered from 0, as in locations. A line with no executable
+ * code is listed without a count, and an executable line that was never
+ * executed is marked with "#####".
+ */
+public class CoverageListing {
+    private static final int LINE_NUM_WIDTH = 6;
+    private static final int COUNT_WIDTH = 12;
+    /**
+     * Number of most frequently executed lines in the summary
+     */
+    private static final int HOT_LINES = 5;
+
+    private final Source source;
+    /**
+     * Executions of each line, or -1 for a line with no executable code
+     */
+    private final long[] counts;
+
+    public CoverageListing(Source source) {
+        this.source = source;
+        counts = new long[source.getLineCount()];
+        Arrays.fill(counts, -1);
+    }
+
+    /**
+     * Record that code on the line was executed the given number of
+     * times, which may be zero. The count of a line is the largest
+     * count recorded for it, which is the number of times its most
+     * frequently executed code was executed.
+     */
+    public void add(int line, long executions) {
+        if (0 <= line && line < counts.length) {
+            counts[line] = Math.max(counts[line], executions);
+        }
+    }
+
+    /**
+     * Print the annotated listing and the summary
+     */
+    public void print(PrintStream output) {
+        output.println("Coverage of " + new File(source.getFileName()).getName());
+        try (BufferedReader lines = new BufferedReader(
+                new FileReader(source.getFileName()))) {
+            for (int line = 0; line < counts.length; line++) {
+                String text = lines.readLine();
+                String count = counts[line] < 0 ? "" :
+                        counts[line] == 0 ? "#####" : Long.toString(counts[line]);
+                output.printf("%" + COUNT_WIDTH + "s %" + LINE_NUM_WIDTH + "d  %s%n",
+                        count, line + 1, text == null ? "" : text);
+            }
+        } catch (IOException e) {
+            output.println("Cannot list " + source.getFileName() + ": " + e.getMessage());
+        }
+        printSummary(output);
+    }
+
+    private void printSummary(PrintStream output) {
+        long executable = Arrays.stream(counts).filter(c -> c >= 0).count();
+        long executed = Arrays.stream(counts).filter(c -> c > 0).count();
+        output.printf("Lines executed: %d of %d (%.1f%%)%n", executed, executable,
+                executable == 0 ? 0.0 : 100.0 * executed / executable);
+        int[] hot = IntStream.range(0, counts.length)
+                .filter(line -> counts[line] > 0)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer line) -> counts[line]).reversed())
+                .limit(HOT_LINES)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        if (hot.length > 0) {
+            output.println("Most executed lines:");
+            for (int line : hot) {
+                output.printf("%" + COUNT_WIDTH + "d %" + LINE_NUM_WIDTH + "d%n",
+                        counts[line], line + 1);
+            }
+        }
+    }
+}
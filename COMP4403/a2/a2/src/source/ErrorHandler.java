@@ -157,6 +157,15 @@ public class ErrorHandler implements Errors {
         }
     }
 
+    /**
+     * Discard all pending messages without printing them, for when the
+     * program is to be compiled again and they will be reported again
+     */
+    public void discardErrors() {
+        errors.clear();
+        numberOfErrors = 0;
+    }
+
     /**
      * Print out all pending messages and clear the queue
      */
@@ -20,7 +20,7 @@ public class Scope {
     /**
      * Offset of start of local variables from frame pointer
      */
-    final static int LOCALS_BASE = 3;
+    public final static int LOCALS_BASE = 3;
     /**
      * Parent Scope
      */
@@ -41,6 +41,11 @@ public class Scope {
      * implementation.
      */
     private final SortedMap<String, SymEntry> entries;
+    /**
+     * Entries added since the scope was last resolved. A scope may be
+     * resolved more than once if entries are added after it is resolved.
+     */
+    private final List<SymEntry> unresolved;
     /**
      * space allocated for local variables within this scope
      */
@@ -65,6 +70,7 @@ public class Scope {
         this.ownerEntry = ownerEntry;
         /* Initially empty */
         this.entries = new TreeMap<>();
+        this.unresolved = new ArrayList<>();
         variableSpace = 0;
         extension = false;
     }
@@ -138,6 +144,7 @@ public class Scope {
         } else {
             entry.setScope(this);
             entries.put(entry.getIdent(), entry);
+            unresolved.add(entry);
             return entry;
         }
     }
@@ -147,9 +154,13 @@ public class Scope {
      * for variables and check for circularly defined types and constants.
      */
     public void resolveScope() {
+        // Entries added since the last resolution, in order of identifier
+        List<SymEntry> toResolve = new ArrayList<>(unresolved);
+        toResolve.sort(Comparator.comparing(SymEntry::getIdent));
+        unresolved.clear();
         // List of types declared in scope
         List<Type> types = new LinkedList<>();
-        for (SymEntry entry : entries.values()) {
+        for (SymEntry entry : toResolve) {
             //System.out.println("Symbol table resolving " + entry.getIdent());
             entry.resolve();
             if (entry instanceof SymEntry.TypeEntry) {
@@ -161,6 +172,8 @@ public class Scope {
         for (Type type : types) {
             type.addOperators();
         }
+        // The operator entries just added need no resolution
+        unresolved.clear();
         //System.out.println(currentScope);
     }
 
@@ -193,6 +206,18 @@ public class Scope {
         }
     }
 
+    /**
+     * Free the space allocated for local variables, so that it can be
+     * allocated again with the variables at new offsets.
+     */
+    public void clearVariableSpace() {
+        if (extension) {
+            parent.clearVariableSpace();
+        } else {
+            variableSpace = 0;
+        }
+    }
+
     /**
      * Add a CONSTANT entry to the current scope - known value
      *
@@ -338,10 +363,16 @@ public class Scope {
             entry.extendType(opType);
             return entry;
         } else {
-            /* Defined at an outer level create new entry with old
-             * intersection type and extend with new type.
+            /* Defined at an outer level create new entry with a copy of
+             * the old intersection type and extend with new type, leaving
+             * the outer entry unchanged.
              */
-            entry = new SymEntry.OperatorEntry(op.getName(), loc, entry.getType());
+            Type oldType = entry.getType();
+            if (oldType instanceof Type.IntersectionType) {
+                oldType = new Type.IntersectionType(loc, ((Type.IntersectionType) oldType)
+                        .getTypes().toArray(new Type[0]));
+            }
+            entry = new SymEntry.OperatorEntry(op.getName(), loc, oldType);
             entry.extendType(opType);
             return (SymEntry.OperatorEntry) addEntry(entry);
         }
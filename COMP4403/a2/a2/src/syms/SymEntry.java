@@ -62,6 +62,10 @@ public abstract class SymEntry {
         return loc;
     }
 
+    public Scope getScope() {
+        return scope;
+    }
+
     public void setScope(Scope scope) {
         this.scope = scope;
     }
@@ -204,6 +208,10 @@ public abstract class SymEntry {
          * Control variables of "for" loops are read only
          */
         private boolean readOnly;
+        /**
+         * Unused variables removed by dead code elimination have no space
+         */
+        private boolean removed = false;
 
         public VarEntry(String id, Location loc, ReferenceType t) {
             super(id, loc, t, false);
@@ -254,6 +262,14 @@ public abstract class SymEntry {
             this.offset = offset;
         }
 
+        public boolean isRemoved() {
+            return removed;
+        }
+
+        public void setRemoved() {
+            removed = true;
+        }
+
         @Override
         public String toString() {
             return toString("VAR   ", " : ") + " offset " + offset;
@@ -276,6 +292,10 @@ public abstract class SymEntry {
          * Scope of entries declared locally to the procedure
          */
         private Scope localScope;
+        /**
+         * Whether the body of the procedure contains a "cobegin" statement
+         */
+        private boolean parallel = false;
 
         public ProcedureEntry(String id, Location loc,
                               Type.ProcedureType type) {
@@ -315,6 +335,14 @@ public abstract class SymEntry {
             this.start = start;
         }
 
+        public boolean isParallel() {
+            return parallel;
+        }
+
+        public void setParallel() {
+            this.parallel = true;
+        }
+
         @Override
         public String toString() {
             return toString("PROC  ", " : ");
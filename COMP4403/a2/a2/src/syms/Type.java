@@ -1236,6 +1236,11 @@ public abstract class Type {
          * Scope in which enumeration declared
          */
         private final Scope scope;
+        /**
+         * Whether the operators on the enumeration have been added to its
+         * scope; a type identifier renaming it must not add them again
+         */
+        private boolean operatorsAdded = false;
 
         public EnumerationType(Location loc, List<EnumerationElement> elements, Scope scope) {
             // Enumerations take one word and initially the range
@@ -1259,6 +1264,10 @@ public abstract class Type {
         }
 
         public void addOperators() {
+            if (operatorsAdded) {
+                return;
+            }
+            operatorsAdded = true;
             Type.ProductType argTypes =
                     new Type.ProductType(this, this);
             Type.FunctionType relOpType =
@@ -1,24 +1,141 @@
 package tree;
 
-import java.util.List;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
 
+import java_cup.runtime.ComplexSymbolFactory.Location;
 import machine.Instruction;
 import machine.Operation;
+import machine.StackMachine;
+import source.ErrorHandler;
 import syms.SymEntry;
 import syms.Type;
 
 /**
- * class Code - store sequence of instructions
+ * class Code - store sequence of instructions.
+ * The instructions are held as a rope: a tree of chunks of encoded
+ * instruction words joined by append. Appending a code sequence is
+ * constant time and shares the appended chunks rather than copying
+ * them, so building code bottom-up through nested statements and
+ * expressions does not repeatedly copy the same instructions.
+ * The rope is flattened into a single word array when it is loaded.
+ * <p>
+ * Each instruction is encoded as its opcode (the Operation ordinal)
+ * followed by its operand words (e.g. the constant of a LOAD_CON). Procedure
+ * references are encoded as a LOAD_CON whose operand is resolved to the
+ * start address of the procedure when the code is flattened.
+ * <p>
+ * The rope also holds marks of the source locations of the statements
+ * the instructions were generated from, which occupy no words and from
+ * which the line table of the loaded code is built.
  */
 public class Code {
     /**
-     * List of instructions generated
+     * Opcodes indexed by ordinal, for decoding instruction words
+     */
+    private static final Operation[] OPERATIONS = Operation.values();
+    /**
+     * Initial capacity in words of a chunk
+     */
+    private static final int CHUNK_CAPACITY = 8;
+
+    /**
+     * Node of the rope of instructions. Once a node has been appended to
+     * another code sequence its words are never extended, only patched.
+     */
+    private static abstract class Piece {
+    }
+
+    /**
+     * A contiguous run of encoded instruction words
+     */
+    private static final class Chunk extends Piece {
+        /**
+         * Encoded instruction words
+         */
+        int[] words = new int[CHUNK_CAPACITY];
+        /**
+         * Procedure entries for procedure reference operands,
+         * parallel to words; null until the first one is generated
+         */
+        SymEntry.ProcedureEntry[] procRefs;
+        /**
+         * Number of words used
+         */
+        int length;
+
+        /**
+         * Append a word to the chunk, growing it if necessary.
+         *
+         * @return index of the word within the chunk
+         */
+        int add(int word) {
+            if (length == words.length) {
+                words = Arrays.copyOf(words, 2 * length);
+                if (procRefs != null) {
+                    procRefs = Arrays.copyOf(procRefs, 2 * length);
+                }
+            }
+            words[length] = word;
+            return length++;
+        }
+    }
+
+    /**
+     * Concatenation of two code sequences
+     */
+    private static final class Join extends Piece {
+        final Piece first;
+        final Piece second;
+
+        Join(Piece first, Piece second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * Mark of the source location of the instructions that follow it,
+     * up to the next mark
      */
-    private final List<Instruction> code;
+    private static final class LocationMark extends Piece {
+        final Location location;
+
+        LocationMark(Location location) {
+            this.location = location;
+        }
+    }
+
+    /**
+     * Stable handle on the operand of a generated LOAD_CON instruction.
+     * It remains valid after the code sequence containing it has been
+     * appended to other code sequences.
+     */
+    public static final class ConstantHandle {
+        private final Chunk chunk;
+        private final int index;
+
+        private ConstantHandle(Chunk chunk, int index) {
+            this.chunk = chunk;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Instructions that have been shared with other code sequences
+     * by append; null if there are none
+     */
+    private Piece shared;
+    /**
+     * Chunk currently being generated into; null if there is none
+     */
+    private Chunk current;
     /**
      * Size of the instructions in words.
-     * This is not just the length of the list.
+     * This is not just the number of instructions.
      */
     private int size;
     /**
@@ -26,29 +143,172 @@ public class Code {
      */
     public Code() {
         super();
-        code = new ArrayList<>();
+        shared = null;
+        current = null;
         size = 0;
     }
 
-    public List<Instruction> getInstructionList() {
-        return code;
-    }
-
     public int size() {
         return size;
     }
+
+    /**
+     * @return the chunk to generate the next instruction into
+     */
+    private Chunk currentChunk() {
+        if (current == null) {
+            current = new Chunk();
+        }
+        return current;
+    }
+
+    /**
+     * Freeze the instructions generated so far so that they can be shared.
+     * Subsequent instructions are generated into a new chunk.
+     *
+     * @return the rope of all instructions, or null if there are none
+     */
+    private Piece freeze() {
+        if (current != null) {
+            shared = join(shared, current);
+            current = null;
+        }
+        return shared;
+    }
+
+    /**
+     * Join two (possibly empty) pieces of code
+     */
+    private static Piece join(Piece first, Piece second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return new Join(first, second);
+    }
+
+    /**
+     * List the chunks and location marks of the rope in order.
+     * Iterative, as joins nest as deeply as the appends that built them.
+     */
+    private List<Piece> leaves() {
+        List<Piece> leaves = new ArrayList<>();
+        Deque<Piece> pending = new ArrayDeque<>();
+        Piece root = join(shared, current);
+        if (root != null) {
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            Piece piece = pending.pop();
+            if (piece instanceof Join) {
+                pending.push(((Join) piece).second);
+                pending.push(((Join) piece).first);
+            } else {
+                leaves.add(piece);
+            }
+        }
+        return leaves;
+    }
+
+    /**
+     * List the chunks of the rope in order.
+     */
+    private List<Chunk> chunks() {
+        List<Chunk> chunks = new ArrayList<>();
+        for (Piece piece : leaves()) {
+            if (piece instanceof Chunk) {
+                chunks.add((Chunk) piece);
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Add the locations of the code, loaded at the given address, to a
+     * line table. The code before the first mark has no location.
+     */
+    void addLocations(LineTable table, int start) {
+        int address = start;
+        table.add(address, ErrorHandler.NO_LOCATION);
+        for (Piece piece : leaves()) {
+            if (piece instanceof LocationMark) {
+                table.add(address, ((LocationMark) piece).location);
+            } else {
+                address += ((Chunk) piece).length;
+            }
+        }
+    }
+
+    /**
+     * Flatten the code into the words to be loaded into memory,
+     * resolving procedure references to their start addresses.
+     */
+    public int[] toWords() {
+        int[] image = new int[size];
+        int next = 0;
+        for (Chunk chunk : chunks()) {
+            for (int i = 0; i < chunk.length; i++) {
+                if (chunk.procRefs != null && chunk.procRefs[i] != null) {
+                    image[next++] = chunk.procRefs[i].getStart();
+                } else {
+                    image[next++] = chunk.words[i];
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Decode the code into a list of instructions.
+     * Used for listings and debugging only.
+     */
+    public List<Instruction> getInstructionList() {
+        List<Instruction> instructions = new ArrayList<>();
+        for (Chunk chunk : chunks()) {
+            int i = 0;
+            while (i < chunk.length) {
+                Operation op = OPERATIONS[chunk.words[i++]];
+                if (op != Operation.LOAD_CON) {
+                    instructions.add(op.getSize() == 1 ? new Instruction(op) :
+                            new Instruction.OperandInstruction(op,
+                                    Arrays.copyOfRange(chunk.words, i, i + op.getSize() - 1)));
+                } else if (chunk.procRefs != null && chunk.procRefs[i] != null) {
+                    instructions.add(new Instruction.ProcRefInstruction(chunk.procRefs[i]));
+                } else {
+                    instructions.add(new Instruction.LoadConInstruction(chunk.words[i]));
+                }
+                i += op.getSize() - 1;
+            }
+        }
+        return instructions;
+    }
     //---------------------------------------------------------------
     //--------------- Utility Code Generation Methods
     //---------------------------------------------------------------
 
     /**
      * Append the code sequence newCode to this code sequence.
+     * The instructions are shared rather than copied; later additions
+     * to either code sequence do not affect the other.
      *
      * @param newCode sequence to be appended
      */
     public void append(Code newCode) {
-        code.addAll(newCode.code);
-        size += newCode.size();
+        Piece appended = newCode.freeze();
+        if (appended != null) {
+            shared = join(freeze(), appended);
+            size += newCode.size();
+        }
+    }
+
+    /**
+     * Mark the instructions generated from here on, up to the next mark,
+     * as generated from the statement at the given source location.
+     */
+    public void markLocation(Location location) {
+        shared = join(freeze(), new LocationMark(location));
     }
 
     /**
@@ -57,7 +317,23 @@ public class Code {
      * @param opcode of the generated instruction.
      */
     public void generateOp(Operation opcode) {
-        code.add(new Instruction(opcode));
+        currentChunk().add(opcode.ordinal());
+        size += opcode.getSize();
+    }
+
+    /**
+     * Generate an instruction with operands and append to code sequence.
+     *
+     * @param opcode of the generated instruction.
+     * @param operands words following the opcode.
+     */
+    public void generateOp(Operation opcode, int... operands) {
+        assert operands.length == opcode.getSize() - 1;
+        Chunk chunk = currentChunk();
+        chunk.add(opcode.ordinal());
+        for (int operand : operands) {
+            chunk.add(operand);
+        }
         size += opcode.getSize();
     }
 
@@ -65,23 +341,24 @@ public class Code {
      * Generate a LoadConstant instruction and append to code sequence.
      *
      * @param value of the constant
-     * @return location of the constant for later patching
+     * @return handle on the constant for later patching
      */
-    public int genLoadConstant(int value) {
-        int position = code.size();
-        code.add(new Instruction.LoadConInstruction(value));
+    public ConstantHandle genLoadConstant(int value) {
+        Chunk chunk = currentChunk();
+        chunk.add(Operation.LOAD_CON.ordinal());
+        int index = chunk.add(value);
         size += Operation.LOAD_CON.getSize();
-        return position;
+        return new ConstantHandle(chunk, index);
     }
 
     /**
-     * Update the LOAD_CON instruction at index position to load
+     * Update the LOAD_CON instruction referred to by handle to load
      * the new value.
      */
-    public void updateLoadCon(int position, int value) {
-        Instruction instruction = code.get(position);
-        if (instruction instanceof Instruction.LoadConInstruction) {
-            ((Instruction.LoadConInstruction) instruction).setValue(value);
+    public void updateLoadCon(ConstantHandle handle, int value) {
+        Chunk chunk = handle.chunk;
+        if (chunk.procRefs == null || chunk.procRefs[handle.index] == null) {
+            chunk.words[handle.index] = value;
         } else {
             throw new Error("Code update of non-LOAD_CON instruction");
         }
@@ -91,7 +368,13 @@ public class Code {
      * Generate a procedure call reference instruction
      */
     public void genProcCallRef(SymEntry.ProcedureEntry proc) {
-        code.add(new Instruction.ProcRefInstruction(proc));
+        Chunk chunk = currentChunk();
+        chunk.add(Operation.LOAD_CON.ordinal());
+        int index = chunk.add(StackMachine.NULL_ADDR);
+        if (chunk.procRefs == null) {
+            chunk.procRefs = new SymEntry.ProcedureEntry[chunk.words.length];
+        }
+        chunk.procRefs[index] = proc;
         size += Operation.LOAD_CON.getSize();
     }
 
@@ -218,8 +501,8 @@ public class Code {
      * is relative to the address of the instruction following the
      * BR_FALSE instruction.
      */
-    public int genJumpIfFalse(int offset) {
-        int position = genLoadConstant(offset);
+    public ConstantHandle genJumpIfFalse(int offset) {
+        ConstantHandle position = genLoadConstant(offset);
         generateOp(Operation.BR_FALSE);
         return position;
     }
@@ -233,12 +516,60 @@ public class Code {
     /**
      * Generate an unconditional branch.
      */
-    public int genJumpAlways(int offset) {
-        int position = genLoadConstant(offset);
+    public ConstantHandle genJumpAlways(int offset) {
+        ConstantHandle position = genLoadConstant(offset);
         generateOp(Operation.BR);
         return position;
     }
 
+    /**
+     * Size of instruction implementing the step of a counted loop
+     */
+    static final int SIZE_FOR_STEP = Operation.FOR_STEP.getSize();
+
+    /**
+     * Generate the set up of a counted loop. Assumes the lower and then
+     * upper bound are on the stack. The branch to exit the loop if it is
+     * empty is relative to the instruction following the FOR_INIT.
+     *
+     * @param ctrlOffset  frame offset of the control variable
+     * @param upperOffset frame offset to hold the upper bound
+     * @param exitOffset  branch offset to exit the loop
+     */
+    public void genForInit(int ctrlOffset, int upperOffset, int exitOffset) {
+        generateOp(Operation.FOR_INIT, ctrlOffset, upperOffset, exitOffset);
+    }
+
+    /**
+     * Generate the step of a counted loop. The branch back to the loop
+     * body is relative to the instruction following the FOR_STEP.
+     *
+     * @param ctrlOffset  frame offset of the control variable
+     * @param upperOffset frame offset holding the upper bound
+     * @param loopOffset  branch offset to the start of the loop body
+     */
+    public void genForStep(int ctrlOffset, int upperOffset, int loopOffset) {
+        generateOp(Operation.FOR_STEP, ctrlOffset, upperOffset, loopOffset);
+    }
+
+    /**
+     * Size of the instruction ending a forked branch
+     */
+    static final int SIZE_END_BRANCH = Operation.END_BRANCH.getSize();
+
+    /**
+     * Generate a fork of the branch that follows, which ends with an
+     * END_BRANCH. The current thread continues at the offset, which is
+     * relative to the instruction following the FORK.
+     *
+     * @param branches   number of branches still to be started, including
+     *                   this one, which share the free stack space
+     * @param nextOffset branch offset to the code after the branch
+     */
+    public void genFork(int branches, int nextOffset) {
+        generateOp(Operation.FORK, branches, nextOffset);
+    }
+
     /**
      * Generate a bounds check instruction. Assumes the value to check is
      * already on the stack
@@ -294,7 +625,7 @@ public class Code {
     public String toString() {
         StringBuilder instructions = new StringBuilder("[");
         String sep = "";
-        for (Instruction inst : code) {
+        for (Instruction inst : getInstructionList()) {
             instructions.append(sep).append(inst);
             sep = ",";
         }
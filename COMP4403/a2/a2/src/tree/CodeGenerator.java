@@ -1,6 +1,16 @@
 package tree;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ir.IrBuilder;
+import ir.IrProcedure;
+import ir.Lowering;
+import ir.PassManager;
 import machine.Operation;
+import source.ErrorHandler;
 import source.Errors;
 import source.VisitorDebugger;
 import syms.SymEntry;
@@ -33,14 +43,42 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
      */
     private final VisitorDebugger debug;
 
+    /**
+     * Whether procedure bodies are optimised through the intermediate
+     * representation (package ir). The intermediate representation is
+     * sequential, so a procedure containing a "cobegin" statement is
+     * never optimised.
+     */
+    private final boolean optimise;
+
+    /**
+     * Whether the code for procedures is generated concurrently
+     */
+    private boolean parallel = false;
 
     public CodeGenerator(Errors errors) {
+        this(errors, false);
+    }
+
+    public CodeGenerator(Errors errors, boolean optimise) {
         super();
         this.errors = errors;
+        this.optimise = optimise;
         debug = new VisitorDebugger("generating", errors);
         procedures = new Procedures();
     }
 
+    /**
+     * Generate the code for the bodies of procedures concurrently.
+     * The code for each procedure is independent of the others once the
+     * static checker has resolved every scope, so the result is identical
+     * to sequential generation. Debugging messages would be interleaved,
+     * so this should not be used when debugging.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
     /**
      * Main generate code method for the program.
      */
@@ -49,11 +87,78 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         staticLevel = node.getBlock().getBlockLocals().getLevel();
         assert staticLevel == 1;  // Main program is at static level 1
         /* Generate the code for the main program and all procedures */
-        visitProcedureNode(node);
+        if (parallel) {
+            ProcedureTask task = new ProcedureTask(node, staticLevel);
+            ForkJoinPool.commonPool().invoke(task);
+            /* Procedures are added in the same order as sequentially,
+             * which determines their addresses */
+            task.addTo(procedures);
+        } else {
+            visitProcedureNode(node);
+        }
         endGen("Program");
         return procedures;
     }
 
+    /**
+     * Generate the code for a single procedure, but not the procedures
+     * nested within it. The procedure must have been checked.
+     *
+     * @return the code for the procedure, to be added to the procedures
+     * in the order that generateCode would add it
+     */
+    public Code generateProcedure(DeclNode.ProcedureNode node) {
+        beginGen("Procedure");
+        staticLevel = node.getBlock().getBlockLocals().getLevel();
+        Code code = genBody(node);
+        endGen("Procedure");
+        return code;
+    }
+
+    /**
+     * Task generating the code for the body of a procedure, with subtasks
+     * for the procedures nested within it.
+     */
+    private class ProcedureTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final DeclNode.ProcedureNode node;
+        private final int level;
+        private final List<ProcedureTask> nested = new ArrayList<>();
+        private Code code;
+
+        ProcedureTask(DeclNode.ProcedureNode node, int level) {
+            this.node = node;
+            this.level = level;
+        }
+
+        @Override
+        protected void compute() {
+            for (DeclNode decl : node.getBlock().getProcedures().getDeclarations()) {
+                ProcedureTask task = new ProcedureTask((DeclNode.ProcedureNode) decl, level + 1);
+                nested.add(task);
+                task.fork();
+            }
+            /* A generator of its own as the static level is per procedure */
+            CodeGenerator generator = new CodeGenerator(errors, optimise);
+            generator.staticLevel = level;
+            code = generator.genBody(node);
+            for (ProcedureTask task : nested) {
+                task.join();
+            }
+        }
+
+        /**
+         * Add the code for the nested procedures and then this procedure
+         */
+        void addTo(Procedures procedures) {
+            for (ProcedureTask task : nested) {
+                task.addTo(procedures);
+            }
+            procedures.addProcedure(node.getProcEntry(), code);
+        }
+    }
+
     /* -------------------- Visitor methods ----------------------------*/
 
     /**
@@ -61,26 +166,91 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
      */
     public void visitProcedureNode(DeclNode.ProcedureNode node) {
         beginGen("Procedure");
-        // Generate code for the block
-        Code code = visitBlockNode(node.getBlock());
+        Code code;
+        if (optimising(node)) {
+            code = genOptimised(node);
+        } else {
+            // Generate code for the block
+            code = visitBlockNode(node.getBlock());
+            code.markLocation(ErrorHandler.NO_LOCATION);
             code.generateOp(Operation.RETURN);
+        }
         procedures.addProcedure(node.getProcEntry(), code);
         //System.out.println(node.getProcEntry().getIdent() + "\n" + code);
         endGen("Procedure");
     }
 
+    /**
+     * Generate code for a procedure by building the intermediate code for
+     * its body, optimising it and lowering it to stack machine code, which
+     * includes the return.
+     */
+    private Code genOptimised(DeclNode.ProcedureNode node) {
+        Code code = genOptimisedBody(node);
+        /* Generate code for local procedures.
+         * Static level is one greater for the procedures.
+         */
+        staticLevel++;
+        node.getBlock().getProcedures().accept(this);
+        staticLevel--;
+        return code;
+    }
+
+    private boolean optimising(DeclNode.ProcedureNode node) {
+        return optimise && !node.getProcEntry().isParallel();
+    }
+
+    private Code genOptimisedBody(DeclNode.ProcedureNode node) {
+        IrProcedure ir = new IrBuilder(errors, staticLevel).build(node);
+        PassManager.standard(errors).run(ir);
+        return new Lowering(ir).lower();
+    }
+
+    /**
+     * Generate the code for a procedure, including the return, but not
+     * the code for the procedures nested within it.
+     */
+    private Code genBody(DeclNode.ProcedureNode node) {
+        if (optimising(node)) {
+            return genOptimisedBody(node);
+        }
+        Code code = genBlockBody(node.getBlock());
+        code.markLocation(ErrorHandler.NO_LOCATION);
+        code.generateOp(Operation.RETURN);
+        return code;
+    }
+
+    /**
+     * Generate code to allocate space for the local variables of a block
+     * on procedure entry, followed by the code for the body.
+     */
+    private Code genBlockBody(BlockNode node) {
+        Code code = new Code();
+        code.genAllocStack(node.getBlockLocals().getVariableSpace());
+        code.append(genStatement(node.getBody()));
+        return code;
+    }
+
+    /**
+     * Generate code for a statement, marked with the statement's location
+     * for the line table.
+     */
+    private Code genStatement(StatementNode node) {
+        Code code = new Code();
+        code.markLocation(node.getLocation());
+        code.append(node.genCode(this));
+        return code;
+    }
+
     /**
      * Generate code for a block.
      */
     public Code visitBlockNode(BlockNode node) {
         beginGen("Block");
         /* Generate code to allocate space for local variables on
-         * procedure entry.
+         * procedure entry, and the code for the body.
          */
-        Code code = new Code();
-        code.genAllocStack(node.getBlockLocals().getVariableSpace());
-        /* Generate the code for the body */
-        code.append(node.getBody().genCode(this));
+        Code code = genBlockBody(node);
         /* Generate code for local procedures.
          * Static level is one greater for the procedures.
          */
@@ -122,10 +292,15 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         beginGen("Assignment");
         /* Generate code to evaluate the expression */
         Code code = node.getExp().genCode(this);
-        /* Generate the code to load the address of the variable */
-        code.append(node.getVariable().genCode(this));
-        /* Generate the store based on the type/size of value */
-        code.genStore(node.getExp().getType());
+        Code store = genIndexedAccess(node.getVariable(), Operation.STORE_INDEXED);
+        if (store != null) {
+            code.append(store);
+        } else {
+            /* Generate the code to load the address of the variable */
+            code.append(node.getVariable().genCode(this));
+            /* Generate the store based on the type/size of value */
+            code.genStore(node.getExp().getType());
+        }
         endGen("Assignment");
         return code;
     }
@@ -138,10 +313,15 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         Code code = new Code();
         /* Read an integer from standard input */
         code.generateOp(Operation.READ);
-        /* Generate the code to load the address of the LValue */
-        code.append(node.getLValue().genCode(this));
-        /* Generate the store based on the type/size of value */
-        code.genStore(node.getLValue().getType().optDereferenceType());
+        Code store = genIndexedAccess(node.getLValue(), Operation.STORE_INDEXED);
+        if (store != null) {
+            code.append(store);
+        } else {
+            /* Generate the code to load the address of the LValue */
+            code.append(node.getLValue().genCode(this));
+            /* Generate the store based on the type/size of value */
+            code.genStore(node.getLValue().getType().optDereferenceType());
+        }
         endGen("Read");
         return code;
     }
@@ -180,7 +360,7 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         beginGen("StatementList");
         Code code = new Code();
         for (StatementNode s : node.getStatements()) {
-            code.append(s.genCode(this));
+            code.append(genStatement(s));
         }
         endGen("StatementList");
         return code;
@@ -195,8 +375,8 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         /* Generate the code for the if-then-else
          * from the code for its components */
         code.genIfThenElse(node.getCondition().genCode(this),
-                node.getThenStmt().genCode(this),
-                node.getElseStmt().genCode(this));
+                genStatement(node.getThenStmt()),
+                genStatement(node.getElseStmt()));
         endGen("If");
         return code;
     }
@@ -209,7 +389,7 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         /* Generate the code to evaluate the condition. */
         Code code = node.getCondition().genCode(this);
         /* Generate the code for the loop body */
-        Code bodyCode = node.getLoopStmt().genCode(this);
+        Code bodyCode = genStatement(node.getLoopStmt());
         /* Add a branch over the loop body on false.
          * The offset is the size of the loop body code plus
          * the size of the branch to follow the body.
@@ -217,6 +397,7 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         code.genJumpIfFalse(bodyCode.size() + Code.SIZE_JUMP_ALWAYS);
         /* Append the code for the body */
         code.append(bodyCode);
+        code.markLocation(node.getLocation());
         /* Add a branch back to the condition.
          * The offset is the total size of the current code plus the
          * size of a Jump Always (being generated).
@@ -232,89 +413,75 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
     public Code visitForNode(StatementNode.ForNode node) {
         beginGen("For");
 
-        /* BRANCH STRUCTURE
-         *
-         * (1) Setup Loop
-         * (2) Bounds Check
-         * (3) Loop Body & Overflow Check
-         * (4) Increment Loop Control
-         * (5) Cleanup
+        /* The control variable and the upper bound are kept in the frame
+         * and each iteration of the loop is a single FOR_STEP instruction:
          *
-         * The jumps are:
-         * end of (2) -> start of (5) : jump over (3) and (4)
-         * end of (3) -> start of (5) : jump over (4)
-         * end of (4) -> start of (2) : jump backwards over (4), (3) and (2)
+         *      <lower> <upper> FOR_INIT(ctrl, upper, exit)
+         * body:
+         *      <loop body>
+         *      FOR_STEP(ctrl, upper, body)
+         * exit:
          *
-         * (1) - (4) are each represented by separate Code objects. They are created separately
-         * then branch instructions are appended to the end of them after all have been completed
-         * (which allows their size to be calculated)
+         * The step does not increment a control variable equal to MAXINT,
+         * and exits the loop, so that it never overflows.
          */
-
-        // Assign loop variable to lower bound
-        Code setupLoop = node.getLower().genCode(this);
-        setupLoop.append(node.getCtrlVar().genCode(this));
-        setupLoop.genStore(node.getLower().getType().optDereferenceType());
-        // Calculate upper bound and store on the stack frame
-        setupLoop.append(node.getUpper().genCode(this));
-
-        Code boundsCheck = new Code();
-        // Create a copy of the upper bound for comparison
-        boundsCheck.generateOp(Operation.DUP);
-        boundsCheck.append(node.getCtrlVar().genCode(this));
-        boundsCheck.genLoad(node.getCtrlVar().getType());
-        // If the upper bound is >= the loop counter
-        boundsCheck.generateOp(Operation.SWAP);
-        boundsCheck.generateOp(Operation.LESSEQ);
-
+        // The control variable is always local to the current frame
+        SymEntry.VarEntry ctrlVar = node.getCtrlVar().getVariable();
+        assert staticLevel == ctrlVar.getLevel();
+        int ctrlOffset = ctrlVar.getOffset();
+
+        // Evaluate the bounds
+        Code code = node.getLower().genCode(this);
+        code.append(node.getUpper().genCode(this));
         // Generate loop contents for code
-        Code bodyCode = node.getLoopStmt().genCode(this);
-        // Load loop control variable to check if it is about to overflow
-        bodyCode.append(node.getCtrlVar().genCode(this));
-        bodyCode.genLoad(node.getCtrlVar().getType());
-        bodyCode.generateOp(Operation.DUP);
-        // Max integer value
-        bodyCode.genLoadConstant(0x7FFFFFFF);
-        bodyCode.generateOp(Operation.EQUAL);
-
-        Code incrementCode = new Code();
-        // Increment the loop control variable
-        incrementCode.generateOp(Operation.ONE);
-        incrementCode.generateOp(Operation.ADD);
-        incrementCode.append(node.getCtrlVar().genCode(this));
-        incrementCode.genStore(node.getCtrlVar().getType());
-
-        // Code to exit loop if control variable overflows
-        /* genJumpAlways consists of LOAD_CON and BR, which are 2 and 1 words respectively (total 3)
-         * Combine with POP to get jump offset of 4. If false continue on to incrementCode
-         */
-        bodyCode.genJumpIfFalse(4);
-        // Get rid of the other loop control variable from the stack
-        bodyCode.generateOp(Operation.POP);
-        // Jump over incrementCode plus the branch back to boundsCheck
-        bodyCode.genJumpAlways(incrementCode.size() + Code.SIZE_JUMP_ALWAYS);
+        Code bodyCode = genStatement(node.getLoopStmt());
+        // Skip over the body and the step if the range is empty
+        code.genForInit(ctrlOffset, node.getUpperOffset(),
+                bodyCode.size() + Code.SIZE_FOR_STEP);
+        code.append(bodyCode);
+        code.markLocation(node.getLocation());
+        // Branch back to the start of the body while in bounds
+        code.genForStep(ctrlOffset, node.getUpperOffset(),
+                -(bodyCode.size() + Code.SIZE_FOR_STEP));
+        endGen("For");
+        return code;
+    }
 
-        /* Add a branch over the loop body on false.
-         * The offset is the size of the loop body code plus
-         * the size of the branch to follow the body.
-         */
-        boundsCheck.genJumpIfFalse(bodyCode.size() + incrementCode.size()
-                + Code.SIZE_JUMP_ALWAYS);
+    /**
+     * Generate code for a "cobegin" statement.
+     */
+    public Code visitCobeginNode(StatementNode.CobeginNode node) {
+        beginGen("Cobegin");
 
-        /* Add a branch back to the condition.
-         * The offset is the total size of the current code plus the
-         * size of a Jump Always (being generated).
+        /* Each branch but the last is forked to run on a thread of its
+         * own, with a share of the free stack space, while the
+         * current thread goes on to the next branch. The last branch
+         * runs on the current thread, which then waits for the others:
+         *
+         *      FORK(n, next)
+         *      <branch 1>
+         *      END_BRANCH
+         * next:
+         *      FORK(n-1, next)
+         *      ...
+         *      <branch n>
+         *      JOIN(n-1)
          */
-        incrementCode.genJumpAlways(-(boundsCheck.size() + bodyCode.size()
-                + incrementCode.size() + Code.SIZE_JUMP_ALWAYS));
-
-        // Append code sections together
-        setupLoop.append(boundsCheck);
-        setupLoop.append(bodyCode);
-        setupLoop.append(incrementCode);
-        // Remove the upper bound that was stored on the stack machine
-        setupLoop.generateOp(Operation.POP);
-        endGen("For");
-        return setupLoop;
+        List<StatementNode> branches = node.getBranches();
+        Code code = new Code();
+        for (int i = 0; i < branches.size() - 1; i++) {
+            Code branchCode = genStatement(branches.get(i));
+            code.genFork(branches.size() - i,
+                    branchCode.size() + Code.SIZE_END_BRANCH);
+            code.append(branchCode);
+            code.markLocation(node.getLocation());
+            code.generateOp(Operation.END_BRANCH);
+        }
+        code.append(genStatement(branches.get(branches.size() - 1)));
+        code.markLocation(node.getLocation());
+        code.generateOp(Operation.JOIN, branches.size() - 1);
+        endGen("Cobegin");
+        return code;
     }
     //************* Expression node code generation visit methods
 
@@ -475,8 +642,11 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
      */
     public Code visitDereferenceNode(ExpNode.DereferenceNode node) {
         beginGen("Dereference");
-        Code code = node.getLeftValue().genCode(this);
-        code.genLoad(node.getType());
+        Code code = genIndexedAccess(node.getLeftValue(), Operation.LOAD_INDEXED);
+        if (code == null) {
+            code = node.getLeftValue().genCode(this);
+            code.genLoad(node.getType());
+        }
         endGen("Dereference");
         return code;
     }
@@ -497,43 +667,112 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
      */
     public Code visitArrayIndexNode(ExpNode.ArrayIndexNode node) {
         beginGen("ArrayIndex");
-        Code code = node.getIndex().genCode(this);
-        if (node.getIndex().getType() instanceof Type.SubrangeType) {
-            Type.SubrangeType indexSubrange = ((Type.SubrangeType)node.getIndex().getType());
-            /* If the index is an uninitialised subrange variable, its node will not be a
-             * NarrowSubrangeNode, meaning bounds checking code will not have been generated when
-             * it was visited. Manually generate the code here.
-             */
-            if (!(node.getIndex() instanceof ExpNode.NarrowSubrangeNode)) {
-                code.genBoundsCheck(indexSubrange.getLower(), indexSubrange.getUpper());
-            }
-
-            // Subtract lower bound from index so that lower bound corresponds with index 0
-            code.genLoadConstant(indexSubrange.getLower());
-            code.generateOp(Operation.NEGATE);
-            code.generateOp(Operation.ADD);
-            // Load size of array entry (sizeof array / num elements)
-            code.genLoadConstant(node.getId().getType().optDereferenceType().getSpace()
-                    / (indexSubrange.getUpper() + 1 - indexSubrange.getLower()));
-        } else if (node.getIndex().getType() instanceof Type.EnumerationType) {
-            Type.EnumerationType enumType = ((Type.EnumerationType)node.getIndex().getType());
-            // Load size of array entry (sizeof array / num elements)
-            code.genLoadConstant(node.getId().getType().optDereferenceType().getSpace()
-                    / enumType.numberOfElements());
+        Code code = new Code();
+        Type.ScalarType indexType = node.getIndexType();
+        Integer offset = staticOffset(node);
+        if (offset != null) {
+            /* Constant index into a local array: the element's offset is
+             * known at compile time */
+            code.genLoadConstant(offset);
         } else {
-            // Error report - this code should never run if static checking is done correctly
-            errors.fatal("Internal error: Array index isn't subrange or enum",
-                    node.getLocation());
+            Integer base = staticOffset(node.getId());
+            if (base == null) {
+                /* Address of the array is computed at run time */
+                code.append(node.getId().genCode(this));
+                code.append(genIndexExp(node));
+                code.generateOp(Operation.INDEX, indexType.getLower(),
+                        indexType.getUpper(), node.getElementSize());
+            } else {
+                code.append(genIndexExp(node));
+                code.generateOp(Operation.INDEX_FRAME, base, indexType.getLower(),
+                        indexType.getUpper(), node.getElementSize());
+            }
         }
-        // Multiply by size of element to get address offset from start of array
-        code.generateOp(Operation.MPY);
-        // Append code to get address of identifier variable
-        code.append(node.getId().genCode(this));
-        code.generateOp(Operation.ADD);
         endGen("ArrayIndex");
         return code;
     }
 
+    /**
+     * Generate code to load or store (via op) a single word element of a
+     * local array indexed by a run time value, or return null if the
+     * element isn't of that form.
+     */
+    private Code genIndexedAccess(ExpNode lValue, Operation op) {
+        if (!(lValue instanceof ExpNode.ArrayIndexNode) ||
+                lValue.getType().optDereferenceType().getSpace() != 1) {
+            return null;
+        }
+        ExpNode.ArrayIndexNode node = (ExpNode.ArrayIndexNode) lValue;
+        Integer base = staticOffset(node.getId());
+        if (base == null || staticOffset(node) != null) {
+            return null;
+        }
+        Type.ScalarType indexType = node.getIndexType();
+        Code code = genIndexExp(node);
+        code.generateOp(op, base, indexType.getLower(), indexType.getUpper(),
+                node.getElementSize());
+        return code;
+    }
+
+    /**
+     * Generate code for the index of an array element. The indexing
+     * instructions check the index is within the bounds of the array, so
+     * a narrowing of the index to exactly those bounds is skipped.
+     */
+    private Code genIndexExp(ExpNode.ArrayIndexNode node) {
+        ExpNode index = node.getIndex();
+        if (index instanceof ExpNode.NarrowSubrangeNode) {
+            Type.SubrangeType narrow = ((ExpNode.NarrowSubrangeNode) index).getSubrangeType();
+            if (narrow.getLower() == node.getIndexType().getLower() &&
+                    narrow.getUpper() == node.getIndexType().getUpper()) {
+                index = ((ExpNode.NarrowSubrangeNode) index).getExp();
+            }
+        }
+        return index.genCode(this);
+    }
+
+    /**
+     * Frame offset of a variable or array element whose address is known
+     * at compile time, i.e. a local variable indexed only by constants
+     * within bounds, or null if its address must be computed at run time.
+     */
+    private Integer staticOffset(ExpNode lValue) {
+        if (lValue instanceof ExpNode.VariableNode) {
+            SymEntry.VarEntry var = ((ExpNode.VariableNode) lValue).getVariable();
+            return var.getLevel() == staticLevel ? var.getOffset() : null;
+        } else if (lValue instanceof ExpNode.ArrayIndexNode) {
+            ExpNode.ArrayIndexNode node = (ExpNode.ArrayIndexNode) lValue;
+            Integer base = staticOffset(node.getId());
+            Integer index = constantValue(node.getIndex());
+            Type.ScalarType indexType = node.getIndexType();
+            if (base != null && index != null &&
+                    indexType.getLower() <= index && index <= indexType.getUpper()) {
+                return base + (index - indexType.getLower()) * node.getElementSize();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Value of an expression that is a constant (possibly narrowed or
+     * widened), or null if it isn't, or the narrowing would fail.
+     */
+    private Integer constantValue(ExpNode exp) {
+        if (exp instanceof ExpNode.ConstNode) {
+            return ((ExpNode.ConstNode) exp).getValue();
+        } else if (exp instanceof ExpNode.WidenSubrangeNode) {
+            return constantValue(((ExpNode.WidenSubrangeNode) exp).getExp());
+        } else if (exp instanceof ExpNode.NarrowSubrangeNode) {
+            Type.SubrangeType narrow = ((ExpNode.NarrowSubrangeNode) exp).getSubrangeType();
+            Integer value = constantValue(((ExpNode.NarrowSubrangeNode) exp).getExp());
+            if (value != null &&
+                    narrow.getLower() <= value && value <= narrow.getUpper()) {
+                return value;
+            }
+        }
+        return null;
+    }
+
     /**
      * Generate code for a variable reference.
      * It pushes the address of the variable as an offset from the frame pointer
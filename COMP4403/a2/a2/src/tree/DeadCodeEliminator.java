@@ -0,0 +1,474 @@
+package tree;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import source.Errors;
+import source.VisitorDebugger;
+import syms.Scope;
+import syms.SymEntry;
+import syms.Type;
+import tree.StatementNode.*;
+
+/**
+ * class DeadCodeEliminator - removes the parts of a checked program that
+ * cannot affect its behaviour, before code is generated for it:
+ * <ul>
+ * <li>procedures that are never called, directly or indirectly, from the
+ * main program;</li>
+ * <li>assignments to variables whose values are never used, provided
+ * evaluating the assignment cannot cause a runtime error;</li>
+ * <li>the space for variables that are no longer referenced, with the
+ * frame of each procedure re-packed so that the remaining variables
+ * (and the hidden upper bounds of "for" loops) are contiguous.</li>
+ * </ul>
+ * A variable's value is used if it is read by a statement other than an
+ * assignment that is removable, or by a removable assignment to a
+ * variable whose value is used. This whole-program liveness does not
+ * depend on the order of statements, so a store that is always
+ * overwritten before it is read is not removed.
+ */
+public class DeadCodeEliminator implements StatementVisitor, ExpTransform<ExpNode> {
+
+    /**
+     * Phases of the traversal of the procedures reachable from the
+     * main program
+     */
+    private enum Phase {
+        /* Find the reachable procedures, the variables read by statements
+         * that are kept, and the assignments that may be removed */
+        COLLECT,
+        /* Remove the assignments to variables whose values are unused */
+        REMOVE,
+        /* Find the variables still referenced */
+        REFERENCE
+    }
+
+    private final VisitorDebugger debug;
+
+    private Phase phase;
+    /**
+     * Procedures reachable from the main program, in the order found
+     */
+    private final Set<SymEntry.ProcedureEntry> reachable = new LinkedHashSet<>();
+    /**
+     * Reachable procedures whose bodies have not been traversed
+     */
+    private final Deque<SymEntry.ProcedureEntry> pending = new ArrayDeque<>();
+    /**
+     * Variables read by the expressions traversed, which are either those
+     * read by the statements kept or, while traversing the expression of
+     * a removable assignment, those it reads
+     */
+    private Set<SymEntry.VarEntry> reads;
+    /**
+     * Variables read by statements that are kept regardless of liveness
+     */
+    private final Set<SymEntry.VarEntry> essentialReads = new HashSet<>();
+    /**
+     * Variables read by the removable assignments to each variable
+     */
+    private final Map<SymEntry.VarEntry, Set<SymEntry.VarEntry>> storeReads = new HashMap<>();
+    /**
+     * Variables whose values are used
+     */
+    private final Set<SymEntry.VarEntry> live = new HashSet<>();
+    /**
+     * "for" loops of the procedure being traversed, whose control
+     * variables and upper bounds take space in its frame
+     */
+    private List<ForNode> forLoops;
+    private final Map<SymEntry.ProcedureEntry, List<ForNode>> procForLoops = new HashMap<>();
+
+    /* Counts for the report */
+    private int proceduresRemoved = 0;
+    private int variablesRemoved = 0;
+    private int assignmentsRemoved = 0;
+    private int frameSpaceBefore = 0;
+    private int frameSpaceAfter = 0;
+
+    public DeadCodeEliminator(Errors errors) {
+        super();
+        debug = new VisitorDebugger("eliminating", errors);
+    }
+
+    /**
+     * Remove the dead code and unused variables of a checked program.
+     */
+    public void eliminate(DeclNode.ProcedureNode program) {
+        beginElim("Program");
+        List<DeclNode.ProcedureNode> all = new ArrayList<>();
+        allProcedures(program, all);
+        for (DeclNode.ProcedureNode proc : all) {
+            frameSpaceBefore += proc.getBlock().getBlockLocals().getVariableSpace();
+        }
+        /* Find the reachable procedures and what they read */
+        phase = Phase.COLLECT;
+        reads = essentialReads;
+        SymEntry.ProcedureEntry main = program.getProcEntry();
+        reachable.add(main);
+        pending.add(main);
+        while (!pending.isEmpty()) {
+            SymEntry.ProcedureEntry proc = pending.remove();
+            forLoops = new ArrayList<>();
+            procForLoops.put(proc, forLoops);
+            proc.getBlock().getBody().accept(this);
+        }
+        findLive();
+        phase = Phase.REMOVE;
+        for (SymEntry.ProcedureEntry proc : reachable) {
+            proc.getBlock().getBody().accept(this);
+        }
+        /* Any reference to a variable requires space for it */
+        phase = Phase.REFERENCE;
+        reads = new HashSet<>();
+        for (SymEntry.ProcedureEntry proc : reachable) {
+            proc.getBlock().getBody().accept(this);
+        }
+        for (DeclNode.ProcedureNode proc : all) {
+            SymEntry.ProcedureEntry entry = proc.getProcEntry();
+            if (reachable.contains(entry)) {
+                proc.getBlock().getProcedures().getDeclarations().removeIf(decl ->
+                        !reachable.contains(((DeclNode.ProcedureNode) decl).getProcEntry()));
+                repack(entry, reads);
+                frameSpaceAfter += entry.getLocalScope().getVariableSpace();
+            } else {
+                proceduresRemoved++;
+            }
+        }
+        endElim("Program");
+    }
+
+    /**
+     * Add the procedure and those nested within it to the list
+     */
+    private void allProcedures(DeclNode.ProcedureNode proc, List<DeclNode.ProcedureNode> all) {
+        all.add(proc);
+        for (DeclNode decl : proc.getBlock().getProcedures().getDeclarations()) {
+            allProcedures((DeclNode.ProcedureNode) decl, all);
+        }
+    }
+
+    /**
+     * Find the variables whose values are used: those read by the
+     * statements kept, and those read by the removable assignments to
+     * variables whose values are used.
+     */
+    private void findLive() {
+        Deque<SymEntry.VarEntry> worklist = new ArrayDeque<>(essentialReads);
+        live.addAll(essentialReads);
+        while (!worklist.isEmpty()) {
+            Set<SymEntry.VarEntry> used = storeReads.get(worklist.remove());
+            if (used != null) {
+                for (SymEntry.VarEntry var : used) {
+                    if (live.add(var)) {
+                        worklist.add(var);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Allocate space again for the variables of a procedure that are
+     * still referenced, and for the upper bounds of its "for" loops, in
+     * their original order.
+     */
+    private void repack(SymEntry.ProcedureEntry proc, Set<SymEntry.VarEntry> referenced) {
+        /* Each slot is an original offset, its size, and how to set its
+         * new offset */
+        class Slot {
+            final int offset;
+            final int size;
+            final IntConsumer relocate;
+
+            Slot(int offset, int size, IntConsumer relocate) {
+                this.offset = offset;
+                this.size = size;
+                this.relocate = relocate;
+            }
+        }
+        List<Slot> slots = new ArrayList<>();
+        for (SymEntry entry : proc.getLocalScope().getEntries()) {
+            if (entry instanceof SymEntry.VarEntry) {
+                SymEntry.VarEntry var = (SymEntry.VarEntry) entry;
+                if (referenced.contains(var)) {
+                    slots.add(new Slot(var.getOffset(),
+                            var.getType().getBaseType().getSpace(), var::setOffset));
+                } else {
+                    var.setRemoved();
+                    variablesRemoved++;
+                }
+            }
+        }
+        for (ForNode loop : procForLoops.get(proc)) {
+            SymEntry.VarEntry ctrl = loop.getCtrlVar().getVariable();
+            slots.add(new Slot(ctrl.getOffset(), Type.SIZE_OF_INT, ctrl::setOffset));
+            slots.add(new Slot(loop.getUpperOffset(), Type.SIZE_OF_INT, loop::setUpperOffset));
+        }
+        slots.sort(Comparator.comparingInt(slot -> slot.offset));
+        Scope scope = proc.getLocalScope();
+        scope.clearVariableSpace();
+        for (Slot slot : slots) {
+            slot.relocate.accept(scope.allocVariableSpace(slot.size));
+        }
+    }
+
+    /**
+     * @return a report of what was removed
+     */
+    public String getReport() {
+        return "Removed " + count(proceduresRemoved, "procedure") + ", " +
+                count(variablesRemoved, "variable") + " and " +
+                count(assignmentsRemoved, "assignment") + "\n" +
+                "Frame space " + frameSpaceBefore + " -> " + frameSpaceAfter + " words";
+    }
+
+    private static String count(int n, String noun) {
+        return n + " " + noun + (n == 1 ? "" : "s");
+    }
+
+    /* -------------------- Statements ----------------------------*/
+
+    public void visitBlockNode(BlockNode node) {
+        /* Blocks are only those of procedures, traversed separately */
+    }
+
+    public void visitStatementErrorNode(StatementNode.ErrorNode node) {
+    }
+
+    public void visitStatementListNode(ListNode node) {
+        beginElim("StatementList");
+        if (phase == Phase.REMOVE) {
+            node.getStatements().removeIf(this::isDead);
+        }
+        for (StatementNode statement : node.getStatements()) {
+            statement.accept(this);
+        }
+        endElim("StatementList");
+    }
+
+    public void visitAssignmentNode(AssignmentNode node) {
+        beginElim("Assignment");
+        SymEntry.VarEntry var = assignedVariable(node);
+        if (phase == Phase.COLLECT && var != null) {
+            /* Removable: collect what it reads separately */
+            Set<SymEntry.VarEntry> used = storeReads.computeIfAbsent(var, v -> new HashSet<>());
+            reads = used;
+            node.getExp().transform(this);
+            reads = essentialReads;
+        } else {
+            lValue(node.getVariable());
+            node.getExp().transform(this);
+        }
+        endElim("Assignment");
+    }
+
+    public void visitReadNode(ReadNode node) {
+        beginElim("Read");
+        lValue(node.getLValue());
+        endElim("Read");
+    }
+
+    /**
+     * Traverse the target of an assignment or read. Storing to a variable
+     * does not read it, but any index expressions are read.
+     */
+    private void lValue(ExpNode node) {
+        if (phase == Phase.REFERENCE) {
+            node.transform(this);
+        } else if (node instanceof ExpNode.ArrayIndexNode) {
+            lValue(((ExpNode.ArrayIndexNode) node).getId());
+            ((ExpNode.ArrayIndexNode) node).getIndex().transform(this);
+        } else if (!(node instanceof ExpNode.VariableNode)) {
+            node.transform(this);
+        }
+    }
+
+    public void visitWriteNode(WriteNode node) {
+        beginElim("Write");
+        node.getExp().transform(this);
+        endElim("Write");
+    }
+
+    public void visitCallNode(CallNode node) {
+        beginElim("Call");
+        if (phase == Phase.COLLECT && reachable.add(node.getEntry())) {
+            pending.add(node.getEntry());
+        }
+        endElim("Call");
+    }
+
+    public void visitIfNode(IfNode node) {
+        beginElim("If");
+        node.getCondition().transform(this);
+        if (phase == Phase.REMOVE) {
+            node.setThenStmt(orEmpty(node.getThenStmt()));
+            node.setElseStmt(orEmpty(node.getElseStmt()));
+        }
+        node.getThenStmt().accept(this);
+        node.getElseStmt().accept(this);
+        endElim("If");
+    }
+
+    public void visitWhileNode(WhileNode node) {
+        beginElim("While");
+        node.getCondition().transform(this);
+        if (phase == Phase.REMOVE) {
+            node.setLoopStmt(orEmpty(node.getLoopStmt()));
+        }
+        node.getLoopStmt().accept(this);
+        endElim("While");
+    }
+
+    public void visitForNode(ForNode node) {
+        beginElim("For");
+        if (phase == Phase.COLLECT) {
+            forLoops.add(node);
+        }
+        lValue(node.getCtrlVar());
+        node.getLower().transform(this);
+        node.getUpper().transform(this);
+        node.getLoopStmt().accept(this);
+        endElim("For");
+    }
+
+    public void visitCobeginNode(CobeginNode node) {
+        beginElim("Cobegin");
+        for (StatementNode branch : node.getBranches()) {
+            branch.accept(this);
+        }
+        endElim("Cobegin");
+    }
+
+    /**
+     * @return the variable assigned by an assignment that can be removed
+     * if the variable's value is unused, or null if it cannot be removed
+     */
+    private SymEntry.VarEntry assignedVariable(AssignmentNode node) {
+        /* An assignment to an array element checks the index */
+        if (!(node.getVariable() instanceof ExpNode.VariableNode) ||
+                !cannotFail(node.getExp())) {
+            return null;
+        }
+        return ((ExpNode.VariableNode) node.getVariable()).getVariable();
+    }
+
+    /**
+     * @return whether evaluating the expression can never cause a runtime
+     * error: it has no index or range checks and no division except by a
+     * nonzero constant
+     */
+    private boolean cannotFail(ExpNode exp) {
+        if (exp instanceof ExpNode.ConstNode || exp instanceof ExpNode.VariableNode) {
+            return true;
+        } else if (exp instanceof ExpNode.DereferenceNode) {
+            return cannotFail(((ExpNode.DereferenceNode) exp).getLeftValue());
+        } else if (exp instanceof ExpNode.WidenSubrangeNode) {
+            return cannotFail(((ExpNode.WidenSubrangeNode) exp).getExp());
+        } else if (exp instanceof ExpNode.UnaryNode) {
+            ExpNode.UnaryNode unary = (ExpNode.UnaryNode) exp;
+            return unary.getOp() == Operator.NEG_OP && cannotFail(unary.getArg());
+        } else if (exp instanceof ExpNode.BinaryNode) {
+            ExpNode.BinaryNode binary = (ExpNode.BinaryNode) exp;
+            if (binary.getOp() == Operator.DIV_OP &&
+                    !(binary.getRight() instanceof ExpNode.ConstNode &&
+                            ((ExpNode.ConstNode) binary.getRight()).getValue() != 0)) {
+                return false;
+            }
+            return cannotFail(binary.getLeft()) && cannotFail(binary.getRight());
+        }
+        return false;
+    }
+
+    private boolean isDead(StatementNode statement) {
+        if (statement instanceof AssignmentNode) {
+            SymEntry.VarEntry var = assignedVariable((AssignmentNode) statement);
+            if (var != null && !live.contains(var)) {
+                assignmentsRemoved++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return an empty statement in place of a dead one
+     */
+    private StatementNode orEmpty(StatementNode statement) {
+        if (isDead(statement)) {
+            return new ListNode(statement.getLocation(), new ArrayList<>());
+        }
+        return statement;
+    }
+
+    /* -------------------- Expressions ----------------------------*/
+
+    public ExpNode visitErrorExpNode(ExpNode.ErrorNode node) {
+        return node;
+    }
+
+    public ExpNode visitConstNode(ExpNode.ConstNode node) {
+        return node;
+    }
+
+    public ExpNode visitIdentifierNode(ExpNode.IdentifierNode node) {
+        return node;
+    }
+
+    public ExpNode visitArrayIndexNode(ExpNode.ArrayIndexNode node) {
+        node.getId().transform(this);
+        node.getIndex().transform(this);
+        return node;
+    }
+
+    public ExpNode visitVariableNode(ExpNode.VariableNode node) {
+        reads.add(node.getVariable());
+        return node;
+    }
+
+    public ExpNode visitBinaryNode(ExpNode.BinaryNode node) {
+        node.getLeft().transform(this);
+        node.getRight().transform(this);
+        return node;
+    }
+
+    public ExpNode visitUnaryNode(ExpNode.UnaryNode node) {
+        node.getArg().transform(this);
+        return node;
+    }
+
+    public ExpNode visitDereferenceNode(ExpNode.DereferenceNode node) {
+        node.getLeftValue().transform(this);
+        return node;
+    }
+
+    public ExpNode visitNarrowSubrangeNode(ExpNode.NarrowSubrangeNode node) {
+        node.getExp().transform(this);
+        return node;
+    }
+
+    public ExpNode visitWidenSubrangeNode(ExpNode.WidenSubrangeNode node) {
+        node.getExp().transform(this);
+        return node;
+    }
+
+    /* -------------------- Debugging ----------------------------*/
+
+    private void beginElim(String nodeName) {
+        debug.beginDebug(nodeName);
+    }
+
+    private void endElim(String nodeName) {
+        debug.endDebug(nodeName);
+    }
+}
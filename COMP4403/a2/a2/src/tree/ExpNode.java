@@ -2,7 +2,9 @@ package tree;
 
 import java.util.*;
 
+import ir.Operand;
 import java_cup.runtime.ComplexSymbolFactory.Location;
+import source.ErrorHandler;
 import syms.SymEntry;
 import syms.Type;
 
@@ -69,6 +71,15 @@ public abstract class ExpNode {
      */
     public abstract Code genCode(ExpTransform<Code> visitor);
 
+    /**
+     * Each subclass of ExpNode must provide a genIr method
+     * to visit the expression node to build intermediate code.
+     *
+     * @param visitor object that implements a traversal.
+     * @return operand holding the value of the expression
+     */
+    public abstract Operand genIr(ExpTransform<Operand> visitor);
+
     /**
      * Tree node representing an erroneous expression.
      */
@@ -88,6 +99,11 @@ public abstract class ExpNode {
             return visitor.visitErrorExpNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitErrorExpNode(this);
+        }
+
         @Override
         public String toString() {
             return "ErrorNode";
@@ -122,6 +138,11 @@ public abstract class ExpNode {
             return visitor.visitConstNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitConstNode(this);
+        }
+
         @Override
         public String toString() {
             return Integer.toString(value);
@@ -158,6 +179,11 @@ public abstract class ExpNode {
             return visitor.visitIdentifierNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitIdentifierNode(this);
+        }
+
         @Override
         public String toString() {
             return "IdentifierNode(" + id + ")";
@@ -200,6 +226,33 @@ public abstract class ExpNode {
             this.index = index;
         }
 
+        /**
+         * Index type of the array being indexed, a subrange or enumeration
+         * requires static checking to have been done
+         */
+        public Type.ScalarType getIndexType() {
+            Type.ArrayType arrayType = id.getType().getArrayType();
+            if (arrayType == null ||
+                    !(arrayType.getArgType() instanceof Type.ScalarType)) {
+                // Error report - this code should never run if static checking is done correctly
+                ErrorHandler.getErrorHandler().fatal(
+                        "Internal error: Array index isn't subrange or enum",
+                        getLocation());
+                return null;
+            }
+            return (Type.ScalarType) arrayType.getArgType();
+        }
+
+        /**
+         * Size of an element of the array (sizeof array / num elements)
+         * requires static checking to have been done
+         */
+        public int getElementSize() {
+            Type.ScalarType indexType = getIndexType();
+            return id.getType().optDereferenceType().getSpace()
+                    / (indexType.getUpper() + 1 - indexType.getLower());
+        }
+
         @Override
         public ExpNode transform(ExpTransform<ExpNode> visitor) {
             return visitor.visitArrayIndexNode(this);
@@ -210,6 +263,11 @@ public abstract class ExpNode {
             return visitor.visitArrayIndexNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitArrayIndexNode(this);
+        }
+
         @Override
         public String toString() {
             return "ArrayIndexNode(" + id + "[" + index + "])";
@@ -244,6 +302,11 @@ public abstract class ExpNode {
             return visitor.visitVariableNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitVariableNode(this);
+        }
+
         @Override
         public String toString() {
             return variable.getIdent();
@@ -304,6 +367,11 @@ public abstract class ExpNode {
             return visitor.visitBinaryNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitBinaryNode(this);
+        }
+
         @Override
         public String toString() {
             return "(" + left + op + right + ")";
@@ -355,6 +423,11 @@ public abstract class ExpNode {
             return visitor.visitUnaryNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitUnaryNode(this);
+        }
+
         @Override
         public String toString() {
             return op + "(" + arg + ")";
@@ -400,6 +473,11 @@ public abstract class ExpNode {
             return visitor.visitDereferenceNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitDereferenceNode(this);
+        }
+
         @Override
         public String toString() {
             return "Dereference(" + leftValue + ")";
@@ -441,6 +519,11 @@ public abstract class ExpNode {
             return visitor.visitNarrowSubrangeNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitNarrowSubrangeNode(this);
+        }
+
         @Override
         public String toString() {
             return "NarrowSubrange(" + exp + ":" + type + ")";
@@ -476,6 +559,11 @@ public abstract class ExpNode {
             return visitor.visitWidenSubrangeNode(this);
         }
 
+        @Override
+        public Operand genIr(ExpTransform<Operand> visitor) {
+            return visitor.visitWidenSubrangeNode(this);
+        }
+
         @Override
         public String toString() {
             return "WidenSubrange(" + exp + ":" + getType() + ")";
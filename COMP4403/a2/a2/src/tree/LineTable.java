@@ -0,0 +1,97 @@
+package tree;
+
+import java.util.Arrays;
+
+import java_cup.runtime.ComplexSymbolFactory.Location;
+import source.ErrorHandler;
+
+/**
+ * class LineTable - maps code addresses to the locations in the source
+ * program of the statements the code was generated from.
+ * <p>
+ * The table is compact: it holds an entry only where the location changes,
+ * each giving the address from which a location applies, in increasing
+ * order of address. Code not generated for a statement, such as the
+ * allocation of a procedure's local variables and its return, has
+ * ErrorHandler.NO_LOCATION.
+ */
+public class LineTable {
+    /**
+     * Address from which each entry applies
+     */
+    private int[] addresses = new int[16];
+    private int[] lines = new int[16];
+    private int[] columns = new int[16];
+    /**
+     * Number of entries
+     */
+    private int size = 0;
+
+    /**
+     * Add an entry for the code from the address on.
+     * Entries must be added in order of address; an entry replaces
+     * one for the same address.
+     */
+    void add(int address, Location loc) {
+        assert size == 0 || addresses[size - 1] <= address;
+        if (size > 0 && addresses[size - 1] == address) {
+            /* The previous location covers no code */
+            size--;
+        }
+        if (size > 0 && lines[size - 1] == loc.getLine() &&
+                columns[size - 1] == loc.getColumn()) {
+            return;
+        }
+        if (size == addresses.length) {
+            addresses = Arrays.copyOf(addresses, 2 * size);
+            lines = Arrays.copyOf(lines, 2 * size);
+            columns = Arrays.copyOf(columns, 2 * size);
+        }
+        addresses[size] = address;
+        lines[size] = loc.getLine();
+        columns[size] = loc.getColumn();
+        size++;
+    }
+
+    /**
+     * @return the index of the entry covering the address, or -1 if it
+     * precedes every entry
+     */
+    private int find(int address) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (addresses[mid] <= address) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * @return the location of the statement the code at the address was
+     * generated from, or NO_LOCATION if there is none
+     */
+    public Location getLocation(int address) {
+        int i = find(address);
+        if (i < 0 || lines[i] == ErrorHandler.NO_LOCATION.getLine()) {
+            return ErrorHandler.NO_LOCATION;
+        }
+        return new Location(lines[i], columns[i]);
+    }
+
+    /**
+     * @return the line of the statement the code at the address was
+     * generated from, or -1 if there is none
+     */
+    public int getLine(int address) {
+        int i = find(address);
+        if (i < 0 || lines[i] == ErrorHandler.NO_LOCATION.getLine()) {
+            return -1;
+        }
+        return lines[i];
+    }
+}
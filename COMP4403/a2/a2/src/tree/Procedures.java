@@ -1,6 +1,6 @@
 package tree;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import machine.StackMachine;
@@ -11,12 +11,13 @@ import syms.SymEntry;
 /**
  * class Procedures - code for each procedure and start and finish
  * addresses. Handles a stack trace back for the stack machine
- * in the event of a runtime error.
+ * in the event of a runtime error, and maps addresses to the source
+ * locations the code was generated from.
  */
 public class Procedures {
 
     /**
-     * List of procedure starts
+     * List of procedure starts, in increasing order of address
      */
     private final List<ProcedureCode> procEntries;
     /**
@@ -42,6 +43,20 @@ public class Procedures {
             return procEntry.getIdent();
         }
 
+        /**
+         * @return the address of the first word of the procedure's code
+         */
+        public int getStart() {
+            return procEntry.getStart();
+        }
+
+        /**
+         * @return the address following the procedure's code
+         */
+        public int getFinish() {
+            return finish;
+        }
+
         public Scope getLocals() {
             return procEntry.getLocalScope();
         }
@@ -57,10 +72,17 @@ public class Procedures {
     }
 
     public Procedures() {
-        procEntries = new LinkedList<>();
+        procEntries = new ArrayList<>();
         current = StackMachine.CODE_START;
     }
 
+    /**
+     * @return the number of words of code of the procedures added so far
+     */
+    public int getCodeSize() {
+        return current - StackMachine.CODE_START;
+    }
+
     public List<ProcedureCode> getProcedureEntries() {
         return procEntries;
     }
@@ -74,17 +96,38 @@ public class Procedures {
             // Must be in main program setup or finalization code
             return null;
         }
-        for (ProcedureCode ps : procEntries) {
-            if (pc < ps.finish) {
-                return ps;
+        /* Binary search for the first procedure finishing after pc */
+        int low = 0;
+        int high = procEntries.size() - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (pc < procEntries.get(mid).finish) {
+                high = mid;
+            } else {
+                low = mid + 1;
             }
         }
+        if (low < procEntries.size() && pc < procEntries.get(low).finish) {
+            return procEntries.get(low);
+        }
         // Can't get here
         ErrorHandler.getErrorHandler().fatal(
                 "getProcedure failed assertion 2: pc = " + pc, ErrorHandler.NO_LOCATION);
         return null;
     }
 
+    /**
+     * Build the table of the source locations of the code of the
+     * procedures added so far.
+     */
+    public LineTable getLineTable() {
+        LineTable table = new LineTable();
+        for (ProcedureCode ps : procEntries) {
+            ps.code.addLocations(table, ps.getStart());
+        }
+        return table;
+    }
+
     @Override
     public String toString() {
         StringBuilder s = new StringBuilder();
@@ -359,8 +359,8 @@ public abstract class StatementNode {
      */
     public static class IfNode extends StatementNode {
         private ExpNode condition;
-        private final StatementNode thenStmt;
-        private final StatementNode elseStmt;
+        private StatementNode thenStmt;
+        private StatementNode elseStmt;
 
         public IfNode(Location loc, ExpNode condition,
                       StatementNode thenStmt, StatementNode elseStmt) {
@@ -392,10 +392,18 @@ public abstract class StatementNode {
             return thenStmt;
         }
 
+        public void setThenStmt(StatementNode thenStmt) {
+            this.thenStmt = thenStmt;
+        }
+
         public StatementNode getElseStmt() {
             return elseStmt;
         }
 
+        public void setElseStmt(StatementNode elseStmt) {
+            this.elseStmt = elseStmt;
+        }
+
         @Override
         public String toString(int level) {
             return "IF " + condition.toString() + " THEN" +
@@ -410,7 +418,7 @@ public abstract class StatementNode {
      */
     public static class WhileNode extends StatementNode {
         private ExpNode condition;
-        private final StatementNode loopStmt;
+        private StatementNode loopStmt;
 
         public WhileNode(Location loc, ExpNode condition,
                          StatementNode loopStmt) {
@@ -441,6 +449,10 @@ public abstract class StatementNode {
             return loopStmt;
         }
 
+        public void setLoopStmt(StatementNode loopStmt) {
+            this.loopStmt = loopStmt;
+        }
+
         @Override
         public String toString(int level) {
             return "WHILE " + condition.toString() + " DO" +
@@ -462,6 +474,9 @@ public abstract class StatementNode {
         private ExpNode lower;
         private ExpNode upper;
 
+        // Frame offset of the hidden variable holding the upper bound
+        private int upperOffset;
+
         // The loop body
         private final StatementNode loopStmt;
 
@@ -516,11 +531,60 @@ public abstract class StatementNode {
             this.ctrlVar = var;
         }
 
+        public int getUpperOffset() {
+            return upperOffset;
+        }
+
+        public void setUpperOffset(int upperOffset) {
+            this.upperOffset = upperOffset;
+        }
+
         @Override
         public String toString(int level) {
             return "FOR " + ctrlId + " : " + lower.toString() + ".." + upper.toString() + " DO" +
                     newLine(level + 1) + loopStmt.toString(level + 1);
         }
     }
+
+    /**
+     * Tree node representing a "cobegin" statement, whose branches are
+     * executed in parallel.
+     */
+    public static class CobeginNode extends StatementNode {
+        // The branches, each a statement list
+        private final List<StatementNode> branches;
+
+        public CobeginNode(Location loc, List<StatementNode> branches) {
+            super(loc);
+            this.branches = branches;
+        }
+
+        @Override
+        public void accept(StatementVisitor visitor) {
+            visitor.visitCobeginNode(this);
+        }
+
+        @Override
+        public Code genCode(StatementTransform<Code> visitor) {
+            return visitor.visitCobeginNode(this);
+        }
+
+        public List<StatementNode> getBranches() {
+            return branches;
+        }
+
+        @Override
+        public String toString(int level) {
+            StringBuilder result = new StringBuilder("COBEGIN");
+            String sep = "";
+            for (StatementNode branch : branches) {
+                result.append(sep).append(newLine(level + 1))
+                        .append(branch.toString(level + 1));
+                sep = newLine(level) + "||";
+            }
+            result.append(newLine(level)).append("COEND");
+            return result.toString();
+        }
+    }
 }
 
@@ -31,4 +31,6 @@ public interface StatementTransform<ResultType> {
 
     ResultType visitForNode(StatementNode.ForNode node);
 
+    ResultType visitCobeginNode(StatementNode.CobeginNode node);
+
 }
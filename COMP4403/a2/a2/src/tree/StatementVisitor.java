@@ -28,4 +28,6 @@ public interface StatementVisitor {
 
     void visitForNode(StatementNode.ForNode node);
 
+    void visitCobeginNode(StatementNode.CobeginNode node);
+
 }
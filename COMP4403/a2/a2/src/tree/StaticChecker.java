@@ -35,6 +35,10 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
      * Debug messages are reported through the visitor debugger.
      */
     private final VisitorDebugger debug;
+    /**
+     * Checks that the branches of "cobegin" statements do not interfere
+     */
+    private final ParallelChecker parallel;
 
     /**
      * Construct a static checker for PL0.
@@ -45,6 +49,7 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
         super();
         this.errors = errors;
         debug = new VisitorDebugger("checking", errors);
+        parallel = new ParallelChecker(errors);
     }
 
     /**
@@ -58,9 +63,19 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
         beginCheck("Program");
         // The main program is a special case of a procedure
         visitProcedureNode(node);
+        checkParallelBranches();
         endCheck("Program");
     }
 
+    /**
+     * Check that no branch of a "cobegin" statement assigns a variable
+     * another branch of it uses. Every procedure that might be called
+     * from the statements, directly or indirectly, must have been checked.
+     */
+    public void checkParallelBranches() {
+        parallel.check();
+    }
+
     /**
      * Procedure, function or main program node
      */
@@ -77,6 +92,8 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
         currentScope = localScope;
         // Check the block of the procedure.
         visitBlockNode(node.getBlock());
+        // Note the variables it uses, for checking parallel branches
+        parallel.addProcedure(node);
         // Restore the symbol table to the parent scope
         currentScope = currentScope.getParent();
         endCheck("Procedure");
@@ -281,12 +298,27 @@ public class StaticChecker implements DeclVisitor, StatementVisitor,
         node.setCtrlVar(new ExpNode.VariableNode(node.getLocation(),
                 currentScope.lookupVariable(node.getCtrlId())));
         node.getCtrlVar().getVariable().setReadOnly(true);
+        // Allocate space in the frame to hold the upper bound during the loop
+        node.setUpperOffset(currentScope.allocVariableSpace(Type.SIZE_OF_INT));
         // Visit loop body
         node.getLoopStmt().accept(this);
         currentScope = currentScope.getParent();
         endCheck("For");
     }
 
+    /**
+     * Cobegin statement node. That its branches do not interfere is
+     * checked once the whole program has been checked.
+     */
+    public void visitCobeginNode(StatementNode.CobeginNode node) {
+        beginCheck("Cobegin");
+        currentScope.getOwnerEntry().setParallel();
+        for (StatementNode branch : node.getBranches()) {
+            branch.accept(this);
+        }
+        endCheck("Cobegin");
+    }
+
     /*************************************************
      *  Expression node static checker visit methods.
      *  The static checking visitor methods for expressions
@@ -0,0 +1,336 @@
+package tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import source.Errors;
+import syms.Scope;
+import syms.SymEntry;
+
+/**
+ * class StreamingCompiler - checks and generates the code for each
+ * procedure as soon as it has been parsed, rather than after the whole
+ * program has been parsed, so that the abstract syntax tree of a procedure
+ * can be released as soon as its code has been generated.
+ * The memory used for syntax trees then depends on the nesting depth
+ * of the program rather than its size.
+ * <p>
+ * PL0 allows an identifier to be used before it is declared, so a
+ * procedure can only be compiled early if every identifier it uses
+ * already refers to an entry. The parser notes each use of an identifier
+ * and the compiler defers a procedure using an identifier that has not
+ * been declared yet until the declarations of an enclosing scope are
+ * complete.
+ * <p>
+ * An identifier found outside an enclosing scope whose declarations are
+ * not complete, such as a predefined identifier or a global, is assumed
+ * to keep the entry found, and the procedure is compiled. A later
+ * declaration of the identifier in that scope would hide the entry, so
+ * the identifiers are watched until the scope is complete. If one of
+ * them is hidden, the syntax tree of the procedure has already been
+ * released, so no more procedures are compiled and the program must be
+ * compiled again as a whole (see mustRecompile). Redeclaring a
+ * predefined or global identifier after it has been used is rare, so
+ * the trees of almost all procedures are released as soon as they have
+ * been parsed.
+ */
+public class StreamingCompiler {
+    /**
+     * Error message handler
+     */
+    private final Errors errors;
+
+    private final StaticChecker checker;
+
+    private final CodeGenerator generator;
+
+    /**
+     * Identifiers used within the declarations and body of each procedure
+     * that has not been compiled yet
+     */
+    private final Map<Scope, Set<String>> uses = new HashMap<>();
+
+    /**
+     * Identifiers used within the declarations of each scope whose
+     * declarations are not complete, which have not been found yet.
+     * A procedure is not compiled early while the declarations of an
+     * enclosing scope use an identifier that has not been declared,
+     * as the entries of that scope cannot be resolved.
+     */
+    private final Map<Scope, Set<String>> pending = new HashMap<>();
+
+    /**
+     * Scopes whose declarations are complete
+     */
+    private final Set<Scope> declared = new HashSet<>();
+
+    /**
+     * Identifiers that procedures compiled early found beyond each scope
+     * whose declarations are not complete, which a later declaration in
+     * that scope would hide
+     */
+    private final Map<Scope, Set<String>> watched = new HashMap<>();
+
+    /**
+     * Whether a declaration has hidden an entry used by a procedure
+     * compiled before the declaration was parsed
+     */
+    private boolean hidden = false;
+
+    /**
+     * Procedures waiting for the declarations of each scope to be complete
+     */
+    private final Map<Scope, List<DeclNode.ProcedureNode>> deferred = new HashMap<>();
+
+    /**
+     * Procedures in the order they were parsed, which is the order in
+     * which the whole program is laid out, nested procedures first
+     */
+    private final List<SymEntry.ProcedureEntry> parsed = new ArrayList<>();
+
+    /**
+     * Code generated for each procedure, which is compiled in an order
+     * that depends on when its entries can be resolved
+     */
+    private final Map<SymEntry.ProcedureEntry, Code> generated = new HashMap<>();
+
+    /**
+     * Control variables of the for loops being parsed, which are not
+     * declared in any scope
+     */
+    private final Deque<String> controlIds = new ArrayDeque<>();
+
+    public StreamingCompiler(Errors errors, boolean optimise) {
+        this.errors = errors;
+        checker = new StaticChecker(errors);
+        generator = new CodeGenerator(errors, optimise);
+    }
+
+    /**
+     * @return the code for the procedures compiled, laid out in the
+     * order the procedures were parsed
+     */
+    public Procedures getProcedures() {
+        Procedures procedures = new Procedures();
+        for (SymEntry.ProcedureEntry entry : parsed) {
+            procedures.addProcedure(entry, generated.get(entry));
+        }
+        return procedures;
+    }
+
+    /**
+     * @return whether a declaration hid an entry used by a procedure that
+     * had already been compiled, so that the code compiled so far is wrong
+     * and the program must be compiled again as a whole
+     */
+    public boolean mustRecompile() {
+        return hidden;
+    }
+
+    /**
+     * Note the use of an identifier within a scope
+     */
+    public void use(Scope scope, String id) {
+        if (controlIds.contains(id)) {
+            return;
+        }
+        uses.computeIfAbsent(scope, s -> new HashSet<>()).add(id);
+        if (!declared.contains(scope)) {
+            pending.computeIfAbsent(scope, s -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * The body of a for loop with the control variable id is being parsed
+     */
+    public void beginFor(String id) {
+        controlIds.push(id);
+    }
+
+    public void endFor() {
+        controlIds.pop();
+    }
+
+    /**
+     * The declarations of a scope are complete, so any procedures deferred
+     * until then can be compiled if the entries they use can be resolved.
+     */
+    public void declarationsComplete(Scope scope) {
+        declared.add(scope);
+        /* An identifier now declared in the scope was found beyond it by
+         * a procedure compiled before the declaration */
+        Set<String> found = watched.remove(scope);
+        if (found != null) {
+            for (String id : found) {
+                if (isLocal(scope, id)) {
+                    hidden = true;
+                }
+            }
+        }
+        /* Identifiers still not found must be declared in an outer scope */
+        Set<String> notFound = pending.remove(scope);
+        if (notFound != null && isOpen(scope.getParent())) {
+            notFound.removeIf(id -> scope.lookup(id) != null);
+            pending.computeIfAbsent(scope.getParent(), s -> new HashSet<>())
+                    .addAll(notFound);
+        }
+        List<DeclNode.ProcedureNode> waiting = deferred.remove(scope);
+        if (waiting == null) {
+            return;
+        }
+        for (DeclNode.ProcedureNode node : waiting) {
+            if (!isOpen(scope.getParent()) || isReady(node)) {
+                /* Once the program's declarations are complete
+                 * undeclared identifiers are errors */
+                compile(node);
+            } else {
+                deferred.computeIfAbsent(scope.getParent(), s -> new ArrayList<>())
+                        .add(node);
+            }
+        }
+    }
+
+    /**
+     * A procedure has been parsed: compile it if it is ready, otherwise
+     * defer it until the declarations of the enclosing scope are complete.
+     */
+    public void procedureParsed(DeclNode.ProcedureNode node) {
+        parsed.add(node.getProcEntry());
+        Scope scope = node.getProcEntry().getLocalScope();
+        /* Identifiers declared locally need not be waited for */
+        Set<String> used = uses.get(scope);
+        if (used != null) {
+            used.removeIf(id -> isLocal(scope, id));
+        }
+        if (isReady(node)) {
+            compile(node);
+        } else {
+            deferred.computeIfAbsent(scope.getParent(), s -> new ArrayList<>())
+                    .add(node);
+        }
+    }
+
+    /**
+     * The main program has been parsed, and so all procedures have
+     * been compiled except the main program.
+     */
+    public void programParsed(DeclNode.ProcedureNode node) {
+        parsed.add(node.getProcEntry());
+        compile(node, true);
+    }
+
+    /**
+     * A procedure is ready to compile if every identifier it uses refers
+     * to an entry that has already been declared, and the entries of
+     * the enclosing scopes can be resolved.
+     */
+    private boolean isReady(DeclNode.ProcedureNode node) {
+        Scope outer = node.getProcEntry().getLocalScope().getParent();
+        Set<String> used = uses.get(node.getProcEntry().getLocalScope());
+        if (used != null && !allDeclared(outer, used)) {
+            return false;
+        }
+        for (Scope scope = outer; scope != null; scope = scope.getParent()) {
+            Set<String> resolved = isOpen(scope) ? pending.get(scope) : uses.get(scope);
+            if (resolved != null && !allDeclared(scope, resolved)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean allDeclared(Scope scope, Set<String> ids) {
+        for (String id : ids) {
+            if (scope.lookup(id) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A scope is open if its declarations are not complete. The
+     * predefined scope, at level 0, is complete, as is any extension of
+     * it holding the main program's entry.
+     */
+    private boolean isOpen(Scope scope) {
+        return scope != null && scope.getLevel() > 0 && !declared.contains(scope);
+    }
+
+    private static boolean isLocal(Scope scope, String id) {
+        SymEntry entry = scope.lookup(id);
+        return entry != null && entry.getScope() == scope;
+    }
+
+    /**
+     * Watch each of the identifiers, as looked up from the scope, in
+     * every open scope beyond which it is found, where a later
+     * declaration of the same identifier would hide the entry found.
+     */
+    private void watch(Scope scope, Set<String> ids) {
+        if (ids == null) {
+            return;
+        }
+        for (String id : ids) {
+            SymEntry entry = scope.lookup(id);
+            Scope found = entry == null ? null : entry.getScope();
+            for (Scope s = scope; s != found && s != null; s = s.getParent()) {
+                if (isOpen(s)) {
+                    watched.computeIfAbsent(s, k -> new HashSet<>()).add(id);
+                }
+            }
+        }
+    }
+
+    private void compile(DeclNode.ProcedureNode node) {
+        compile(node, false);
+    }
+
+    /**
+     * Check and generate the code for a procedure, whose nested procedures
+     * have been handed on separately, and release its syntax tree.
+     *
+     * @param program whether it is the main program, which is compiled last
+     */
+    private void compile(DeclNode.ProcedureNode node, boolean program) {
+        Scope local = node.getProcEntry().getLocalScope();
+        if (hidden) {
+            /* The program is to be compiled again as a whole */
+            node.getProcEntry().setBlock(null);
+            return;
+        }
+        watch(local.getParent(), uses.remove(local));
+        List<Scope> outer = new ArrayList<>();
+        for (Scope scope = local.getParent(); scope.getLevel() > 0;
+             scope = scope.getParent()) {
+            outer.add(0, scope);
+            watch(scope, isOpen(scope) ? pending.get(scope) : uses.get(scope));
+        }
+        /* Resolve the entries of the enclosing scopes declared so far,
+         * outermost first, as they would have been resolved before the
+         * procedure if it had been compiled with the whole program. */
+        for (Scope scope : outer) {
+            if (isOpen(scope)) {
+                pending.remove(scope);
+            }
+            scope.resolveScope();
+        }
+        checker.visitProcedureNode(node);
+        if (program) {
+            /* Every procedure has now been checked */
+            checker.checkParallelBranches();
+        }
+        /* Code is not generated once there have been errors, but each
+         * procedure is still checked to report its errors */
+        if (!errors.hadErrors()) {
+            generated.put(node.getProcEntry(), generator.generateProcedure(node));
+        }
+        node.getProcEntry().setBlock(null);
+    }
+}
@@ -3,7 +3,9 @@ package machine;
 import syms.SymEntry;
 
 /**
- * class Instruction - represents an instruction in generated code
+ * class Instruction - represents an instruction in generated code.
+ * Code is stored in a compact word encoding (see tree.Code); instruction
+ * objects are only created when decoding it for listings and debugging.
  */
 public class Instruction {
     final Operation op;
@@ -12,8 +14,19 @@ public class Instruction {
         this.op = op;
     }
 
-    public void loadInstruction(StackMachine machine) {
-        machine.generateWord(op.ordinal());
+    /**
+     * @return number of words the instruction occupies when loaded
+     */
+    public int getSize() {
+        return op.getSize();
+    }
+
+    /**
+     * Resolve any references that are only known once the program
+     * has been loaded.
+     */
+    public void resolve() {
+        /* Plain instructions have nothing to resolve */
     }
 
     @Override
@@ -28,15 +41,10 @@ public class Instruction {
         protected String comment;
 
         public CommentInstruction(String comment) {
-            super(Operation.LOAD_CON);
+            super(Operation.COMMENT);
             this.comment = comment;
         }
 
-        @Override
-        public void loadInstruction(StackMachine machine) {
-            /* A comment does not generate any code */
-        }
-
         @Override
         public String toString() {
             return "// " + comment;
@@ -62,12 +70,6 @@ public class Instruction {
             this.value = value;
         }
 
-        @Override
-        public void loadInstruction(StackMachine machine) {
-            super.loadInstruction(machine);
-            machine.generateWord(value);
-        }
-
         @Override
         public String toString() {
             return super.toString() + "(" + value + ")";
@@ -89,9 +91,8 @@ public class Instruction {
         }
 
         @Override
-        public void loadInstruction(StackMachine machine) {
+        public void resolve() {
             value = proc.getStart();
-            super.loadInstruction(machine);
         }
 
         @Override
@@ -55,6 +55,16 @@ public enum Operation {
     /* Loading multiple words onto the stack */
     LOAD_MULTI(),      /* Load multiple words onto stack */
     STORE_MULTI(),     /* Store multiple words from stack */
+    /* Operations on sets stored as multi-word bitsets. The number of
+     * possible elements of the set is on the top of stack. */
+    SET_EMPTY(),       /* Push an empty set */
+    SET_INCLUDE(),     /* Add an element to a set */
+    SET_UNION(),       /* Union of two sets */
+    SET_INTERSECT(),   /* Intersection of two sets */
+    SET_DIFFERENCE(),  /* Difference of two sets */
+    SET_COMPLEMENT(),  /* Complement of a set */
+    SET_EQUAL(),       /* Test two sets for equality */
+    SET_MEMBER(),      /* Test for membership of a set */
     STOP();            /* Halt execution */
 
     /* Size of the instruction - LOAD_CON of size 2 */
@@ -133,11 +133,17 @@ public class StackMachine {
                 /* Set the start location for execution */
                 pc = currLocn;
             }
-            for (Instruction inst : proc.getCode().getInstructionList()) {
-                int locn = currLocn;
-                inst.loadInstruction(this);
-                if (listing) {
-                    printListing(locn, inst);
+            /* Load the flattened code for the procedure */
+            int start = currLocn;
+            for (int word : proc.getCode().toWords()) {
+                generateWord(word);
+            }
+            if (listing) {
+                int locn = start;
+                for (Instruction inst : proc.getCode().getInstructionList()) {
+                    inst.resolve();
+                    printListing(Math.min(locn, MEM_LIMIT), inst);
+                    locn += inst.getSize();
                 }
             }
         }
@@ -246,6 +252,33 @@ public class StackMachine {
         }
     }
 
+    /**
+     * Number of words in a set with the given number of possible elements
+     */
+    private static int setWords(int elements) {
+        return (elements + Type.SET_ELEMENTS_PER_WORD - 1) /
+                Type.SET_ELEMENTS_PER_WORD;
+    }
+
+    /**
+     * Address of the first of count set operands, each of the given number
+     * of words, on top of the stack. Set operations process whole words
+     * in place rather than pushing and popping each word.
+     *
+     * @return the address, or -1 if there are not enough words on the stack
+     */
+    private int setOperands(int words, int count) {
+        int base = sp - words * count;
+        if (words < 0) {
+            runtimeError("invalid set size");
+            return -1;
+        } else if (base < STACK_START) {
+            runtimeError("stack underflow!");
+            return -1;
+        }
+        return base;
+    }
+
     /**
      * Return value stored at address
      */
@@ -646,6 +679,94 @@ public class StackMachine {
                     count--;
                 }
                 break;
+            case SET_EMPTY: /* Push an empty set */
+                int words = setWords(pop());
+                for (int i = 0; i < words && running; i++) {
+                    push(0);
+                }
+                break;
+            case SET_INCLUDE: /* Add the element (relative to the lower
+                bound of the element type) on top of stack to the set below */
+                int elements = pop();
+                int element = pop();
+                int base = setOperands(setWords(elements), 1);
+                if (base < 0) {
+                    break;
+                }
+                if (element < 0 || element >= elements) {
+                    runtimeError("set element " + element + " out of range");
+                } else {
+                    memory[base + element / Type.SET_ELEMENTS_PER_WORD] |=
+                            1 << (element % Type.SET_ELEMENTS_PER_WORD);
+                }
+                break;
+            case SET_UNION: /* Union of the two sets on top of stack */
+            case SET_INTERSECT: /* Intersection of the two sets on top of stack */
+            case SET_DIFFERENCE: /* Second top set less the top set */
+                words = setWords(pop());
+                base = setOperands(words, 2);
+                if (base < 0) {
+                    break;
+                }
+                for (int i = base; i < base + words; i++) {
+                    if (inst == Operation.SET_UNION) {
+                        memory[i] |= memory[i + words];
+                    } else if (inst == Operation.SET_INTERSECT) {
+                        memory[i] &= memory[i + words];
+                    } else {
+                        memory[i] &= ~memory[i + words];
+                    }
+                }
+                sp -= words;
+                break;
+            case SET_COMPLEMENT: /* Complement the set on top of stack */
+                elements = pop();
+                words = setWords(elements);
+                base = setOperands(words, 1);
+                if (base < 0) {
+                    break;
+                }
+                for (int i = base; i < base + words; i++) {
+                    memory[i] = ~memory[i];
+                }
+                /* Clear the bits past the last element */
+                int unused = words * Type.SET_ELEMENTS_PER_WORD - elements;
+                if (unused > 0) {
+                    memory[base + words - 1] &= -1 >>> unused;
+                }
+                break;
+            case SET_EQUAL: /* Test if the top two sets are equal */
+                words = setWords(pop());
+                base = setOperands(words, 2);
+                if (base < 0) {
+                    break;
+                }
+                boolean equal = true;
+                for (int i = base; i < base + words; i++) {
+                    equal &= memory[i] == memory[i + words];
+                }
+                sp = base;
+                push(equal ? Type.TRUE_VALUE : Type.FALSE_VALUE);
+                break;
+            case SET_MEMBER: /* Test if the element (relative to the lower
+                bound of the element type) below the set on top of stack
+                is in the set */
+                elements = pop();
+                words = setWords(elements);
+                base = setOperands(words, 1);
+                if (base < 0) {
+                    break;
+                } else if (base == STACK_START) {
+                    runtimeError("stack underflow!");
+                    break;
+                }
+                element = memory[base - 1];
+                boolean member = 0 <= element && element < elements &&
+                        (memory[base + element / Type.SET_ELEMENTS_PER_WORD] &
+                                1 << (element % Type.SET_ELEMENTS_PER_WORD)) != 0;
+                sp = base - 1;
+                push(member ? Type.TRUE_VALUE : Type.FALSE_VALUE);
+                break;
             case STOP: /* Halt */
                 int exitcode = pop();
                 switch (exitcode) {
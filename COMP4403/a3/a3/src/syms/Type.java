@@ -1190,10 +1190,17 @@ public abstract class Type {
     }
 
 
+    /**
+     * Number of set elements packed into each word of a set value
+     */
+    public static final int SET_ELEMENTS_PER_WORD = 32;
+
     /**
      * Type representing a set with at most maxElements elements.
+     * A set is stored as a bitset of one or more words; sets with at
+     * most SET_ELEMENTS_PER_WORD elements fit in a single word.
      */
-    public final int maxElements = 32;
+    public final int maxElements = 256 * SET_ELEMENTS_PER_WORD;
 
     public static class SetType extends Type {
 
@@ -1209,13 +1216,25 @@ public abstract class Type {
             return elementType;
         }
 
+        /**
+         * @return the number of possible elements of the set.
+         * requires the element type is a resolved subrange
+         */
+        public int numberOfElements() {
+            SubrangeType et = (SubrangeType) elementType;
+            return et.getUpper() - et.getLower() + 1;
+        }
+
         @Override
         public SetType resolveType() {
             elementType = elementType.resolveType();
             if (elementType instanceof SubrangeType) {
                 SubrangeType et = (SubrangeType)elementType;
-                if (et.getUpper() - et.getLower() >= maxElements) {
+                if ((long) et.getUpper() - et.getLower() >= maxElements) {
                     errors.error("more than " + maxElements + " elements in set", loc);
+                } else {
+                    space = (numberOfElements() + SET_ELEMENTS_PER_WORD - 1)
+                            / SET_ELEMENTS_PER_WORD;
                 }
             } else {
                 // System.out.println("Element type " + elementType);
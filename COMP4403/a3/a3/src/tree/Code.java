@@ -1,24 +1,146 @@
 package tree;
 
-import java.util.List;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
 
 import machine.Instruction;
 import machine.Operation;
+import machine.StackMachine;
 import syms.SymEntry;
 import syms.Type;
 
 /**
- * class Code - store sequence of instructions
+ * class Code - store sequence of instructions.
+ * The instructions are held as a rope: a tree of chunks of encoded
+ * instruction words joined by append. Appending a code sequence is
+ * constant time and shares the appended chunks rather than copying
+ * them, so building code bottom-up through nested statements and
+ * expressions does not repeatedly copy the same instructions.
+ * The rope is flattened into a single word array when it is loaded.
+ * <p>
+ * Each instruction is encoded as its opcode (the Operation ordinal)
+ * followed by its operand words (only LOAD_CON has one). Procedure
+ * references are encoded as a LOAD_CON whose operand is resolved to the
+ * start address of the procedure when the code is flattened. Comments
+ * are encoded as a COMMENT opcode that is dropped when flattened.
  */
 public class Code {
     /**
-     * List of instructions generated
+     * Opcodes indexed by ordinal, for decoding instruction words
+     */
+    private static final Operation[] OPERATIONS = Operation.values();
+    /**
+     * Initial capacity in words of a chunk
+     */
+    private static final int CHUNK_CAPACITY = 8;
+
+    /**
+     * Node of the rope of instructions. Once a node has been appended to
+     * another code sequence its words are never extended, only patched.
+     */
+    private static abstract class Piece {
+    }
+
+    /**
+     * A contiguous run of encoded instruction words
+     */
+    private static final class Chunk extends Piece {
+        /**
+         * Encoded instruction words
+         */
+        int[] words = new int[CHUNK_CAPACITY];
+        /**
+         * Procedure entries for procedure reference operands and
+         * text of comments, parallel to words; null until the first
+         * one is generated
+         */
+        Object[] refs;
+        /**
+         * Number of words used
+         */
+        int length;
+
+        /**
+         * Append a word to the chunk, growing it if necessary.
+         *
+         * @return index of the word within the chunk
+         */
+        int add(int word) {
+            if (length == words.length) {
+                words = Arrays.copyOf(words, 2 * length);
+                if (refs != null) {
+                    refs = Arrays.copyOf(refs, 2 * length);
+                }
+            }
+            words[length] = word;
+            return length++;
+        }
+
+        /**
+         * Append a word to the chunk along with the object it refers to.
+         *
+         * @return index of the word within the chunk
+         */
+        int add(int word, Object ref) {
+            int index = add(word);
+            if (refs == null) {
+                refs = new Object[words.length];
+            }
+            refs[index] = ref;
+            return index;
+        }
+
+        /**
+         * @return the object referred to by the word at index, if any
+         */
+        Object ref(int index) {
+            return refs == null ? null : refs[index];
+        }
+    }
+
+    /**
+     * Concatenation of two code sequences
+     */
+    private static final class Join extends Piece {
+        final Piece first;
+        final Piece second;
+
+        Join(Piece first, Piece second) {
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    /**
+     * Stable handle on the operand of a generated LOAD_CON instruction.
+     * It remains valid after the code sequence containing it has been
+     * appended to other code sequences.
+     */
+    public static final class ConstantHandle {
+        private final Chunk chunk;
+        private final int index;
+
+        private ConstantHandle(Chunk chunk, int index) {
+            this.chunk = chunk;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Instructions that have been shared with other code sequences
+     * by append; null if there are none
      */
-    private final List<Instruction> code;
+    private Piece shared;
+    /**
+     * Chunk currently being generated into; null if there is none
+     */
+    private Chunk current;
     /**
      * Size of the instructions in words.
-     * This is not just the length of the list.
+     * This is not just the number of instructions.
      */
     private int size;
     /**
@@ -26,29 +148,141 @@ public class Code {
      */
     public Code() {
         super();
-        code = new ArrayList<>();
+        shared = null;
+        current = null;
         size = 0;
     }
 
-    public List<Instruction> getInstructionList() {
-        return code;
-    }
-
     public int size() {
         return size;
     }
+
+    /**
+     * @return the chunk to generate the next instruction into
+     */
+    private Chunk currentChunk() {
+        if (current == null) {
+            current = new Chunk();
+        }
+        return current;
+    }
+
+    /**
+     * Freeze the instructions generated so far so that they can be shared.
+     * Subsequent instructions are generated into a new chunk.
+     *
+     * @return the rope of all instructions, or null if there are none
+     */
+    private Piece freeze() {
+        if (current != null) {
+            shared = join(shared, current);
+            current = null;
+        }
+        return shared;
+    }
+
+    /**
+     * Join two (possibly empty) pieces of code
+     */
+    private static Piece join(Piece first, Piece second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        return new Join(first, second);
+    }
+
+    /**
+     * List the chunks of the rope in order.
+     * Iterative, as joins nest as deeply as the appends that built them.
+     */
+    private List<Chunk> chunks() {
+        List<Chunk> chunks = new ArrayList<>();
+        Deque<Piece> pending = new ArrayDeque<>();
+        Piece root = join(shared, current);
+        if (root != null) {
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            Piece piece = pending.pop();
+            if (piece instanceof Join) {
+                pending.push(((Join) piece).second);
+                pending.push(((Join) piece).first);
+            } else {
+                chunks.add((Chunk) piece);
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * Flatten the code into the words to be loaded into memory,
+     * resolving procedure references to their start addresses.
+     */
+    public int[] toWords() {
+        int[] image = new int[size];
+        int next = 0;
+        for (Chunk chunk : chunks()) {
+            for (int i = 0; i < chunk.length; i++) {
+                Object ref = chunk.ref(i);
+                if (ref instanceof SymEntry.ProcedureEntry) {
+                    image[next++] = ((SymEntry.ProcedureEntry) ref).getStart();
+                } else if (!(ref instanceof String)) {
+                    /* Comment words are dropped */
+                    image[next++] = chunk.words[i];
+                }
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Decode the code into a list of instructions.
+     * Used for listings and debugging only.
+     */
+    public List<Instruction> getInstructionList() {
+        List<Instruction> instructions = new ArrayList<>();
+        for (Chunk chunk : chunks()) {
+            int i = 0;
+            while (i < chunk.length) {
+                Object ref = chunk.ref(i);
+                Operation op = OPERATIONS[chunk.words[i++]];
+                if (op == Operation.COMMENT) {
+                    instructions.add(new Instruction.CommentInstruction((String) ref));
+                    continue;
+                }
+                if (op != Operation.LOAD_CON) {
+                    instructions.add(new Instruction(op));
+                } else if (chunk.ref(i) instanceof SymEntry.ProcedureEntry) {
+                    instructions.add(new Instruction.ProcRefInstruction(
+                            (SymEntry.ProcedureEntry) chunk.ref(i)));
+                } else {
+                    instructions.add(new Instruction.LoadConInstruction(chunk.words[i]));
+                }
+                i += op.getSize() - 1;
+            }
+        }
+        return instructions;
+    }
     //---------------------------------------------------------------
     //--------------- Utility Code Generation Methods
     //---------------------------------------------------------------
 
     /**
      * Append the code sequence newCode to this code sequence.
+     * The instructions are shared rather than copied; later additions
+     * to either code sequence do not affect the other.
      *
      * @param newCode sequence to be appended
      */
     public void append(Code newCode) {
-        code.addAll(newCode.code);
-        size += newCode.size();
+        Piece appended = newCode.freeze();
+        if (appended != null) {
+            shared = join(freeze(), appended);
+            size += newCode.size();
+        }
     }
 
     /**
@@ -57,7 +291,7 @@ public class Code {
      * @param opcode of the generated instruction.
      */
     public void generateOp(Operation opcode) {
-        code.add(new Instruction(opcode));
+        currentChunk().add(opcode.ordinal());
         size += opcode.getSize();
     }
 
@@ -67,7 +301,7 @@ public class Code {
      * @param comment
      */
     public void genComment(String comment) {
-        code.add(new Instruction.CommentInstruction(comment));
+        currentChunk().add(Operation.COMMENT.ordinal(), comment);
         // No change in size of code
     }
 
@@ -75,23 +309,24 @@ public class Code {
      * Generate a LoadConstant instruction and append to code sequence.
      *
      * @param value of the constant
-     * @return location of the constant for later patching
+     * @return handle on the constant for later patching
      */
-    public int genLoadConstant(int value) {
-        int position = code.size();
-        code.add(new Instruction.LoadConInstruction(value));
+    public ConstantHandle genLoadConstant(int value) {
+        Chunk chunk = currentChunk();
+        chunk.add(Operation.LOAD_CON.ordinal());
+        int index = chunk.add(value);
         size += Operation.LOAD_CON.getSize();
-        return position;
+        return new ConstantHandle(chunk, index);
     }
 
     /**
-     * Update the LOAD_CON instruction at index position to load
+     * Update the LOAD_CON instruction referred to by handle to load
      * the new value.
      */
-    public void updateLoadCon(int position, int value) {
-        Instruction instruction = code.get(position);
-        if (instruction instanceof Instruction.LoadConInstruction) {
-            ((Instruction.LoadConInstruction) instruction).setValue(value);
+    public void updateLoadCon(ConstantHandle handle, int value) {
+        Chunk chunk = handle.chunk;
+        if (chunk.ref(handle.index) == null) {
+            chunk.words[handle.index] = value;
         } else {
             throw new Error("Code update of non-LOAD_CON instruction");
         }
@@ -101,7 +336,9 @@ public class Code {
      * Generate a procedure call reference instruction
      */
     public void genProcCallRef(SymEntry.ProcedureEntry proc) {
-        code.add(new Instruction.ProcRefInstruction(proc));
+        Chunk chunk = currentChunk();
+        chunk.add(Operation.LOAD_CON.ordinal());
+        chunk.add(StackMachine.NULL_ADDR, proc);
         size += Operation.LOAD_CON.getSize();
     }
 
@@ -228,8 +465,8 @@ public class Code {
      * is relative to the address of the instruction following the
      * BR_FALSE instruction.
      */
-    public int genJumpIfFalse(int offset) {
-        int position = genLoadConstant(offset);
+    public ConstantHandle genJumpIfFalse(int offset) {
+        ConstantHandle position = genLoadConstant(offset);
         generateOp(Operation.BR_FALSE);
         return position;
     }
@@ -243,8 +480,8 @@ public class Code {
     /**
      * Generate an unconditional branch.
      */
-    public int genJumpAlways(int offset) {
-        int position = genLoadConstant(offset);
+    public ConstantHandle genJumpAlways(int offset) {
+        ConstantHandle position = genLoadConstant(offset);
         generateOp(Operation.BR);
         return position;
     }
@@ -306,7 +543,7 @@ public class Code {
     public String toString() {
         StringBuilder instructions = new StringBuilder("[");
         String sep = "";
-        for (Instruction inst : code) {
+        for (Instruction inst : getInstructionList()) {
             instructions.append(sep).append(inst);
             sep = ",";
         }
@@ -338,7 +338,9 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         switch (node.getOp()) {
             case ADD_OP:
                 code = genArgs(left, right);
-                if (node.getLeft().getType() instanceof Type.SetType) {
+                if (wideSetType(left) != null) {
+                    genSetOp(code, wideSetType(left), Operation.SET_UNION);
+                } else if (node.getLeft().getType() instanceof Type.SetType) {
                     code.generateOp(Operation.OR);
                 } else {
                     code.generateOp(Operation.ADD);
@@ -346,7 +348,9 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
                 break;
             case SUB_OP:
                 code = genArgs(left, right);
-                if (node.getLeft().getType() instanceof Type.SetType) {
+                if (wideSetType(left) != null) {
+                    genSetOp(code, wideSetType(left), Operation.SET_DIFFERENCE);
+                } else if (node.getLeft().getType() instanceof Type.SetType) {
                     code.generateOp(Operation.NOT);
                     code.generateOp(Operation.AND);
                 } else {
@@ -356,7 +360,9 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
                 break;
             case MUL_OP:
                 code = genArgs(left, right);
-                if (node.getLeft().getType() instanceof Type.SetType) {
+                if (wideSetType(left) != null) {
+                    genSetOp(code, wideSetType(left), Operation.SET_INTERSECT);
+                } else if (node.getLeft().getType() instanceof Type.SetType) {
                     code.generateOp(Operation.AND);
                 } else {
                     code.generateOp(Operation.MPY);
@@ -368,7 +374,11 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
                 break;
             case EQUALS_OP:
                 code = genArgs(left, right);
-                code.generateOp(Operation.EQUAL);
+                if (wideSetType(left) != null) {
+                    genSetOp(code, wideSetType(left), Operation.SET_EQUAL);
+                } else {
+                    code.generateOp(Operation.EQUAL);
+                }
                 break;
             case LESS_OP:
                 code = genArgs(left, right);
@@ -376,7 +386,11 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
                 break;
             case NEQUALS_OP:
                 code = genArgs(left, right);
-                code.generateOp(Operation.EQUAL);
+                if (wideSetType(left) != null) {
+                    genSetOp(code, wideSetType(left), Operation.SET_EQUAL);
+                } else {
+                    code.generateOp(Operation.EQUAL);
+                }
                 code.genBoolNot();
                 break;
             case LEQUALS_OP:
@@ -396,7 +410,15 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
             case IN_OP:
                 code = new Code();
                 // Failsafe - with IN_OP not being overloaded this should always evaluate to true
-                if (right.getType() instanceof Type.SetType
+                if (wideSetType(right) != null) {
+                    Type.SetType setType = wideSetType(right);
+                    /* Element relative to the lower bound, then the set. The
+                     * membership test yields false if it is out of range. */
+                    code.append(left.genCode(this));
+                    genElementOffset(code, setType);
+                    code.append(right.genCode(this));
+                    genSetOp(code, setType, Operation.SET_MEMBER);
+                } else if (right.getType() instanceof Type.SetType
                         && ((Type.SetType) right.getType()).getElementType()
                         instanceof Type.SubrangeType) {
                     Type.SubrangeType type = (Type.SubrangeType)((Type.SetType) right.getType())
@@ -468,7 +490,11 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
                 code.generateOp(Operation.NEGATE);
                 break;
             case COMPLEMENT_OP:
-                code.generateOp(Operation.NOT);
+                if (wideSetType(node.getArg()) != null) {
+                    genSetOp(code, wideSetType(node.getArg()), Operation.SET_COMPLEMENT);
+                } else {
+                    code.generateOp(Operation.NOT);
+                }
                 break;
             default:
                 errors.fatal("PL0 Internal error: Unknown operator",
@@ -552,20 +578,30 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
         // Failsafe - this should always evaluate to true
         if (node.getType() instanceof Type.SetType
                 && ((Type.SetType)node.getType()).getElementType() instanceof Type.SubrangeType) {
-            Type.SubrangeType type
-                    = (Type.SubrangeType)((Type.SetType)node.getType()).getElementType();
-            code.generateOp(Operation.ZERO);
-            for (ExpNode elem : node.getElements()) {
-                code.generateOp(Operation.ONE);
-                code.append(elem.genCode(this));
+            Type.SetType setType = (Type.SetType)node.getType();
+            Type.SubrangeType type = (Type.SubrangeType)setType.getElementType();
+            if (setType.getSpace() > 1) {
+                /* Build a multi-word set in place on the stack */
+                genSetOp(code, setType, Operation.SET_EMPTY);
+                for (ExpNode elem : node.getElements()) {
+                    code.append(elem.genCode(this));
+                    genElementOffset(code, setType);
+                    genSetOp(code, setType, Operation.SET_INCLUDE);
+                }
+            } else {
+                code.generateOp(Operation.ZERO);
+                for (ExpNode elem : node.getElements()) {
+                    code.generateOp(Operation.ONE);
+                    code.append(elem.genCode(this));
 
-                // Find the value relative to the start of the subrange
-                code.genLoadConstant(type.getLower());
-                code.generateOp(Operation.NEGATE);
-                code.generateOp(Operation.ADD);
-                // Shift the 1 left to the correct bit and add to the total value of the set
-                code.generateOp(Operation.SHIFT_LEFT);
-                code.generateOp(Operation.ADD);
+                    // Find the value relative to the start of the subrange
+                    code.genLoadConstant(type.getLower());
+                    code.generateOp(Operation.NEGATE);
+                    code.generateOp(Operation.ADD);
+                    // Shift the 1 left to the correct bit and add to the total value of the set
+                    code.generateOp(Operation.SHIFT_LEFT);
+                    code.generateOp(Operation.ADD);
+                }
             }
         } else {
             errors.fatal("PL0 Internal error: Invalid Type for Set Node",
@@ -577,6 +613,39 @@ public class CodeGenerator implements DeclVisitor, StatementTransform<Code>,
     }
     //**************************** Support Methods
 
+    /**
+     * @return the type of a set valued expression whose value is a
+     * multi-word bitset, or null if the expression is not a set or its
+     * value fits in a single word (for which the word operations are used)
+     */
+    private Type.SetType wideSetType(ExpNode exp) {
+        Type.SetType type = exp.getType().getSetType();
+        if (type != null && type.getSpace() > 1) {
+            return type;
+        }
+        return null;
+    }
+
+    /**
+     * Generate a multi-word set operation on sets of the given type
+     */
+    private void genSetOp(Code code, Type.SetType type, Operation op) {
+        code.genLoadConstant(type.numberOfElements());
+        code.generateOp(op);
+    }
+
+    /**
+     * Generate code to convert the element value on top of the stack
+     * to its position relative to the lower bound of the element type.
+     */
+    private void genElementOffset(Code code, Type.SetType type) {
+        int lower = ((Type.SubrangeType) type.getElementType()).getLower();
+        if (lower != 0) {
+            code.genLoadConstant(-lower);
+            code.generateOp(Operation.ADD);
+        }
+    }
+
     /**
      * Push current node onto debug rule stack and increase debug level
      */
@@ -3,15 +3,18 @@ package network;
 import exceptions.DuplicateStopException;
 import exceptions.TransportFormatException;
 import routes.Route;
+import stops.RoutingTable;
 import stops.Stop;
 import utilities.Writeable;
 import vehicles.PublicTransport;
 
 import java.io.*;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Represents the transportation network, and manages all of the various
@@ -21,6 +24,9 @@ public class Network {
     // standardises newline characters
     private static final String NEWLINE = System.lineSeparator();
 
+    // the largest number of stops whose routes are computed by one task
+    private static final int ROUTING_BATCH = 8;
+
     // all the stops in the network
     private List<Stop> stops;
 
@@ -39,6 +45,17 @@ public class Network {
         this.routes = new ArrayList<>();
     }
 
+    /*
+     * Creates a Network with the given stops, routes, and vehicles, which are
+     * assumed to be valid (as when read from a snapshot).
+     */
+    Network(List<Stop> stops, List<Route> routes,
+            List<PublicTransport> vehicles) {
+        this.stops = new ArrayList<>(stops);
+        this.routes = new ArrayList<>(routes);
+        this.vehicles = new ArrayList<>(vehicles);
+    }
+
     /**
      * Creates a new Network from information contained in the file indicated by
      * the given filename. The file should be in the following format:
@@ -85,6 +102,10 @@ public class Network {
      * <p>The Network object created should have the stops, routes, and vehicles
      * contained in the given file.
      *
+     * <p>The routing tables of the stops are updated as each stop is added to
+     * its routes (see {@link #Network(String, boolean)} to compute them at
+     * once instead).
+     *
      * @param filename The name of the file to load the network from.
      * @throws IOException If any IO exceptions occur whilst trying to read from
      *         the file, or if the filename is null.
@@ -110,55 +131,97 @@ public class Network {
      */
     public Network(String filename)
             throws IOException, TransportFormatException {
+        this(filename, false);
+    }
+
+    /**
+     * Creates a new Network from information contained in the file indicated by
+     * the given filename, as {@link #Network(String)} does, optionally
+     * computing the routing tables of the stops at once.
+     *
+     * <p>If the routing is computed at once, the stops are connected along all
+     * of the routes before any routing is done, and the routing tables are
+     * then computed as by {@link #computeRouting()}. This is much faster for
+     * large networks, and the costs of the routes are the same, but where
+     * several routes to a stop are equally cheap, the next stop chosen may
+     * differ from that chosen when the tables are updated as the stops are
+     * added to their routes.
+     *
+     * @param filename The name of the file to load the network from.
+     * @param computeRouting Whether the routing tables are computed at once,
+     *                       rather than updated as the routes are read.
+     * @throws IOException If any IO exceptions occur whilst trying to read from
+     *         the file, or if the filename is null.
+     * @throws TransportFormatException If the file is incorrectly formatted
+     *         (see {@link #Network(String)}).
+     */
+    public Network(String filename, boolean computeRouting)
+            throws IOException, TransportFormatException {
         this();
         if (filename == null) {
             throw new IOException();
         }
 
-        // create a file reader
-        BufferedReader reader = new BufferedReader(new FileReader(filename));
-        List<String> lines = new ArrayList<>();
-        String line;
-
-        // while the end of file has not been reached.
-        while ((line = reader.readLine()) != null) {
-            lines.add(line);
-        }
-        reader.close();
-        Iterator<String> elements = lines.iterator();
-
-        try {
-            // read the stopos
-            stops = new ArrayList<>();
-            int stopCount = Integer.parseInt(elements.next().trim());
+        // the file is read a line at a time, and the stops and routes are
+        // found by name and number in indices as the routes and vehicles
+        // referring to them are decoded
+        try (BufferedReader reader =
+                     new BufferedReader(new FileReader(filename))) {
+            // read the stops
+            Map<String, Stop> stopIndex = new HashMap<>();
+            int stopCount = Integer.parseInt(nextLine(reader).trim());
             for (int i = 0; i < stopCount; i++) {
-                String stop = elements.next();
-                stops.add(Stop.decode(stop));
+                Stop stop = Stop.decode(nextLine(reader));
+                stops.add(stop);
+                // routes use the first stop with a name
+                stopIndex.putIfAbsent(stop.getName(), stop);
             }
 
-            // read the routes
-            routes = new ArrayList<>();
-            int routeCount = Integer.parseInt(elements.next().trim());
+            // read the routes, routing the stops as they are added unless
+            // the routing is computed once they are all connected
+            Map<Integer, Route> routeIndex = new HashMap<>();
+            int routeCount = Integer.parseInt(nextLine(reader).trim());
             for (int i = 0; i < routeCount; i++) {
-                String route = elements.next();
-                routes.add(Route.decode(route, stops));
+                Route route = Route.decode(nextLine(reader), stopIndex,
+                        !computeRouting);
+                routes.add(route);
+                // vehicles use the first route with a number
+                routeIndex.putIfAbsent(route.getRouteNumber(), route);
             }
 
             // read the public transport
-            vehicles = new ArrayList<>();
-            int vehicleCount = Integer.parseInt(elements.next().trim());
+            int vehicleCount = Integer.parseInt(nextLine(reader).trim());
             for (int i = 0; i < vehicleCount; i++) {
-                String vehicle = elements.next();
-                vehicles.add(PublicTransport.decode(vehicle, routes));
+                vehicles.add(PublicTransport.decode(nextLine(reader),
+                        routeIndex));
             }
 
             // there should be no extra lines in the file
-            if (elements.hasNext()) {
+            if (reader.readLine() != null) {
                 throw new TransportFormatException();
             }
-        } catch (NoSuchElementException | NumberFormatException e) {
+        } catch (NumberFormatException e) {
+            throw new TransportFormatException();
+        }
+
+        if (computeRouting) {
+            // route the whole network at once, now that it is connected
+            computeRouting();
+        }
+    }
+
+    /*
+     * Returns the next line read by the given reader.
+     *
+     * Throws a TransportFormatException if there are no more lines.
+     */
+    private static String nextLine(BufferedReader reader)
+            throws IOException, TransportFormatException {
+        String line = reader.readLine();
+        if (line == null) {
             throw new TransportFormatException();
         }
+        return line;
     }
 
     /**
@@ -263,6 +326,86 @@ public class Network {
         return new ArrayList<>(vehicles);
     }
 
+    /**
+     * Returns an integer-indexed graph of the stops in this network and the
+     * connections between them.
+     *
+     * <p>The stops are assigned ids in the order in which they were added to
+     * the network. The graph is a snapshot: it does not change as stops or
+     * neighbours are added afterwards.
+     *
+     * @return A graph of the stops in this network.
+     */
+    public StopGraph getGraph() {
+        return new StopGraph(stops);
+    }
+
+    /**
+     * Computes the cheapest routes between all the stops in this network, and
+     * installs them in the routing table of every stop (using
+     * {@link RoutingTable#installRoutes(StopGraph, int[], int[])}).
+     *
+     * <p>One single-source shortest path search is made from each stop, over
+     * the graph of the network (see {@link #getGraph()}), in parallel on the
+     * common fork-join pool. Each search writes the costs and next stops of
+     * the routes from its stop into arrays indexed by the ids of the stops,
+     * which become that stop's routing table. This is much faster than
+     * building the tables as each neighbour is added, once the network is
+     * large.
+     *
+     * <p>The costs are the same as those found as neighbours are added, since
+     * stops are neighbours of each other along routes. Where there are
+     * several cheapest routes to a stop, the next stop may be on a different
+     * one of them.
+     */
+    public void computeRouting() {
+        computeRouting(ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Computes the routes between all the stops in this network as
+     * computeRouting() does, in the given pool.
+     */
+    void computeRouting(ForkJoinPool pool) {
+        StopGraph graph = getGraph();
+        pool.invoke(new RoutingTask(graph, 0, graph.size()));
+    }
+
+    /*
+     * Computes and installs the routes from the stops in a range of ids of a
+     * graph, dividing the range between subtasks while it is large.
+     */
+    private static class RoutingTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final StopGraph graph;
+        private final int start;
+        private final int end;
+
+        RoutingTask(StopGraph graph, int start, int end) {
+            this.graph = graph;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > ROUTING_BATCH) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new RoutingTask(graph, start, middle),
+                        new RoutingTask(graph, middle, end));
+                return;
+            }
+            for (int source = start; source < end; source++) {
+                int[] costs = new int[graph.size()];
+                int[] nextStops = new int[graph.size()];
+                graph.shortestPaths(source, costs, nextStops);
+                graph.getStop(source).getRoutingTable()
+                        .installRoutes(graph, costs, nextStops);
+            }
+        }
+    }
+
     /**
      * Saves this network to the file indicated by the given filename.
      *
@@ -0,0 +1,459 @@
+package network;
+
+import exceptions.NoNameException;
+import exceptions.TransportException;
+import exceptions.TransportFormatException;
+import routes.Route;
+import stops.RoutingTable;
+import stops.Stop;
+import vehicles.PublicTransport;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads and writes transportation networks in a compact binary snapshot
+ * format, which can be loaded without parsing text and may include the
+ * routing tables of the stops, so that they need not be computed again.
+ *
+ * <p>A snapshot is written in big-endian order, and is made up of:
+ *
+ * <ol>
+ *     <li>a header of eight integers: the magic number {@link #MAGIC}, the
+ *     version {@link #VERSION}, the flags ({@link #ROUTING} if the routing
+ *     tables are included), the number of stops, routes, and vehicles, the
+ *     total number of stops on all of the routes, and the length of the
+ *     string pool in bytes;</li>
+ *     <li>a fixed-width record for each stop: the offset and length of its
+ *     name in the string pool, and its x and y coordinates;</li>
+ *     <li>a fixed-width record for each route: the offset and length of its
+ *     type and of its name in the string pool, its number, and the position
+ *     and number of its stops in the route stop ids;</li>
+ *     <li>the route stop ids: the index of each stop on each route in the
+ *     stops of the network;</li>
+ *     <li>a fixed-width record for each vehicle: its id, its capacity, the
+ *     index of its route, and the offset and length of the last field of its
+ *     encoded form (see {@link PublicTransport#vehicleFromType}) in the
+ *     string pool;</li>
+ *     <li>the string pool, the UTF-8 bytes of the strings, padded to a whole
+ *     number of integers; and</li>
+ *     <li>if the routing tables are included, a row for each stop, with the
+ *     cost of the route to each stop in the network, by index, followed by
+ *     the index of the next stop on that route, as given by the routing
+ *     table of the stop (Integer.MAX_VALUE and -1 if there is no route).</li>
+ * </ol>
+ *
+ * <p>Snapshots are read through a memory-mapped file, and the routing tables
+ * are installed directly from the rows (see
+ * {@link stops.RoutingTable#installRoutes(StopGraph, int[], int[])}), so
+ * that they answer as the tables saved did. If a snapshot has no routing
+ * tables, they are updated as the stops are added to the routes, as when a
+ * network is loaded by {@link Network#Network(String)}.
+ *
+ * <p>Usage: java network.NetworkSnapshot (-binary [-routing] | -text) input
+ * output
+ *
+ * <p>With -binary, the text network file input (see
+ * {@link Network#Network(String)}) is converted to a snapshot, with the
+ * routing tables if -routing is given. With -text, the snapshot input is
+ * converted to a text network file.
+ */
+public class NetworkSnapshot {
+    /** The first integer of every snapshot, "TNET" in ASCII. */
+    public static final int MAGIC = 0x544E4554;
+
+    /** The version of the snapshot format written. */
+    public static final int VERSION = 1;
+
+    /** The flag set when a snapshot includes the routing tables. */
+    public static final int ROUTING = 1;
+
+    // the number of integers in the header and in each record
+    private static final int HEADER_INTS = 8;
+    private static final int STOP_INTS = 4;
+    private static final int ROUTE_INTS = 7;
+    private static final int VEHICLE_INTS = 5;
+
+    private static final String USAGE = "Usage: java network.NetworkSnapshot "
+            + "(-binary [-routing] | -text) input output";
+
+    /*
+     * Snapshots are only read and written by the static methods.
+     */
+    private NetworkSnapshot() {
+    }
+
+    /**
+     * Saves the given network as a snapshot in the file indicated by the given
+     * filename.
+     *
+     * <p>If the routing tables are saved, they are the routes in the routing
+     * tables of the stops to the other stops of the network when saved.
+     * Routes whose next stop is not in the network are not saved, and the
+     * tables are not saved at all if any stop of the network has a
+     * neighbour which is not in the network.
+     *
+     * <p>As with {@link Network#save(String)}, a stop on a route which is not
+     * in the network is saved, but the snapshot cannot then be loaded.
+     *
+     * @param network The network to save.
+     * @param filename The name of the file to save the snapshot to.
+     * @param routing Whether to save the routing tables of the stops.
+     * @throws IOException If there are any IO errors whilst writing to the
+     *         file.
+     */
+    public static void save(Network network, String filename, boolean routing)
+            throws IOException {
+        List<Stop> stops = network.getStops();
+        List<Route> routes = network.getRoutes();
+        List<PublicTransport> vehicles = network.getVehicles();
+        StopGraph graph = network.getGraph();
+        routing = routing && graph.size() == stops.size();
+
+        StringPool pool = new StringPool();
+        int routeStopCount = 0;
+        for (Route route : routes) {
+            routeStopCount += route.getStopsOnRoute().size();
+        }
+        // routes are indexed by their position, and vehicles refer to the
+        // first route with their route's number, as when decoded
+        Map<Integer, Integer> routeIndex = new HashMap<>();
+        for (int i = 0; i < routes.size(); i++) {
+            routeIndex.putIfAbsent(routes.get(i).getRouteNumber(), i);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename)))) {
+            // the string pool must be complete before its length is written,
+            // so the records are first written to a buffer
+            ByteBuffer records = ByteBuffer.allocate(Integer.BYTES
+                    * (STOP_INTS * stops.size() + ROUTE_INTS * routes.size()
+                    + routeStopCount + VEHICLE_INTS * vehicles.size()));
+            for (Stop stop : stops) {
+                pool.put(records, stop.getName());
+                records.putInt(stop.getX());
+                records.putInt(stop.getY());
+            }
+            int firstStop = 0;
+            for (Route route : routes) {
+                pool.put(records, route.getType());
+                pool.put(records, route.getName());
+                records.putInt(route.getRouteNumber());
+                records.putInt(firstStop);
+                records.putInt(route.getStopsOnRoute().size());
+                firstStop += route.getStopsOnRoute().size();
+            }
+            for (Route route : routes) {
+                for (Stop stop : route.getStopsOnRoute()) {
+                    int id = graph.getId(stop);
+                    records.putInt(id < stops.size() ? id : -1);
+                }
+            }
+            for (PublicTransport vehicle : vehicles) {
+                records.putInt(vehicle.getId());
+                records.putInt(vehicle.getCapacity());
+                records.putInt(routeIndex.getOrDefault(
+                        vehicle.getRoute().getRouteNumber(), -1));
+                pool.put(records, extraField(vehicle));
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(routing ? ROUTING : 0);
+            out.writeInt(stops.size());
+            out.writeInt(routes.size());
+            out.writeInt(vehicles.size());
+            out.writeInt(routeStopCount);
+            out.writeInt(pool.paddedLength());
+            out.write(records.array());
+            pool.writeTo(out);
+
+            if (routing) {
+                int[] costs = new int[stops.size()];
+                int[] nextStops = new int[stops.size()];
+                for (Stop source : stops) {
+                    routingRow(source.getRoutingTable(), graph, costs,
+                            nextStops);
+                    for (int cost : costs) {
+                        out.writeInt(cost);
+                    }
+                    for (int next : nextStops) {
+                        out.writeInt(next);
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Fills in the cost of the route in the given table to each stop of the
+     * given graph, by id, and the id of the next stop on it, or
+     * Integer.MAX_VALUE and -1 if there is no route or its next stop is not
+     * in the graph.
+     */
+    private static void routingRow(RoutingTable table, StopGraph graph,
+            int[] costs, int[] nextStops) {
+        for (int id = 0; id < costs.length; id++) {
+            Stop destination = graph.getStop(id);
+            Stop next = table.nextStop(destination);
+            nextStops[id] = next == null ? -1 : graph.getId(next);
+            costs[id] = nextStops[id] < 0 ? Integer.MAX_VALUE
+                    : table.costTo(destination);
+        }
+    }
+
+    /*
+     * Returns the last field of the encoded form of the given vehicle, which
+     * follows its type, id, capacity, and route number.
+     */
+    private static String extraField(PublicTransport vehicle) {
+        String encoded = vehicle.encode();
+        int start = 0;
+        final int FIELDS_BEFORE = 4;
+        for (int i = 0; i < FIELDS_BEFORE; i++) {
+            start = encoded.indexOf(',', start) + 1;
+        }
+        return encoded.substring(start);
+    }
+
+    /**
+     * Loads a network from the snapshot in the file indicated by the given
+     * filename.
+     *
+     * <p>If the snapshot has routing tables, the stops are connected along
+     * the routes without updating their routing tables, which are then
+     * installed from the snapshot. Otherwise the routing tables are updated
+     * as the stops are added to the routes.
+     *
+     * @param filename The name of the file to load the snapshot from.
+     * @return The network in the snapshot.
+     * @throws IOException If any IO exceptions occur whilst trying to read from
+     *         the file, or if the filename is null.
+     * @throws TransportFormatException If the file is not a snapshot of a
+     *         version which can be read, or is incorrectly formatted (for
+     *         example, if it is truncated, or refers to a stop or route which
+     *         is not in the snapshot).
+     */
+    public static Network load(String filename)
+            throws IOException, TransportFormatException {
+        if (filename == null) {
+            throw new IOException();
+        }
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.READ)) {
+            // the mapping remains valid once the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+
+        try {
+            return read(buffer);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+                | IllegalArgumentException | NoNameException
+                | TransportException e) {
+            // IllegalArgumentException includes NumberFormatException
+            throw new TransportFormatException();
+        }
+    }
+
+    /*
+     * Reads a network from the given snapshot.
+     */
+    private static Network read(ByteBuffer buffer)
+            throws TransportException {
+        IntBuffer ints = buffer.asIntBuffer();
+        if (ints.remaining() < HEADER_INTS || ints.get() != MAGIC
+                || ints.get() != VERSION) {
+            throw new TransportFormatException();
+        }
+        int flags = ints.get();
+        int stopCount = ints.get();
+        int routeCount = ints.get();
+        int vehicleCount = ints.get();
+        int routeStopCount = ints.get();
+        int poolLength = ints.get();
+        if ((flags & ~ROUTING) != 0 || stopCount < 0 || routeCount < 0
+                || vehicleCount < 0 || routeStopCount < 0 || poolLength < 0
+                || poolLength % Integer.BYTES != 0) {
+            throw new TransportFormatException();
+        }
+
+        // the string pool follows the records
+        long poolStart = Integer.BYTES * ((long) HEADER_INTS
+                + (long) STOP_INTS * stopCount + (long) ROUTE_INTS * routeCount
+                + routeStopCount + (long) VEHICLE_INTS * vehicleCount);
+        long routingStart = poolStart + poolLength;
+        long routingLength = (flags & ROUTING) == 0 ? 0
+                : 2L * Integer.BYTES * stopCount * stopCount;
+        if (routingStart + routingLength != buffer.capacity()) {
+            throw new TransportFormatException();
+        }
+        ByteBuffer pool = ((ByteBuffer) buffer.duplicate()
+                .position((int) poolStart).limit((int) routingStart)).slice();
+
+        List<Stop> stops = new ArrayList<>(stopCount);
+        for (int i = 0; i < stopCount; i++) {
+            String name = string(pool, ints.get(), ints.get());
+            stops.add(new Stop(name, ints.get(), ints.get()));
+        }
+
+        List<Route> routes = new ArrayList<>(routeCount);
+        int[] firstStops = new int[routeCount];
+        int[] routeLengths = new int[routeCount];
+        for (int i = 0; i < routeCount; i++) {
+            String type = string(pool, ints.get(), ints.get());
+            String name = string(pool, ints.get(), ints.get());
+            routes.add(Route.routeFromType(type, name, ints.get()));
+            firstStops[i] = ints.get();
+            routeLengths[i] = ints.get();
+        }
+        int routeStopsStart = ints.position();
+        boolean installRoutes = (flags & ROUTING) != 0;
+        for (int i = 0; i < routeCount; i++) {
+            if (firstStops[i] < 0 || routeLengths[i] < 0
+                    || firstStops[i] > routeStopCount - routeLengths[i]) {
+                throw new TransportFormatException();
+            }
+            for (int j = 0; j < routeLengths[i]; j++) {
+                // the stops are routed unless their routes are installed
+                routes.get(i).addStop(stops.get(
+                        ints.get(routeStopsStart + firstStops[i] + j)),
+                        !installRoutes);
+            }
+        }
+        ints.position(routeStopsStart + routeStopCount);
+
+        List<PublicTransport> vehicles = new ArrayList<>(vehicleCount);
+        for (int i = 0; i < vehicleCount; i++) {
+            int id = ints.get();
+            int capacity = ints.get();
+            Route route = routes.get(ints.get());
+            String extra = string(pool, ints.get(), ints.get());
+            PublicTransport vehicle = PublicTransport.vehicleFromType(
+                    route.getType(), id, capacity, route, extra);
+            route.addTransport(vehicle);
+            vehicles.add(vehicle);
+        }
+
+        Network network = new Network(stops, routes, vehicles);
+        if (!installRoutes) {
+            return network;
+        }
+
+        // the stops are connected only along the routes, so the graph has
+        // exactly the stops of the network, in the order they were saved
+        StopGraph graph = network.getGraph();
+        ints.position((int) (routingStart / Integer.BYTES));
+        for (int source = 0; source < stopCount; source++) {
+            int[] costs = new int[stopCount];
+            int[] nextStops = new int[stopCount];
+            ints.get(costs);
+            ints.get(nextStops);
+            for (int next : nextStops) {
+                if (next < -1 || next >= stopCount) {
+                    throw new TransportFormatException();
+                }
+            }
+            stops.get(source).getRoutingTable().installRoutes(graph, costs,
+                    nextStops);
+        }
+        return network;
+    }
+
+    /*
+     * Returns the string with the given offset and length in bytes in the
+     * given string pool.
+     */
+    private static String string(ByteBuffer pool, int offset, int length) {
+        byte[] bytes = new byte[length];
+        ((ByteBuffer) pool.duplicate().position(offset)).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     * The strings written to a snapshot, each stored once.
+     */
+    private static class StringPool {
+        // the UTF-8 bytes of the strings, in the order they were added
+        private final ByteArrayOutputStream bytes =
+                new ByteArrayOutputStream();
+
+        // the offset of each string in the pool
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        /*
+         * Adds the given string to the pool, unless it is already there, and
+         * puts its offset and length in bytes in the given buffer.
+         */
+        void put(ByteBuffer buffer, String string) {
+            byte[] encoded = string.getBytes(StandardCharsets.UTF_8);
+            Integer offset = offsets.get(string);
+            if (offset == null) {
+                offset = bytes.size();
+                offsets.put(string, offset);
+                bytes.write(encoded, 0, encoded.length);
+            }
+            buffer.putInt(offset);
+            buffer.putInt(encoded.length);
+        }
+
+        /*
+         * Returns the length of the pool once padded to whole integers.
+         */
+        int paddedLength() {
+            return (bytes.size() + Integer.BYTES - 1) / Integer.BYTES
+                    * Integer.BYTES;
+        }
+
+        /*
+         * Writes the pool, padded to whole integers, to the given stream.
+         */
+        void writeTo(DataOutputStream out) throws IOException {
+            bytes.writeTo(out);
+            for (int i = bytes.size(); i < paddedLength(); i++) {
+                out.writeByte(0);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean binary = args.length > 0 && args[0].equals("-binary");
+        boolean routing = binary && args.length > 1
+                && args[1].equals("-routing");
+        int first = routing ? 2 : 1;
+        if (args.length != first + 2 || !(binary || args[0].equals("-text"))) {
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        String input = args[first];
+        String output = args[first + 1];
+        try {
+            if (binary) {
+                // the routing tables are saved as loaded only with -routing,
+                // and are otherwise computed the faster way
+                save(new Network(input, !routing), output, routing);
+            } else {
+                load(input).save(output);
+            }
+        } catch (IOException | TransportFormatException e) {
+            System.err.println("Unable to convert " + input + ": " + e);
+            System.exit(1);
+        }
+    }
+}
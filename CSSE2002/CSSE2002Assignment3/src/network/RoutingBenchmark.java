@@ -0,0 +1,113 @@
+package network;
+
+import exceptions.DuplicateStopException;
+import routes.BusRoute;
+import routes.Route;
+import stops.RoutingTable;
+import stops.Stop;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the time taken to route a randomly generated network as its
+ * routes are built, when each routing table is synchronised as neighbours
+ * are added, with the time taken by {@link Network#computeRouting()}, on one
+ * thread and on the common fork-join pool.
+ *
+ * <p>Usage: java network.RoutingBenchmark [stops [routes [length [seed]]]]
+ *
+ * <p>The stops are placed at random on a 100 by 100 grid, and each route
+ * visits the given number of stops chosen at random. The costs found by
+ * each method are checked to be the same for every pair of stops.
+ */
+public class RoutingBenchmark {
+    // the default size of the network
+    private static final int DEFAULT_STOPS = 1000;
+    private static final int DEFAULT_ROUTES = 120;
+    private static final int DEFAULT_LENGTH = 12;
+
+    // the width and height of the grid the stops are placed on
+    private static final int GRID = 100;
+
+    // the number of times routing is computed; the fastest time is reported
+    private static final int RUNS = 3;
+
+    public static void main(String[] args) throws DuplicateStopException {
+        int stopCount = args.length > 0 ? Integer.parseInt(args[0])
+                : DEFAULT_STOPS;
+        int routeCount = args.length > 1 ? Integer.parseInt(args[1])
+                : DEFAULT_ROUTES;
+        int length = args.length > 2 ? Integer.parseInt(args[2])
+                : DEFAULT_LENGTH;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        Random random = new Random(seed);
+        Network network = new Network();
+        List<Stop> stops = new ArrayList<>();
+        for (int i = 0; i < stopCount; i++) {
+            stops.add(new Stop("Stop " + i, random.nextInt(GRID),
+                    random.nextInt(GRID)));
+        }
+        network.addStops(stops);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < routeCount; i++) {
+            Route route = new BusRoute("Route " + i, i);
+            for (int j = 0; j < length; j++) {
+                route.addStop(stops.get(random.nextInt(stopCount)));
+            }
+            network.addRoute(route);
+        }
+        long incremental = System.nanoTime() - start;
+        System.out.printf("%d stops, %d routes of %d stops, %d edges%n",
+                stopCount, routeCount, length,
+                network.getGraph().edgeCount());
+        System.out.printf("incremental (synchronise)     %10.1f ms%n",
+                incremental / 1e6);
+
+        // The costs found incrementally, by stop
+        int[][] expected = new int[stopCount][stopCount];
+        for (int i = 0; i < stopCount; i++) {
+            RoutingTable table = stops.get(i).getRoutingTable();
+            for (int j = 0; j < stopCount; j++) {
+                expected[i][j] = table.costTo(stops.get(j));
+            }
+        }
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        report("computeRouting, 1 thread", network, single);
+        single.shutdown();
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        report("computeRouting, " + threads + (threads == 1 ? " thread"
+                : " threads"), network, ForkJoinPool.commonPool());
+
+        int differences = 0;
+        for (int i = 0; i < stopCount; i++) {
+            RoutingTable table = stops.get(i).getRoutingTable();
+            for (int j = 0; j < stopCount; j++) {
+                if (table.costTo(stops.get(j)) != expected[i][j]) {
+                    differences++;
+                }
+            }
+        }
+        System.out.println(differences + " costs differ");
+    }
+
+    /*
+     * Computes the routing of the network in the given pool, and prints the
+     * fastest time taken.
+     */
+    private static void report(String name, Network network,
+            ForkJoinPool pool) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            network.computeRouting(pool);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-30s%10.1f ms%n", name, best / 1e6);
+    }
+}
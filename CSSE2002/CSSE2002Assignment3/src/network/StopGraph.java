@@ -0,0 +1,330 @@
+package network;
+
+import stops.Stop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An integer-indexed view of the stops of a transportation network and the
+ * connections between them, for routing over primitive arrays.
+ *
+ * <p>Each stop is assigned a dense id, from 0 to {@link #size()} - 1. The
+ * stops given are numbered in order, followed by any of their neighbours
+ * which were not given, so that the neighbours of every stop have ids.
+ *
+ * <p>The neighbours of the stops are stored in compressed sparse row form:
+ * the edges from the stop with id v are numbered from
+ * {@link #firstEdge(int) firstEdge(v)} up to but not including
+ * {@link #firstEdge(int) firstEdge(v + 1)}, and each edge has the id of the
+ * neighbour it leads to and a weight, the Manhattan distance to the
+ * neighbour (given by {@link Stop#distanceTo(Stop)}).
+ *
+ * <p>The graph is a snapshot of the stops when it was created. Neighbours
+ * added to the stops afterwards are not included.
+ */
+public class StopGraph {
+    // the stops, indexed by id
+    private final Stop[] stops;
+
+    // the id of each stop; stops are identified by reference, as stops which
+    // are equal may still be distinct stops in the network
+    private final Map<Stop, Integer> ids;
+
+    // the id of the first stop equal to each stop, and for each stop, the id
+    // of the next stop equal to it, or -1 if there is none
+    private final Map<Stop, Integer> equalIds;
+    private final int[] nextEqualIds;
+
+    // the first edge of each stop, with an extra entry for the end of the
+    // edges of the last stop
+    private final int[] offsets;
+
+    // the id of the stop each edge leads to
+    private final int[] targets;
+
+    // the weight of each edge
+    private final int[] weights;
+
+    /**
+     * Creates a graph of the given stops and their neighbours.
+     *
+     * @param stops The stops to be numbered first, in order.
+     */
+    public StopGraph(List<Stop> stops) {
+        this.ids = new IdentityHashMap<>();
+        List<Stop> numbered = new ArrayList<>();
+        List<List<Stop>> neighbours = new ArrayList<>();
+        for (Stop stop : stops) {
+            number(stop, numbered);
+        }
+        // Neighbours not given are numbered as they are found
+        int edgeCount = 0;
+        for (int i = 0; i < numbered.size(); i++) {
+            List<Stop> adjacent = numbered.get(i).getNeighbours();
+            for (Stop neighbour : adjacent) {
+                number(neighbour, numbered);
+            }
+            neighbours.add(adjacent);
+            edgeCount += adjacent.size();
+        }
+
+        this.stops = numbered.toArray(new Stop[0]);
+        this.offsets = new int[this.stops.length + 1];
+        this.targets = new int[edgeCount];
+        this.weights = new int[edgeCount];
+        int edge = 0;
+        for (int i = 0; i < this.stops.length; i++) {
+            this.offsets[i] = edge;
+            for (Stop neighbour : neighbours.get(i)) {
+                this.targets[edge] = this.ids.get(neighbour);
+                this.weights[edge] = this.stops[i].distanceTo(neighbour);
+                edge++;
+            }
+        }
+        this.offsets[this.stops.length] = edge;
+
+        // Equal stops are chained in order of id
+        this.equalIds = new HashMap<>();
+        this.nextEqualIds = new int[this.stops.length];
+        for (int i = this.stops.length - 1; i >= 0; i--) {
+            Integer later = this.equalIds.put(this.stops[i], i);
+            this.nextEqualIds[i] = later == null ? -1 : later;
+        }
+    }
+
+    /*
+     * Assigns the next id to the given stop, unless it already has one.
+     */
+    private void number(Stop stop, List<Stop> numbered) {
+        if (stop != null && !this.ids.containsKey(stop)) {
+            this.ids.put(stop, numbered.size());
+            numbered.add(stop);
+        }
+    }
+
+    /**
+     * Returns the number of stops in this graph.
+     *
+     * @return The number of stops.
+     */
+    public int size() {
+        return this.stops.length;
+    }
+
+    /**
+     * Returns the number of edges in this graph, that is, the total number of
+     * neighbours of all of its stops.
+     *
+     * @return The number of edges.
+     */
+    public int edgeCount() {
+        return this.targets.length;
+    }
+
+    /**
+     * Returns the id of the given stop.
+     *
+     * @param stop The stop to find.
+     * @return The id of the stop, or -1 if it is not in this graph.
+     */
+    public int getId(Stop stop) {
+        Integer id = this.ids.get(stop);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the id of the first stop in this graph which is equal to the
+     * given stop, which need not be the same stop. The other stops equal to
+     * it are found with {@link #nextEqualId(int)}.
+     *
+     * @param stop The stop to find.
+     * @return The id of the first stop equal to the given stop, or -1 if
+     *         there is none in this graph.
+     */
+    public int findId(Stop stop) {
+        Integer id = this.equalIds.get(stop);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Returns the id of the next stop in this graph which is equal to the
+     * stop with the given id.
+     *
+     * @param id The id of the stop, @require 0 &lt;= id &lt; size()
+     * @return The id of the next equal stop, or -1 if there is none.
+     */
+    public int nextEqualId(int id) {
+        return this.nextEqualIds[id];
+    }
+
+    /**
+     * Returns the stop with the given id.
+     *
+     * @param id The id of the stop, @require 0 &lt;= id &lt; size()
+     * @return The stop with the given id.
+     */
+    public Stop getStop(int id) {
+        return this.stops[id];
+    }
+
+    /**
+     * Returns the first edge from the stop with the given id. The edges from
+     * the stop end before the first edge of the stop with the next id.
+     *
+     * @param id The id of the stop, @require 0 &lt;= id &lt;= size()
+     * @return The number of the first edge from the stop, or the number of
+     *         edges if the id is size().
+     */
+    public int firstEdge(int id) {
+        return this.offsets[id];
+    }
+
+    /**
+     * Returns the id of the stop the given edge leads to.
+     *
+     * @param edge The number of the edge, @require 0 &lt;= edge &lt;
+     *             edgeCount()
+     * @return The id of the neighbour.
+     */
+    public int getTarget(int edge) {
+        return this.targets[edge];
+    }
+
+    /**
+     * Returns the weight of the given edge, the Manhattan distance between
+     * the stops it joins.
+     *
+     * @param edge The number of the edge, @require 0 &lt;= edge &lt;
+     *             edgeCount()
+     * @return The weight of the edge.
+     */
+    public int getWeight(int edge) {
+        return this.weights[edge];
+    }
+
+    /**
+     * Returns the ids of all the stops which are reachable from the stop with
+     * the given id, including that stop, in the order in which they are
+     * reached by a depth-first traversal.
+     *
+     * @param source The id of the stop to start from.
+     * @return The ids of the stops reachable from the source.
+     */
+    public int[] traverse(int source) {
+        boolean[] seen = new boolean[this.stops.length];
+        int[] reached = new int[this.stops.length];
+        int count = 0;
+        int[] stack = new int[this.targets.length + 1];
+        int top = 0;
+        stack[top++] = source;
+        while (top > 0) {
+            int current = stack[--top];
+            if (seen[current]) {
+                continue;
+            }
+            seen[current] = true;
+            reached[count++] = current;
+            for (int e = this.offsets[current]; e < this.offsets[current + 1];
+                    e++) {
+                if (!seen[this.targets[e]]) {
+                    stack[top++] = this.targets[e];
+                }
+            }
+        }
+        return Arrays.copyOf(reached, count);
+    }
+
+    /**
+     * Finds the cheapest path from the stop with the given id to every other
+     * stop, using Dijkstra's algorithm.
+     *
+     * <p>On return, costs[v] is the cost of the cheapest path to the stop with
+     * id v, or Integer.MAX_VALUE if it cannot be reached, and next[v] is the
+     * id of the first stop after the source on that path, or -1 if there is
+     * none. The first stop on the path from the source to itself is the
+     * source.
+     *
+     * @param source The id of the stop to start from.
+     * @param costs The array in which to store the costs, of length size().
+     * @param next The array in which to store the next stops, of length size().
+     */
+    public void shortestPaths(int source, int[] costs, int[] next) {
+        Arrays.fill(costs, Integer.MAX_VALUE);
+        Arrays.fill(next, -1);
+        costs[source] = 0;
+        next[source] = source;
+
+        // A binary heap of the stops to visit, each with the cost it had when
+        // added in the high word, so that stops are ordered by cost then id
+        long[] heap = new long[this.targets.length + 1];
+        int heapSize = 0;
+        heap[heapSize++] = source;
+        while (heapSize > 0) {
+            long top = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            int current = (int) top;
+            int cost = (int) (top >>> 32);
+            if (cost != costs[current]) {
+                // Superseded by a cheaper path
+                continue;
+            }
+            for (int e = this.offsets[current]; e < this.offsets[current + 1];
+                    e++) {
+                int target = this.targets[e];
+                int newCost = cost + this.weights[e];
+                if (newCost < costs[target]) {
+                    costs[target] = newCost;
+                    next[target] = current == source ? target : next[current];
+                    heap[heapSize] = ((long) newCost << 32) | target;
+                    siftUp(heap, heapSize++);
+                }
+            }
+        }
+    }
+
+    /*
+     * Moves the heap entry at the given index up to its place.
+     */
+    private static void siftUp(long[] heap, int index) {
+        long entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = entry;
+    }
+
+    /*
+     * Moves the entry at the top of the heap of the given size down to its
+     * place.
+     */
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long entry = heap[0];
+        int index = 0;
+        while (2 * index + 1 < size) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (entry <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = entry;
+    }
+}
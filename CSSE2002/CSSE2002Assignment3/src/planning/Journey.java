@@ -0,0 +1,186 @@
+package planning;
+
+import stops.Stop;
+import vehicles.PublicTransport;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A journey between two stops found by a {@link JourneyPlanner}: the legs
+ * travelled on each vehicle, in order.
+ */
+public class Journey {
+    // the stop the journey starts from, and the time it starts
+    private final Stop origin;
+    private final int departureTime;
+
+    // the legs of the journey, in order
+    private final List<Leg> legs;
+
+    /**
+     * Creates a journey from the given stop at the given time, made up of the
+     * given legs.
+     *
+     * @param origin The stop the journey starts from.
+     * @param departureTime The time the journey starts.
+     * @param legs The legs of the journey, in order.
+     */
+    public Journey(Stop origin, int departureTime, List<Leg> legs) {
+        this.origin = origin;
+        this.departureTime = departureTime;
+        this.legs = new ArrayList<>(legs);
+    }
+
+    /**
+     * Returns the stop this journey starts from.
+     *
+     * @return The origin of the journey.
+     */
+    public Stop getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Returns the stop this journey ends at.
+     *
+     * @return The destination of the journey, which is its origin if it has
+     *         no legs.
+     */
+    public Stop getDestination() {
+        return legs.isEmpty() ? origin : legs.get(legs.size() - 1).getTo();
+    }
+
+    /**
+     * Returns the time this journey starts.
+     *
+     * @return The time the journey starts.
+     */
+    public int getDepartureTime() {
+        return departureTime;
+    }
+
+    /**
+     * Returns the time this journey reaches its destination.
+     *
+     * @return The time of arrival, which is the time the journey starts if it
+     *         has no legs.
+     */
+    public int getArrivalTime() {
+        return legs.isEmpty() ? departureTime
+                : legs.get(legs.size() - 1).getArrivalTime();
+    }
+
+    /**
+     * Returns the legs of this journey.
+     *
+     * <p>Modifying the returned list should not result in changes to the
+     * internal state of the class.
+     *
+     * @return The legs of the journey, in order.
+     */
+    public List<Leg> getLegs() {
+        return new ArrayList<>(legs);
+    }
+
+    /**
+     * Returns the number of times a passenger changes vehicle on this journey.
+     *
+     * @return The number of transfers, one fewer than the number of legs.
+     */
+    public int getTransfers() {
+        return Math.max(0, legs.size() - 1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(origin.getName()).append(" at ").append(departureTime);
+        for (Leg leg : legs) {
+            builder.append(", ").append(leg);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * A part of a journey travelled on one vehicle, from the stop at which
+     * the vehicle is boarded to the stop at which it is left.
+     */
+    public static class Leg {
+        private final PublicTransport vehicle;
+        private final Stop from;
+        private final Stop to;
+        private final int departureTime;
+        private final int arrivalTime;
+
+        /**
+         * Creates a leg on the given vehicle.
+         *
+         * @param vehicle The vehicle travelled on.
+         * @param from The stop at which the vehicle is boarded.
+         * @param to The stop at which the vehicle is left.
+         * @param departureTime The time the vehicle departs from.
+         * @param arrivalTime The time the vehicle arrives at to.
+         */
+        public Leg(PublicTransport vehicle, Stop from, Stop to,
+                int departureTime, int arrivalTime) {
+            this.vehicle = vehicle;
+            this.from = from;
+            this.to = to;
+            this.departureTime = departureTime;
+            this.arrivalTime = arrivalTime;
+        }
+
+        /**
+         * Returns the vehicle travelled on.
+         *
+         * @return The vehicle of this leg.
+         */
+        public PublicTransport getVehicle() {
+            return vehicle;
+        }
+
+        /**
+         * Returns the stop at which the vehicle is boarded.
+         *
+         * @return The first stop of this leg.
+         */
+        public Stop getFrom() {
+            return from;
+        }
+
+        /**
+         * Returns the stop at which the vehicle is left.
+         *
+         * @return The last stop of this leg.
+         */
+        public Stop getTo() {
+            return to;
+        }
+
+        /**
+         * Returns the time the vehicle departs from the first stop.
+         *
+         * @return The departure time of this leg.
+         */
+        public int getDepartureTime() {
+            return departureTime;
+        }
+
+        /**
+         * Returns the time the vehicle arrives at the last stop.
+         *
+         * @return The arrival time of this leg.
+         */
+        public int getArrivalTime() {
+            return arrivalTime;
+        }
+
+        @Override
+        public String toString() {
+            return vehicle.getType() + " " + vehicle.getId() + " from "
+                    + from.getName() + " at " + departureTime + " to "
+                    + to.getName() + " at " + arrivalTime;
+        }
+    }
+}
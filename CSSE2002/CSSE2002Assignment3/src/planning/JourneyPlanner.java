@@ -0,0 +1,512 @@
+package planning;
+
+import network.Network;
+import network.StopGraph;
+import routes.Route;
+import simulation.Simulation;
+import stops.Stop;
+import vehicles.PublicTransport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans journeys between the stops of a network on the vehicles that run
+ * along its routes.
+ *
+ * <p>The timetable is that of a {@link Simulation} of the network: each
+ * vehicle travels back and forth along its route from its current stop, the
+ * vehicles of a route starting at intervals of {@link Simulation#HEADWAY} in
+ * the order in which they are in the network, waiting
+ * {@link Simulation#DWELL_TIME} at each stop and taking the distance between
+ * stops (at least {@link Simulation#MIN_TRAVEL_TIME}) to travel between them.
+ * A passenger may change between vehicles at a stop if the vehicle they
+ * change to departs no earlier than the one they leave arrives.
+ *
+ * <p>Each trip of a vehicle from one end of its route to the other is
+ * recorded, up to a given time horizon. The trips of a route in one direction
+ * form a pattern: they visit the same stops, and as they all take the same
+ * time between stops, never overtake each other, so each trip is recorded by
+ * the time it would leave the start of the pattern. Staying on a vehicle as
+ * it turns back at the end of its route counts as a change of vehicle.
+ *
+ * <p>Journeys are found in rounds (the RAPTOR algorithm): round k finds the
+ * earliest arrival at each stop with at most k trips, by scanning each
+ * pattern serving a stop which was reached earlier in the previous round
+ * once, boarding the earliest trip that can be caught along it. The result
+ * is the set of journeys arriving earliest for each number of trips, from
+ * which both the earliest arriving journey and the journey with the fewest
+ * transfers are taken.
+ *
+ * <p>The timetable does not change once it is built, and queries keep their
+ * working state to themselves, so a planner may be used by several threads
+ * at once.
+ */
+public class JourneyPlanner {
+    /** The most vehicles a journey is planned on, by default. */
+    public static final int DEFAULT_MAX_TRIPS = 8;
+
+    // a time which is never reached
+    private static final int NEVER = Integer.MAX_VALUE;
+
+    // the stops of the network, the vehicles and the time horizon
+    private final StopGraph graph;
+    private final PublicTransport[] vehicles;
+    private final int horizon;
+
+    // the stops of each pattern, by id in the graph, with the time after the
+    // start of a trip at which it arrives at each of them: the stops of
+    // pattern p are at patternOffsets[p] until patternOffsets[p + 1]
+    private final int[] patternOffsets;
+    private final int[] patternStops;
+    private final int[] patternTimes;
+
+    // the trips of each pattern, ordered by their start times: the trips of
+    // pattern p are tripOffsets[p] until tripOffsets[p + 1]
+    private final int[] tripOffsets;
+    private final int[] tripStarts;
+
+    // the pattern of each trip, the first position on it from which the trip
+    // runs, and its vehicle
+    private final int[] tripPatterns;
+    private final int[] tripFirst;
+    private final int[] tripVehicles;
+
+    // the patterns which can be boarded at each stop, and the position of the
+    // stop on each: for stop s at stopPatternOffsets[s] until
+    // stopPatternOffsets[s + 1]
+    private final int[] stopPatternOffsets;
+    private final int[] stopPatterns;
+    private final int[] stopPatternPositions;
+
+    /**
+     * Creates a planner for the given network, with a timetable of the trips
+     * starting up to the given time.
+     *
+     * <p>Vehicles whose current stop is not on their route, or whose route
+     * has a stop which is not in the network, are left out of the timetable.
+     *
+     * @param network The network to plan journeys on.
+     * @param horizon The time up to which trips start, @require horizon &gt;= 0
+     */
+    public JourneyPlanner(Network network, int horizon) {
+        this.graph = network.getGraph();
+        this.vehicles = network.getVehicles().toArray(new PublicTransport[0]);
+        this.horizon = horizon;
+
+        // the patterns, and the trips on each
+        List<int[]> stopLists = new ArrayList<>();
+        List<int[]> timeLists = new ArrayList<>();
+        List<List<int[]>> tripLists = new ArrayList<>();
+        Map<Route, Integer> patternOf = new IdentityHashMap<>();
+
+        // the number of vehicles which have started on each route
+        Map<Route, Integer> started = new IdentityHashMap<>();
+        for (int v = 0; v < this.vehicles.length; v++) {
+            Route route = this.vehicles[v].getRoute();
+            List<Stop> stops = route.getStopsOnRoute();
+            int position = stops.indexOf(this.vehicles[v].getCurrentStop());
+            if (position < 0 || this.graph.getId(stops.get(position)) < 0) {
+                continue;
+            }
+            int order = started.getOrDefault(route, 0);
+            started.put(route, order + 1);
+
+            Integer forward = patternOf.get(route);
+            if (forward == null) {
+                forward = addPatterns(stops, stopLists, timeLists, tripLists);
+                patternOf.put(route, forward);
+            }
+            if (forward >= 0) {
+                addTrips(v, position, (long) order * Simulation.HEADWAY,
+                        forward, timeLists, tripLists);
+            }
+        }
+
+        int patternCount = stopLists.size();
+        this.patternOffsets = new int[patternCount + 1];
+        this.tripOffsets = new int[patternCount + 1];
+        for (int p = 0; p < patternCount; p++) {
+            this.patternOffsets[p + 1] = this.patternOffsets[p]
+                    + stopLists.get(p).length;
+            this.tripOffsets[p + 1] = this.tripOffsets[p]
+                    + tripLists.get(p).size();
+        }
+        this.patternStops = new int[this.patternOffsets[patternCount]];
+        this.patternTimes = new int[this.patternStops.length];
+        this.tripStarts = new int[this.tripOffsets[patternCount]];
+        this.tripPatterns = new int[this.tripStarts.length];
+        this.tripFirst = new int[this.tripStarts.length];
+        this.tripVehicles = new int[this.tripStarts.length];
+        int[] boardings = new int[this.graph.size() + 1];
+        for (int p = 0; p < patternCount; p++) {
+            int[] stops = stopLists.get(p);
+            System.arraycopy(stops, 0, this.patternStops,
+                    this.patternOffsets[p], stops.length);
+            System.arraycopy(timeLists.get(p), 0, this.patternTimes,
+                    this.patternOffsets[p], stops.length);
+            // the last stop of a pattern cannot be boarded
+            for (int i = 0; i < stops.length - 1; i++) {
+                boardings[stops[i] + 1]++;
+            }
+
+            // trips starting at the same time are ordered by vehicle
+            List<int[]> trips = tripLists.get(p);
+            trips.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0])
+                    : Integer.compare(a[2], b[2]));
+            for (int t = 0; t < trips.size(); t++) {
+                int[] trip = trips.get(t);
+                this.tripStarts[this.tripOffsets[p] + t] = trip[0];
+                this.tripPatterns[this.tripOffsets[p] + t] = p;
+                this.tripFirst[this.tripOffsets[p] + t] = trip[1];
+                this.tripVehicles[this.tripOffsets[p] + t] = trip[2];
+            }
+        }
+
+        this.stopPatternOffsets = new int[this.graph.size() + 1];
+        for (int s = 0; s < this.graph.size(); s++) {
+            this.stopPatternOffsets[s + 1] = this.stopPatternOffsets[s]
+                    + boardings[s + 1];
+        }
+        this.stopPatterns = new int[this.stopPatternOffsets[this.graph.size()]];
+        this.stopPatternPositions = new int[this.stopPatterns.length];
+        int[] next = Arrays.copyOf(this.stopPatternOffsets, this.graph.size());
+        for (int p = 0; p < patternCount; p++) {
+            for (int i = this.patternOffsets[p];
+                    i < this.patternOffsets[p + 1] - 1; i++) {
+                int e = next[this.patternStops[i]]++;
+                this.stopPatterns[e] = p;
+                this.stopPatternPositions[e] = i - this.patternOffsets[p];
+            }
+        }
+    }
+
+    /*
+     * Adds the patterns of a route with the given stops, forwards and then
+     * backwards, and returns the index of the forward pattern, or -1 if the
+     * route has nowhere to go.
+     */
+    private int addPatterns(List<Stop> stops, List<int[]> stopLists,
+            List<int[]> timeLists, List<List<int[]>> tripLists) {
+        int length = stops.size();
+        int[] ids = new int[length];
+        for (int i = 0; i < length; i++) {
+            ids[i] = this.graph.getId(stops.get(i));
+            if (ids[i] < 0) {
+                return -1;
+            }
+        }
+        if (length < 2) {
+            return -1;
+        }
+
+        int[] forwardTimes = new int[length];
+        for (int i = 1; i < length; i++) {
+            forwardTimes[i] = forwardTimes[i - 1] + Simulation.DWELL_TIME
+                    + Math.max(Simulation.MIN_TRAVEL_TIME,
+                    stops.get(i - 1).distanceTo(stops.get(i)));
+        }
+        int[] backwardIds = new int[length];
+        int[] backwardTimes = new int[length];
+        for (int i = 0; i < length; i++) {
+            backwardIds[i] = ids[length - 1 - i];
+            backwardTimes[i] = forwardTimes[length - 1]
+                    - forwardTimes[length - 1 - i];
+        }
+
+        stopLists.add(ids);
+        timeLists.add(forwardTimes);
+        tripLists.add(new ArrayList<>());
+        stopLists.add(backwardIds);
+        timeLists.add(backwardTimes);
+        tripLists.add(new ArrayList<>());
+        return stopLists.size() - 2;
+    }
+
+    /*
+     * Adds the trips of a vehicle arriving at the given position on its route
+     * at the given time, travelling back and forth along the route, until the
+     * time horizon. Each trip is recorded by its start time, first position
+     * and vehicle.
+     */
+    private void addTrips(int vehicle, int position, long time, int forward,
+            List<int[]> timeLists, List<List<int[]>> tripLists) {
+        int length = timeLists.get(forward).length;
+        // the vehicle turns back at once if it starts at the end of its route
+        boolean forwards = position < length - 1;
+        int first = forwards ? position : length - 1 - position;
+        while (time <= this.horizon) {
+            int pattern = forwards ? forward : forward + 1;
+            int[] times = timeLists.get(pattern);
+            int start = (int) time - times[first];
+            tripLists.get(pattern).add(new int[] {start, first, vehicle});
+            time = (long) start + times[length - 1];
+            forwards = !forwards;
+            first = 0;
+        }
+    }
+
+    /**
+     * Returns the time up to which the trips in the timetable start.
+     *
+     * @return The time horizon of the timetable.
+     */
+    public int getHorizon() {
+        return horizon;
+    }
+
+    /**
+     * Returns the number of patterns in the timetable: the routes, each in
+     * both directions, which have vehicles on them.
+     *
+     * @return The number of patterns.
+     */
+    public int getPatternCount() {
+        return tripOffsets.length - 1;
+    }
+
+    /**
+     * Returns the number of trips in the timetable, of vehicles from one end
+     * of their route to the other.
+     *
+     * @return The number of trips.
+     */
+    public int getTripCount() {
+        return tripStarts.length;
+    }
+
+    /**
+     * Finds the journeys from one stop to another, leaving at or after the
+     * given time, on at most {@link #DEFAULT_MAX_TRIPS} vehicles.
+     *
+     * @param origin The stop to start from.
+     * @param destination The stop to reach.
+     * @param time The earliest time to start.
+     * @return The journeys, as in {@link #plan(Stop, Stop, int, int)}.
+     */
+    public List<Journey> plan(Stop origin, Stop destination, int time) {
+        return plan(origin, destination, time, DEFAULT_MAX_TRIPS);
+    }
+
+    /**
+     * Finds the journeys from one stop to another, leaving at or after the
+     * given time, on at most the given number of vehicles.
+     *
+     * <p>The journeys returned are those which arrive earliest for each
+     * number of vehicles used, which arrive earlier than any of the journeys
+     * on fewer vehicles: the first has the fewest transfers, and the last
+     * arrives earliest. A journey from a stop to itself has no legs.
+     *
+     * @param origin The stop to start from.
+     * @param destination The stop to reach.
+     * @param time The earliest time to start.
+     * @param maxTrips The most vehicles to travel on, @require maxTrips &gt;= 0
+     * @return The journeys in order of the number of transfers, or an empty
+     *         list if the destination cannot be reached, or either stop is
+     *         not in the network.
+     */
+    public List<Journey> plan(Stop origin, Stop destination, int time,
+            int maxTrips) {
+        int source = graph.getId(origin);
+        int target = graph.getId(destination);
+        if (source < 0 || target < 0) {
+            return new ArrayList<>();
+        }
+        if (source == target) {
+            return new ArrayList<>(Collections.singletonList(
+                    new Journey(origin, time, new ArrayList<>())));
+        }
+
+        int stopCount = graph.size();
+        // the earliest arrival at each stop with up to k trips, and the trip
+        // and position boarded on the last of them if it was reached in round
+        // k
+        List<int[]> arrivals = new ArrayList<>();
+        List<int[]> trips = new ArrayList<>();
+        List<int[]> boardings = new ArrayList<>();
+        int[] previous = new int[stopCount];
+        Arrays.fill(previous, NEVER);
+        previous[source] = time;
+        arrivals.add(previous);
+        trips.add(null);
+        boardings.add(null);
+
+        // the earliest arrival at each stop in any round
+        int[] best = previous.clone();
+
+        // the stops reached in the last round
+        boolean[] marked = new boolean[stopCount];
+        int[] markedStops = new int[stopCount];
+        int markedCount = 1;
+        markedStops[0] = source;
+
+        // the earliest position at which each pattern is to be scanned from
+        int[] scanFrom = new int[tripOffsets.length - 1];
+        Arrays.fill(scanFrom, -1);
+        int[] scanned = new int[scanFrom.length];
+
+        for (int k = 1; k <= maxTrips && markedCount > 0; k++) {
+            int scannedCount = 0;
+            for (int m = 0; m < markedCount; m++) {
+                int stop = markedStops[m];
+                marked[stop] = false;
+                for (int e = stopPatternOffsets[stop];
+                        e < stopPatternOffsets[stop + 1]; e++) {
+                    int pattern = stopPatterns[e];
+                    int position = stopPatternPositions[e];
+                    if (scanFrom[pattern] < 0) {
+                        scanned[scannedCount++] = pattern;
+                        scanFrom[pattern] = position;
+                    } else if (position < scanFrom[pattern]) {
+                        scanFrom[pattern] = position;
+                    }
+                }
+            }
+
+            int[] current = previous.clone();
+            int[] roundTrips = new int[stopCount];
+            int[] roundBoardings = new int[stopCount];
+            markedCount = 0;
+            for (int j = 0; j < scannedCount; j++) {
+                int pattern = scanned[j];
+                int offset = patternOffsets[pattern];
+                int length = patternOffsets[pattern + 1] - offset;
+                int trip = -1;
+                int boarded = -1;
+                for (int i = scanFrom[pattern]; i < length; i++) {
+                    int stop = patternStops[offset + i];
+                    if (trip >= 0) {
+                        int arrival = tripStarts[trip]
+                                + patternTimes[offset + i];
+                        if (arrival < best[stop] && arrival < best[target]) {
+                            current[stop] = arrival;
+                            best[stop] = arrival;
+                            roundTrips[stop] = trip;
+                            roundBoardings[stop] = boarded;
+                            if (!marked[stop]) {
+                                marked[stop] = true;
+                                markedStops[markedCount++] = stop;
+                            }
+                        }
+                    }
+                    if (previous[stop] != NEVER && i < length - 1) {
+                        int earlier = earliestTrip(pattern, i, previous[stop],
+                                trip);
+                        if (earlier >= 0) {
+                            trip = earlier;
+                            boarded = i;
+                        }
+                    }
+                }
+                scanFrom[pattern] = -1;
+            }
+
+            arrivals.add(current);
+            trips.add(roundTrips);
+            boardings.add(roundBoardings);
+            previous = current;
+        }
+
+        List<Journey> journeys = new ArrayList<>();
+        for (int k = 1; k < arrivals.size(); k++) {
+            if (arrivals.get(k)[target] < arrivals.get(k - 1)[target]) {
+                journeys.add(journey(origin, time, target, k, arrivals, trips,
+                        boardings));
+            }
+        }
+        return journeys;
+    }
+
+    /*
+     * Returns the earliest trip of a pattern which can be boarded at the
+     * given position at or after the given time, if it is earlier than the
+     * given trip (or there is no trip), otherwise -1.
+     */
+    private int earliestTrip(int pattern, int position, int time, int trip) {
+        // the trips leaving the position at or after the time start at or
+        // after this
+        long start = (long) time - Simulation.DWELL_TIME
+                - patternTimes[patternOffsets[pattern] + position];
+        int low = tripOffsets[pattern];
+        int high = trip >= 0 ? trip : tripOffsets[pattern + 1];
+        int end = high;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (tripStarts[middle] < start) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        // a vehicle's first trip may start part way along the pattern
+        while (low < end && tripFirst[low] > position) {
+            low++;
+        }
+        return low < end ? low : -1;
+    }
+
+    /*
+     * Builds the journey reaching the given stop in the given round, by
+     * following the trips taken to it back to the origin.
+     */
+    private Journey journey(Stop origin, int time, int stop, int round,
+            List<int[]> arrivals, List<int[]> trips, List<int[]> boardings) {
+        List<Journey.Leg> legs = new ArrayList<>();
+        for (int k = round; k > 0; k--) {
+            if (arrivals.get(k)[stop] == arrivals.get(k - 1)[stop]) {
+                // reached on fewer trips
+                continue;
+            }
+            int trip = trips.get(k)[stop];
+            int boarded = boardings.get(k)[stop];
+            int pattern = tripPatterns[trip];
+            int from = patternStops[patternOffsets[pattern] + boarded];
+            int departure = tripStarts[trip] + Simulation.DWELL_TIME
+                    + patternTimes[patternOffsets[pattern] + boarded];
+            legs.add(new Journey.Leg(vehicles[tripVehicles[trip]],
+                    graph.getStop(from), graph.getStop(stop), departure,
+                    arrivals.get(k)[stop]));
+            stop = from;
+        }
+        Collections.reverse(legs);
+        return new Journey(origin, time, legs);
+    }
+
+    /**
+     * Finds the journey from one stop to another, leaving at or after the
+     * given time, which arrives earliest, on at most
+     * {@link #DEFAULT_MAX_TRIPS} vehicles. Of the journeys arriving earliest,
+     * it is one with the fewest transfers.
+     *
+     * @param origin The stop to start from.
+     * @param destination The stop to reach.
+     * @param time The earliest time to start.
+     * @return The earliest arriving journey, or null if the destination cannot
+     *         be reached.
+     */
+    public Journey earliestArrival(Stop origin, Stop destination, int time) {
+        List<Journey> journeys = plan(origin, destination, time);
+        return journeys.isEmpty() ? null : journeys.get(journeys.size() - 1);
+    }
+
+    /**
+     * Finds the journey from one stop to another, leaving at or after the
+     * given time, with the fewest transfers, on at most
+     * {@link #DEFAULT_MAX_TRIPS} vehicles. Of the journeys with the fewest
+     * transfers, it is one which arrives earliest.
+     *
+     * @param origin The stop to start from.
+     * @param destination The stop to reach.
+     * @param time The earliest time to start.
+     * @return The journey with the fewest transfers, or null if the
+     *         destination cannot be reached.
+     */
+    public Journey fewestTransfers(Stop origin, Stop destination, int time) {
+        List<Journey> journeys = plan(origin, destination, time);
+        return journeys.isEmpty() ? null : journeys.get(0);
+    }
+}
@@ -0,0 +1,139 @@
+package planning;
+
+import exceptions.TransportException;
+import network.Network;
+import routes.BusRoute;
+import routes.Route;
+import simulation.SimulationBenchmark;
+import stops.Stop;
+import vehicles.Bus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Reports the time taken to build the timetable of a randomly generated
+ * network, and the number of journeys planned on it per second, by one
+ * thread and by several threads at once.
+ *
+ * <p>Usage: java planning.PlannerBenchmark [stops [routes [queries [horizon
+ * [seed]]]]]
+ *
+ * <p>The network is generated as in {@link SimulationBenchmark}. Each query
+ * is between two stops chosen at random, at a random time in the first half
+ * of the timetable, and the same queries are planned each time.
+ */
+public class PlannerBenchmark {
+    // the default size of the network, the number of queries and the time
+    // horizon of the timetable
+    private static final int DEFAULT_STOPS = 3000;
+    private static final int DEFAULT_ROUTES = 400;
+    private static final int DEFAULT_QUERIES = 5000;
+    private static final int DEFAULT_HORIZON = 2000;
+
+    // the width and height of the grid the stops are placed on
+    private static final int GRID = 100;
+
+    public static void main(String[] args) throws TransportException {
+        int stopCount = args.length > 0 ? Integer.parseInt(args[0])
+                : DEFAULT_STOPS;
+        int routeCount = args.length > 1 ? Integer.parseInt(args[1])
+                : DEFAULT_ROUTES;
+        int queryCount = args.length > 2 ? Integer.parseInt(args[2])
+                : DEFAULT_QUERIES;
+        int horizon = args.length > 3 ? Integer.parseInt(args[3])
+                : DEFAULT_HORIZON;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+
+        Random random = new Random(seed);
+        List<Stop> stops = new ArrayList<>();
+        Network network = network(stopCount, routeCount, random, stops);
+
+        long start = System.nanoTime();
+        JourneyPlanner planner = new JourneyPlanner(network, horizon);
+        System.out.printf("timetable of %d patterns, %d trips in %.1f ms%n",
+                planner.getPatternCount(), planner.getTripCount(),
+                (System.nanoTime() - start) / 1e6);
+
+        int[][] queries = new int[queryCount][];
+        for (int i = 0; i < queryCount; i++) {
+            queries[i] = new int[] {random.nextInt(stopCount),
+                    random.nextInt(stopCount), random.nextInt(horizon / 2)};
+        }
+
+        // warm up, then time the queries
+        plan(planner, stops, queries, false);
+        start = System.nanoTime();
+        long[] sequential = plan(planner, stops, queries, false);
+        report("1 thread", queryCount, System.nanoTime() - start, sequential);
+        start = System.nanoTime();
+        long[] parallel = plan(planner, stops, queries, true);
+        report("parallel", queryCount, System.nanoTime() - start, parallel);
+    }
+
+    /*
+     * Creates a randomly generated network, adding its stops to the given
+     * list.
+     */
+    private static Network network(int stopCount, int routeCount,
+            Random random, List<Stop> stops) throws TransportException {
+        Network network = new Network();
+        for (int i = 0; i < stopCount; i++) {
+            stops.add(new Stop("Stop " + i, random.nextInt(GRID),
+                    random.nextInt(GRID)));
+        }
+        network.addStops(stops);
+        for (int i = 0; i < routeCount; i++) {
+            Route route = new BusRoute("Route " + i, i);
+            for (int j = 0; j < SimulationBenchmark.LENGTH; j++) {
+                route.addStop(stops.get(random.nextInt(stopCount)), false);
+            }
+            network.addRoute(route);
+            for (int j = 0; j < SimulationBenchmark.VEHICLES_PER_ROUTE; j++) {
+                Bus bus = new Bus(i * SimulationBenchmark.VEHICLES_PER_ROUTE
+                        + j, 50, route, "R" + i + "V" + j);
+                route.addTransport(bus);
+                network.addVehicle(bus);
+            }
+        }
+        return network;
+    }
+
+    /*
+     * Plans the given queries, and returns the number which found a journey,
+     * and the total number of legs of the earliest arriving and of the fewest
+     * transfer journeys.
+     */
+    private static long[] plan(JourneyPlanner planner, List<Stop> stops,
+            int[][] queries, boolean parallel) {
+        IntStream indices = IntStream.range(0, queries.length);
+        if (parallel) {
+            indices = indices.parallel();
+        }
+        return indices.mapToObj(i -> {
+            int[] query = queries[i];
+            List<Journey> journeys = planner.plan(stops.get(query[0]),
+                    stops.get(query[1]), query[2]);
+            if (journeys.isEmpty()) {
+                return new long[3];
+            }
+            return new long[] {1,
+                    journeys.get(journeys.size() - 1).getLegs().size(),
+                    journeys.get(0).getLegs().size()};
+        }).reduce(new long[3], (a, b) -> new long[] {a[0] + b[0],
+                a[1] + b[1], a[2] + b[2]});
+    }
+
+    /*
+     * Prints the throughput and results of planning the queries.
+     */
+    private static void report(String name, int queryCount, long elapsed,
+            long[] results) {
+        System.out.printf("%-12s%10.0f queries/s%8d found%8.2f legs earliest"
+                + "%8.2f legs fewest%n", name, queryCount / (elapsed / 1e9),
+                results[0], results[1] / (double) Math.max(1, results[0]),
+                results[2] / (double) Math.max(1, results[0]));
+    }
+}
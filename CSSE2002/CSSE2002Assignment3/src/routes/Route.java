@@ -9,6 +9,8 @@ import vehicles.PublicTransport;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Represents a route in the transportation network.
@@ -117,6 +119,18 @@ public abstract class Route implements Writeable {
      * @param stop The stop to be added to this route.
      */
     public void addStop(Stop stop) {
+        addStop(stop, true);
+    }
+
+    /**
+     * Adds a stop to the route, as {@link #addStop(Stop)} does, but only
+     * updates the routing tables of the stops if updateRouting is true (see
+     * {@link Stop#addNeighbouringStop(Stop, boolean)}).
+     *
+     * @param stop The stop to be added to this route.
+     * @param updateRouting Whether to update the routing tables.
+     */
+    public void addStop(Stop stop, boolean updateRouting) {
         if (stop == null) {
             return;
         }
@@ -130,8 +144,8 @@ public abstract class Route implements Writeable {
         }
 
         Stop previous = route.get(route.size() - 2);
-        previous.addNeighbouringStop(stop);
-        stop.addNeighbouringStop(previous);
+        previous.addNeighbouringStop(stop, updateRouting);
+        stop.addNeighbouringStop(previous, updateRouting);
     }
 
     /**
@@ -265,16 +279,19 @@ public abstract class Route implements Writeable {
         return this.toString();
     }
 
-    /*
+    /**
      * Returns a route object of the correct type (e.g. TrainRoute if the type
-     * is "train") with the given name and route number.
-     *
-     * @require type != null && name != null
+     * is "train") with the given name and route number, and no stops.
      *
-     * Throws a TransportFormatException if the given type is not valid.
+     * @param type The type of the route, as given by {@link #getType()}.
+     * @param name The name of the route.
+     * @param routeNumber The number of the route.
+     * @return The new route.
+     * @throws TransportFormatException If the given type is not valid.
+     * @require type != null &amp;&amp; name != null
      */
-    private static Route routeFromType(String type, String name,
-                                       int routeNumber)
+    public static Route routeFromType(String type, String name,
+                                      int routeNumber)
             throws TransportFormatException{
         switch (type) {
             case "train":
@@ -353,6 +370,41 @@ public abstract class Route implements Writeable {
      */
     public static Route decode(String routeString, List<Stop> existingStops)
             throws TransportFormatException {
+        return decode(routeString,
+                stopName -> findStop(stopName, existingStops), true);
+    }
+
+    /**
+     * Creates a new route object based on the given string representation,
+     * as {@link #decode(String, List)} does, finding the stops by name in the
+     * given index rather than searching a list of stops.
+     *
+     * <p>The index should map the name of each existing stop to the first
+     * stop in the network with that name.
+     *
+     * @param routeString The string to decode.
+     * @param stopIndex The stops which currently exist in the transport
+     *                  network, by name.
+     * @param updateRouting Whether the routing tables of the stops are updated
+     *                      as they are added to the route (see
+     *                      {@link #addStop(Stop, boolean)}).
+     * @return The decoded route object.
+     * @throws TransportFormatException If the given string is null or
+     *          incorrectly formatted (as for {@link #decode(String, List)}).
+     */
+    public static Route decode(String routeString, Map<String, Stop> stopIndex,
+            boolean updateRouting) throws TransportFormatException {
+        return decode(routeString, stopName -> stopIndex.get(stopName),
+                updateRouting);
+    }
+
+    /*
+     * Decodes a route, finding each stop on it by name with the given
+     * function, which returns null if there is no stop with the name.
+     */
+    private static Route decode(String routeString,
+            Function<String, Stop> stopFinder, boolean updateRouting)
+            throws TransportFormatException {
         Route route;
         try {
             // if the last character is a colon, remove
@@ -396,11 +448,11 @@ public abstract class Route implements Writeable {
 
             // for each stop, check that it is valid
             for (String stopName : stops) {
-                Stop stop = findStop(stopName, existingStops);
+                Stop stop = stopFinder.apply(stopName);
                 if (stop == null) {
                     throw new TransportFormatException();
                 }
-                route.addStop(stop);
+                route.addStop(stop, updateRouting);
             }
         } catch (ArrayIndexOutOfBoundsException e) {
             throw new TransportFormatException();
@@ -0,0 +1,494 @@
+package simulation;
+
+import network.Network;
+import network.StopGraph;
+import passengers.Passenger;
+import routes.Route;
+import stops.Stop;
+import vehicles.PublicTransport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * A discrete-event simulation of the vehicles of a transportation network
+ * travelling along their routes, and of the passengers they carry.
+ *
+ * <p>Each vehicle travels back and forth along its route, starting from its
+ * current stop. The vehicles of a route start at intervals of
+ * {@link #HEADWAY}, in the order in which they are in the network. A vehicle
+ * arriving at a stop drops off the passengers for whom it is their
+ * destination, and the others get off and wait at the stop (see
+ * {@link Stop#transportArrive(PublicTransport)}). It departs
+ * {@link #DWELL_TIME} later for the next stop on its route, collecting the
+ * passengers whose next stop that is (see
+ * {@link Stop#transportDepart(PublicTransport, Stop)}), and arrives after a
+ * travel time equal to the distance between the stops (see
+ * {@link Stop#distanceTo(Stop)}), or {@link #MIN_TRAVEL_TIME} if that is
+ * larger. Passengers are directed by the routing tables of the stops, which
+ * should be computed before the simulation is run.
+ *
+ * <p>The events are processed in order of time. Events at the same time are
+ * processed with the arrival of passengers first, then the arrivals of
+ * vehicles, then their departures, and otherwise in the order in which the
+ * passengers were added and the vehicles are in the network.
+ *
+ * <p>The stops of the network may be partitioned into regions, of stops
+ * which are near each other, whose events are processed in parallel. The
+ * regions are synchronised conservatively: a vehicle can travel between
+ * regions no faster than the lookahead, the shortest travel time between
+ * neighbouring stops in different regions, so the regions process the events
+ * in windows of that length, and exchange the arrivals of vehicles travelling
+ * between them at the end of each window. The events at each stop and of each
+ * vehicle are processed in the same order however the network is
+ * partitioned, so the results of the simulation are the same.
+ */
+public class Simulation {
+    /** The time a vehicle waits at each stop. */
+    public static final int DWELL_TIME = 1;
+
+    /** The time between the starts of the vehicles on a route. */
+    public static final int HEADWAY = 5;
+
+    /** The least time taken to travel between stops. */
+    public static final int MIN_TRAVEL_TIME = 1;
+
+    // the kinds of event, in the order they are processed at the same time
+    private static final int PASSENGER = 0;
+    private static final int ARRIVAL = 1;
+    private static final int DEPARTURE = 2;
+
+    // the stops of the network and the connections between them
+    private final StopGraph graph;
+
+    // the region of each stop, by id in the graph
+    private final int[] regionOf;
+
+    // the regions, each with the events at its stops
+    private final Region[] regions;
+
+    // the shortest travel time between regions
+    private final long lookahead;
+
+    // the vehicles, and the stops on their routes
+    private final PublicTransport[] vehicles;
+    private final List<List<Stop>> routeStops;
+
+    // the position of each vehicle on its route, and the direction it is
+    // travelling in (1 forwards, -1 backwards)
+    private final int[] positions;
+    private final int[] directions;
+
+    // the passengers added, and the stops they arrive at
+    private final List<Passenger> passengers;
+    private final List<Stop> passengerStops;
+
+    // the time up to which the simulation has been run
+    private long time;
+
+    // the wall-clock time spent running the simulation, in nanoseconds
+    private long elapsed;
+
+    /**
+     * Creates a simulation of the given network, processed as one region.
+     *
+     * @param network The network to simulate.
+     */
+    public Simulation(Network network) {
+        this(network, 1);
+    }
+
+    /**
+     * Creates a simulation of the given network, with its stops partitioned
+     * into the given number of regions, which are processed in parallel.
+     *
+     * <p>The stops are divided into regions of (nearly) equal size by their
+     * x coordinates, and then by their y coordinates. There are no more
+     * regions than stops.
+     *
+     * @param network The network to simulate.
+     * @param regionCount The number of regions, @require regionCount &gt; 0
+     */
+    public Simulation(Network network, int regionCount) {
+        this.graph = network.getGraph();
+        regionCount = Math.max(1, Math.min(regionCount, this.graph.size()));
+        this.regionOf = partition(this.graph, regionCount);
+        this.regions = new Region[regionCount];
+        for (int i = 0; i < this.regions.length; i++) {
+            this.regions[i] = new Region();
+        }
+        this.lookahead = lookahead(this.graph, this.regionOf);
+
+        List<PublicTransport> vehicles = network.getVehicles();
+        this.vehicles = vehicles.toArray(new PublicTransport[0]);
+        this.routeStops = new ArrayList<>();
+        this.positions = new int[this.vehicles.length];
+        this.directions = new int[this.vehicles.length];
+        this.passengers = new ArrayList<>();
+        this.passengerStops = new ArrayList<>();
+
+        // the number of vehicles which have started on each route
+        Map<Route, Integer> started = new IdentityHashMap<>();
+        for (int v = 0; v < this.vehicles.length; v++) {
+            Route route = this.vehicles[v].getRoute();
+            List<Stop> stops = route.getStopsOnRoute();
+            this.routeStops.add(stops);
+            this.directions[v] = 1;
+            int position = stops.indexOf(this.vehicles[v].getCurrentStop());
+            if (position < 0 || this.graph.getId(stops.get(position)) < 0) {
+                // the vehicle has nowhere to go
+                continue;
+            }
+            this.positions[v] = position;
+            int order = started.getOrDefault(route, 0);
+            started.put(route, order + 1);
+            regionAt(stops.get(position)).queue.add(
+                    new Event((long) order * HEADWAY, ARRIVAL, v));
+        }
+    }
+
+    /*
+     * Assigns each stop in the given graph to one of the given number of
+     * regions, by sorting the stops by their coordinates and dividing them
+     * into runs of equal length.
+     */
+    private static int[] partition(StopGraph graph, int regionCount) {
+        Integer[] ids = new Integer[graph.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        Arrays.sort(ids, Comparator.comparingInt(
+                (Integer id) -> graph.getStop(id).getX())
+                .thenComparingInt(id -> graph.getStop(id).getY())
+                .thenComparingInt(id -> id));
+        int[] regionOf = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            regionOf[ids[i]] = (int) ((long) i * regionCount / ids.length);
+        }
+        return regionOf;
+    }
+
+    /*
+     * Returns the shortest time taken to travel between neighbouring stops in
+     * different regions, or Long.MAX_VALUE if there are none.
+     */
+    private static long lookahead(StopGraph graph, int[] regionOf) {
+        long lookahead = Long.MAX_VALUE;
+        for (int v = 0; v < graph.size(); v++) {
+            for (int e = graph.firstEdge(v); e < graph.firstEdge(v + 1); e++) {
+                if (regionOf[v] != regionOf[graph.getTarget(e)]) {
+                    lookahead = Math.min(lookahead,
+                            Math.max(MIN_TRAVEL_TIME, graph.getWeight(e)));
+                }
+            }
+        }
+        return lookahead;
+    }
+
+    /*
+     * Returns the region of the given stop, which is in the graph.
+     */
+    private Region regionAt(Stop stop) {
+        return this.regions[this.regionOf[this.graph.getId(stop)]];
+    }
+
+    /**
+     * Adds a passenger, who arrives at the given stop at the given time.
+     *
+     * <p>If the passenger or stop is null, or the stop is not in the
+     * network, the passenger is not added.
+     *
+     * @param passenger The passenger to add.
+     * @param stop The stop the passenger arrives at.
+     * @param time The time the passenger arrives.
+     * @throws IllegalArgumentException If the time is before the time up to
+     *         which the simulation has been run.
+     */
+    public void addPassenger(Passenger passenger, Stop stop, long time) {
+        if (time < this.time) {
+            throw new IllegalArgumentException("time " + time
+                    + " is before the current time " + this.time);
+        }
+        if (passenger == null || stop == null || this.graph.getId(stop) < 0) {
+            return;
+        }
+        regionAt(stop).queue.add(
+                new Event(time, PASSENGER, this.passengers.size()));
+        this.passengers.add(passenger);
+        this.passengerStops.add(stop);
+    }
+
+    /**
+     * Runs the simulation until the given time, processing every event before
+     * that time, with the regions processed in parallel on the common
+     * fork-join pool.
+     *
+     * @param until The time to run the simulation until.
+     * @return The number of events processed.
+     */
+    public long run(long until) {
+        return run(until, ForkJoinPool.commonPool());
+    }
+
+    /*
+     * Runs the simulation until the given time as run(long) does, with the
+     * regions processed in the given pool.
+     */
+    long run(long until, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long before = getEventCount();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        while (true) {
+            long next = Long.MAX_VALUE;
+            for (Region region : this.regions) {
+                if (!region.queue.isEmpty()) {
+                    next = Math.min(next, region.queue.peek().time);
+                }
+            }
+            if (next >= until) {
+                break;
+            }
+            long end = this.lookahead >= until - next ? until
+                    : next + this.lookahead;
+            if (this.regions.length == 1) {
+                this.regions[0].process(end);
+                continue;
+            }
+
+            tasks.clear();
+            for (Region region : this.regions) {
+                if (!region.queue.isEmpty() && region.queue.peek().time < end) {
+                    tasks.add(() -> {
+                        region.process(end);
+                        return null;
+                    });
+                }
+            }
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                try {
+                    result.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            // deliver the vehicles travelling between regions
+            for (Region region : this.regions) {
+                for (Event event : region.outbox) {
+                    regionAt(this.routeStops.get(event.index)
+                            .get(this.positions[event.index]))
+                            .queue.add(event);
+                }
+                region.outbox.clear();
+            }
+        }
+        this.time = Math.max(this.time, until);
+        this.elapsed += System.nanoTime() - start;
+        return getEventCount() - before;
+    }
+
+    /**
+     * Returns the time up to which the simulation has been run.
+     *
+     * @return The current time of the simulation.
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * Returns the number of regions the stops of the network are partitioned
+     * into.
+     *
+     * @return The number of regions.
+     */
+    public int getRegionCount() {
+        return this.regions.length;
+    }
+
+    /**
+     * Returns the shortest time taken to travel between regions, which is the
+     * length of the windows in which the regions are processed.
+     *
+     * @return The lookahead, or Long.MAX_VALUE if there is one region or no
+     *         route between regions.
+     */
+    public long getLookahead() {
+        return this.lookahead;
+    }
+
+    /**
+     * Returns the number of events processed so far.
+     *
+     * @return The number of events processed.
+     */
+    public long getEventCount() {
+        long events = 0;
+        for (Region region : this.regions) {
+            events += region.events;
+        }
+        return events;
+    }
+
+    /**
+     * Returns the number of passengers who have reached their destination so
+     * far.
+     *
+     * @return The number of passengers delivered.
+     */
+    public long getDeliveredCount() {
+        long delivered = 0;
+        for (Region region : this.regions) {
+            delivered += region.delivered;
+        }
+        return delivered;
+    }
+
+    /**
+     * Returns the number of events processed for each second spent running
+     * the simulation.
+     *
+     * @return The throughput of the simulation in events per second, or 0 if
+     *         it has not been run.
+     */
+    public double getEventsPerSecond() {
+        return this.elapsed == 0 ? 0 : getEventCount() * 1e9 / this.elapsed;
+    }
+
+    /*
+     * An event of the simulation: the arrival of the passenger with the given
+     * index, or the arrival or departure of the vehicle with the given index.
+     */
+    private static final class Event implements Comparable<Event> {
+        private final long time;
+        private final int kind;
+        private final int index;
+
+        Event(long time, int kind, int index) {
+            this.time = time;
+            this.kind = kind;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (this.time != other.time) {
+                return Long.compare(this.time, other.time);
+            }
+            if (this.kind != other.kind) {
+                return Integer.compare(this.kind, other.kind);
+            }
+            return Integer.compare(this.index, other.index);
+        }
+    }
+
+    /*
+     * A region of the network, with the events at its stops. Only the thread
+     * processing a region changes its stops and the vehicles at them.
+     */
+    private final class Region {
+        // the events at the stops in this region, in order
+        private final PriorityQueue<Event> queue = new PriorityQueue<>();
+
+        // the arrivals of vehicles in other regions, to be delivered at the
+        // end of the window
+        private final List<Event> outbox = new ArrayList<>();
+
+        // the number of events processed and passengers delivered
+        private long events;
+        private long delivered;
+
+        /*
+         * Processes the events in this region before the given time.
+         */
+        void process(long end) {
+            while (!this.queue.isEmpty() && this.queue.peek().time < end) {
+                Event event = this.queue.poll();
+                this.events++;
+                switch (event.kind) {
+                    case PASSENGER:
+                        passengerArrive(event);
+                        break;
+                    case ARRIVAL:
+                        vehicleArrive(event);
+                        break;
+                    default:
+                        vehicleDepart(event);
+                }
+            }
+        }
+
+        /*
+         * Places a passenger at their stop, unless it is their destination.
+         */
+        private void passengerArrive(Event event) {
+            Passenger passenger = passengers.get(event.index);
+            Stop stop = passengerStops.get(event.index);
+            if (stop.equals(passenger.getDestination())) {
+                this.delivered++;
+            } else {
+                stop.addPassenger(passenger);
+            }
+        }
+
+        /*
+         * Drops off the passengers of a vehicle at its stop, and schedules its
+         * departure if it has somewhere to go.
+         */
+        private void vehicleArrive(Event event) {
+            PublicTransport vehicle = vehicles[event.index];
+            List<Stop> stops = routeStops.get(event.index);
+            Stop stop = stops.get(positions[event.index]);
+            for (Passenger passenger : vehicle.getPassengers()) {
+                if (stop.equals(passenger.getDestination())) {
+                    vehicle.removePassenger(passenger);
+                    this.delivered++;
+                }
+            }
+            stop.transportArrive(vehicle);
+            if (stops.size() > 1) {
+                this.queue.add(new Event(event.time + DWELL_TIME, DEPARTURE,
+                        event.index));
+            }
+        }
+
+        /*
+         * Sends a vehicle from its stop to the next stop on its route, turning
+         * back at the end of the route, and schedules its arrival there.
+         */
+        private void vehicleDepart(Event event) {
+            int v = event.index;
+            PublicTransport vehicle = vehicles[v];
+            List<Stop> stops = routeStops.get(v);
+            int position = positions[v] + directions[v];
+            if (position < 0 || position >= stops.size()) {
+                directions[v] = -directions[v];
+                position = positions[v] + directions[v];
+            }
+            Stop stop = stops.get(positions[v]);
+            Stop next = stops.get(position);
+            stop.transportDepart(vehicle, next);
+            positions[v] = position;
+
+            Event arrival = new Event(event.time
+                    + Math.max(MIN_TRAVEL_TIME, stop.distanceTo(next)),
+                    ARRIVAL, v);
+            if (regionAt(next) == this) {
+                this.queue.add(arrival);
+            } else {
+                this.outbox.add(arrival);
+            }
+        }
+    }
+}
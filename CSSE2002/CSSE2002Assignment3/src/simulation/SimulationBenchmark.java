@@ -0,0 +1,128 @@
+package simulation;
+
+import exceptions.TransportException;
+import network.Network;
+import passengers.Passenger;
+import routes.BusRoute;
+import routes.Route;
+import stops.Stop;
+import vehicles.Bus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Reports the throughput of a simulation of a randomly generated network, in
+ * events per second, when the network is processed as one region and when it
+ * is partitioned into regions processed in parallel.
+ *
+ * <p>Usage: java simulation.SimulationBenchmark [stops [routes [regions
+ * [until [seed]]]]]
+ *
+ * <p>The stops are placed at random on a 100 by 100 grid, and each route
+ * visits {@link #LENGTH} stops chosen at random, with
+ * {@link #VEHICLES_PER_ROUTE} buses. Passengers arrive at random stops, for
+ * random destinations, throughout the simulation. The same network is
+ * simulated each time, and the number of events processed and passengers
+ * delivered are checked to be the same.
+ */
+public class SimulationBenchmark {
+    // the default size of the network and of the simulation
+    private static final int DEFAULT_STOPS = 1000;
+    private static final int DEFAULT_ROUTES = 120;
+    private static final long DEFAULT_UNTIL = 20000;
+
+    // the width and height of the grid the stops are placed on
+    private static final int GRID = 100;
+
+    /** The number of stops on each route. */
+    public static final int LENGTH = 12;
+
+    /** The number of buses on each route. */
+    public static final int VEHICLES_PER_ROUTE = 4;
+
+    // the number of passengers arriving at each unit of time
+    private static final int PASSENGER_RATE = 2;
+
+    public static void main(String[] args) throws TransportException {
+        int stopCount = args.length > 0 ? Integer.parseInt(args[0])
+                : DEFAULT_STOPS;
+        int routeCount = args.length > 1 ? Integer.parseInt(args[1])
+                : DEFAULT_ROUTES;
+        int regions = args.length > 2 ? Integer.parseInt(args[2])
+                : Math.max(2, ForkJoinPool.getCommonPoolParallelism());
+        long until = args.length > 3 ? Long.parseLong(args[3])
+                : DEFAULT_UNTIL;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+
+        Simulation sequential = simulation(stopCount, routeCount, 1, until,
+                seed);
+        sequential.run(until);
+        report("1 region", sequential);
+
+        Simulation parallel = simulation(stopCount, routeCount, regions,
+                until, seed);
+        parallel.run(until);
+        report(parallel.getRegionCount() + " regions, lookahead "
+                + parallel.getLookahead(), parallel);
+
+        System.out.println(sequential.getEventCount()
+                == parallel.getEventCount() && sequential.getDeliveredCount()
+                == parallel.getDeliveredCount() ? "results agree"
+                : "results differ");
+    }
+
+    /*
+     * Creates a simulation of a randomly generated network, with passengers
+     * arriving until the given time.
+     */
+    private static Simulation simulation(int stopCount, int routeCount,
+            int regions, long until, long seed)
+            throws TransportException {
+        Random random = new Random(seed);
+        Network network = new Network();
+        List<Stop> stops = new ArrayList<>();
+        for (int i = 0; i < stopCount; i++) {
+            stops.add(new Stop("Stop " + i, random.nextInt(GRID),
+                    random.nextInt(GRID)));
+        }
+        network.addStops(stops);
+        for (int i = 0; i < routeCount; i++) {
+            Route route = new BusRoute("Route " + i, i);
+            for (int j = 0; j < LENGTH; j++) {
+                route.addStop(stops.get(random.nextInt(stopCount)), false);
+            }
+            network.addRoute(route);
+            for (int j = 0; j < VEHICLES_PER_ROUTE; j++) {
+                Bus bus = new Bus(i * VEHICLES_PER_ROUTE + j, 50, route,
+                        "R" + i + "V" + j);
+                route.addTransport(bus);
+                network.addVehicle(bus);
+            }
+        }
+        network.computeRouting();
+
+        Simulation simulation = new Simulation(network, regions);
+        for (long time = 0; time < until; time++) {
+            for (int i = 0; i < PASSENGER_RATE; i++) {
+                Stop destination = stops.get(random.nextInt(stopCount));
+                simulation.addPassenger(new Passenger("P" + time + "-" + i,
+                        destination), stops.get(random.nextInt(stopCount)),
+                        time);
+            }
+        }
+        return simulation;
+    }
+
+    /*
+     * Prints the results and throughput of the given simulation.
+     */
+    private static void report(String name, Simulation simulation) {
+        System.out.printf("%-30s%10d events%10d delivered%12.0f events/s%n",
+                name, simulation.getEventCount(),
+                simulation.getDeliveredCount(),
+                simulation.getEventsPerSecond());
+    }
+}
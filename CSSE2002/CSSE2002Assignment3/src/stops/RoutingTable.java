@@ -1,8 +1,9 @@
 package stops;
 
-import network.Network;
+import network.StopGraph;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The class should map destination stops to RoutingEntry objects.
@@ -10,10 +11,69 @@ import java.util.*;
  * The table is able to redirect passengers from their current stop to the next
  * intermediate stop which they should go to in order to reach their final
  * destination.
+ *
+ * The entries are stored in primitive arrays, in the order they were added,
+ * with a mapping from each destination to the position of its entry. Routes
+ * computed for a whole network at once are instead kept in arrays indexed by
+ * the ids of the stops in a {@link StopGraph} (see installRoutes), until the
+ * table is changed.
+ *
+ * The tables may be read and changed from several threads. Changes to any of
+ * the tables are made one at a time, as synchronising one table changes
+ * others. Readers never block: they read the version of the table last
+ * published, which is not changed once published. The entries are stored in
+ * blocks, and a change copies only the blocks it changes which were
+ * published. The tables changed by a call are published together once it is
+ * complete, so readers see either none or all of the routes it changes.
  */
 public class RoutingTable {
-    // A mapping from stops to routing entries for this routing table
-    private Map<Stop, RoutingEntry> stopMapping;
+    // The number of entries in each block of entries, a power of two
+    private static final int BLOCK_SIZE = 64;
+    private static final int BLOCK_SHIFT = 6;
+
+    // Guards every change to the routing tables and the tables changed
+    private static final Object UPDATE_LOCK = new Object();
+
+    // The tables changed by the current change, still to be published
+    private static final List<RoutingTable> changed = new ArrayList<>();
+
+    // A mapping from stops to the positions of their entries in this table,
+    // which is shared with the versions published since this table was last
+    // cleared, as positions are never reused
+    private Map<Stop, Integer> positions;
+
+    // The destinations, costs and next stops of the entries, in blocks
+    private Block[] blocks;
+
+    // The number of entries in this table
+    private int size;
+
+    // The graph over which the routes installed in this table were computed,
+    // or null if the entries of this table are those in the blocks above
+    private StopGraph graph;
+
+    // The cost of the route to each stop of the graph, and the id of the next
+    // stop on it, by id
+    private int[] graphCosts;
+    private int[] graphNextStops;
+
+    // The version of this table read by costTo, nextStop and getCosts
+    private volatile Version published;
+
+    // Whether this table has been changed since it was last published
+    private boolean pending;
+
+    // The positions of the entries set in this table since it was last
+    // cleared, in the order they were set
+    private int[] changes;
+    private int changeCount;
+
+    // The number of times this table has been cleared
+    private int generation;
+
+    // What has been transferred to the table of each neighbour since this
+    // table was last cleared
+    private Map<Stop, Transferred> transferred;
 
     // The stop this routing table is for
     private Stop associatedStop;
@@ -26,10 +86,12 @@ public class RoutingTable {
      * @param initialStop The stop for which this table will handle routing.
      */
     public RoutingTable(Stop initialStop) {
-        this.stopMapping = new HashMap<>();
+        this.clear();
         // Add itself to the routing table
-        this.stopMapping.put(initialStop, new RoutingEntry(initialStop, 0));
+        this.setEntry(this.addDestination(initialStop),
+                new RoutingEntry(initialStop, 0));
         this.associatedStop = initialStop;
+        this.publish();
     }
 
     /**
@@ -49,17 +111,14 @@ public class RoutingTable {
      * @param neighbour The stop to be added as a neighbour.
      */
     public void addNeighbour(Stop neighbour) {
-        if (!this.stopMapping.containsKey(neighbour)) {
-            // Gets cost using Stop.distanceTo
-            this.addOrUpdateEntry(neighbour,
-                    this.associatedStop.distanceTo(neighbour), neighbour);
-        // If the direct distance is less than the current route cost
-        } else if (this.associatedStop.distanceTo(neighbour) <
-                this.stopMapping.get(neighbour).getCost()) {
-            this.addOrUpdateEntry(neighbour,
-                    this.associatedStop.distanceTo(neighbour), neighbour);
+        synchronized (UPDATE_LOCK) {
+            // Gets cost using Stop.distanceTo. The entry is only updated if
+            // the direct distance is less than the current route cost
+            this.update(neighbour, this.associatedStop.distanceTo(neighbour),
+                    neighbour);
+            this.synchroniseEntries();
+            publishChanged();
         }
-        this.synchronise();
     }
 
     /**
@@ -83,21 +142,204 @@ public class RoutingTable {
      */
     public boolean addOrUpdateEntry(Stop destination, int newCost,
             Stop intermediate) {
+        synchronized (UPDATE_LOCK) {
+            boolean updated = this.update(destination, newCost, intermediate);
+            publishChanged();
+            return updated;
+        }
+    }
+
+    /*
+     * Adds or updates the entry for the given destination as
+     * addOrUpdateEntry(Stop, int, Stop) does, without publishing the change.
+     */
+    private boolean update(Stop destination, int newCost, Stop intermediate) {
+        this.materialise();
+        Integer position = this.positions.get(destination);
         // If the destination is not already in the routing table
-        if (!this.stopMapping.containsKey(destination)) {
-            this.stopMapping.put(destination, new RoutingEntry(intermediate,
-                    newCost));
-        // If the cost is lower
-        } else if (newCost < this.stopMapping.get(destination).getCost()) {
-            this.stopMapping.put(destination, new RoutingEntry(intermediate,
-                    newCost));
-        } else {
+        if (position == null) {
+            position = this.addDestination(destination);
+        // If the cost is not lower
+        } else if (newCost >= this.cost(position)) {
             return false;
         }
         // Does not reach here if the table was not updated
+        this.setEntry(position, new RoutingEntry(intermediate, newCost));
         return true;
     }
 
+    /**
+     * Replaces the entries in this table with routes computed over the given
+     * graph, as by {@link network.Network#computeRouting()}.
+     *
+     * The cost of the route to the stop with id v in the graph is costs[v],
+     * and the id of the next stop on it is nextStops[v], or these are
+     * Integer.MAX_VALUE and -1 if there is no route to the stop. The stops in
+     * the graph which have routes become the destinations in this table, and
+     * are found by equality like any other destination: a stop equal to
+     * several stops in the graph has the route to the cheapest of them.
+     *
+     * The arrays are kept rather than copied, so they must not be changed
+     * afterwards. If this table is changed, the routes are first copied into
+     * entries of its own.
+     * @param graph The graph over which the routes were computed.
+     * @param costs The cost of the route to each stop, by id.
+     * @param nextStops The id of the next stop on the route to each stop.
+     * @require graph.getId(this.getStop()) &gt;= 0 and the arrays are of
+     *          length graph.size()
+     */
+    public void installRoutes(StopGraph graph, int[] costs, int[] nextStops) {
+        synchronized (UPDATE_LOCK) {
+            this.clear();
+            this.graph = graph;
+            this.graphCosts = costs;
+            this.graphNextStops = nextStops;
+            publishChanged();
+        }
+    }
+
+    /*
+     * Removes all the entries from this table.
+     */
+    private void clear() {
+        this.positions = new ConcurrentHashMap<>();
+        this.blocks = new Block[1];
+        this.size = 0;
+        this.graph = null;
+        this.graphCosts = null;
+        this.graphNextStops = null;
+        this.changes = new int[BLOCK_SIZE];
+        this.changeCount = 0;
+        this.generation++;
+        this.transferred = new HashMap<>();
+        this.markChanged();
+    }
+
+    /*
+     * Records that this table has been changed, so that it is published once
+     * the current change is complete.
+     */
+    private void markChanged() {
+        if (!this.pending && this.published != null) {
+            this.pending = true;
+            changed.add(this);
+        }
+    }
+
+    /*
+     * Makes the current entries of this table the version read by readers.
+     */
+    private void publish() {
+        this.pending = false;
+        this.published = new Version(this.positions, this.blocks.clone(),
+                this.size, this.graph, this.graphCosts, this.graphNextStops);
+    }
+
+    /*
+     * Publishes the tables changed by the current change.
+     */
+    private static void publishChanged() {
+        for (RoutingTable table : changed) {
+            table.publish();
+        }
+        changed.clear();
+    }
+
+    /*
+     * Copies any routes installed in this table into entries of its own, so
+     * that they may be changed.
+     */
+    private void materialise() {
+        if (this.graph == null) {
+            return;
+        }
+        StopGraph routes = this.graph;
+        int[] routeCosts = this.graphCosts;
+        int[] routeNextStops = this.graphNextStops;
+        this.clear();
+        for (int id = 0; id < routes.size(); id++) {
+            if (routeCosts[id] != Integer.MAX_VALUE) {
+                // Equal stops share the entry of the cheapest of them
+                Integer equal = this.positions.get(routes.getStop(id));
+                if (equal != null && routeCosts[id] >= this.cost(equal)) {
+                    continue;
+                }
+                int position = equal != null ? equal
+                        : this.addDestination(routes.getStop(id));
+                Block block = this.writableBlock(position);
+                block.costs[position & (BLOCK_SIZE - 1)] = routeCosts[id];
+                block.nextStops[position & (BLOCK_SIZE - 1)] =
+                        routes.getStop(routeNextStops[id]);
+            }
+        }
+    }
+
+    /*
+     * Adds an entry for the given destination, which is not yet in this table,
+     * and returns its position. The entry must then be set.
+     */
+    private int addDestination(Stop destination) {
+        int block = this.size >> BLOCK_SHIFT;
+        if (block == this.blocks.length) {
+            this.blocks = Arrays.copyOf(this.blocks, 2 * block);
+        }
+        if (this.blocks[block] == null) {
+            this.blocks[block] = new Block();
+        }
+        this.writableBlock(this.size).destinations[
+                this.size & (BLOCK_SIZE - 1)] = destination;
+        // Readers of versions published before the entry was added ignore
+        // positions beyond the size of their version
+        this.positions.put(destination, this.size);
+        return this.size++;
+    }
+
+    /*
+     * Returns the block holding the entry at the given position, first
+     * copying it if it is part of the published version of this table.
+     */
+    private Block writableBlock(int position) {
+        int index = position >> BLOCK_SHIFT;
+        Block block = this.blocks[index];
+        Block[] readable = this.published == null ? null
+                : this.published.blocks;
+        if (readable != null && index < readable.length
+                && readable[index] == block) {
+            block = block.copy();
+            this.blocks[index] = block;
+        }
+        this.markChanged();
+        return block;
+    }
+
+    /*
+     * Sets the cost and next stop of the entry at the given position to those
+     * of the given routing entry.
+     */
+    private void setEntry(int position, RoutingEntry entry) {
+        Block block = this.writableBlock(position);
+        block.costs[position & (BLOCK_SIZE - 1)] = entry.getCost();
+        block.nextStops[position & (BLOCK_SIZE - 1)] = entry.getNext();
+        if (this.changeCount == this.changes.length) {
+            this.changes = Arrays.copyOf(this.changes, 2 * this.changeCount);
+        }
+        this.changes[this.changeCount++] = position;
+    }
+
+    /*
+     * Returns the destination, cost and next stop of the entry at the given
+     * position in the current (possibly unpublished) entries of this table.
+     */
+    private Stop destination(int position) {
+        return this.blocks[position >> BLOCK_SHIFT]
+                .destinations[position & (BLOCK_SIZE - 1)];
+    }
+
+    private int cost(int position) {
+        return this.blocks[position >> BLOCK_SHIFT]
+                .costs[position & (BLOCK_SIZE - 1)];
+    }
+
     /**
      * Returns the cost associated with getting to the given stop.
      * @param stop The stop to get the cost.
@@ -105,10 +347,7 @@ public class RoutingTable {
      *         not currently in this routing table.
      */
     public int costTo(Stop stop) {
-        if (!this.stopMapping.containsKey(stop)) {
-            return Integer.MAX_VALUE;
-        }
-        return this.stopMapping.get(stop).getCost();
+        return this.published.costTo(stop);
     }
 
     /**
@@ -118,10 +357,23 @@ public class RoutingTable {
      * getting to those stops.
      */
     public Map<Stop, Integer> getCosts() {
+        Version version = this.published;
         Map<Stop, Integer> costMapping = new HashMap<>();
+        if (version.graph != null) {
+            for (int id = 0; id < version.graph.size(); id++) {
+                if (version.graphCosts[id] != Integer.MAX_VALUE) {
+                    // Equal stops share the cost of the cheapest of them
+                    costMapping.merge(version.graph.getStop(id),
+                            version.graphCosts[id], Math::min);
+                }
+            }
+            return costMapping;
+        }
         // For each stop in the routing table
-        for (Stop stop : this.stopMapping.keySet()) {
-            costMapping.put(stop, this.costTo(stop));
+        for (int i = 0; i < version.size; i++) {
+            Block block = version.blocks[i >> BLOCK_SHIFT];
+            costMapping.put(block.destinations[i & (BLOCK_SIZE - 1)],
+                    block.costs[i & (BLOCK_SIZE - 1)]);
         }
         return costMapping;
     }
@@ -143,42 +395,52 @@ public class RoutingTable {
      *         given destination.
      */
     public Stop nextStop(Stop destination) {
-        if (destination == null) {
-            return null;
-        }
-        if (!this.stopMapping.containsKey(destination)) {
-            return null;
-        }
-        // Returns the next stop of the routing entry
-        return this.stopMapping.get(destination).getNext();
+        return this.published.nextStop(destination);
     }
 
     /**
      * Synchronises this routing table with the other tables in the network.
-     * In each iteration, every stop in the network which is reachable by this
-     * table's stop (as returned by traverseNetwork()) must be considered. For
-     * each stop x in the network, each of its neighbours must be visited, and
-     * the entries from x must be transferred to each neighbour (using the
-     * transferEntries(Stop) method).
+     * For each stop x in the network which is reachable by this table's stop,
+     * and each neighbour of x, the entries from x must be transferred to the
+     * neighbour (as defined in transferEntries(Stop)), until no transfer
+     * changes any of the tables in the network.
      *
-     * If any of these transfers results in a change to the table that the
-     * entries are being transferred, then the entire process must be repeated
-     * again. These iterations should continue happening until no changes occur
-     * to any of the tables in the network.
-     *
-     * This process is designed to handle changes which need to be propagated
-     * throughout the entire network, which could take more than one iteration.
+     * Each transfer only transfers the entries which have changed since the
+     * same transfer was last made, as the others cannot change the other
+     * table. All of the entries are transferred if the cost to the neighbour
+     * has changed, or either table has been cleared, since then. The tables
+     * are changed in the same order, so the routes, including the next stops
+     * chosen where several routes have the same cost, are those found by
+     * transferring every entry.
      */
     public void synchronise() {
-        // Get a list of all stops in the network
-        List<Stop> stopList = this.traverseNetwork();
+        synchronized (UPDATE_LOCK) {
+            this.synchroniseEntries();
+            publishChanged();
+        }
+    }
+
+    /*
+     * Synchronises this routing table with the other tables in the network as
+     * synchronise() does, without publishing the changes.
+     */
+    private void synchroniseEntries() {
+        // The stops reachable in the network, in the order traverseNetwork()
+        // returns them, and their neighbours in the order of getNeighbours()
+        StopGraph graph = new StopGraph(
+                Collections.singletonList(this.associatedStop));
+        int[] stopIds = graph.traverse(0);
         boolean wasUpdated;
         do {
             wasUpdated = false;
-            for (Stop stop : stopList) {
+            for (int id : stopIds) {
+                RoutingTable table = graph.getStop(id).getRoutingTable();
+                table.materialise();
                 // Iterate through the stop's neighbours
-                for (Stop neighbour : stop.getNeighbours()) {
-                    if (stop.getRoutingTable().transferEntries(neighbour)) {
+                for (int edge = graph.firstEdge(id);
+                        edge < graph.firstEdge(id + 1); edge++) {
+                    Stop neighbour = graph.getStop(graph.getTarget(edge));
+                    if (table.transferChanges(neighbour)) {
                         // If there was an update, set to loop to run again
                         wasUpdated = true;
                     }
@@ -211,30 +473,222 @@ public class RoutingTable {
      * @require this.getStop().getNeighbours().contains(other) == true
      */
     public boolean transferEntries(Stop other) {
+        synchronized (UPDATE_LOCK) {
+            this.materialise();
+            boolean updated = this.transferAll(other);
+            publishChanged();
+            return updated;
+        }
+    }
+
+    /*
+     * Transfers the entries of this routing table to that of the given other
+     * stop as transferEntries(Stop) does, but only those set since they were
+     * last transferred to it, unless all of them may change it.
+     *
+     * Returns true if the other stop's table was changed.
+     */
+    private boolean transferChanges(Stop other) {
+        Transferred last = this.transferred.get(other);
+        int distance = this.distanceTo(other);
+        if (last == null || last.distance != distance
+                || last.generation != other.getRoutingTable().generation) {
+            return this.transferAll(other);
+        }
+        if (last.changeCount == this.changeCount) {
+            return false;
+        }
+        // The positions set since, in order and without repeats
+        int[] changed = Arrays.copyOfRange(this.changes, last.changeCount,
+                this.changeCount);
+        Arrays.sort(changed);
         boolean updated = false;
-        for (Stop destination : this.stopMapping.keySet()) {
-            // Add the cost associated with adding this stop as an intermediate
-            // stop. Note that in the case the cost should be less, the
-            // addOrUpdateEntry call will do nothing
-            int cost = this.stopMapping.get(destination).getCost() +
-                    this.costTo(other);
-
-            // If the stop isn't in the other routing table
-            if (!other.getRoutingTable().getCosts().containsKey(destination)) {
-                // Adds the stop to the other routing table. Sets this stop
-                // as the intermediate stop
-                other.getRoutingTable().addOrUpdateEntry(destination, cost,
-                        this.associatedStop);
-                updated = true;
-            } else if (cost < other.getRoutingTable().costTo(destination)) {
-                other.getRoutingTable().addOrUpdateEntry(destination, cost,
-                        this.associatedStop);
-                updated = true;
+        for (int i = 0; i < changed.length; i++) {
+            if (i == 0 || changed[i] != changed[i - 1]) {
+                updated |= this.transfer(other, changed[i], distance);
             }
         }
+        this.recordTransfer(other);
         return updated;
     }
 
+    /*
+     * Transfers all of the entries of this routing table to that of the given
+     * other stop, as transferEntries(Stop) does.
+     *
+     * Returns true if the other stop's table was changed.
+     */
+    private boolean transferAll(Stop other) {
+        int distance = this.distanceTo(other);
+        boolean updated = false;
+        for (int i = 0; i < this.size; i++) {
+            updated |= this.transfer(other, i, distance);
+        }
+        this.recordTransfer(other);
+        return updated;
+    }
+
+    /*
+     * Transfers the entry at the given position in this routing table to that
+     * of the given other stop, whose cost from this table's stop is the given
+     * distance. Returns true if the other stop's table was changed.
+     */
+    private boolean transfer(Stop other, int position, int distance) {
+        // Cost associated with adding this stop as an intermediate stop. In
+        // the case the cost isn't less, update does nothing
+        int cost = this.cost(position) + distance;
+        return other.getRoutingTable().update(this.destination(position), cost,
+                this.associatedStop);
+    }
+
+    /*
+     * Returns the cost of the current entry for the given stop, or
+     * Integer.MAX_VALUE if there is none.
+     */
+    private int distanceTo(Stop other) {
+        Integer position = this.positions.get(other);
+        return position == null ? Integer.MAX_VALUE : this.cost(position);
+    }
+
+    /*
+     * Records that the entries of this table have been transferred to the
+     * table of the given other stop.
+     */
+    private void recordTransfer(Stop other) {
+        Transferred last = this.transferred.get(other);
+        if (last == null) {
+            last = new Transferred();
+            this.transferred.put(other, last);
+        }
+        last.changeCount = this.changeCount;
+        last.distance = this.distanceTo(other);
+        last.generation = other.getRoutingTable().generation;
+    }
+
+    /*
+     * The entries of a routing table last transferred to the table of one of
+     * its neighbours.
+     */
+    private static final class Transferred {
+        // The number of changes made to the table before the transfer
+        private int changeCount;
+
+        // The cost to the neighbour at the time of the transfer
+        private int distance;
+
+        // The generation of the neighbour's table transferred into
+        private int generation;
+    }
+
+    /*
+     * A block of entries of a routing table, by position. A block which is
+     * part of a published version of a table is not changed.
+     */
+    private static final class Block {
+        private final Stop[] destinations;
+        private final int[] costs;
+        private final Stop[] nextStops;
+
+        private Block() {
+            this(new Stop[BLOCK_SIZE], new int[BLOCK_SIZE],
+                    new Stop[BLOCK_SIZE]);
+        }
+
+        private Block(Stop[] destinations, int[] costs, Stop[] nextStops) {
+            this.destinations = destinations;
+            this.costs = costs;
+            this.nextStops = nextStops;
+        }
+
+        private Block copy() {
+            return new Block(this.destinations.clone(), this.costs.clone(),
+                    this.nextStops.clone());
+        }
+    }
+
+    /*
+     * A published version of a routing table, which is not changed.
+     */
+    private static final class Version {
+        private final Map<Stop, Integer> positions;
+        private final Block[] blocks;
+        private final int size;
+        private final StopGraph graph;
+        private final int[] graphCosts;
+        private final int[] graphNextStops;
+
+        private Version(Map<Stop, Integer> positions, Block[] blocks,
+                int size, StopGraph graph, int[] graphCosts,
+                int[] graphNextStops) {
+            this.positions = positions;
+            this.blocks = blocks;
+            this.size = size;
+            this.graph = graph;
+            this.graphCosts = graphCosts;
+            this.graphNextStops = graphNextStops;
+        }
+
+        /*
+         * Returns the position of the entry for the given stop in this
+         * version, or -1 if there is none.
+         */
+        private int positionOf(Stop stop) {
+            Integer position = this.positions.get(stop);
+            return position == null || position >= this.size ? -1 : position;
+        }
+
+        /*
+         * Returns the id in the graph of the cheapest stop equal to the given
+         * stop, the first of them if several are as cheap, or -1 if there is
+         * no route to any of them. As in the entries, which are found by
+         * equality, equal stops share one route.
+         */
+        private int routeIdOf(Stop stop) {
+            int cheapest = -1;
+            for (int id = this.graph.findId(stop); id >= 0;
+                    id = this.graph.nextEqualId(id)) {
+                if (this.graphCosts[id] != Integer.MAX_VALUE && (cheapest < 0
+                        || this.graphCosts[id] < this.graphCosts[cheapest])) {
+                    cheapest = id;
+                }
+            }
+            return cheapest;
+        }
+
+        private int costTo(Stop stop) {
+            if (this.graph != null) {
+                int id = this.routeIdOf(stop);
+                return id < 0 ? Integer.MAX_VALUE : this.graphCosts[id];
+            }
+            int position = this.positionOf(stop);
+            if (position < 0) {
+                return Integer.MAX_VALUE;
+            }
+            return this.blocks[position >> BLOCK_SHIFT]
+                    .costs[position & (BLOCK_SIZE - 1)];
+        }
+
+        private Stop nextStop(Stop destination) {
+            if (destination == null) {
+                return null;
+            }
+            if (this.graph != null) {
+                int id = this.routeIdOf(destination);
+                if (id < 0 || this.graphNextStops[id] < 0) {
+                    return null;
+                }
+                return this.graph.getStop(this.graphNextStops[id]);
+            }
+            int position = this.positionOf(destination);
+            if (position < 0) {
+                return null;
+            }
+            // Returns the next stop of the routing entry
+            return this.blocks[position >> BLOCK_SHIFT]
+                    .nextStops[position & (BLOCK_SIZE - 1)];
+        }
+    }
+
     /**
      * Performs a traversal of all the stops in the network, and returns a list
      * of every stop which is reachable from the stop stored in this table.
@@ -246,28 +700,19 @@ public class RoutingTable {
      *          1. if they are not in the list, add them to the stack.
      *      3. Then add the current Stop to the list.
      *  3. Return the list of seen stops.
+     *
+     * The traversal is made over an integer-indexed graph of the stops (see
+     * {@link StopGraph}), in which the stops seen are marked in an array.
      * @return All of the stops in the network which are reachable by the stop
      *         stored in this table.
      */
     public List<Stop> traverseNetwork() {
+        StopGraph graph = new StopGraph(
+                Collections.singletonList(this.associatedStop));
         List<Stop> stopList = new ArrayList<>();
-        Stack<Stop> stopStack = new Stack<>();
-        stopStack.push(this.associatedStop);
-        while (!stopStack.empty()) {
-            Stop currentStop = stopStack.pop();
-            // If the stop hasn't already been dealt with. This if statement is
-            // necessary for if a stop has had two of it's neighbours traversed,
-            // adding it to the stack twice
-            if (!stopList.contains(currentStop)) {
-                // For each neighbour, set it to be traversed if it isn't
-                // already in stopList
-                for (Stop neighbour : currentStop.getNeighbours()) {
-                    if (!stopList.contains(neighbour)) {
-                        stopStack.push(neighbour);
-                    }
-                }
-                stopList.add(currentStop);
-            }
+        // This table's stop has id 0, as the first stop of the graph
+        for (int id : graph.traverse(0)) {
+            stopList.add(graph.getStop(id));
         }
         return stopList;
     }
@@ -9,19 +9,36 @@ import utilities.Writeable;
 import vehicles.PublicTransport;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a stop in the transportation network.
  *
  * <p>Stops are where public transport vehicles collect and drop off passengers,
  * and are located along one or more routes.
+ *
+ * <p>Stops may be used from several threads. Each queue of waiting
+ * passengers has a lock of its own, so that passengers going to different
+ * next stops are added and board independently, and the routes, neighbours
+ * and vehicles of a stop are kept in concurrent collections.
  */
 public class Stop implements Writeable {
     // the name of the stop
     private String name;
 
-    // the passengers currently waiting at the stop
-    private List<Passenger> passengers;
+    // the passengers currently waiting at the stop, in a queue for each next
+    // stop they must go to to reach their destination, in the order they
+    // were added; each queue is guarded by its own lock
+    private Map<Stop, Deque<WaitingPassenger>> passengerQueues;
+
+    // the passengers waiting at the stop with no next stop
+    private Deque<WaitingPassenger> unroutedPassengers;
+
+    // the number of passengers which have been added to the stop, which gives
+    // the order of the waiting passengers across the queues
+    private AtomicLong passengersAdded;
 
     // the routes which this stop is located on
     private List<Route> routes;
@@ -29,8 +46,12 @@ public class Stop implements Writeable {
     // the vehicles currently at this stop
     private Set<PublicTransport> atStop;
 
+    // the vehicles arriving at this stop which are being unloaded; a vehicle
+    // is only at the stop once it has been unloaded
+    private Set<PublicTransport> unloading;
+
     // the stops directly adjacent to this stop along routes
-    private List<Stop> neighbours;
+    private CopyOnWriteArrayList<Stop> neighbours;
 
     // the x and y coordinates of this stop
     private int xCoordinate;
@@ -39,10 +60,6 @@ public class Stop implements Writeable {
     // the routing table of the stop
     private RoutingTable routingTable;
 
-    // A mapping of passengers to the next stop they must go to to reach their
-    // destination
-    private Map<Passenger, Stop> passengerRoutes;
-
 
     /**
      * Creates a new Stop object with the given name and coordinates.
@@ -67,12 +84,14 @@ public class Stop implements Writeable {
         this.xCoordinate = x;
         this.yCoordinate = y;
 
-        this.neighbours = new ArrayList<>();
-        this.passengers = new ArrayList<>();
-        this.routes = new ArrayList<>();
-        this.atStop = new HashSet<>();
+        this.neighbours = new CopyOnWriteArrayList<>();
+        this.passengerQueues = new ConcurrentHashMap<>();
+        this.unroutedPassengers = new ArrayDeque<>();
+        this.passengersAdded = new AtomicLong();
+        this.routes = new CopyOnWriteArrayList<>();
+        this.atStop = ConcurrentHashMap.newKeySet();
+        this.unloading = ConcurrentHashMap.newKeySet();
         this.routingTable = new RoutingTable(this);
-        this.passengerRoutes = new HashMap<>();
     }
 
     /**
@@ -141,11 +160,28 @@ public class Stop implements Writeable {
      * @param neighbour The stop to add as a neighbour.
      */
     public void addNeighbouringStop(Stop neighbour) {
-        if (neighbour == null || neighbours.contains(neighbour)) {
+        addNeighbouringStop(neighbour, true);
+    }
+
+    /**
+     * Records the given stop as being a neighbour of this stop, as
+     * {@link #addNeighbouringStop(Stop)} does, but only adds the neighbour to
+     * this stop's routing table if updateRouting is true.
+     *
+     * <p>Routing may be deferred while a whole network is being connected, and
+     * the routes then computed once (using
+     * {@link network.Network#computeRouting()}).
+     *
+     * @param neighbour The stop to add as a neighbour.
+     * @param updateRouting Whether to update the routing tables.
+     */
+    public void addNeighbouringStop(Stop neighbour, boolean updateRouting) {
+        if (neighbour == null || !neighbours.addIfAbsent(neighbour)) {
             return;
         }
-        neighbours.add(neighbour);
-        this.routingTable.addNeighbour(neighbour);
+        if (updateRouting) {
+            this.routingTable.addNeighbour(neighbour);
+        }
     }
 
     /**
@@ -174,14 +210,26 @@ public class Stop implements Writeable {
         if (passenger == null) {
             return;
         }
-        this.passengers.add(passenger);
-        if (passenger.getDestination() == null) {
-            return;
-        }
         // Corresponds passenger destination with the routing table to find
-        // their next stop
-        this.passengerRoutes.put(passenger,
+        // their next stop, and queues them to board a vehicle going there
+        Deque<WaitingPassenger> queue = passengerQueue(
                 this.routingTable.nextStop(passenger.getDestination()));
+        synchronized (queue) {
+            queue.add(new WaitingPassenger(passenger,
+                    this.passengersAdded.getAndIncrement()));
+        }
+    }
+
+    /*
+     * Returns the queue of the passengers waiting for the given next stop,
+     * which may be null, creating it if there is none.
+     */
+    private Deque<WaitingPassenger> passengerQueue(Stop next) {
+        if (next == null) {
+            return this.unroutedPassengers;
+        }
+        return this.passengerQueues.computeIfAbsent(next,
+                stop -> new ArrayDeque<>());
     }
 
     /**
@@ -196,8 +244,22 @@ public class Stop implements Writeable {
      * @return The passengers currently waiting at the stop.
      */
     public List<Passenger> getWaitingPassengers() {
+        List<WaitingPassenger> waiting = new ArrayList<>();
+        synchronized (this.unroutedPassengers) {
+            waiting.addAll(this.unroutedPassengers);
+        }
+        for (Deque<WaitingPassenger> queue : this.passengerQueues.values()) {
+            synchronized (queue) {
+                waiting.addAll(queue);
+            }
+        }
+        waiting.sort(Comparator.comparingLong(entry -> entry.order));
 
-        return new ArrayList<>(passengers);
+        List<Passenger> passengers = new ArrayList<>(waiting.size());
+        for (WaitingPassenger entry : waiting) {
+            passengers.add(entry.passenger);
+        }
+        return passengers;
     }
 
     /**
@@ -207,8 +269,7 @@ public class Stop implements Writeable {
      * @return True if the vehicle is at this stop, false otherwise.
      */
     public boolean isAtStop(PublicTransport transport) {
-
-        return atStop.contains(transport);
+        return transport != null && atStop.contains(transport);
     }
 
     /**
@@ -245,16 +306,24 @@ public class Stop implements Writeable {
      * @param transport The public transport vehicle arriving at this stop.
      */
     public void transportArrive(PublicTransport transport) {
-        if (transport == null || isAtStop(transport)) {
+        // Claiming the vehicle for unloading first means only one thread
+        // unloads it, and it cannot depart until it is recorded at the stop,
+        // once its passengers are at the stop to board it
+        if (transport == null || !unloading.add(transport)) {
             return;
         }
-
-        List<Passenger> arriving = transport.unload();
-        for (Passenger passenger : arriving) {
-            addPassenger(passenger);
+        try {
+            if (atStop.contains(transport)) {
+                return;
+            }
+            List<Passenger> arriving = transport.unload();
+            for (Passenger passenger : arriving) {
+                addPassenger(passenger);
+            }
+            atStop.add(transport);
+        } finally {
+            unloading.remove(transport);
         }
-
-        atStop.add(transport);
     }
 
     /**
@@ -271,30 +340,47 @@ public class Stop implements Writeable {
      * @param nextStop The stop the transport is travelling to.
      */
     public void transportDepart(PublicTransport transport, Stop nextStop) {
-        if (!isAtStop(transport) || nextStop == null) {
+        // Removing the vehicle first means only one thread departs it, and one
+        // still being unloaded is not yet at the stop
+        if (transport == null || nextStop == null
+                || !atStop.remove(transport)) {
             return;
         }
         transport.travelTo(nextStop);
-        atStop.remove(transport);
-        for (Passenger passenger : this.passengers) {
-            // Stops trying to add passengers if the vehicle is full
-            if (transport.passengerCount() >= transport.getCapacity()) {
-                break;
-            }
-            // If the passenger's next stop is where the vehicle is going
-            if (this.passengerRoutes.get(passenger).equals(nextStop)) {
+        // Only the passengers whose next stop is where the vehicle is going
+        // board, in the order they were added. The queue is kept once empty,
+        // as passengers may be being added to it.
+        Deque<WaitingPassenger> queue = this.passengerQueues.get(nextStop);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            // Stops trying to add passengers once the vehicle is full, which
+            // it may become as passengers board it elsewhere
+            while (!queue.isEmpty()) {
                 try {
-                    transport.addPassenger(passenger);
-                    this.passengers.remove(passenger);
-                    this.passengerRoutes.remove(passenger);
+                    transport.addPassenger(queue.peek().passenger);
+                    queue.remove();
                 } catch (OverCapacityException e) {
-                    // Squash. This exception should never be thrown due to the
-                    // previous check between passengerCount and capacity
+                    break;
                 }
             }
         }
     }
 
+    /*
+     * A passenger waiting at a stop, and the order in which they were added.
+     */
+    private static final class WaitingPassenger {
+        private final Passenger passenger;
+        private final long order;
+
+        WaitingPassenger(Passenger passenger, long order) {
+            this.passenger = passenger;
+            this.order = order;
+        }
+    }
+
     /**
      * Returns the Manhattan distance between this stop and the given other
      * stop.
@@ -339,11 +425,13 @@ public class Stop implements Writeable {
             return false;
         }
         Stop otherStop = (Stop) other;
-        return this.name.equals(otherStop.getName())
-                && this.xCoordinate == otherStop.getX()
-                && this.yCoordinate == otherStop.getY()
-                && new HashSet<>(this.routes)
-                .equals(new HashSet<>(otherStop.getRoutes()));
+        // The routes are compared last, and in place, as they are the most
+        // costly to compare
+        return this.name.equals(otherStop.name)
+                && this.xCoordinate == otherStop.xCoordinate
+                && this.yCoordinate == otherStop.yCoordinate
+                && this.routes.containsAll(otherStop.routes)
+                && otherStop.routes.containsAll(this.routes);
     }
 
     /**
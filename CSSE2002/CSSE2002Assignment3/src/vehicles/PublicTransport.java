@@ -11,16 +11,28 @@ import utilities.Writeable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
 /**
  * A base public transport vehicle in the transportation network.
+ *
+ * <p>Vehicles may be used from several threads. Seats are taken atomically,
+ * so that a vehicle is never over capacity however many passengers board it
+ * at once.
  */
 public abstract class PublicTransport implements Writeable {
-    // the passengers currently on board the vehicle
+    // the passengers currently on board the vehicle, guarded by passengerLock
     private List<Passenger> passengers;
+    private final Object passengerLock = new Object();
+
+    // the number of seats taken, which includes the passengers on board and
+    // those who have taken a seat but are still being added
+    private final AtomicInteger seatsTaken = new AtomicInteger();
 
     // the place the vehicle is currently stopped
-    private Stop currentLocation;
+    private volatile Stop currentLocation;
 
     // the maximum passengers allowed on board the vehicle
     private int capacity;
@@ -95,7 +107,7 @@ public abstract class PublicTransport implements Writeable {
      * @return The number of passengers in the vehicle.
      */
     public int passengerCount() {
-        return passengers.size();
+        return seatsTaken.get();
     }
 
     /**
@@ -129,8 +141,9 @@ public abstract class PublicTransport implements Writeable {
      * @return The passengers currently on the public transport vehicle.
      */
     public List<Passenger> getPassengers() {
-
-        return new ArrayList<>(passengers);
+        synchronized (passengerLock) {
+            return new ArrayList<>(passengers);
+        }
     }
 
     /**
@@ -151,10 +164,17 @@ public abstract class PublicTransport implements Writeable {
             return;
         }
 
-        if (passengers.size() >= capacity) {
-            throw new OverCapacityException();
+        // take a seat, unless they are all taken
+        int taken;
+        do {
+            taken = seatsTaken.get();
+            if (taken >= capacity) {
+                throw new OverCapacityException();
+            }
+        } while (!seatsTaken.compareAndSet(taken, taken + 1));
+        synchronized (passengerLock) {
+            passengers.add(passenger);
         }
-        passengers.add(passenger);
     }
 
     /**
@@ -170,8 +190,13 @@ public abstract class PublicTransport implements Writeable {
      *          the vehicle to begin with).
      */
     public boolean removePassenger(Passenger passenger) {
-
-        return passengers.remove(passenger);
+        synchronized (passengerLock) {
+            if (!passengers.remove(passenger)) {
+                return false;
+            }
+        }
+        seatsTaken.decrementAndGet();
+        return true;
     }
 
     /**
@@ -190,8 +215,12 @@ public abstract class PublicTransport implements Writeable {
      * @return The passengers who used to be on the vehicle.
      */
     public List<Passenger> unload() {
-        List<Passenger> leaving = passengers;
-        passengers = new ArrayList<>();
+        List<Passenger> leaving;
+        synchronized (passengerLock) {
+            leaving = passengers;
+            passengers = new ArrayList<>();
+        }
+        seatsTaken.addAndGet(-leaving.size());
         return leaving;
     }
 
@@ -268,15 +297,29 @@ public abstract class PublicTransport implements Writeable {
         return null;
     }
 
-    /*
+    /**
      * Returns a public transport object of the correct type (e.g. a Train
      * object if the type is "train") with the given id, capacity, and route.
      *
-     * Throws a TransportFormatException if the given type is not valid.
+     * <p>The vehicle is not added to the route.
+     *
+     * @param type The type of the vehicle, which must be that of the route.
+     * @param id The identifier of the vehicle.
+     * @param capacity The capacity of the vehicle.
+     * @param route The route the vehicle follows.
+     * @param extra The last field of the encoded vehicle: the carriage count
+     *              of a train, the registration number of a bus, or the type
+     *              of a ferry.
+     * @return The new vehicle.
+     * @throws TransportFormatException If the given type is not valid, or is
+     *          not the type of the route.
+     * @throws NumberFormatException If the vehicle is a train and the extra
+     *          field is not an integer.
+     * @require type != null &amp;&amp; route != null &amp;&amp; extra != null
      */
-    private static PublicTransport vehicleFromType(String type, int id,
-                                                   int capacity, Route route,
-                                                   String extra)
+    public static PublicTransport vehicleFromType(String type, int id,
+                                                  int capacity, Route route,
+                                                  String extra)
             throws TransportFormatException {
         if (!type.equals(route.getType())) {
             throw new TransportFormatException();
@@ -365,6 +408,43 @@ public abstract class PublicTransport implements Writeable {
         if (transportString == null || existingRoutes == null) {
             throw new TransportFormatException();
         }
+        return decode(transportString,
+                number -> routeFromNumber(number, existingRoutes));
+    }
+
+    /**
+     * Creates a new public transport object based on the given string
+     * representation, as {@link #decode(String, List)} does, finding its route
+     * by number in the given index rather than searching a list of routes.
+     *
+     * <p>The index should map the number of each existing route to the first
+     * route in the network with that number.
+     *
+     * @param transportString The string to decode.
+     * @param routeIndex The routes which currently exist in the transport
+     *                   network, by number.
+     * @return The decoded public transport object.
+     * @throws TransportFormatException If the given string or routeIndex is
+     *          null, or the string is otherwise incorrectly formatted (as for
+     *          {@link #decode(String, List)}).
+     */
+    public static PublicTransport decode(String transportString,
+            Map<Integer, Route> routeIndex) throws TransportFormatException {
+        // parameters can't be null
+        if (transportString == null || routeIndex == null) {
+            throw new TransportFormatException();
+        }
+        return decode(transportString, number -> routeIndex.get(number));
+    }
+
+    /*
+     * Decodes a public transport object, finding its route by number with the
+     * given function, which returns null if there is no route with the number.
+     *
+     * @require transportString != null
+     */
+    private static PublicTransport decode(String transportString,
+            IntFunction<Route> routeFinder) throws TransportFormatException {
 
         PublicTransport vehicle;
         try {
@@ -384,7 +464,7 @@ public abstract class PublicTransport implements Writeable {
             int capacity = Integer.parseInt(parts[2].trim());
             int routeNumber = Integer.parseInt(parts[3].trim());
             // Check if route is valid
-            Route route = routeFromNumber(routeNumber, existingRoutes);
+            Route route = routeFinder.apply(routeNumber);
             if (route == null) {
                 throw new TransportFormatException();
             }
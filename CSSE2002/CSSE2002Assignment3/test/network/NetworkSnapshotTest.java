@@ -0,0 +1,182 @@
+package network;
+
+import exceptions.TransportFormatException;
+import routes.BusRoute;
+import routes.Route;
+import routes.TrainRoute;
+import stops.RoutingTable;
+import stops.Stop;
+import vehicles.Bus;
+import vehicles.PublicTransport;
+import vehicles.Train;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NetworkSnapshotTest {
+
+    private Network network;
+    private List<Stop> stops;
+    private File file;
+
+    @org.junit.Before
+    public void setUp() throws Exception {
+        network = new Network();
+        stops = Arrays.asList(new Stop("Stop 0", 0, 0),
+                new Stop("Stop 1", 1, 2), new Stop("Stop 2", -1, 1),
+                new Stop("Stop 3", 0, 4), new Stop("Stop 4", 2, 3),
+                new Stop("Stop 5", 5, 5), new Stop("Stop 6", 9, 9));
+        network.addStops(stops);
+
+        Route blue = new BusRoute("Blue", 1);
+        for (int i : new int[] {2, 0, 1, 4, 5}) {
+            blue.addStop(stops.get(i));
+        }
+        Route red = new TrainRoute("Red", 2);
+        for (int i : new int[] {3, 1, 0}) {
+            red.addStop(stops.get(i));
+        }
+        network.addRoute(blue);
+        network.addRoute(red);
+        network.addVehicle(new Bus(7, 30, blue, "ABC123"));
+        network.addVehicle(new Train(8, 200, red, 4));
+
+        file = File.createTempFile("network", ".bin");
+    }
+
+    @org.junit.After
+    public void tearDown() {
+        file.delete();
+    }
+
+    /*
+     * Checks that the loaded network has the same stops, routes, vehicles,
+     * and routes between stops as the network saved.
+     */
+    private void assertLoaded(Network loaded) {
+        List<Stop> loadedStops = loaded.getStops();
+        assertEquals(stops, loadedStops);
+        assertEquals(network.getRoutes().toString(),
+                loaded.getRoutes().toString());
+        assertEquals(2, loaded.getVehicles().size());
+        for (int i = 0; i < network.getVehicles().size(); i++) {
+            PublicTransport vehicle = loaded.getVehicles().get(i);
+            assertEquals(network.getVehicles().get(i).encode(),
+                    vehicle.encode());
+            assertSame(loaded.getRoutes().get(i), vehicle.getRoute());
+            assertEquals(vehicle.getRoute().getTransports(),
+                    Arrays.asList(vehicle));
+        }
+        for (int i = 0; i < stops.size(); i++) {
+            RoutingTable expected = stops.get(i).getRoutingTable();
+            RoutingTable table = loadedStops.get(i).getRoutingTable();
+            assertEquals(stops.get(i).getNeighbours(),
+                    loadedStops.get(i).getNeighbours());
+            for (int j = 0; j < stops.size(); j++) {
+                assertEquals(expected.costTo(stops.get(j)),
+                        table.costTo(loadedStops.get(j)));
+                Stop next = expected.nextStop(stops.get(j));
+                assertSame(next == null ? null
+                        : loadedStops.get(stops.indexOf(next)),
+                        table.nextStop(loadedStops.get(j)));
+                // The stops saved are equal to, but distinct from, the
+                // stops loaded
+                assertEquals(expected.costTo(stops.get(j)),
+                        table.costTo(stops.get(j)));
+                assertSame(table.nextStop(loadedStops.get(j)),
+                        table.nextStop(stops.get(j)));
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void saveAndLoad() throws Exception {
+        NetworkSnapshot.save(network, file.getPath(), false);
+        assertLoaded(NetworkSnapshot.load(file.getPath()));
+    }
+
+    @org.junit.Test
+    public void saveAndLoadRouting() throws Exception {
+        NetworkSnapshot.save(network, file.getPath(), true);
+        Network loaded = NetworkSnapshot.load(file.getPath());
+        assertLoaded(loaded);
+
+        // Stop 6 is on no route
+        List<Stop> loadedStops = loaded.getStops();
+        RoutingTable table = loadedStops.get(6).getRoutingTable();
+        assertEquals(loadedStops.get(6), table.nextStop(loadedStops.get(6)));
+        assertNull(table.nextStop(loadedStops.get(0)));
+        table = loadedStops.get(2).getRoutingTable();
+        assertSame(loadedStops.get(0), table.nextStop(loadedStops.get(3)));
+    }
+
+    @org.junit.Test
+    public void saveAndLoadRoutingKeepsNextStops() throws Exception {
+        // Stops on a small grid, so that many routes have the same cost
+        Random random = new Random(4);
+        Network grid = new Network();
+        List<Stop> gridStops = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            gridStops.add(new Stop("Stop " + i, random.nextInt(8),
+                    random.nextInt(8)));
+        }
+        grid.addStops(gridStops);
+        for (int number = 1; number <= 12; number++) {
+            List<Stop> order = new ArrayList<>(gridStops);
+            Collections.shuffle(order, random);
+            Route route = new BusRoute("Route " + number, number);
+            for (Stop stop : order.subList(0, 2 + random.nextInt(8))) {
+                route.addStop(stop);
+            }
+            grid.addRoute(route);
+        }
+
+        for (boolean routing : new boolean[] {true, false}) {
+            NetworkSnapshot.save(grid, file.getPath(), routing);
+            List<Stop> loadedStops =
+                    NetworkSnapshot.load(file.getPath()).getStops();
+            for (int i = 0; i < gridStops.size(); i++) {
+                RoutingTable expected = gridStops.get(i).getRoutingTable();
+                RoutingTable table = loadedStops.get(i).getRoutingTable();
+                for (Stop destination : gridStops) {
+                    assertEquals(expected.nextStop(destination),
+                            table.nextStop(destination));
+                    assertEquals(expected.costTo(destination),
+                            table.costTo(destination));
+                }
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void loadInvalid() throws Exception {
+        NetworkSnapshot.save(network, file.getPath(), true);
+        // Truncated
+        try (RandomAccessFile snapshot = new RandomAccessFile(file, "rw")) {
+            snapshot.setLength(snapshot.length() - 4);
+        }
+        try {
+            NetworkSnapshot.load(file.getPath());
+            fail();
+        } catch (TransportFormatException expected) {
+        }
+
+        // Not a snapshot
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("1\nStop 0:0:0\n0\n0\n".getBytes());
+        }
+        try {
+            NetworkSnapshot.load(file.getPath());
+            fail();
+        } catch (TransportFormatException expected) {
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package network;
+
+import routes.BusRoute;
+import routes.Route;
+import routes.TrainRoute;
+import stops.RoutingTable;
+import stops.Stop;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NetworkTest {
+
+    private Network network;
+    private List<Stop> stops;
+
+    @org.junit.Before
+    public void setUp() throws Exception {
+        network = new Network();
+        stops = Arrays.asList(new Stop("Stop 0", 0, 0),
+                new Stop("Stop 1", 1, 2), new Stop("Stop 2", -1, 1),
+                new Stop("Stop 3", 0, 4), new Stop("Stop 4", 2, 3),
+                new Stop("Stop 5", 5, 5), new Stop("Stop 6", 9, 9));
+        network.addStops(stops);
+
+        Route blue = new BusRoute("Blue", 1);
+        for (int i : new int[] {2, 0, 1, 4, 5}) {
+            blue.addStop(stops.get(i));
+        }
+        Route red = new TrainRoute("Red", 2);
+        for (int i : new int[] {3, 1, 0}) {
+            red.addStop(stops.get(i));
+        }
+        network.addRoute(blue);
+        network.addRoute(red);
+    }
+
+    @org.junit.Test
+    public void computeRouting() {
+        // The costs as found while the routes were built
+        Map<Stop, Map<Stop, Integer>> expected = new HashMap<>();
+        for (Stop stop : stops) {
+            expected.put(stop, stop.getRoutingTable().getCosts());
+        }
+
+        network.computeRouting();
+        for (Stop stop : stops) {
+            RoutingTable table = stop.getRoutingTable();
+            assertEquals(expected.get(stop), table.getCosts());
+            for (Stop destination : stops) {
+                assertEquals((int) expected.get(stop).getOrDefault(
+                        destination, Integer.MAX_VALUE),
+                        table.costTo(destination));
+            }
+        }
+
+        // Stop 6 is on no route
+        RoutingTable table = stops.get(6).getRoutingTable();
+        assertEquals(1, table.getCosts().size());
+        assertEquals(stops.get(6), table.nextStop(stops.get(6)));
+        assertNull(table.nextStop(stops.get(0)));
+
+        // There is only one cheapest route from stop 2 to stop 3
+        table = stops.get(2).getRoutingTable();
+        assertEquals(stops.get(0), table.nextStop(stops.get(3)));
+        assertEquals(8, table.costTo(stops.get(3)));
+        assertNull(table.nextStop(null));
+    }
+
+    @org.junit.Test
+    public void changeAfterComputeRouting() {
+        network.computeRouting();
+        RoutingTable table = stops.get(2).getRoutingTable();
+        assertFalse(table.addOrUpdateEntry(stops.get(3), 8, stops.get(1)));
+        assertTrue(table.addOrUpdateEntry(stops.get(3), 7, stops.get(1)));
+        assertEquals(7, table.costTo(stops.get(3)));
+        assertEquals(stops.get(1), table.nextStop(stops.get(3)));
+        assertEquals(2, table.costTo(stops.get(0)));
+
+        // A new route is propagated to the installed tables
+        Route green = new BusRoute("Green", 3);
+        green.addStop(stops.get(5));
+        green.addStop(stops.get(6));
+        assertEquals(18, stops.get(0).getRoutingTable().costTo(stops.get(6)));
+        assertEquals(stops.get(1),
+                stops.get(0).getRoutingTable().nextStop(stops.get(6)));
+        assertEquals(7, stops.get(6).getRoutingTable().getCosts().size());
+    }
+
+    @org.junit.Test
+    public void equalStopsAfterComputeRouting() {
+        network.computeRouting();
+        // Stops equal to, but distinct from, the stops of the network
+        List<Stop> copies = new ArrayList<>();
+        for (Stop stop : stops) {
+            Stop copy = new Stop(stop.getName(), stop.getX(), stop.getY());
+            for (Route route : stop.getRoutes()) {
+                copy.addRoute(route);
+            }
+            copies.add(copy);
+        }
+
+        for (boolean installed : new boolean[] {true, false}) {
+            for (Stop stop : stops) {
+                RoutingTable table = stop.getRoutingTable();
+                if (!installed) {
+                    // Copies the installed routes into entries, unchanged
+                    assertFalse(table.addOrUpdateEntry(stop, 0, stop));
+                }
+                for (int i = 0; i < stops.size(); i++) {
+                    assertEquals(table.costTo(stops.get(i)),
+                            table.costTo(copies.get(i)));
+                    assertSame(table.nextStop(stops.get(i)),
+                            table.nextStop(copies.get(i)));
+                }
+            }
+        }
+        RoutingTable table = stops.get(2).getRoutingTable();
+        assertEquals(8, table.costTo(copies.get(3)));
+        assertSame(stops.get(0), table.nextStop(copies.get(3)));
+    }
+
+    @org.junit.Test
+    public void loadRoutesAsRoutesAreBuilt() throws Exception {
+        // Stops on a small grid, so that many routes have the same cost
+        Random random = new Random(4);
+        Network built = new Network();
+        List<Stop> builtStops = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            builtStops.add(new Stop("Stop " + i, random.nextInt(8),
+                    random.nextInt(8)));
+        }
+        built.addStops(builtStops);
+        for (int number = 1; number <= 12; number++) {
+            List<Stop> order = new ArrayList<>(builtStops);
+            Collections.shuffle(order, random);
+            // The routing tables are updated as each stop is added
+            Route route = new BusRoute("Route " + number, number);
+            for (Stop stop : order.subList(0, 2 + random.nextInt(8))) {
+                route.addStop(stop);
+            }
+            built.addRoute(route);
+        }
+
+        File file = File.createTempFile("network", ".txt");
+        try {
+            built.save(file.getPath());
+            Network loaded = new Network(file.getPath());
+            Network computed = new Network(file.getPath(), true);
+            List<Stop> loadedStops = loaded.getStops();
+            List<Stop> computedStops = computed.getStops();
+            for (int i = 0; i < builtStops.size(); i++) {
+                RoutingTable expected = builtStops.get(i).getRoutingTable();
+                RoutingTable table = loadedStops.get(i).getRoutingTable();
+                RoutingTable computedTable =
+                        computedStops.get(i).getRoutingTable();
+                for (int j = 0; j < builtStops.size(); j++) {
+                    Stop destination = builtStops.get(j);
+                    // The loaded stops are equal to the stops built
+                    assertEquals(expected.nextStop(destination),
+                            table.nextStop(destination));
+                    Stop next = expected.nextStop(destination);
+                    assertSame(next == null ? null
+                            : loadedStops.get(builtStops.indexOf(next)),
+                            table.nextStop(loadedStops.get(j)));
+                    assertEquals(expected.costTo(destination),
+                            table.costTo(destination));
+                    // Routing at once finds routes of the same cost
+                    assertEquals(expected.costTo(destination),
+                            computedTable.costTo(destination));
+                }
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @org.junit.Test
+    public void load() throws Exception {
+        File file = File.createTempFile("network", ".txt");
+        try {
+            network.save(file.getPath());
+            Network loaded = new Network(file.getPath());
+            List<Stop> loadedStops = loaded.getStops();
+            assertEquals(stops, loadedStops);
+            assertEquals(2, loaded.getRoutes().size());
+            for (int i = 0; i < stops.size(); i++) {
+                RoutingTable expected = stops.get(i).getRoutingTable();
+                RoutingTable table = loadedStops.get(i).getRoutingTable();
+                for (int j = 0; j < stops.size(); j++) {
+                    assertEquals(expected.costTo(stops.get(j)),
+                            table.costTo(loadedStops.get(j)));
+                }
+            }
+            // The stops of the routes are the stops of the network
+            assertSame(loadedStops.get(2),
+                    loaded.getRoutes().get(0).getStopsOnRoute().get(0));
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package network;
+
+import routes.BusRoute;
+import routes.Route;
+import stops.Stop;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class StopGraphTest {
+
+    private Network network;
+    private Stop stop1;
+    private Stop stop2;
+    private Stop stop3;
+    private Stop stop4;
+    private Stop stop5;
+
+    @org.junit.Before
+    public void setUp() throws Exception {
+        network = new Network();
+        stop1 = new Stop("Stop 1", 0, 0);
+        stop2 = new Stop("Stop 2", 1, 2);
+        stop3 = new Stop("Stop 3", -1, 1);
+        stop4 = new Stop("Stop 4", 0, 4);
+        stop5 = new Stop("Stop 5", 2, 3);
+        network.addStops(Arrays.asList(stop1, stop2, stop3, stop4));
+
+        Route route = new BusRoute("Blue", 1);
+        route.addStop(stop3);
+        route.addStop(stop1);
+        route.addStop(stop2);
+        route.addStop(stop5);
+    }
+
+    @org.junit.Test
+    public void ids() {
+        StopGraph graph = network.getGraph();
+        // Stops in the network first, then neighbours outside it
+        assertEquals(5, graph.size());
+        assertEquals(0, graph.getId(stop1));
+        assertEquals(3, graph.getId(stop4));
+        assertEquals(4, graph.getId(stop5));
+        assertSame(stop5, graph.getStop(4));
+        assertEquals(-1, graph.getId(new Stop("Stop 6", 0, 0)));
+
+        // Equal stops are found by findId
+        Stop copy = new Stop("Stop 4", 0, 4);
+        assertEquals(-1, graph.getId(copy));
+        assertEquals(3, graph.findId(copy));
+        assertEquals(-1, graph.nextEqualId(3));
+        assertEquals(-1, graph.findId(new Stop("Stop 6", 0, 0)));
+    }
+
+    @org.junit.Test
+    public void edges() {
+        StopGraph graph = network.getGraph();
+        assertEquals(6, graph.edgeCount());
+        int id = graph.getId(stop1);
+        assertEquals(2, graph.firstEdge(id + 1) - graph.firstEdge(id));
+        int edge = graph.firstEdge(id);
+        assertEquals(graph.getId(stop3), graph.getTarget(edge));
+        assertEquals(2, graph.getWeight(edge));
+        assertEquals(graph.getId(stop2), graph.getTarget(edge + 1));
+        assertEquals(3, graph.getWeight(edge + 1));
+        // Stop 4 is on no route
+        id = graph.getId(stop4);
+        assertEquals(graph.firstEdge(id), graph.firstEdge(id + 1));
+    }
+
+    @org.junit.Test
+    public void traverse() {
+        StopGraph graph = network.getGraph();
+        int[] reached = graph.traverse(graph.getId(stop2));
+        assertEquals(4, reached.length);
+        assertEquals(graph.getId(stop2), reached[0]);
+        assertEquals(1, graph.traverse(graph.getId(stop4)).length);
+    }
+
+    @org.junit.Test
+    public void shortestPaths() {
+        StopGraph graph = network.getGraph();
+        int[] costs = new int[graph.size()];
+        int[] next = new int[graph.size()];
+        for (int source = 0; source < graph.size(); source++) {
+            graph.shortestPaths(source, costs, next);
+            Stop stop = graph.getStop(source);
+            for (int target = 0; target < graph.size(); target++) {
+                Stop destination = graph.getStop(target);
+                assertEquals(stop.getRoutingTable().costTo(destination),
+                        costs[target]);
+                if (costs[target] == Integer.MAX_VALUE) {
+                    assertEquals(-1, next[target]);
+                } else {
+                    assertEquals(stop.getRoutingTable().nextStop(destination),
+                            graph.getStop(next[target]));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package planning;
+
+import network.Network;
+import routes.BusRoute;
+import routes.Route;
+import stops.Stop;
+import vehicles.Bus;
+import vehicles.PublicTransport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class JourneyPlannerTest {
+
+    private Network network;
+    private List<Stop> stops;
+    private PublicTransport blue;
+    private List<PublicTransport> red;
+
+    @org.junit.Before
+    public void setUp() throws Exception {
+        network = new Network();
+        stops = Arrays.asList(new Stop("P", 0, 0), new Stop("Q", 10, 0),
+                new Stop("R", 10, 10), new Stop("T", 0, 10));
+        network.addStops(stops);
+
+        Route blueRoute = new BusRoute("Blue", 1);
+        for (Stop stop : stops) {
+            blueRoute.addStop(stop);
+        }
+        network.addRoute(blueRoute);
+        blue = new Bus(1, 10, blueRoute, "B1");
+        blueRoute.addTransport(blue);
+        network.addVehicle(blue);
+
+        // A shortcut from Q to T, with buses leaving Q at 1, 6 and 11
+        Route redRoute = new BusRoute("Red", 2);
+        redRoute.addStop(stops.get(1));
+        redRoute.addStop(stops.get(3));
+        network.addRoute(redRoute);
+        red = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            PublicTransport bus = new Bus(2 + i, 10, redRoute, "R" + i);
+            redRoute.addTransport(bus);
+            network.addVehicle(bus);
+            red.add(bus);
+        }
+        network.computeRouting();
+    }
+
+    @org.junit.Test
+    public void timetable() {
+        JourneyPlanner planner = new JourneyPlanner(network, 100);
+        assertEquals(100, planner.getHorizon());
+        assertEquals(4, planner.getPatternCount());
+        // Blue takes 33 each way, and Red 21
+        assertEquals(4 + 5 + 5 + 5, planner.getTripCount());
+    }
+
+    @org.junit.Test
+    public void directJourney() {
+        JourneyPlanner planner = new JourneyPlanner(network, 100);
+        Journey journey = planner.earliestArrival(stops.get(0), stops.get(1),
+                0);
+        assertEquals(1, journey.getLegs().size());
+        Journey.Leg leg = journey.getLegs().get(0);
+        assertSame(blue, leg.getVehicle());
+        assertEquals(stops.get(0), leg.getFrom());
+        assertEquals(stops.get(1), leg.getTo());
+        assertEquals(1, leg.getDepartureTime());
+        assertEquals(11, leg.getArrivalTime());
+        assertEquals(0, journey.getTransfers());
+        assertEquals(stops.get(1), journey.getDestination());
+    }
+
+    @org.junit.Test
+    public void transferArrivesEarlier() {
+        JourneyPlanner planner = new JourneyPlanner(network, 100);
+        List<Journey> journeys = planner.plan(stops.get(0), stops.get(3), 0);
+        assertEquals(2, journeys.size());
+
+        // Staying on Blue arrives at 11 + 11 + 11
+        Journey direct = journeys.get(0);
+        assertEquals(33, direct.getArrivalTime());
+        assertEquals(0, direct.getTransfers());
+
+        // Changing at Q to the last Red bus, which leaves as Blue arrives
+        Journey transfer = journeys.get(1);
+        assertEquals(31, transfer.getArrivalTime());
+        assertEquals(1, transfer.getTransfers());
+        Journey.Leg leg = transfer.getLegs().get(1);
+        assertSame(red.get(2), leg.getVehicle());
+        assertEquals(stops.get(1), leg.getFrom());
+        assertEquals(11, leg.getDepartureTime());
+
+        assertEquals(31, planner.earliestArrival(stops.get(0), stops.get(3), 0)
+                .getArrivalTime());
+        assertEquals(33, planner.fewestTransfers(stops.get(0), stops.get(3), 0)
+                .getArrivalTime());
+        assertEquals(1, planner.plan(stops.get(0), stops.get(3), 0, 1).size());
+    }
+
+    @org.junit.Test
+    public void unreachable() throws Exception {
+        Stop lonely = new Stop("Lonely", 50, 50);
+        network.addStop(lonely);
+        JourneyPlanner planner = new JourneyPlanner(network, 100);
+        assertTrue(planner.plan(stops.get(0), lonely, 0).isEmpty());
+        assertNull(planner.earliestArrival(stops.get(0), lonely, 0));
+        assertTrue(planner.plan(stops.get(0), new Stop("X", 1, 1), 0)
+                .isEmpty());
+        // Nothing leaves after the horizon
+        assertTrue(planner.plan(stops.get(0), stops.get(1), 200).isEmpty());
+
+        Journey stay = planner.earliestArrival(lonely, lonely, 7);
+        assertTrue(stay.getLegs().isEmpty());
+        assertEquals(7, stay.getArrivalTime());
+    }
+
+    @org.junit.Test
+    public void agreesWithConnectionScan() throws Exception {
+        Random random = new Random(3);
+        network = new Network();
+        stops = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            stops.add(new Stop("Stop " + i, random.nextInt(20),
+                    random.nextInt(20)));
+        }
+        network.addStops(stops);
+        for (int i = 0; i < 12; i++) {
+            Route route = new BusRoute("Route " + i, i);
+            for (int j = 0; j < 6; j++) {
+                route.addStop(stops.get(random.nextInt(stops.size())), false);
+            }
+            network.addRoute(route);
+            for (int j = 0; j < 3; j++) {
+                Bus bus = new Bus(i * 3 + j, 10, route, "R" + i + "V" + j);
+                route.addTransport(bus);
+                network.addVehicle(bus);
+            }
+        }
+        network.computeRouting();
+
+        int horizon = 300;
+        JourneyPlanner planner = new JourneyPlanner(network, horizon);
+        List<int[]> connections = connections(2 * horizon);
+        Map<PublicTransport, List<int[]>> byVehicle = new HashMap<>();
+        for (int[] connection : connections) {
+            byVehicle.computeIfAbsent(network.getVehicles().get(connection[4]),
+                    v -> new ArrayList<>()).add(connection);
+        }
+
+        int compared = 0;
+        for (int query = 0; query < 300; query++) {
+            int origin = random.nextInt(stops.size());
+            int destination = random.nextInt(stops.size());
+            int time = random.nextInt(horizon / 2);
+            int expected = earliestArrival(connections, origin, destination,
+                    time);
+            List<Journey> journeys = planner.plan(stops.get(origin),
+                    stops.get(destination), time, stops.size());
+            if (expected > horizon) {
+                // may need trips beyond the horizon
+                continue;
+            }
+            compared++;
+            assertFalse(journeys.isEmpty());
+            assertEquals(expected,
+                    journeys.get(journeys.size() - 1).getArrivalTime());
+            for (int j = 0; j < journeys.size(); j++) {
+                Journey journey = journeys.get(j);
+                if (j > 0) {
+                    assertTrue(journey.getTransfers()
+                            > journeys.get(j - 1).getTransfers());
+                    assertTrue(journey.getArrivalTime()
+                            < journeys.get(j - 1).getArrivalTime());
+                }
+                checkLegs(journey, time, byVehicle);
+            }
+        }
+        assertTrue(compared > 100);
+    }
+
+    /*
+     * Lists the journeys of the vehicles between stops, as the ids of the
+     * stops, the departure and arrival times and the index of the vehicle,
+     * starting up to the given time.
+     */
+    private List<int[]> connections(int until) {
+        List<int[]> connections = new ArrayList<>();
+        Map<Route, Integer> started = new HashMap<>();
+        List<PublicTransport> vehicles = network.getVehicles();
+        for (int v = 0; v < vehicles.size(); v++) {
+            Route route = vehicles.get(v).getRoute();
+            List<Stop> routeStops = route.getStopsOnRoute();
+            int order = started.getOrDefault(route, 0);
+            started.put(route, order + 1);
+            int position = 0;
+            int direction = 1;
+            int time = order * 5;
+            while (time <= until) {
+                if (position + direction < 0
+                        || position + direction >= routeStops.size()) {
+                    direction = -direction;
+                }
+                Stop from = routeStops.get(position);
+                Stop to = routeStops.get(position + direction);
+                int arrival = time + 1 + Math.max(1, from.distanceTo(to));
+                connections.add(new int[] {stops.indexOf(from),
+                        stops.indexOf(to), time + 1, arrival, v});
+                position += direction;
+                time = arrival;
+            }
+        }
+        connections.sort((a, b) -> Integer.compare(a[2], b[2]));
+        return connections;
+    }
+
+    /*
+     * Finds the earliest arrival at a stop by scanning the connections in
+     * order of departure.
+     */
+    private int earliestArrival(List<int[]> connections, int origin,
+            int destination, int time) {
+        int[] earliest = new int[stops.size()];
+        Arrays.fill(earliest, Integer.MAX_VALUE);
+        earliest[origin] = time;
+        for (int[] connection : connections) {
+            if (earliest[connection[0]] <= connection[2]) {
+                earliest[connection[1]] = Math.min(earliest[connection[1]],
+                        connection[3]);
+            }
+        }
+        return earliest[destination];
+    }
+
+    /*
+     * Checks that each leg of a journey follows on from the last, on a
+     * vehicle which leaves and reaches its stops at the given times.
+     */
+    private void checkLegs(Journey journey, int time,
+            Map<PublicTransport, List<int[]>> byVehicle) {
+        Stop at = journey.getOrigin();
+        for (Journey.Leg leg : journey.getLegs()) {
+            assertSame(at, leg.getFrom());
+            assertTrue(leg.getDepartureTime() >= time);
+            assertTrue(leg.getArrivalTime() > leg.getDepartureTime());
+            boolean departs = false;
+            boolean arrives = false;
+            for (int[] connection : byVehicle.get(leg.getVehicle())) {
+                departs |= connection[2] == leg.getDepartureTime()
+                        && stops.get(connection[0]) == leg.getFrom();
+                arrives |= connection[3] == leg.getArrivalTime()
+                        && stops.get(connection[1]) == leg.getTo();
+            }
+            assertTrue(departs);
+            assertTrue(arrives);
+            at = leg.getTo();
+            time = leg.getArrivalTime();
+        }
+    }
+}
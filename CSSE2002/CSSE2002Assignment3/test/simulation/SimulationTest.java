@@ -0,0 +1,146 @@
+package simulation;
+
+import network.Network;
+import passengers.Passenger;
+import routes.BusRoute;
+import routes.Route;
+import stops.Stop;
+import vehicles.Bus;
+import vehicles.PublicTransport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SimulationTest {
+
+    private Network network;
+    private List<Stop> stops;
+    private PublicTransport bus;
+
+    @org.junit.Before
+    public void setUp() throws Exception {
+        network = new Network();
+        stops = Arrays.asList(new Stop("Stop 0", 0, 0),
+                new Stop("Stop 1", 3, 0), new Stop("Stop 2", 3, 4),
+                new Stop("Stop 3", 10, 4), new Stop("Stop 4", 10, 10));
+        network.addStops(stops);
+
+        Route route = new BusRoute("Blue", 1);
+        for (Stop stop : stops) {
+            route.addStop(stop);
+        }
+        network.addRoute(route);
+        bus = new Bus(1, 2, route, "ABC123");
+        route.addTransport(bus);
+        network.addVehicle(bus);
+        network.computeRouting();
+    }
+
+    @org.junit.Test
+    public void vehicleTravels() {
+        Simulation simulation = new Simulation(network);
+        // Arrives at stop 0 at 0, departs at 1, arrives at stop 1 at 4
+        assertEquals(2, simulation.run(4));
+        assertEquals(stops.get(1), bus.getCurrentStop());
+        assertFalse(stops.get(0).isAtStop(bus));
+        assertEquals(4, simulation.getTime());
+        simulation.run(5);
+        assertTrue(stops.get(1).isAtStop(bus));
+
+        // Stop 4 is reached at 4 + 1 + 4 + 1 + 7 + 1 + 6 = 24, and the bus
+        // then turns back
+        simulation.run(25);
+        assertEquals(stops.get(4), bus.getCurrentStop());
+        simulation.run(26);
+        assertEquals(stops.get(3), bus.getCurrentStop());
+    }
+
+    @org.junit.Test
+    public void passengersDelivered() {
+        Simulation simulation = new Simulation(network);
+        simulation.addPassenger(new Passenger("A", stops.get(3)),
+                stops.get(0), 0);
+        simulation.addPassenger(new Passenger("B", stops.get(1)),
+                stops.get(0), 0);
+        // Overflows the bus, so waits for its return
+        simulation.addPassenger(new Passenger("C", stops.get(1)),
+                stops.get(0), 0);
+        // Already at their destination
+        simulation.addPassenger(new Passenger("D", stops.get(2)),
+                stops.get(2), 0);
+        simulation.run(2);
+        assertEquals(1, simulation.getDeliveredCount());
+        assertEquals(2, bus.passengerCount());
+        assertEquals(1, stops.get(0).getWaitingPassengers().size());
+
+        simulation.run(20);
+        assertEquals(3, simulation.getDeliveredCount());
+        assertEquals(0, bus.passengerCount());
+        simulation.run(100);
+        assertEquals(4, simulation.getDeliveredCount());
+        assertTrue(simulation.getEventsPerSecond() > 0);
+    }
+
+    @org.junit.Test
+    public void passengerInPast() {
+        Simulation simulation = new Simulation(network);
+        simulation.run(10);
+        try {
+            simulation.addPassenger(new Passenger("A", stops.get(3)),
+                    stops.get(0), 9);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @org.junit.Test
+    public void regionsAgree() throws Exception {
+        List<Simulation> simulations = new ArrayList<>();
+        List<List<Stop>> locations = new ArrayList<>();
+        for (int regions : new int[] {1, 2, 5, 10}) {
+            setUp();
+            // A second route crossing the first
+            Route route = new BusRoute("Red", 2);
+            for (int i : new int[] {4, 1, 3, 0}) {
+                route.addStop(stops.get(i));
+            }
+            network.addRoute(route);
+            for (int i = 0; i < 3; i++) {
+                PublicTransport vehicle = new Bus(2 + i, 1, route, "R" + i);
+                route.addTransport(vehicle);
+                network.addVehicle(vehicle);
+            }
+            network.computeRouting();
+
+            Simulation simulation = new Simulation(network, regions);
+            assertEquals(Math.min(regions, stops.size()),
+                    simulation.getRegionCount());
+            for (int i = 0; i < 40; i++) {
+                simulation.addPassenger(new Passenger("P" + i,
+                        stops.get(i * 7 % stops.size())),
+                        stops.get(i % stops.size()), i);
+            }
+            simulation.run(50);
+            simulation.run(200);
+            simulations.add(simulation);
+            List<Stop> locationList = new ArrayList<>();
+            for (PublicTransport vehicle : network.getVehicles()) {
+                locationList.add(vehicle.getCurrentStop());
+            }
+            locations.add(locationList);
+        }
+
+        assertEquals(Long.MAX_VALUE, simulations.get(0).getLookahead());
+        assertEquals(3, simulations.get(3).getLookahead());
+        for (int i = 1; i < simulations.size(); i++) {
+            assertEquals(simulations.get(0).getEventCount(),
+                    simulations.get(i).getEventCount());
+            assertEquals(simulations.get(0).getDeliveredCount(),
+                    simulations.get(i).getDeliveredCount());
+            assertEquals(locations.get(0), locations.get(i));
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package stops;
+
+import exceptions.OverCapacityException;
+import network.Network;
+import passengers.Passenger;
+import routes.BusRoute;
+import routes.Route;
+import vehicles.Bus;
+import vehicles.PublicTransport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentStopTest {
+
+    private static final int THREADS = 8;
+    private static final int VEHICLES_PER_THREAD = 4;
+    private static final int CAPACITY = 3;
+    private static final int ROUNDS = 2000;
+
+    private Network network;
+    private List<Stop> stops;
+    private Route route;
+    private ExecutorService executor;
+
+    @org.junit.Before
+    public void setUp() throws Exception {
+        network = new Network();
+        stops = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            stops.add(new Stop("Stop " + i, i, i % 2));
+        }
+        network.addStops(stops);
+        route = new BusRoute("Blue", 1);
+        for (Stop stop : stops) {
+            route.addStop(stop, false);
+        }
+        network.addRoute(route);
+        network.computeRouting();
+        executor = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @org.junit.After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /*
+     * Runs the given tasks at once, and waits for them all to complete,
+     * rethrowing any failure.
+     */
+    private <T> List<T> runAll(List<Callable<T>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+
+    @org.junit.Test
+    public void boardConcurrently() throws Exception {
+        PublicTransport bus = new Bus(1, 50, route, "ABC123");
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                int boarded = 0;
+                for (int i = 0; i < 20; i++) {
+                    try {
+                        bus.addPassenger(new Passenger("P"));
+                        boarded++;
+                    } catch (OverCapacityException e) {
+                        // full
+                    }
+                }
+                return boarded;
+            });
+        }
+        int boarded = 0;
+        for (int count : runAll(tasks)) {
+            boarded += count;
+        }
+        assertEquals(50, boarded);
+        assertEquals(50, bus.passengerCount());
+        assertEquals(50, bus.getPassengers().size());
+    }
+
+    @org.junit.Test
+    public void arriveConcurrently() throws Exception {
+        PublicTransport bus = new Bus(1, 50, route, "ABC123");
+        for (int i = 0; i < 50; i++) {
+            bus.addPassenger(new Passenger("P" + i, stops.get(5)));
+        }
+        Stop stop = stops.get(2);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                stop.transportArrive(bus);
+                return null;
+            });
+        }
+        runAll(tasks);
+        // Unloaded exactly once
+        assertEquals(50, stop.getWaitingPassengers().size());
+        assertEquals(0, bus.passengerCount());
+        assertTrue(stop.isAtStop(bus));
+    }
+
+    @org.junit.Test
+    public void arriveAndDepartConcurrently() throws Exception {
+        Stop stop = stops.get(2);
+        Stop next = stops.get(3);
+        for (int round = 0; round < 500; round++) {
+            PublicTransport bus = new Bus(round, 50, route, "B" + round);
+            for (int i = 0; i < 50; i++) {
+                bus.addPassenger(new Passenger("P" + i, stops.get(5)));
+            }
+            List<Callable<Void>> tasks = new ArrayList<>();
+            tasks.add(() -> {
+                stop.transportArrive(bus);
+                return null;
+            });
+            tasks.add(() -> {
+                // Departs as soon as the vehicle is at the stop
+                while (bus.getCurrentStop() != next) {
+                    stop.transportDepart(bus, next);
+                }
+                return null;
+            });
+            runAll(tasks);
+            // The passengers unloaded have all boarded again
+            assertEquals(50, bus.passengerCount());
+            assertTrue(stop.getWaitingPassengers().isEmpty());
+            assertFalse(stop.isAtStop(bus));
+        }
+    }
+
+    @org.junit.Test
+    public void stress() throws Exception {
+        List<PublicTransport> vehicles = new ArrayList<>();
+        for (int i = 0; i < THREADS * VEHICLES_PER_THREAD; i++) {
+            PublicTransport bus = new Bus(i, CAPACITY, route, "B" + i);
+            route.addTransport(bus);
+            vehicles.add(bus);
+        }
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger delivered = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+
+        List<Callable<Void>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<PublicTransport> own = vehicles.subList(
+                    t * VEHICLES_PER_THREAD, (t + 1) * VEHICLES_PER_THREAD);
+            long seed = t;
+            workers.add(() -> {
+                Random random = new Random(seed);
+                int[] positions = new int[own.size()];
+                int[] directions = new int[own.size()];
+                Arrays.fill(directions, 1);
+                for (int round = 0; round < ROUNDS; round++) {
+                    Stop start = stops.get(random.nextInt(stops.size()));
+                    Stop destination = stops.get(random.nextInt(stops.size()));
+                    start.addPassenger(new Passenger("P", destination));
+                    created.incrementAndGet();
+
+                    for (int v = 0; v < own.size(); v++) {
+                        PublicTransport vehicle = own.get(v);
+                        Stop stop = stops.get(positions[v]);
+                        for (Passenger passenger : vehicle.getPassengers()) {
+                            if (stop.equals(passenger.getDestination())
+                                    && vehicle.removePassenger(passenger)) {
+                                delivered.incrementAndGet();
+                            }
+                        }
+                        stop.transportArrive(vehicle);
+                        if (positions[v] + directions[v] < 0
+                                || positions[v] + directions[v]
+                                >= stops.size()) {
+                            directions[v] = -directions[v];
+                        }
+                        positions[v] += directions[v];
+                        stop.transportDepart(vehicle, stops.get(positions[v]));
+                        assertTrue(vehicle.passengerCount() <= CAPACITY);
+                        assertSame(stops.get(positions[v]),
+                                vehicle.getCurrentStop());
+                    }
+                }
+                return null;
+            });
+        }
+
+        // Routes are recomputed and changed while they are read
+        Future<Void> routing = executor.submit(() -> {
+            int changes = 0;
+            while (running.get() || changes < 10) {
+                if (changes % 2 == 0) {
+                    network.computeRouting();
+                } else {
+                    stops.get(0).getRoutingTable().synchronise();
+                }
+                changes++;
+                checkRouting();
+            }
+            return null;
+        });
+        try {
+            runAll(workers);
+        } finally {
+            running.set(false);
+        }
+        routing.get(60, TimeUnit.SECONDS);
+
+        // Every passenger is in exactly one place
+        Map<Passenger, Boolean> seen = new IdentityHashMap<>();
+        int placed = 0;
+        for (Stop stop : stops) {
+            for (Passenger passenger : stop.getWaitingPassengers()) {
+                assertNull(seen.put(passenger, true));
+                placed++;
+            }
+        }
+        for (PublicTransport vehicle : vehicles) {
+            assertTrue(vehicle.passengerCount() <= CAPACITY);
+            assertEquals(vehicle.passengerCount(),
+                    vehicle.getPassengers().size());
+            for (Passenger passenger : vehicle.getPassengers()) {
+                assertNull(seen.put(passenger, true));
+                placed++;
+            }
+        }
+        assertEquals(THREADS * ROUNDS, created.get());
+        assertEquals(created.get(), placed + delivered.get());
+        assertTrue(delivered.get() > 0);
+        checkRouting();
+    }
+
+    /*
+     * Checks that the routes between the stops are those along the route,
+     * each step of which costs 2.
+     */
+    private void checkRouting() {
+        for (int i = 0; i < stops.size(); i++) {
+            RoutingTable table = stops.get(i).getRoutingTable();
+            for (int j = 0; j < stops.size(); j++) {
+                int step = Integer.compare(j, i);
+                assertEquals(stops.get(i + step),
+                        table.nextStop(stops.get(j)));
+                assertEquals(2 * Math.abs(i - j),
+                        table.costTo(stops.get(j)));
+            }
+        }
+    }
+}
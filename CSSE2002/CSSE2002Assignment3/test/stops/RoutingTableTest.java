@@ -2,6 +2,14 @@ package stops;
 
 import network.Network;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class RoutingTableTest {
@@ -224,4 +232,164 @@ public class RoutingTableTest {
         assertEquals(stop2, stop4.getRoutingTable().nextStop(stop3));
         assertTrue(stop3.getRoutingTable().getCosts().containsKey(stop4));
     }
-}
\ No newline at end of file
+
+    @org.junit.Test
+    public void synchroniseShortestPaths() {
+        // Stops on a grid, joined by routes in both directions
+        Stop[] stops = new Stop[16];
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = new Stop("Grid " + i, (i % 4) * 2, (i / 4) * 3);
+        }
+        int[][] routes = {{0, 1, 2, 3, 7, 11}, {12, 8, 4, 0}, {5, 6, 10, 9, 5},
+                {15, 14, 13, 9}, {3, 6, 9}, {1, 5}};
+        for (int[] route : routes) {
+            for (int i = 1; i < route.length; i++) {
+                stops[route[i - 1]].addNeighbouringStop(stops[route[i]]);
+                stops[route[i]].addNeighbouringStop(stops[route[i - 1]]);
+            }
+        }
+
+        // Shortest path costs by Floyd-Warshall
+        int[][] costs = new int[stops.length][stops.length];
+        for (int i = 0; i < stops.length; i++) {
+            for (int j = 0; j < stops.length; j++) {
+                costs[i][j] = i == j ? 0 : Integer.MAX_VALUE;
+            }
+            for (Stop neighbour : stops[i].getNeighbours()) {
+                costs[i][Integer.parseInt(neighbour.getName().substring(5))] =
+                        stops[i].distanceTo(neighbour);
+            }
+        }
+        for (int k = 0; k < stops.length; k++) {
+            for (int i = 0; i < stops.length; i++) {
+                for (int j = 0; j < stops.length; j++) {
+                    if (costs[i][k] != Integer.MAX_VALUE
+                            && costs[k][j] != Integer.MAX_VALUE) {
+                        costs[i][j] = Math.min(costs[i][j],
+                                costs[i][k] + costs[k][j]);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < stops.length; i++) {
+            RoutingTable table = stops[i].getRoutingTable();
+            for (int j = 0; j < stops.length; j++) {
+                assertEquals(costs[i][j], table.costTo(stops[j]));
+                if (i != j && costs[i][j] != Integer.MAX_VALUE) {
+                    // The next stop is the first on a shortest path
+                    Stop next = table.nextStop(stops[j]);
+                    assertTrue(stops[i].getNeighbours().contains(next));
+                    assertEquals(costs[i][j], stops[i].distanceTo(next)
+                            + next.getRoutingTable().costTo(stops[j]));
+                }
+            }
+        }
+    }
+
+    @org.junit.Test
+    public void synchroniseBreaksTiesAsBefore() {
+        // Stops on a small grid, so that many routes have the same cost,
+        // joined by routes in both directions
+        Random random = new Random(1);
+        Stop[] stops = new Stop[30];
+        for (int i = 0; i < stops.length; i++) {
+            stops[i] = new Stop("Stop " + i, random.nextInt(6),
+                    random.nextInt(6));
+        }
+        List<int[]> links = new ArrayList<>();
+        for (int route = 0; route < 8; route++) {
+            int previous = random.nextInt(stops.length);
+            for (int i = 0; i < 5; i++) {
+                int next = random.nextInt(stops.length);
+                if (next != previous) {
+                    links.add(new int[] {previous, next});
+                    previous = next;
+                }
+            }
+        }
+
+        // The routes found by transferring every entry of every stop until
+        // nothing changes, as synchronise() originally did
+        List<List<Integer>> neighbours = new ArrayList<>();
+        List<Map<Integer, int[]>> tables = new ArrayList<>();
+        for (int i = 0; i < stops.length; i++) {
+            neighbours.add(new ArrayList<>());
+            Map<Integer, int[]> table = new LinkedHashMap<>();
+            table.put(i, new int[] {0, i});
+            tables.add(table);
+        }
+        for (int[] link : links) {
+            for (int end = 0; end < 2; end++) {
+                int from = link[end];
+                int to = link[1 - end];
+                stops[from].addNeighbouringStop(stops[to]);
+                if (neighbours.get(from).contains(to)) {
+                    continue;
+                }
+                neighbours.get(from).add(to);
+                int distance = stops[from].distanceTo(stops[to]);
+                int[] entry = tables.get(from).get(to);
+                if (entry == null || distance < entry[0]) {
+                    tables.get(from).put(to, new int[] {distance, to});
+                }
+                synchronise(from, neighbours, tables);
+            }
+        }
+
+        for (int i = 0; i < stops.length; i++) {
+            RoutingTable table = stops[i].getRoutingTable();
+            for (Map.Entry<Integer, int[]> entry
+                    : tables.get(i).entrySet()) {
+                Stop destination = stops[entry.getKey()];
+                assertEquals(entry.getValue()[0], table.costTo(destination));
+                assertSame(stops[entry.getValue()[1]],
+                        table.nextStop(destination));
+            }
+            assertEquals(tables.get(i).size(), table.getCosts().size());
+        }
+    }
+
+    /*
+     * Synchronises the tables of stops given by index as synchronise()
+     * originally did, where each table maps a destination to its cost and
+     * next stop.
+     */
+    private void synchronise(int start, List<List<Integer>> neighbours,
+            List<Map<Integer, int[]>> tables) {
+        // The stops reachable from the start, as traverseNetwork() finds them
+        List<Integer> stopList = new ArrayList<>();
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            if (!stopList.contains(current)) {
+                for (int neighbour : neighbours.get(current)) {
+                    if (!stopList.contains(neighbour)) {
+                        stack.push(neighbour);
+                    }
+                }
+                stopList.add(current);
+            }
+        }
+        boolean wasUpdated;
+        do {
+            wasUpdated = false;
+            for (int stop : stopList) {
+                Map<Integer, int[]> table = tables.get(stop);
+                for (int neighbour : neighbours.get(stop)) {
+                    Map<Integer, int[]> other = tables.get(neighbour);
+                    int distance = table.get(neighbour)[0];
+                    for (Map.Entry<Integer, int[]> entry : table.entrySet()) {
+                        int cost = entry.getValue()[0] + distance;
+                        int[] current = other.get(entry.getKey());
+                        if (current == null || cost < current[0]) {
+                            other.put(entry.getKey(), new int[] {cost, stop});
+                            wasUpdated = true;
+                        }
+                    }
+                }
+            }
+        } while (wasUpdated);
+    }
+}
@@ -0,0 +1,88 @@
+package stops;
+
+import passengers.Passenger;
+import routes.BusRoute;
+import routes.Route;
+import vehicles.Bus;
+import vehicles.PublicTransport;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class StopTest {
+
+    private Stop stop1;
+    private Stop stop2;
+    private Stop stop3;
+    private PublicTransport bus;
+
+    @org.junit.Before
+    public void setUp() throws Exception {
+        stop1 = new Stop("Stop 1", 0, 0);
+        stop2 = new Stop("Stop 2", 1, 0);
+        stop3 = new Stop("Stop 3", -1, 0);
+        Route route = new BusRoute("Blue", 1);
+        route.addStop(stop3);
+        route.addStop(stop1);
+        route.addStop(stop2);
+        bus = new Bus(1, 2, route, "ABC123");
+        route.addTransport(bus);
+    }
+
+    @org.junit.Test
+    public void waitingPassengersInOrder() {
+        Passenger a = new Passenger("A", stop2);
+        Passenger b = new Passenger("B", stop3);
+        Passenger c = new Passenger("C");
+        Passenger d = new Passenger("D", stop2);
+        for (Passenger passenger : new Passenger[] {a, b, c, d}) {
+            stop1.addPassenger(passenger);
+        }
+        assertEquals(Arrays.asList(a, b, c, d), stop1.getWaitingPassengers());
+    }
+
+    @org.junit.Test
+    public void departBoardsMatchingPassengers() {
+        Passenger a = new Passenger("A", stop2);
+        Passenger b = new Passenger("B", stop3);
+        Passenger c = new Passenger("C");
+        Passenger d = new Passenger("D", stop2);
+        Passenger e = new Passenger("E", stop2);
+        for (Passenger passenger : new Passenger[] {a, b, c, d, e}) {
+            stop1.addPassenger(passenger);
+        }
+        stop1.transportArrive(bus);
+        stop1.transportDepart(bus, stop2);
+
+        // The first two for stop 2 board, up to the capacity of the bus
+        assertEquals(Arrays.asList(a, d), bus.getPassengers());
+        assertEquals(Arrays.asList(b, c, e), stop1.getWaitingPassengers());
+        assertEquals(stop2, bus.getCurrentStop());
+        assertFalse(stop1.isAtStop(bus));
+
+        // The bus is no longer at the stop, so no one else boards
+        bus.unload();
+        stop1.transportDepart(bus, stop3);
+        assertEquals(0, bus.passengerCount());
+        assertEquals(Arrays.asList(b, c, e), stop1.getWaitingPassengers());
+    }
+
+    @org.junit.Test
+    public void arriveAndDepartAgain() {
+        stop1.addPassenger(new Passenger("A", stop2));
+        Passenger b = new Passenger("B", stop3);
+        stop1.addPassenger(b);
+        stop1.transportArrive(bus);
+        stop1.transportDepart(bus, stop2);
+        assertEquals(Arrays.asList(b), stop1.getWaitingPassengers());
+
+        // Passengers unloaded at a stop wait for their next stop
+        stop2.transportArrive(bus);
+        assertEquals(1, stop2.getWaitingPassengers().size());
+        stop1.transportArrive(bus);
+        stop1.transportDepart(bus, stop3);
+        assertEquals(Arrays.asList(b), bus.getPassengers());
+        assertTrue(stop1.getWaitingPassengers().isEmpty());
+    }
+}